@@ -0,0 +1,348 @@
+package com.xichen.wiki.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
+import com.xichen.wiki.event.EntityType;
+import com.xichen.wiki.util.ContentCodec;
+import com.xichen.wiki.util.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 文档两级缓存
+ *
+ * 读取顺序：进程内LRU缓存（条数有上限，短TTL）→ Redis（长TTL）→ 数据库。
+ * - 同一文档同时未命中时只有一个线程回源，其余线程等待它的结果（single-flight），热点文档过期时不会击穿数据库
+ * - 文档变更的事务提交后，删除本实例和Redis中的条目，并通过Redis发布订阅通知其他实例删除各自的进程内条目
+ * - 按文档ID分段记录失效代数，回源期间发生过失效的结果不写回缓存，避免旧数据覆盖新数据；
+ *   Redis中另记每篇文档的失效代数，回源前读取、写回时比较，其他实例在此期间提交的变更同样会阻止旧数据写回Redis
+ * - 返回的是缓存条目的副本，调用方可以随意修改
+ *
+ * Redis不可用时退化为只用进程内缓存；错过的失效通知由进程内缓存的短TTL兜底。
+ */
+@Slf4j
+@Component
+public class DocumentCache implements MessageListener {
+
+    /**
+     * 失效代数的分段数
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    /**
+     * Redis失效代数与回源前读到的一致时才写入：KEYS[1]-缓存键, KEYS[2]-代数键, ARGV-代数、数据、TTL（秒）
+     */
+    private static final RedisScript<Long> PUT_IF_CURRENT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) return 1 end return 0", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${document.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${document.cache.local.max-size:2000}")
+    private int localMaxSize;
+
+    @Value("${document.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${document.cache.redis.ttl-seconds:600}")
+    private long redisTtlSeconds;
+
+    /**
+     * 本实例标识，收到自己发出的失效通知时跳过
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Long, CompletableFuture<Document>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final AtomicLong localHits = new AtomicLong();
+
+    private final AtomicLong redisHits = new AtomicLong();
+
+    private final AtomicLong loads = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            redisMessageListenerContainer.addMessageListener(this,
+                    new ChannelTopic(RedisKeyUtil.getDocumentCacheInvalidateChannel()));
+        }
+    }
+
+    /**
+     * 读取文档，未命中时用 loader 从数据库加载
+     *
+     * @return 文档副本；文档不存在时返回null（不缓存）
+     */
+    public Document get(Long documentId, Function<Long, Document> loader) {
+        if (!enabled || documentId == null) {
+            return loader.apply(documentId);
+        }
+        Document cached = getLocal(documentId);
+        if (cached != null) {
+            localHits.incrementAndGet();
+            return copy(cached);
+        }
+
+        CompletableFuture<Document> mine = new CompletableFuture<>();
+        CompletableFuture<Document> running = loading.putIfAbsent(documentId, mine);
+        if (running != null) {
+            return copy(await(running));
+        }
+        try {
+            long generation = generation(documentId);
+            Document document = getRemote(documentId);
+            if (document != null) {
+                redisHits.incrementAndGet();
+            } else {
+                String remoteGeneration = remoteGeneration(documentId);
+                loads.incrementAndGet();
+                document = loader.apply(documentId);
+                if (document != null && remoteGeneration != null && generation(documentId) == generation) {
+                    putRemote(document, remoteGeneration);
+                }
+            }
+            if (document != null) {
+                putLocal(documentId, document, generation);
+            }
+            mine.complete(document);
+            return copy(document);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(documentId, mine);
+        }
+    }
+
+    /**
+     * 失效文档：删除本实例和Redis中的条目，并通知其他实例
+     */
+    public void invalidate(Long documentId) {
+        if (!enabled || documentId == null) {
+            return;
+        }
+        evictLocal(documentId);
+        try {
+            // 先推进代数再删除，正在回源的实例写回时比较代数会放弃写入
+            String generationKey = RedisKeyUtil.getDocumentCacheGenerationKey(documentId);
+            stringRedisTemplate.opsForValue().increment(generationKey);
+            stringRedisTemplate.expire(generationKey, redisTtlSeconds, TimeUnit.SECONDS);
+            stringRedisTemplate.delete(RedisKeyUtil.getDocumentCacheKey(documentId));
+            stringRedisTemplate.convertAndSend(RedisKeyUtil.getDocumentCacheInvalidateChannel(), nodeId + ":" + documentId);
+        } catch (RuntimeException e) {
+            log.warn("文档缓存失效通知失败：文档ID={}, 错误={}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * 文档变更的事务提交后失效缓存（无事务时立即执行）；标签关联变更不影响文档实体，忽略
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityType() == EntityType.DOCUMENT && event.getChangeType() != ChangeType.TAGS_RELINKED) {
+            invalidate(event.getEntityId());
+        }
+    }
+
+    /**
+     * 其他实例发来的失效通知，消息格式为 实例标识:文档ID
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0 || nodeId.equals(body.substring(0, separator))) {
+            return;
+        }
+        try {
+            evictLocal(Long.parseLong(body.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无效的文档缓存失效通知：{}", body);
+        }
+    }
+
+    /**
+     * 缓存统计：localSize-进程内条数, localHits-进程内命中, redisHits-Redis命中, loads-回源次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("localSize", entries.size());
+        }
+        stats.put("localMaxSize", localMaxSize);
+        stats.put("localHits", localHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("loads", loads.get());
+        return stats;
+    }
+
+    private Document getLocal(Long documentId) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(documentId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= now) {
+                entries.remove(documentId);
+                return null;
+            }
+            return entry.document;
+        }
+    }
+
+    private void putLocal(Long documentId, Document document, long generation) {
+        synchronized (entries) {
+            // 回源期间该文档被失效过，结果可能已过期，不写入
+            if (generation(documentId) != generation) {
+                return;
+            }
+            entries.put(documentId, new Entry(copy(document), System.currentTimeMillis() + localTtlSeconds * 1000));
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > localMaxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private void evictLocal(Long documentId) {
+        synchronized (entries) {
+            generations.incrementAndGet(stripe(documentId));
+            entries.remove(documentId);
+        }
+    }
+
+    /**
+     * 读取Redis中的条目：JSON按 {@link ContentCodec} 编码，大文档压缩存储
+     */
+    private Document getRemote(Long documentId) {
+        try {
+            String stored = stringRedisTemplate.opsForValue().get(RedisKeyUtil.getDocumentCacheKey(documentId));
+            return stored == null ? null : objectMapper.readValue(ContentCodec.decode(stored), Document.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("文档缓存数据无法解析，已忽略：文档ID={}, 错误={}", documentId, e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("读取文档缓存失败：文档ID={}, 错误={}", documentId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 回源前读取Redis中的失效代数，没有记录时为"0"；Redis不可用时返回null，本次不写回Redis
+     *
+     * 代数键的TTL与缓存条目相同，每次失效时续期；回源耗时远小于TTL，过期重建的代数不会与回源前读到的值相同
+     */
+    private String remoteGeneration(Long documentId) {
+        try {
+            String generation = stringRedisTemplate.opsForValue().get(RedisKeyUtil.getDocumentCacheGenerationKey(documentId));
+            return generation == null ? "0" : generation;
+        } catch (RuntimeException e) {
+            log.warn("读取文档缓存代数失败：文档ID={}, 错误={}", documentId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入Redis：回源期间有实例失效过该文档（代数已变）时放弃写入
+     */
+    private void putRemote(Document document, String generation) {
+        try {
+            String json = objectMapper.writeValueAsString(document);
+            stringRedisTemplate.execute(PUT_IF_CURRENT,
+                    List.of(RedisKeyUtil.getDocumentCacheKey(document.getId()),
+                            RedisKeyUtil.getDocumentCacheGenerationKey(document.getId())),
+                    generation, ContentCodec.encode(json), String.valueOf(redisTtlSeconds));
+        } catch (JsonProcessingException e) {
+            log.warn("文档缓存序列化失败：文档ID={}, 错误={}", document.getId(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("写入文档缓存失败：文档ID={}, 错误={}", document.getId(), e.getMessage());
+        }
+    }
+
+    private long generation(Long documentId) {
+        return generations.get(stripe(documentId));
+    }
+
+    private static int stripe(Long documentId) {
+        return (int) Math.floorMod(documentId, (long) GENERATION_STRIPES);
+    }
+
+    private static Document await(CompletableFuture<Document> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 浅拷贝：文档字段都是不可变类型，浅拷贝即可与缓存条目互不影响
+     */
+    private static Document copy(Document document) {
+        if (document == null) {
+            return null;
+        }
+        Document copy = new Document();
+        BeanUtils.copyProperties(document, copy);
+        return copy;
+    }
+
+    private static final class Entry {
+        final Document document;
+        final long expireAt;
+
+        Entry(Document document, long expireAt) {
+            this.document = document;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.xichen.wiki.common;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页结果
+ *
+ * 不返回总数，客户端以 nextCursor 请求下一页，hasMore 为false时表示已到末尾。
+ */
+@Data
+public class CursorPage<T> {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private Integer size;
+
+    /**
+     * 由多取一条的查询结果构造分页：rows 最多 size+1 条，多出的一条只用来判断是否还有下一页
+     *
+     * @param rows 按排序键取出的数据
+     * @param size 每页大小
+     * @param cursorOf 由当前页最后一条数据生成游标
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        CursorPage<T> page = new CursorPage<>();
+        boolean hasMore = rows.size() > size;
+        List<T> records = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore && !records.isEmpty() ? cursorOf.apply(records.get(records.size() - 1)) : null);
+        page.setSize(size);
+        return page;
+    }
+
+    /**
+     * 转换当前页数据，游标和分页信息保持不变
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        CursorPage<R> page = new CursorPage<>();
+        page.setRecords(records.stream().map(mapper).collect(Collectors.toList()));
+        page.setNextCursor(nextCursor);
+        page.setHasMore(hasMore);
+        page.setSize(size);
+        return page;
+    }
+}
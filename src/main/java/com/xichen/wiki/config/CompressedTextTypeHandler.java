@@ -0,0 +1,51 @@
+package com.xichen.wiki.config;
+
+import com.xichen.wiki.util.ContentCodec;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 压缩文本类型处理器
+ *
+ * 写入时按 {@link ContentCodec} 压缩大文本，读取时解压；只在查询选中该列时才会解压，
+ * 列表等不查内容的查询没有额外开销。需在实体上开启 autoResultMap 才会对查询结果生效。
+ */
+@MappedTypes(String.class)
+@MappedJdbcTypes(JdbcType.LONGVARCHAR)
+public class CompressedTextTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, ContentCodec.encode(parameter));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return decode(rs.getString(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return decode(rs.getString(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return decode(cs.getString(columnIndex));
+    }
+
+    private static String decode(String stored) throws SQLException {
+        try {
+            return ContentCodec.decode(stored);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("文本内容解码失败：" + e.getMessage(), e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.xichen.wiki.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -13,6 +15,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  * @author xichen
  * @since 2024-09-25
  */
+@Slf4j
 @Configuration
 public class RedisConfig {
 
@@ -55,4 +58,25 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+    
+    /**
+     * 发布订阅消息监听容器（文档缓存跨实例失效等）
+     *
+     * 启动时Redis不可用只记录日志，不阻止应用启动，由 {@link RedisListenerRecovery} 定时重新订阅
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void start() {
+                try {
+                    super.start();
+                } catch (RuntimeException e) {
+                    log.warn("Redis发布订阅启动失败，跨实例通知暂不可用，稍后重试：{}", e.getMessage());
+                }
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.xichen.wiki.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis发布订阅恢复
+ *
+ * 监听容器首次订阅失败后不会自行重试（连接建立后的断线由容器自己恢复），
+ * 这里定时检查，已启动但未在监听时重启容器重新订阅。
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+@Slf4j
+@Component
+public class RedisListenerRecovery {
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Scheduled(fixedDelayString = "${redis.listener.retry-interval-ms:10000}")
+    public void resubscribe() {
+        if (!redisMessageListenerContainer.isRunning() || redisMessageListenerContainer.isListening()) {
+            return;
+        }
+        redisMessageListenerContainer.stop();
+        redisMessageListenerContainer.start();
+        if (redisMessageListenerContainer.isListening()) {
+            log.info("Redis发布订阅已恢复");
+        }
+    }
+}
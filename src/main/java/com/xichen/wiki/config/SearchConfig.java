@@ -0,0 +1,90 @@
+package com.xichen.wiki.config;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.search.Bm25Similarity;
+import com.xichen.wiki.search.SimHasher;
+import com.xichen.wiki.search.SnippetGenerator;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 搜索配置类
+ */
+@Configuration
+public class SearchConfig {
+
+    @Value("${search.bm25.k1:1.2}")
+    private double k1;
+
+    @Value("${search.bm25.b:0.75}")
+    private double b;
+
+    @Value("${search.bm25.title-boost:3.0}")
+    private double titleBoost;
+
+    @Value("${search.snippet.fragment-size:120}")
+    private int snippetFragmentSize;
+
+    @Value("${search.dedup.min-features:20}")
+    private int dedupMinFeatures;
+
+    @Value("${search.parallel.threads:8}")
+    private int parallelThreads;
+
+    @Value("${search.parallel.queue-capacity:100}")
+    private int parallelQueueCapacity;
+
+    /**
+     * 搜索文本分析器：全角转半角、繁转简、CJK二元组分词、小写、停用词
+     */
+    @Bean
+    public Analyzer searchAnalyzer() {
+        return Analyzer.standard();
+    }
+
+    /**
+     * BM25相关度：标题字段加权
+     */
+    @Bean
+    public Bm25Similarity bm25Similarity() {
+        return new Bm25Similarity(k1, b, Map.of(SearchConstants.FIELD_TITLE, titleBoost));
+    }
+
+    /**
+     * 搜索摘要生成器：与索引共用分析器，保证摘要高亮与命中规则一致
+     */
+    @Bean
+    public SnippetGenerator snippetGenerator(Analyzer searchAnalyzer) {
+        return new SnippetGenerator(searchAnalyzer, snippetFragmentSize);
+    }
+
+    /**
+     * 文档SimHash指纹：与索引共用分析器，特征与检索词元一致
+     */
+    @Bean
+    public SimHasher simHasher(Analyzer searchAnalyzer) {
+        return new SimHasher(searchAnalyzer, dedupMinFeatures);
+    }
+
+    /**
+     * 搜索并行执行线程池：文档与电子书查询并发执行，线程数和队列均有上限，
+     * 队列满时由调用线程直接执行，形成背压
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelThreads);
+        executor.setMaxPoolSize(parallelThreads);
+        executor.setQueueCapacity(parallelQueueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
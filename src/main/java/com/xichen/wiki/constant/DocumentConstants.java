@@ -0,0 +1,45 @@
+package com.xichen.wiki.constant;
+
+/**
+ * 文档相关常量
+ * 
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class DocumentConstants {
+    
+    private DocumentConstants() {
+        // 工具类，禁止实例化
+    }
+    
+    // ==================== 版本存储方式 ====================
+    
+    /**
+     * 完整快照：content 为该版本的完整内容
+     */
+    public static final int VERSION_STORAGE_SNAPSHOT = 0;
+    
+    /**
+     * 增量：content 为相对上一版本的按行增量
+     */
+    public static final int VERSION_STORAGE_DELTA = 1;
+    
+    // ==================== 内容压缩存储 ====================
+    
+    /**
+     * 内容 UTF-8 字节数达到该值才压缩，短文档保持原文，数据库中可直接查看和检索
+     */
+    public static final int CONTENT_COMPRESS_MIN_BYTES = 8 * 1024;
+    
+    /**
+     * 内容 UTF-8 字节数达到该值时改用默认压缩级别，以更多CPU换取更高压缩率；此前使用最快级别
+     */
+    public static final int CONTENT_COMPRESS_HIGH_LEVEL_BYTES = 64 * 1024;
+    
+    // ==================== 列表摘要 ====================
+    
+    /**
+     * 列表摘要的最大字符数（文档正文、电子书描述保存时预先截取）
+     */
+    public static final int EXCERPT_LENGTH = 120;
+}
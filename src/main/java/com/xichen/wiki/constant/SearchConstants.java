@@ -0,0 +1,104 @@
+package com.xichen.wiki.constant;
+
+/**
+ * 搜索相关常量
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class SearchConstants {
+
+    private SearchConstants() {
+        // 工具类，禁止实例化
+    }
+
+    // ==================== 搜索类型 ====================
+
+    /**
+     * 全部类型
+     */
+    public static final String TYPE_ALL = "all";
+
+    /**
+     * 文档类型
+     */
+    public static final String TYPE_DOCUMENT = "document";
+
+    /**
+     * 电子书类型
+     */
+    public static final String TYPE_EBOOK = "ebook";
+
+    // ==================== 索引字段 ====================
+
+    /**
+     * 标题字段
+     */
+    public static final String FIELD_TITLE = "title";
+
+    /**
+     * 正文字段（文档内容 / 电子书描述）
+     */
+    public static final String FIELD_BODY = "body";
+
+    /**
+     * 作者字段（电子书）
+     */
+    public static final String FIELD_AUTHOR = "author";
+
+    /**
+     * 标签字段，只用于查询语法中的 tag: 限定，不进入倒排索引，由标签位图解析
+     */
+    public static final String FIELD_TAG = "tag";
+
+    // ==================== 电子书正文抽取状态 ====================
+
+    /**
+     * 待抽取
+     */
+    public static final int TEXT_STATUS_PENDING = 0;
+
+    /**
+     * 已抽取
+     */
+    public static final int TEXT_STATUS_DONE = 1;
+
+    /**
+     * 抽取失败
+     */
+    public static final int TEXT_STATUS_FAILED = 2;
+
+    /**
+     * 文件格式不支持抽取
+     */
+    public static final int TEXT_STATUS_UNSUPPORTED = 3;
+
+    // ==================== 热门搜索词时间窗口 ====================
+
+    /**
+     * 最近一小时
+     */
+    public static final String WINDOW_HOUR = "hour";
+
+    /**
+     * 最近一天
+     */
+    public static final String WINDOW_DAY = "day";
+
+    /**
+     * 最近一周
+     */
+    public static final String WINDOW_WEEK = "week";
+
+    // ==================== 标签匹配方式 ====================
+
+    /**
+     * 包含任一标签
+     */
+    public static final String TAG_MATCH_ANY = "any";
+
+    /**
+     * 包含全部标签
+     */
+    public static final String TAG_MATCH_ALL = "all";
+}
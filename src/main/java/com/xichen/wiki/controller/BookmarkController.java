@@ -1,6 +1,7 @@
 package com.xichen.wiki.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.common.Result;
 import com.xichen.wiki.dto.BatchDeleteBookmarkRequest;
 import com.xichen.wiki.dto.CreateBookmarkRequest;
@@ -19,6 +20,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -136,6 +138,29 @@ public class BookmarkController {
         }
     }
 
+    @Operation(summary = "游标分页获取用户书签列表", description = "按创建时间倒序滚动加载，不返回总数，适合深度翻页", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/scroll")
+    public Result<CursorPage<Bookmark>> scrollUserBookmarks(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size,
+            @Parameter(description = "电子书ID") @RequestParam(required = false) Long ebookId,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+
+        try {
+            return Result.success(bookmarkService.getUserBookmarksByCursor(userId, cursor, size, ebookId));
+        } catch (Exception e) {
+            log.error("获取书签列表失败：{}", e.getMessage());
+            return Result.error("获取书签列表失败：" + e.getMessage());
+        }
+    }
+
     @Operation(summary = "获取电子书书签", description = "获取指定电子书的所有书签", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/ebook/{ebookId}")
@@ -6,6 +6,7 @@ import com.xichen.wiki.dto.CreateCategoryRequest;
 import com.xichen.wiki.dto.UpdateCategoryRequest;
 import com.xichen.wiki.entity.Category;
 import com.xichen.wiki.service.CategoryService;
+import com.xichen.wiki.util.ETagUtil;
 import com.xichen.wiki.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
@@ -97,24 +99,34 @@ public class CategoryController {
         return Result.success(categories);
     }
 
-    @Operation(summary = "获取用户分类树", description = "获取用户的分类树结构", 
+    @Operation(summary = "获取用户分类树", description = "获取用户的分类树结构，支持 If-None-Match 条件请求", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/tree")
     public Result<List<Category>> getCategoryTree(
             @Parameter(description = "分类类型") @RequestParam @NotBlank String type,
-            HttpServletRequest httpRequest) {
+            HttpServletRequest httpRequest,
+            ServletWebRequest webRequest) {
         
         String token = httpRequest.getHeader("Authorization");
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
         
+        if (ETagUtil.checkNotModified(webRequest, categoryService.getCategoryTreeETag(userId, type))) {
+            return null;
+        }
+        
         List<Category> categories = categoryService.getCategoryTree(userId, type);
         return Result.success(categories);
     }
 
-    @Operation(summary = "获取公共分类树", description = "获取公共分类树结构")
+    @Operation(summary = "获取公共分类树", description = "获取公共分类树结构，支持 If-None-Match 条件请求")
     @GetMapping("/public/tree")
     public Result<List<Category>> getPublicCategoryTree(
-            @Parameter(description = "分类类型") @RequestParam @NotBlank String type) {
+            @Parameter(description = "分类类型") @RequestParam @NotBlank String type,
+            ServletWebRequest webRequest) {
+        
+        if (ETagUtil.checkNotModified(webRequest, categoryService.getPublicCategoryTreeETag(type))) {
+            return null;
+        }
         
         List<Category> categories = categoryService.getPublicCategoryTree(type);
         return Result.success(categories);
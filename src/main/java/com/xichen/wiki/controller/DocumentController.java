@@ -1,11 +1,17 @@
 package com.xichen.wiki.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.common.Result;
 import com.xichen.wiki.dto.CreateDocumentRequest;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.DuplicateDocument;
 import com.xichen.wiki.dto.UpdateDocumentRequest;
 import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.DocumentVersion;
 import com.xichen.wiki.service.DocumentService;
+import com.xichen.wiki.service.DocumentVersionService;
+import com.xichen.wiki.util.ETagUtil;
 import com.xichen.wiki.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,12 +20,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 文档控制器
@@ -34,6 +45,9 @@ public class DocumentController {
     @Autowired
     private DocumentService documentService;
     
+    @Autowired
+    private DocumentVersionService documentVersionService;
+    
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -58,10 +72,10 @@ public class DocumentController {
         return Result.success("创建成功", document);
     }
 
-    @Operation(summary = "获取文档列表", description = "分页获取用户的文档列表", 
+    @Operation(summary = "获取文档列表", description = "分页获取用户的文档列表，只返回摘要，不含正文", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping
-    public Result<Page<Document>> getDocuments(
+    public Result<Page<DocumentSummary>> getDocuments(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
             @Parameter(description = "分类ID") @RequestParam(required = false) Long categoryId,
@@ -71,21 +85,45 @@ public class DocumentController {
         String token = httpRequest.getHeader("Authorization");
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
         
-        Page<Document> documents = documentService.getUserDocuments(userId, page, size, keyword);
+        Page<DocumentSummary> documents = documentService.getUserDocuments(userId, page, size, keyword);
         return Result.success(documents);
     }
 
-    @Operation(summary = "获取文档详情", description = "根据ID获取文档详细信息", 
+    @Operation(summary = "游标分页获取文档列表", description = "按更新时间倒序滚动加载，不返回总数，适合深度翻页", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/scroll")
+    public Result<CursorPage<DocumentSummary>> scrollDocuments(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size,
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String keyword,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentService.getUserDocumentsByCursor(userId, cursor, size, keyword));
+    }
+
+    @Operation(summary = "获取文档详情", description = "根据ID获取文档详细信息，支持 If-None-Match 条件请求", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/{id}")
     public Result<Document> getDocumentDetail(
             @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
-            HttpServletRequest httpRequest) {
+            HttpServletRequest httpRequest,
+            ServletWebRequest webRequest) {
         
         String token = httpRequest.getHeader("Authorization");
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
         
+        // 文档未变化时直接返回304，不读取正文
+        if (ETagUtil.checkNotModified(webRequest, documentService.getDocumentETag(id, userId))) {
+            return null;
+        }
+        
         Document document = documentService.getDocumentDetail(id, userId);
+        // 详情可能来自缓存，ETag 以实际返回的版本为准，拿到旧副本的客户端下次请求会重新获取
+        webRequest.getResponse().setHeader(HttpHeaders.ETAG,
+                ETagUtil.document(document.getId(), document.getVersion(), document.getIsFavorite()));
         return Result.success(document);
     }
 
@@ -140,5 +178,85 @@ public class DocumentController {
         return Result.success("操作成功");
     }
 
+    @Operation(summary = "获取版本历史", description = "按版本号倒序列出文档的历史版本（不含内容）", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/{id}/versions")
+    public Result<List<DocumentVersion>> getVersions(
+            @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentVersionService.listVersions(id, userId));
+    }
+
+    @Operation(summary = "比较两个版本", description = "返回两个版本内容的统一格式差异", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/{id}/versions/diff")
+    public Result<Map<String, Object>> diffVersions(
+            @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
+            @Parameter(description = "起始版本号") @RequestParam @Min(1) Integer from,
+            @Parameter(description = "目标版本号") @RequestParam @Min(1) Integer to,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentVersionService.diffVersions(id, userId, from, to));
+    }
+
+    @Operation(summary = "获取历史版本", description = "获取指定版本的标题和完整内容", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/{id}/versions/{version}")
+    public Result<DocumentVersion> getVersion(
+            @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
+            @Parameter(description = "版本号") @PathVariable @Min(1) Integer version,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentVersionService.getVersion(id, userId, version));
+    }
+
+    @Operation(summary = "恢复历史版本", description = "以指定版本的标题和内容保存为新版本", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @PostMapping("/{id}/versions/{version}/restore")
+    public Result<Document> restoreVersion(
+            @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
+            @Parameter(description = "版本号") @PathVariable @Min(1) Integer version,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success("恢复成功", documentService.restoreVersion(id, userId, version));
+    }
+
+    @Operation(summary = "查找近似重复文档", description = "按正文SimHash指纹查找与该文档内容近似重复的文档", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/{id}/duplicates")
+    public Result<List<DuplicateDocument>> getNearDuplicates(
+            @Parameter(description = "文档ID") @PathVariable @NotNull Long id,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentService.getNearDuplicates(id, userId));
+    }
+
+    @Operation(summary = "近似重复文档分组", description = "把用户全部文档中内容近似重复的文档分组列出，便于合并清理", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/duplicates")
+    public Result<List<List<DuplicateDocument>>> getDuplicateGroups(HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        
+        return Result.success(documentService.getDuplicateGroups(userId));
+    }
+
 }
 
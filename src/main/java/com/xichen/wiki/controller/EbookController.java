@@ -1,11 +1,14 @@
 package com.xichen.wiki.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.common.Result;
+import com.xichen.wiki.dto.EbookSummary;
 import com.xichen.wiki.dto.ReadingProgressRequest;
 import com.xichen.wiki.dto.UpdateEbookRequest;
 import com.xichen.wiki.entity.Ebook;
 import com.xichen.wiki.service.EbookService;
+import com.xichen.wiki.util.ETagUtil;
 import com.xichen.wiki.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,9 +20,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -70,7 +75,7 @@ public class EbookController {
     @Operation(summary = "获取电子书列表", description = "分页获取用户的电子书列表", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping
-    public Result<Page<Ebook>> getEbooks(
+    public Result<Page<EbookSummary>> getEbooks(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
             @Parameter(description = "分类ID") @RequestParam(required = false) Long categoryId,
@@ -83,16 +88,35 @@ public class EbookController {
             return Result.error(401, "用户未登录");
         }
 
-        Page<Ebook> ebooks = ebookService.getUserEbooks(userId, page, size, keyword);
+        Page<EbookSummary> ebooks = ebookService.getUserEbooks(userId, page, size, keyword);
         return Result.success(ebooks);
     }
 
-    @Operation(summary = "获取电子书详情", description = "获取指定电子书的详细信息", 
+    @Operation(summary = "游标分页获取电子书列表", description = "按创建时间倒序滚动加载，不返回总数，适合深度翻页", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/scroll")
+    public Result<CursorPage<EbookSummary>> scrollEbooks(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size,
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String keyword,
+            HttpServletRequest request) {
+        
+        String token = request.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+
+        return Result.success(ebookService.getUserEbooksByCursor(userId, cursor, size, keyword));
+    }
+
+    @Operation(summary = "获取电子书详情", description = "获取指定电子书的详细信息，支持 If-None-Match 条件请求", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/{id}")
     public Result<Ebook> getEbookDetail(
             @Parameter(description = "电子书ID") @PathVariable @NotNull Long id,
-            HttpServletRequest httpRequest) {
+            HttpServletRequest httpRequest,
+            ServletWebRequest webRequest) {
         
         String token = httpRequest.getHeader("Authorization");
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
@@ -100,6 +124,11 @@ public class EbookController {
             return Result.error(401, "用户未登录");
         }
 
+        // 电子书未变化时直接返回304，不读取描述，也不计入查看次数
+        if (ETagUtil.checkNotModified(webRequest, ebookService.getEbookETag(id, userId))) {
+            return null;
+        }
+
         Ebook ebook = ebookService.getEbookDetail(id, userId);
         if (ebook == null) {
             return Result.error(404, "电子书不存在");
@@ -241,7 +270,7 @@ public class EbookController {
     @Operation(summary = "获取收藏的电子书", description = "获取用户收藏的电子书列表", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/favorites")
-    public Result<Page<Ebook>> getFavoriteEbooks(
+    public Result<Page<EbookSummary>> getFavoriteEbooks(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
             HttpServletRequest httpRequest) {
@@ -252,14 +281,14 @@ public class EbookController {
             return Result.error(401, "用户未登录");
         }
 
-        Page<Ebook> ebooks = ebookService.getFavoriteEbooks(userId, page, size);
+        Page<EbookSummary> ebooks = ebookService.getFavoriteEbooks(userId, page, size);
         return Result.success(ebooks);
     }
 
     @Operation(summary = "搜索电子书", description = "根据关键词搜索电子书", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/search")
-    public Result<Page<Ebook>> searchEbooks(
+    public Result<Page<EbookSummary>> searchEbooks(
             @Parameter(description = "搜索关键词") @RequestParam @NotBlank String keyword,
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
@@ -271,7 +300,7 @@ public class EbookController {
             return Result.error(401, "用户未登录");
         }
 
-        Page<Ebook> ebooks = ebookService.searchEbooks(keyword, userId, page, size);
+        Page<EbookSummary> ebooks = ebookService.searchEbooks(keyword, userId, page, size);
         return Result.success(ebooks);
     }
 
@@ -3,11 +3,13 @@ package com.xichen.wiki.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xichen.wiki.common.Result;
 import com.xichen.wiki.dto.AdvancedSearchRequest;
-import com.xichen.wiki.entity.Document;
-import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.EbookPageHit;
+import com.xichen.wiki.dto.EbookSummary;
 import com.xichen.wiki.service.SearchService;
 import com.xichen.wiki.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -18,8 +20,10 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -63,7 +67,7 @@ public class SearchController {
      * 1. 从JWT token中解析用户ID
      * 2. 调用搜索服务执行全局搜索（文档+电子书）
      * 3. 自动记录用户搜索历史用于个性化推荐
-     * 4. 返回搜索结果和分页信息
+     * 4. 返回按相关度合并排序的文档和电子书（results）及分页信息
      * 
      * 搜索范围：
      * - type="all": 搜索文档和电子书
@@ -75,7 +79,7 @@ public class SearchController {
      * @param type 搜索类型（all/document/ebook）
      * @param page 页码（从1开始）
      * @param size 每页大小
-     * @return 搜索结果，包含文档列表、电子书列表和分页信息
+     * @return 搜索结果，包含合并排序的结果列表和分页信息
      */
     @Operation(summary = "全局搜索", description = "搜索文档和电子书", 
                security = @SecurityRequirement(name = "Authorization"))
@@ -92,12 +96,9 @@ public class SearchController {
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
 
         try {
-            // 执行全局搜索
+            // 执行全局搜索（搜索服务内部已异步记录搜索历史）
             Map<String, Object> result = searchService.globalSearch(keyword, type, userId, page, size);
             
-            // 记录搜索历史，用于个性化推荐和搜索分析
-            searchService.recordSearchHistory(userId, keyword, type);
-            
             log.info("全局搜索成功：用户ID={}, 关键词={}, 类型={}, 页码={}", userId, keyword, type, page);
             return Result.success(result);
         } catch (Exception e) {
@@ -106,10 +107,43 @@ public class SearchController {
         }
     }
 
+    /**
+     * 游标分页全局搜索
+     * 
+     * 与全局搜索相同的相关度排序，但不使用页码：首次请求不传cursor，之后传入上一页返回的nextCursor，
+     * 每页只检索游标之后的命中，响应中不包含总数，hasMore为false表示已到末尾。
+     * 
+     * @param keyword 搜索关键词
+     * @param type 搜索类型（all/document/ebook）
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @return 搜索结果，results为游标分页结果
+     */
+    @Operation(summary = "游标分页全局搜索", description = "按相关度滚动加载搜索结果，不返回总数", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/scroll")
+    public Result<Map<String, Object>> scrollSearch(
+            @Parameter(description = "搜索关键词") @RequestParam @NotBlank String keyword,
+            @Parameter(description = "搜索类型") @RequestParam(defaultValue = "all") String type,
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+
+        try {
+            return Result.success(searchService.globalSearchByCursor(keyword, type, userId, cursor, size));
+        } catch (Exception e) {
+            log.error("游标分页搜索失败：用户ID={}, 关键词={}, 错误={}", userId, keyword, e.getMessage(), e);
+            return Result.error("搜索失败：" + e.getMessage());
+        }
+    }
+
     @Operation(summary = "搜索文档", description = "只搜索文档", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/documents")
-    public Result<Page<Document>> searchDocuments(
+    public Result<Page<DocumentSummary>> searchDocuments(
             @Parameter(description = "搜索关键词") @RequestParam @NotBlank String keyword,
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
@@ -119,7 +153,7 @@ public class SearchController {
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
 
         try {
-            Page<Document> documents = searchService.searchDocuments(keyword, userId, page, size);
+            Page<DocumentSummary> documents = searchService.searchDocuments(keyword, userId, page, size);
             return Result.success(documents);
         } catch (Exception e) {
             log.error("文档搜索失败：{}", e.getMessage());
@@ -130,7 +164,7 @@ public class SearchController {
     @Operation(summary = "搜索电子书", description = "只搜索电子书", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/ebooks")
-    public Result<Page<Ebook>> searchEbooks(
+    public Result<Page<EbookSummary>> searchEbooks(
             @Parameter(description = "搜索关键词") @RequestParam @NotBlank String keyword,
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) Integer size,
@@ -140,7 +174,7 @@ public class SearchController {
         Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
 
         try {
-            Page<Ebook> ebooks = searchService.searchEbooks(keyword, userId, page, size);
+            Page<EbookSummary> ebooks = searchService.searchEbooks(keyword, userId, page, size);
             return Result.success(ebooks);
         } catch (Exception e) {
             log.error("电子书搜索失败：{}", e.getMessage());
@@ -148,6 +182,26 @@ public class SearchController {
         }
     }
 
+    @Operation(summary = "搜索电子书正文", description = "在电子书正文中检索，返回命中页码和摘要，可直接跳转到对应页", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/ebook-pages")
+    public Result<List<EbookPageHit>> searchEbookPages(
+            @Parameter(description = "搜索关键词") @RequestParam @NotBlank String keyword,
+            @Parameter(description = "限定电子书ID，不传时检索全部电子书") @RequestParam(required = false) Long ebookId,
+            @Parameter(description = "返回条数") @RequestParam(defaultValue = "20") @Min(1) @Max(100) Integer limit,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+
+        try {
+            return Result.success(searchService.searchEbookPages(keyword, ebookId, userId, limit));
+        } catch (Exception e) {
+            log.error("电子书正文搜索失败：{}", e.getMessage());
+            return Result.error("电子书正文搜索失败：" + e.getMessage());
+        }
+    }
+
     @Operation(summary = "获取搜索建议", description = "根据输入获取搜索建议", 
                security = @SecurityRequirement(name = "Authorization"))
     @GetMapping("/suggestions")
@@ -169,13 +223,14 @@ public class SearchController {
         }
     }
 
-    @Operation(summary = "获取热门搜索词", description = "获取热门搜索关键词")
+    @Operation(summary = "获取热门搜索词", description = "获取最近一小时/一天/一周的热门搜索关键词")
     @GetMapping("/popular")
     public Result<List<String>> getPopularSearchTerms(
+            @Parameter(description = "时间窗口：hour/day/week") @RequestParam(defaultValue = "day") String window,
             @Parameter(description = "数量") @RequestParam(defaultValue = "10") @Min(1) Integer limit) {
         
         try {
-            List<String> popularTerms = searchService.getPopularSearchTerms(limit);
+            List<String> popularTerms = searchService.getPopularSearchTerms(window, limit);
             return Result.success(popularTerms);
         } catch (Exception e) {
             log.error("获取热门搜索词失败：{}", e.getMessage());
@@ -218,7 +273,19 @@ public class SearchController {
         }
     }
 
-    @Operation(summary = "高级搜索", description = "支持多条件的高级搜索", 
+    @Operation(summary = "获取搜索统计", description = "获取搜索结果缓存命中率、搜索历史队列和电子书正文抽取队列状态，用于容量调优", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> getSearchStatistics() {
+        try {
+            return Result.success(searchService.getSearchStatistics());
+        } catch (Exception e) {
+            log.error("获取搜索统计失败：{}", e.getMessage());
+            return Result.error("获取搜索统计失败：" + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "高级搜索", description = "支持多条件的高级搜索，关键词支持短语、AND/OR/NOT、title:/author:/tag: 字段限定和前缀通配", 
                security = @SecurityRequirement(name = "Authorization"))
     @PostMapping("/advanced")
     public Result<Map<String, Object>> advancedSearch(
@@ -232,7 +299,8 @@ public class SearchController {
                 request.getKeyword(),
                 request.getType(),
                 request.getCategoryId(),
-                null, // tagIds - 暂时设为null，因为AdvancedSearchRequest中没有tagIds字段
+                request.getTagIds(),
+                request.getTagMatch(),
                 request.getSortBy(),
                 request.getSortOrder(),
                 userId,
@@ -246,4 +314,30 @@ public class SearchController {
         }
     }
 
+    @Operation(summary = "导出高级搜索结果", description = "按高级搜索条件导出全部结果，以 NDJSON（每行一个JSON对象）流式返回，不分页、不含文档正文", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @PostMapping("/advanced/export")
+    public void exportAdvancedSearch(
+            @Valid @RequestBody AdvancedSearchRequest request,
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) throws IOException {
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+
+        httpResponse.setContentType("application/x-ndjson");
+        httpResponse.setCharacterEncoding("UTF-8");
+        httpResponse.setHeader("Content-Disposition", "attachment; filename=\"search-export.ndjson\"");
+        // 逐行写出并分段刷新，响应以 chunked 方式发送，不在服务端缓冲全部结果
+        searchService.exportAdvancedSearch(
+                request.getKeyword(),
+                request.getType(),
+                request.getCategoryId(),
+                request.getTagIds(),
+                request.getTagMatch(),
+                request.getSortBy(),
+                request.getSortOrder(),
+                userId,
+                httpResponse.getOutputStream());
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.xichen.wiki.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.common.Result;
 import com.xichen.wiki.dto.BatchDeleteRequest;
 import com.xichen.wiki.dto.CreateTagRequest;
@@ -18,6 +19,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -131,6 +133,29 @@ public class TagController {
         }
     }
 
+    @Operation(summary = "游标分页获取用户标签列表", description = "按使用次数、创建时间倒序滚动加载，不返回总数", 
+               security = @SecurityRequirement(name = "Authorization"))
+    @GetMapping("/scroll")
+    public Result<CursorPage<Tag>> scrollUserTags(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size,
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String keyword,
+            HttpServletRequest httpRequest) {
+        
+        String token = httpRequest.getHeader("Authorization");
+        Long userId = jwtUtil.getUserIdFromAuthorizationHeader(token);
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+
+        try {
+            return Result.success(tagService.getUserTagsByCursor(userId, cursor, size, keyword));
+        } catch (Exception e) {
+            log.error("获取标签列表失败：{}", e.getMessage());
+            return Result.error("获取标签列表失败：" + e.getMessage());
+        }
+    }
+
     @Operation(summary = "获取公共标签列表", description = "获取所有用户都可以使用的公共标签")
     @GetMapping("/public")
     public Result<Page<Tag>> getPublicTags(
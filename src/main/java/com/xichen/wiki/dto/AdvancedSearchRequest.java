@@ -10,6 +10,7 @@ import lombok.Data;
  * - 关键词搜索
  * - 类型筛选（文档/电子书/全部）
  * - 分类筛选
+ * - 标签筛选（任一/全部）
  * - 时间范围筛选
  * - 排序方式设置
  * 
@@ -20,7 +21,9 @@ import lombok.Data;
 public class AdvancedSearchRequest {
     
     /**
-     * 搜索关键词（必填）
+     * 搜索关键词（必填），支持查询语法：
+     * 引号短语 "spring boot"、AND/OR/NOT（或 +/- 前缀）、括号分组、
+     * 字段限定 title:/author:/tag:、前缀通配 spr*
      */
     @NotBlank(message = "搜索关键词不能为空")
     private String keyword;
@@ -35,6 +38,16 @@ public class AdvancedSearchRequest {
      */
     private Long categoryId;
     
+    /**
+     * 标签ID，用于按标签筛选
+     */
+    private Long[] tagIds;
+    
+    /**
+     * 标签匹配方式：any-包含任一标签, all-包含全部标签，默认any
+     */
+    private String tagMatch;
+    
     /**
      * 开始日期，格式：yyyy-MM-dd
      */
@@ -46,7 +59,7 @@ public class AdvancedSearchRequest {
     private String endDate;
     
     /**
-     * 排序字段：title-标题, created_at-创建时间, updated_at-更新时间
+     * 排序字段：title-标题, created_at-创建时间, updated_at-更新时间, relevance-相关度
      */
     private String sortBy;
     
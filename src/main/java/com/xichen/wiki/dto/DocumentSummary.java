@@ -0,0 +1,74 @@
+package com.xichen.wiki.dto;
+
+import com.xichen.wiki.entity.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档列表项（不含正文）
+ *
+ * 列表、搜索接口只返回摘要信息，完整正文通过文档详情接口获取
+ */
+@Data
+public class DocumentSummary {
+
+    /**
+     * 文档ID
+     */
+    private Long id;
+
+    /**
+     * 文档标题
+     */
+    private String title;
+
+    /**
+     * 正文摘要
+     */
+    private String excerpt;
+
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 是否收藏
+     */
+    private Boolean isFavorite;
+
+    /**
+     * 版本号
+     */
+    private Integer version;
+
+    /**
+     * 字数统计
+     */
+    private Integer wordCount;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    public static DocumentSummary of(Document document) {
+        DocumentSummary summary = new DocumentSummary();
+        summary.setId(document.getId());
+        summary.setTitle(document.getTitle());
+        summary.setExcerpt(document.getExcerpt());
+        summary.setCategoryId(document.getCategoryId());
+        summary.setIsFavorite(document.getIsFavorite());
+        summary.setVersion(document.getVersion());
+        summary.setWordCount(document.getWordCount());
+        summary.setCreatedAt(document.getCreatedAt());
+        summary.setUpdatedAt(document.getUpdatedAt());
+        return summary;
+    }
+}
@@ -0,0 +1,41 @@
+package com.xichen.wiki.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 近似重复文档
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateDocument {
+
+    /**
+     * 文档ID
+     */
+    private Long id;
+
+    /**
+     * 文档标题
+     */
+    private String title;
+
+    /**
+     * 字数统计
+     */
+    private Integer wordCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * 与参照文档指纹的汉明距离（0~5），越小越相近；参照文档自身为0
+     */
+    private Integer distance;
+}
@@ -0,0 +1,42 @@
+package com.xichen.wiki.dto;
+
+import com.xichen.wiki.search.Snippet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 电子书正文检索命中页
+ *
+ * 客户端按 ebookId + pageNumber 直接跳转到命中页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EbookPageHit {
+
+    /**
+     * 电子书ID
+     */
+    private Long ebookId;
+
+    /**
+     * 电子书标题
+     */
+    private String ebookTitle;
+
+    /**
+     * 页码，从1开始；EPUB/TXT 按固定字数分页
+     */
+    private Integer pageNumber;
+
+    /**
+     * 相关度得分
+     */
+    private Double score;
+
+    /**
+     * 命中摘要
+     */
+    private Snippet snippet;
+}
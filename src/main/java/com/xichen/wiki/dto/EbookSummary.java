@@ -0,0 +1,134 @@
+package com.xichen.wiki.dto;
+
+import com.xichen.wiki.entity.Ebook;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 电子书列表项（不含完整描述）
+ *
+ * 列表、搜索接口只返回描述摘要，完整描述通过电子书详情接口获取
+ */
+@Data
+public class EbookSummary {
+
+    /**
+     * 电子书ID
+     */
+    private Long id;
+
+    /**
+     * 书名
+     */
+    private String title;
+
+    /**
+     * 作者
+     */
+    private String author;
+
+    /**
+     * 描述摘要
+     */
+    private String excerpt;
+
+    /**
+     * 文件访问URL
+     */
+    private String fileUrl;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 封面图片存储键
+     */
+    private String coverKey;
+
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 是否收藏
+     */
+    private Boolean isFavorite;
+
+    /**
+     * 查看次数
+     */
+    private Integer viewCount;
+
+    /**
+     * 总页数
+     */
+    private Integer totalPages;
+
+    /**
+     * 当前页数
+     */
+    private Integer currentPage;
+
+    /**
+     * 阅读进度百分比
+     */
+    private Double readingProgress;
+
+    /**
+     * 最后阅读日期
+     */
+    private LocalDateTime lastReadDate;
+
+    /**
+     * 正文抽取状态：0-待抽取，1-已抽取，2-抽取失败，3-格式不支持
+     */
+    private Integer textStatus;
+
+    /**
+     * 上传日期
+     */
+    private LocalDateTime uploadDate;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    public static EbookSummary of(Ebook ebook) {
+        EbookSummary summary = new EbookSummary();
+        summary.setId(ebook.getId());
+        summary.setTitle(ebook.getTitle());
+        summary.setAuthor(ebook.getAuthor());
+        summary.setExcerpt(ebook.getExcerpt());
+        summary.setFileUrl(ebook.getFileUrl());
+        summary.setFileSize(ebook.getFileSize());
+        summary.setCoverKey(ebook.getCoverKey());
+        summary.setCategoryId(ebook.getCategoryId());
+        summary.setCategory(ebook.getCategory());
+        summary.setIsFavorite(ebook.getIsFavorite());
+        summary.setViewCount(ebook.getViewCount());
+        summary.setTotalPages(ebook.getTotalPages());
+        summary.setCurrentPage(ebook.getCurrentPage());
+        summary.setReadingProgress(ebook.getReadingProgress());
+        summary.setLastReadDate(ebook.getLastReadDate());
+        summary.setTextStatus(ebook.getTextStatus());
+        summary.setUploadDate(ebook.getUploadDate());
+        summary.setCreatedAt(ebook.getCreatedAt());
+        summary.setUpdatedAt(ebook.getUpdatedAt());
+        return summary;
+    }
+}
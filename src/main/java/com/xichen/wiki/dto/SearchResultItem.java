@@ -0,0 +1,59 @@
+package com.xichen.wiki.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.search.Snippet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 全局搜索结果项
+ *
+ * 文档和电子书按相关度合并为一个排序列表，每项只填充与 type 对应的资源字段。
+ * 文档不返回正文，只返回命中摘要；同一页内的近似重复文档折叠到排名最高的一篇上
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchResultItem {
+
+    /**
+     * 资源类型：document-文档, ebook-电子书
+     */
+    private String type;
+
+    /**
+     * 资源ID
+     */
+    private Long id;
+
+    /**
+     * 相关度得分
+     */
+    private Double score;
+
+    /**
+     * 命中摘要：文档取自正文，电子书取自简介
+     */
+    private Snippet snippet;
+
+    /**
+     * 文档（type=document时，不含正文）
+     */
+    private Document document;
+
+    /**
+     * 电子书（type=ebook时）
+     */
+    private Ebook ebook;
+
+    /**
+     * 折叠到本项下的近似重复文档ID（type=document且有折叠时）
+     */
+    private List<Long> duplicateIds;
+}
@@ -1,6 +1,7 @@
 package com.xichen.wiki.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.xichen.wiki.config.CompressedTextTypeHandler;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -11,7 +12,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @EqualsAndHashCode(callSuper = false)
-@TableName("documents")
+@TableName(value = "documents", autoResultMap = true)
 public class Document {
 
     /**
@@ -27,9 +28,9 @@ public class Document {
     private String title;
 
     /**
-     * 文档内容
+     * 文档内容，大文本压缩存储，读写时透明编解码
      */
-    @TableField("content")
+    @TableField(value = "content", typeHandler = CompressedTextTypeHandler.class)
     private String content;
 
     /**
@@ -62,6 +63,18 @@ public class Document {
     @TableField("word_count")
     private Integer wordCount;
 
+    /**
+     * 列表摘要：正文开头一段纯文本，保存时生成
+     */
+    @TableField("excerpt")
+    private String excerpt;
+
+    /**
+     * 正文SimHash指纹，用于近似重复检测：null-未计算，0-正文过短不参与
+     */
+    @TableField("simhash")
+    private Long simhash;
+
     /**
      * 创建时间
      */
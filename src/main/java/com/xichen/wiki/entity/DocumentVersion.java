@@ -0,0 +1,71 @@
+package com.xichen.wiki.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档版本实体类
+ *
+ * 每次保存文档记录一个版本。多数版本只存相对上一版本的增量，定期存一次完整快照，
+ * 还原任一版本最多从最近的快照开始依次应用有限个增量。
+ */
+@Data
+@TableName("document_versions")
+public class DocumentVersion {
+
+    /**
+     * 版本记录ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 文档ID
+     */
+    @TableField("document_id")
+    private Long documentId;
+
+    /**
+     * 版本号，与文档的 version 一致
+     */
+    @TableField("version")
+    private Integer version;
+
+    /**
+     * 该版本的标题
+     */
+    @TableField("title")
+    private String title;
+
+    /**
+     * 存储的内容：完整快照为文档内容，增量为相对上一版本的增量；查询接口返回时为还原后的完整内容
+     */
+    @TableField("content")
+    private String content;
+
+    /**
+     * 存储方式：0-完整快照，1-增量
+     */
+    @TableField("storage_type")
+    private Integer storageType;
+
+    /**
+     * 距最近一个完整快照的增量个数，快照为0
+     */
+    @TableField("chain_length")
+    private Integer chainLength;
+
+    /**
+     * 还原后的内容长度
+     */
+    @TableField("content_length")
+    private Integer contentLength;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -68,6 +68,12 @@ public class Ebook {
     @TableField("description")
     private String description;
 
+    /**
+     * 列表摘要：描述开头一段纯文本，保存时生成
+     */
+    @TableField("excerpt")
+    private String excerpt;
+
     /**
      * 用户ID
      */
@@ -127,6 +133,12 @@ public class Ebook {
      */
     @TableField("last_read_page")
     private Integer lastReadPage;
+
+    /**
+     * 正文抽取状态：0-待抽取，1-已抽取，2-抽取失败，3-格式不支持
+     */
+    @TableField("text_status")
+    private Integer textStatus;
     
 
     /**
@@ -0,0 +1,58 @@
+package com.xichen.wiki.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 电子书正文页实体类
+ *
+ * 由电子书文件按页抽取，仅用于正文检索，页码与书签、阅读进度的页码一致
+ */
+@Data
+@TableName("ebook_pages")
+public class EbookPage {
+
+    /**
+     * 页ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 电子书ID
+     */
+    @TableField("ebook_id")
+    private Long ebookId;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 页码，从1开始
+     */
+    @TableField("page_number")
+    private Integer pageNumber;
+
+    /**
+     * 该页正文
+     */
+    @TableField("content")
+    private String content;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 检索相关度，仅查询结果使用
+     */
+    @TableField(exist = false)
+    private Double score;
+}
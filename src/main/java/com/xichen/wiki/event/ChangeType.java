@@ -0,0 +1,32 @@
+package com.xichen.wiki.event;
+
+/**
+ * 变更类型
+ */
+public enum ChangeType {
+
+    /**
+     * 新建
+     */
+    CREATED,
+
+    /**
+     * 修改
+     */
+    UPDATED,
+
+    /**
+     * 删除
+     */
+    DELETED,
+
+    /**
+     * 文档的标签关联被整体替换
+     */
+    TAGS_RELINKED,
+
+    /**
+     * 只修改了不参与搜索的状态字段（收藏、阅读进度），搜索派生数据和搜索结果缓存不需要更新
+     */
+    STATE_UPDATED
+}
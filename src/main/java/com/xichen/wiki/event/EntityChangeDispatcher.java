@@ -0,0 +1,191 @@
+package com.xichen.wiki.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实体变更事件分发器
+ *
+ * 事务提交后接收事件（无事务时立即接收），按实体类型+ID哈希到固定的分片队列，
+ * 每个分片一个投递线程，批量取出事件后依次交给各订阅方。同一实体总是落在同一分片，
+ * 因此投递顺序与发布顺序一致。队列满时发布方最多等待 event.dispatch.offer-timeout-ms，
+ * 仍放不进去就丢弃该事件并通知各订阅方（{@link EntityChangeListener#onOverflow}），
+ * 由订阅方让相关派生数据失效后按数据库重新加载，不会无限期阻塞提交事务的业务线程。
+ */
+@Slf4j
+@Component
+public class EntityChangeDispatcher {
+
+    @Autowired(required = false)
+    private List<EntityChangeListener> listeners = new ArrayList<>();
+
+    @Value("${event.dispatch.threads:4}")
+    private int threads;
+
+    @Value("${event.dispatch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${event.dispatch.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 队列满时发布方最多等待的时间（毫秒）
+     */
+    @Value("${event.dispatch.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    private List<BlockingQueue<EntityChangeEvent>> queues;
+
+    private List<Thread> workers;
+
+    private volatile boolean running;
+
+    private final AtomicLong published = new AtomicLong();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queues = new ArrayList<>(threads);
+        workers = new ArrayList<>(threads);
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<EntityChangeEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> drainLoop(queue), "entity-change-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // 投递线程退出后把剩余事件投递完
+        List<EntityChangeEvent> batch = new ArrayList<>();
+        for (BlockingQueue<EntityChangeEvent> queue : queues) {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                deliver(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 接收已提交的事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommitted(EntityChangeEvent event) {
+        BlockingQueue<EntityChangeEvent> queue = queues.get(shard(event));
+        try {
+            if (!queue.offer(event)) {
+                log.warn("实体变更队列已满，等待投递线程消费：事件={}, 队列容量={}", event, queueCapacity);
+                if (!queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    overflow(event);
+                    return;
+                }
+            }
+            published.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            overflow(event);
+        }
+    }
+
+    /**
+     * 丢弃无法入队的事件，通知各订阅方让相关派生数据失效
+     */
+    private void overflow(EntityChangeEvent event) {
+        dropped.incrementAndGet();
+        log.error("实体变更事件未能入队，已丢弃并通知订阅方重新加载：事件={}, 队列容量={}", event, queueCapacity);
+        for (EntityChangeListener listener : listeners) {
+            try {
+                listener.onOverflow(event);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("实体变更订阅方处理丢弃事件失败：订阅方={}, 事件={}", listener.getClass().getSimpleName(), event, e);
+            }
+        }
+    }
+
+    /**
+     * 分发器统计：published-入队数, delivered-已投递数, failed-订阅方处理失败次数, dropped-队列满被丢弃数,
+     * pending-队列中待投递数
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("published", published.get());
+        stats.put("delivered", delivered.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("pending", queues.stream().mapToLong(BlockingQueue::size).sum());
+        return stats;
+    }
+
+    private int shard(EntityChangeEvent event) {
+        return Math.floorMod(Objects.hash(event.getEntityType(), event.getEntityId()), queues.size());
+    }
+
+    private void drainLoop(BlockingQueue<EntityChangeEvent> queue) {
+        List<EntityChangeEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                EntityChangeEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 把一批事件依次交给各订阅方，单个订阅方失败不影响其他订阅方
+     */
+    private void deliver(List<EntityChangeEvent> batch) {
+        List<EntityChangeEvent> events = List.copyOf(batch);
+        for (EntityChangeListener listener : listeners) {
+            try {
+                listener.onChanges(events);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("实体变更订阅方处理失败：订阅方={}, 事件数={}", listener.getClass().getSimpleName(), events.size(), e);
+            }
+        }
+        delivered.addAndGet(events.size());
+    }
+}
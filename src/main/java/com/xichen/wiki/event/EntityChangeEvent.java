@@ -0,0 +1,80 @@
+package com.xichen.wiki.event;
+
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.Tag;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 实体变更事件
+ *
+ * 由业务服务在写操作中发布，事务提交后才会投递给订阅方；事务回滚时事件随之丢弃。
+ * 新建和修改事件携带写入后的实体，删除事件只携带ID。
+ */
+@Getter
+@ToString(exclude = "entity")
+public class EntityChangeEvent {
+
+    private final EntityType entityType;
+
+    private final ChangeType changeType;
+
+    private final Long userId;
+
+    private final Long entityId;
+
+    /**
+     * 写入后的实体（Document / Ebook / Tag），删除和标签关联事件为null
+     */
+    private final Object entity;
+
+    /**
+     * 文档的新标签ID，仅 TAGS_RELINKED 事件有值
+     */
+    private final Long[] tagIds;
+
+    private EntityChangeEvent(EntityType entityType, ChangeType changeType, Long userId, Long entityId,
+                              Object entity, Long[] tagIds) {
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.userId = userId;
+        this.entityId = entityId;
+        this.entity = entity;
+        this.tagIds = tagIds;
+    }
+
+    public static EntityChangeEvent document(ChangeType changeType, Document document) {
+        return new EntityChangeEvent(EntityType.DOCUMENT, changeType, document.getUserId(), document.getId(), document, null);
+    }
+
+    public static EntityChangeEvent documentDeleted(Long userId, Long documentId) {
+        return new EntityChangeEvent(EntityType.DOCUMENT, ChangeType.DELETED, userId, documentId, null, null);
+    }
+
+    public static EntityChangeEvent documentTagsRelinked(Long userId, Long documentId, Long[] tagIds) {
+        return new EntityChangeEvent(EntityType.DOCUMENT, ChangeType.TAGS_RELINKED, userId, documentId, null,
+                tagIds == null ? new Long[0] : tagIds.clone());
+    }
+
+    public static EntityChangeEvent ebook(ChangeType changeType, Ebook ebook) {
+        return new EntityChangeEvent(EntityType.EBOOK, changeType, ebook.getUserId(), ebook.getId(), ebook, null);
+    }
+
+    public static EntityChangeEvent ebookDeleted(Long userId, Long ebookId) {
+        return new EntityChangeEvent(EntityType.EBOOK, ChangeType.DELETED, userId, ebookId, null, null);
+    }
+
+    public static EntityChangeEvent tag(ChangeType changeType, Tag tag) {
+        return new EntityChangeEvent(EntityType.TAG, changeType, tag.getUserId(), tag.getId(), tag, null);
+    }
+
+    public static EntityChangeEvent tagDeleted(Long userId, Long tagId) {
+        return new EntityChangeEvent(EntityType.TAG, ChangeType.DELETED, userId, tagId, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getEntity() {
+        return (T) entity;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xichen.wiki.event;
+
+import java.util.List;
+
+/**
+ * 实体变更订阅方
+ *
+ * 实现类注册为Spring Bean即可接收事件。事件按批投递，同一实体的事件在批内和批间都保持发布顺序；
+ * 不同实体的事件可能在不同线程上并发投递，实现类需保证线程安全。
+ */
+public interface EntityChangeListener {
+
+    /**
+     * 处理一批已提交的变更
+     *
+     * @param events 按发布顺序排列的事件
+     */
+    void onChanges(List<EntityChangeEvent> events);
+
+    /**
+     * 事件因队列持续已满被丢弃时调用（在发布方线程上执行，应尽快返回）
+     *
+     * 订阅方收不到这个事件，增量维护的派生数据会与数据库不一致，应把相关数据标记为失效，由下次使用时重新加载
+     */
+    default void onOverflow(EntityChangeEvent event) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.xichen.wiki.event;
+
+/**
+ * 发生变更的实体类型
+ */
+public enum EntityType {
+
+    DOCUMENT,
+
+    EBOOK,
+
+    TAG
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xichen.wiki.entity.DocumentTag;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
@@ -27,4 +28,12 @@ public interface DocumentTagMapper extends BaseMapper<DocumentTag> {
      * 批量插入文档标签关联
      */
     int batchInsert(@Param("documentTags") List<DocumentTag> documentTags);
+
+    /**
+     * 查询用户所有未删除文档的标签关联
+     */
+    @Select("SELECT dt.document_id, dt.tag_id FROM document_tags dt "
+            + "INNER JOIN documents d ON d.id = dt.document_id "
+            + "WHERE d.user_id = #{userId} AND d.deleted = 0")
+    List<DocumentTag> selectByUserId(@Param("userId") Long userId);
 }
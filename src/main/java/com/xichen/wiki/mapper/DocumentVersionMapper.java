@@ -0,0 +1,12 @@
+package com.xichen.wiki.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xichen.wiki.entity.DocumentVersion;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 文档版本Mapper接口
+ */
+@Mapper
+public interface DocumentVersionMapper extends BaseMapper<DocumentVersion> {
+}
@@ -1,13 +1,69 @@
 package com.xichen.wiki.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.search.SearchHit;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 电子书Mapper接口
  */
 @Mapper
 public interface EbookMapper extends BaseMapper<Ebook> {
-}
 
+    /**
+     * 游标条件：只保留按（得分, 排序时间, ID）降序排在 after 之后的命中，after 需先经 {@link SearchHit#seekPoint} 换算
+     */
+    String AFTER_HIT = "<if test='after != null'>HAVING score &lt; #{after.score} OR (score = #{after.score} "
+            + "AND (sort_time &lt; #{after.sortTime} OR (sort_time = #{after.sortTime} AND id &lt; #{after.id}))) </if>";
+
+    /**
+     * 全文检索（FULLTEXT idx_ebook_content，ngram解析器），按 {@link SearchHit#RANKING} 的顺序（相关度降序）
+     *
+     * @param userId 用户ID
+     * @param keyword 检索表达式，布尔模式下需调用方预先构造
+     * @param booleanMode 是否使用布尔模式，否则为自然语言模式
+     * @param after 游标，为null时从头开始，见 {@link #AFTER_HIT}
+     * @param limit 最大命中数
+     */
+    @Select("<script>"
+            + "SELECT 'ebook' AS type, id, "
+            + "MATCH(title, author, description) AGAINST(#{keyword} <choose><when test='booleanMode'>IN BOOLEAN MODE</when><otherwise>IN NATURAL LANGUAGE MODE</otherwise></choose>) AS score, "
+            + "UNIX_TIMESTAMP(created_at) * 1000 AS sort_time "
+            + "FROM ebooks "
+            + "WHERE user_id = #{userId} AND deleted = 0 "
+            + "AND MATCH(title, author, description) AGAINST(#{keyword} <choose><when test='booleanMode'>IN BOOLEAN MODE</when><otherwise>IN NATURAL LANGUAGE MODE</otherwise></choose>) "
+            + AFTER_HIT
+            + "ORDER BY score DESC, sort_time DESC, id DESC LIMIT #{limit}"
+            + "</script>")
+    List<SearchHit> fulltextSearch(@Param("userId") Long userId, @Param("keyword") String keyword,
+                                   @Param("booleanMode") boolean booleanMode, @Param("after") SearchHit after,
+                                   @Param("limit") int limit);
+
+    /**
+     * 全文检索的命中总数，条件与 {@link #fulltextSearch} 相同
+     */
+    @Select("<script>"
+            + "SELECT COUNT(*) FROM ebooks "
+            + "WHERE user_id = #{userId} AND deleted = 0 "
+            + "AND MATCH(title, author, description) AGAINST(#{keyword} <choose><when test='booleanMode'>IN BOOLEAN MODE</when><otherwise>IN NATURAL LANGUAGE MODE</otherwise></choose>)"
+            + "</script>")
+    long fulltextCount(@Param("userId") Long userId, @Param("keyword") String keyword,
+                       @Param("booleanMode") boolean booleanMode);
+
+    /**
+     * 高级搜索分面：符合条件的电子书按分类和创建年份分组计数，各组合计即总数
+     *
+     * 自定义SQL不会自动追加逻辑删除条件，调用方需在条件中带上 deleted = 0，且条件中不能带排序
+     */
+    @Select("SELECT category_id AS categoryId, YEAR(created_at) AS createdYear, COUNT(*) AS total "
+            + "FROM ebooks ${ew.customSqlSegment} GROUP BY category_id, YEAR(created_at)")
+    List<Map<String, Object>> countFacets(@Param(Constants.WRAPPER) Wrapper<Ebook> wrapper);
+}
@@ -0,0 +1,57 @@
+package com.xichen.wiki.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xichen.wiki.entity.EbookPage;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 电子书正文页Mapper接口
+ */
+@Mapper
+public interface EbookPageMapper extends BaseMapper<EbookPage> {
+
+    /**
+     * 批量插入正文页
+     */
+    @Insert("<script>"
+            + "INSERT INTO ebook_pages (ebook_id, user_id, page_number, content) VALUES "
+            + "<foreach collection='pages' item='page' separator=','>"
+            + "(#{page.ebookId}, #{page.userId}, #{page.pageNumber}, #{page.content})"
+            + "</foreach>"
+            + "</script>")
+    int batchInsert(@Param("pages") List<EbookPage> pages);
+
+    /**
+     * 删除电子书的全部正文页
+     */
+    @Delete("DELETE FROM ebook_pages WHERE ebook_id = #{ebookId}")
+    int deleteByEbookId(@Param("ebookId") Long ebookId);
+
+    /**
+     * 正文全文检索（FULLTEXT idx_page_content，ngram解析器，布尔模式），按相关度降序
+     *
+     * @param userId 用户ID
+     * @param keyword 布尔模式检索表达式，需调用方预先构造
+     * @param ebookId 限定电子书，为null时检索用户的全部电子书
+     * @param maxChars 每页最多返回的正文长度，用于生成摘要
+     * @param limit 最大命中数
+     */
+    @Select("<script>"
+            + "SELECT p.ebook_id, p.page_number, LEFT(p.content, #{maxChars}) AS content, "
+            + "MATCH(p.content) AGAINST(#{keyword} IN BOOLEAN MODE) AS score "
+            + "FROM ebook_pages p INNER JOIN ebooks e ON e.id = p.ebook_id AND e.deleted = 0 "
+            + "WHERE p.user_id = #{userId} "
+            + "<if test='ebookId != null'>AND p.ebook_id = #{ebookId} </if>"
+            + "AND MATCH(p.content) AGAINST(#{keyword} IN BOOLEAN MODE) "
+            + "ORDER BY score DESC, p.ebook_id DESC, p.page_number LIMIT #{limit}"
+            + "</script>")
+    List<EbookPage> fulltextSearch(@Param("userId") Long userId, @Param("keyword") String keyword,
+                                   @Param("ebookId") Long ebookId, @Param("maxChars") int maxChars,
+                                   @Param("limit") int limit);
+}
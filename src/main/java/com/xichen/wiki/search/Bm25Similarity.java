@@ -0,0 +1,56 @@
+package com.xichen.wiki.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BM25相关度计算
+ *
+ * score = boost(field) * idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * fieldLength / avgFieldLength))
+ * idf = ln(1 + (N - df + 0.5) / (df + 0.5))
+ */
+public class Bm25Similarity {
+
+    private final double k1;
+
+    private final double b;
+
+    private final Map<String, Double> fieldBoosts;
+
+    public Bm25Similarity(double k1, double b, Map<String, Double> fieldBoosts) {
+        this.k1 = k1;
+        this.b = b;
+        this.fieldBoosts = fieldBoosts == null ? Collections.emptyMap() : new HashMap<>(fieldBoosts);
+    }
+
+    /**
+     * 字段权重，未配置的字段为1
+     */
+    public double boost(String field) {
+        return fieldBoosts.getOrDefault(field, 1.0);
+    }
+
+    /**
+     * 逆文档频率
+     *
+     * @param docFreq 包含该词项的文档数
+     * @param docCount 文档总数
+     */
+    public double idf(int docFreq, int docCount) {
+        return Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    /**
+     * 单个词项在单个字段上的得分（未乘字段权重）
+     *
+     * @param termFreq 词频
+     * @param idf 逆文档频率
+     * @param fieldLength 字段词元数
+     * @param avgFieldLength 平均字段词元数
+     */
+    public double score(int termFreq, double idf, int fieldLength, double avgFieldLength) {
+        double norm = k1 * (1 - b + b * (avgFieldLength > 0 ? fieldLength / avgFieldLength : 1));
+        return idf * termFreq * (k1 + 1) / (termFreq + norm);
+    }
+}
@@ -0,0 +1,273 @@
+package com.xichen.wiki.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 带权前缀补全树
+ *
+ * 每个节点缓存其子树中权重最高的前K个词条，补全时只需沿前缀走到对应节点并读取缓存，
+ * 耗时与前缀长度相关，与词条总数无关。权重增减时只沿该词条的路径增量维护各祖先的前K缓存：
+ * - 权重上升：将词条并入各祖先的前K
+ * - 权重下降或删除：仅对前K中包含该词条的祖先，从自身与子节点的前K重新归并
+ *
+ * 词条按小写归一化作为键，补全结果返回最近一次写入的原始形式。
+ */
+public class CompletionTrie {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int topK;
+
+    private final Node root = new Node(null, (char) 0);
+
+    private int size;
+
+    public CompletionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * 词条数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 调整词条权重，权重降到0及以下时删除词条
+     *
+     * @param term 词条原始文本
+     * @param delta 权重增量，可为负数
+     */
+    public void add(String term, long delta) {
+        String key = normalize(term);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = delta > 0 ? insertPath(key) : findNode(key);
+            if (node == null || (delta < 0 && node.term == null)) {
+                return;
+            }
+            if (node.term == null) {
+                size++;
+            }
+            node.term = term.trim();
+            node.weight += delta;
+            if (delta > 0) {
+                promote(node);
+            } else {
+                if (node.weight <= 0) {
+                    node.term = null;
+                    node.weight = 0;
+                    size--;
+                }
+                demote(node);
+                prune(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按前缀补全
+     *
+     * @param prefix 用户输入的前缀
+     * @param limit 最多返回的条数，不超过构造时的K
+     * @return 按权重降序的补全词条
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = findNode(key);
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            int n = Math.min(limit, node.top.length);
+            List<String> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(node.top[i].term);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 拼写容错补全：前缀在编辑距离内的词条，用于精确前缀没有结果或结果不足时补充
+     *
+     * 用 {@link LevenshteinAutomaton} 遍历补全树，某个节点的路径与输入前缀足够接近时
+     * 直接取该节点缓存的前K，不再深入其子树；自动机状态已死的分支整棵剪掉。
+     *
+     * @param prefix 用户输入的前缀
+     * @param limit 最多返回的条数
+     * @return 按权重降序的补全词条，不包含精确前缀补全已有的词条
+     */
+    public List<String> fuzzySuggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int maxEdits = LevenshteinAutomaton.maxEditsFor(key.length());
+        if (maxEdits == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(key, maxEdits);
+        lock.readLock().lock();
+        try {
+            List<Node> candidates = new ArrayList<>();
+            collectFuzzy(root, automaton.start(), automaton, candidates);
+            Node exact = findNode(key);
+            Set<Node> seen = new HashSet<>(exact == null ? List.of() : Arrays.asList(exact.top));
+            candidates.sort((a, b) -> Long.compare(b.weight, a.weight));
+            List<String> result = new ArrayList<>(limit);
+            for (Node candidate : candidates) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (seen.add(candidate)) {
+                    result.add(candidate.term);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collectFuzzy(Node node, int[] state, LevenshteinAutomaton automaton, List<Node> candidates) {
+        for (Node child : node.children.values()) {
+            int[] next = automaton.step(state, child.key);
+            if (automaton.isMatch(next)) {
+                candidates.addAll(Arrays.asList(child.top));
+            } else if (automaton.canMatch(next)) {
+                collectFuzzy(child, next, automaton, candidates);
+            }
+        }
+    }
+
+    private Node insertPath(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(node, c);
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private Node findNode(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * 权重上升：把词条并入自身及所有祖先的前K
+     */
+    private void promote(Node entry) {
+        for (Node node = entry; node != null; node = node.parent) {
+            Node[] top = node.top;
+            int index = indexOf(top, entry);
+            if (index < 0) {
+                if (top.length == topK && top[topK - 1].weight >= entry.weight) {
+                    continue;
+                }
+                top = Arrays.copyOf(top, Math.min(top.length + 1, topK));
+                index = top.length - 1;
+                top[index] = entry;
+            }
+            // 向前冒泡到正确位置
+            while (index > 0 && top[index - 1].weight < entry.weight) {
+                top[index] = top[index - 1];
+                top[--index] = entry;
+            }
+            node.top = top;
+        }
+    }
+
+    /**
+     * 权重下降或删除：前K中包含该词条的节点自底向上重新归并
+     */
+    private void demote(Node entry) {
+        for (Node node = entry; node != null; node = node.parent) {
+            if (indexOf(node.top, entry) >= 0) {
+                node.top = merge(node);
+            }
+        }
+    }
+
+    private Node[] merge(Node node) {
+        List<Node> candidates = new ArrayList<>();
+        if (node.term != null) {
+            candidates.add(node);
+        }
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort((a, b) -> Long.compare(b.weight, a.weight));
+        return candidates.subList(0, Math.min(topK, candidates.size())).toArray(new Node[0]);
+    }
+
+    /**
+     * 回收不再承载词条的叶子节点
+     */
+    private void prune(Node node) {
+        while (node != root && node.term == null && node.children.isEmpty()) {
+            node.parent.children.remove(node.key);
+            node = node.parent;
+        }
+    }
+
+    private static int indexOf(Node[] top, Node entry) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private static final Node[] EMPTY = new Node[0];
+
+        final Node parent;
+        final char key;
+        final Map<Character, Node> children = new HashMap<>(4);
+        String term;
+        long weight;
+        Node[] top = EMPTY;
+
+        Node(Node parent, char key) {
+            this.parent = parent;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.EbookPage;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
+import com.xichen.wiki.event.EntityChangeListener;
+import com.xichen.wiki.event.EntityType;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.mapper.EbookPageMapper;
+import com.xichen.wiki.search.extract.EpubPageExtractor;
+import com.xichen.wiki.search.extract.PageTextExtractor;
+import com.xichen.wiki.search.extract.PdfPageExtractor;
+import com.xichen.wiki.search.extract.TxtPageExtractor;
+import com.xichen.wiki.service.FileService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 电子书正文页索引
+ *
+ * 电子书带文件创建后异步抽取正文：文件流式下载到临时文件，按扩展名交给 {@link PageTextExtractor} 逐页抽取，
+ * 每凑满一批写入 ebook_pages（FULLTEXT ngram 索引），单本书占用的内存只有一批页面，与文件大小无关。
+ *
+ * 抽取在有界线程池中执行，队列满时不再接收，电子书保持"待抽取"状态，由定时扫描在队列有空位时补交，
+ * 上传高峰因此不会无限堆积任务；服务重启前未完成的抽取、存量电子书也由定时扫描补齐。
+ */
+@Slf4j
+@Component
+@Order(1)
+public class EbookPageIndex implements EntityChangeListener {
+
+    /**
+     * 单页正文长度上限，防止异常文件产生超大页面
+     */
+    private static final int MAX_PAGE_CHARS = 100_000;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Autowired
+    private EbookPageMapper ebookPageMapper;
+
+    @Autowired
+    private FileService fileService;
+
+    @Value("${ebook.extract.threads:2}")
+    private int threads;
+
+    @Value("${ebook.extract.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${ebook.extract.page-chars:2000}")
+    private int pageChars;
+
+    @Value("${ebook.extract.batch-size:50}")
+    private int batchSize;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 扩展名 -> 抽取器
+     */
+    private final Map<String, PageTextExtractor> extractors = new HashMap<>();
+
+    /**
+     * 已提交、尚未完成的电子书ID，避免事件与定时扫描重复提交
+     */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        for (PageTextExtractor extractor : List.of(new PdfPageExtractor(), new EpubPageExtractor(pageChars),
+                new TxtPageExtractor(pageChars))) {
+            extractor.extensions().forEach(extension -> extractors.put(extension, extractor));
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "ebook-extract-" + sequence.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 中断的抽取保持待抽取状态，重启后重新抽取
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void onChanges(List<EntityChangeEvent> events) {
+        for (EntityChangeEvent event : events) {
+            if (event.getEntityType() != EntityType.EBOOK) {
+                continue;
+            }
+            if (event.getChangeType() == ChangeType.CREATED) {
+                Ebook ebook = event.getEntity();
+                if (StringUtils.isNotBlank(ebook.getFileKey())) {
+                    submit(ebook);
+                }
+            } else if (event.getChangeType() == ChangeType.DELETED) {
+                ebookPageMapper.deleteByEbookId(event.getEntityId());
+            }
+        }
+    }
+
+    /**
+     * 丢弃的新建事件由 {@link #scanPending()} 按待抽取状态补交，只需补做删除
+     */
+    @Override
+    public void onOverflow(EntityChangeEvent event) {
+        if (event.getEntityType() == EntityType.EBOOK && event.getChangeType() == ChangeType.DELETED) {
+            ebookPageMapper.deleteByEbookId(event.getEntityId());
+        }
+    }
+
+    /**
+     * 补交待抽取的电子书，每次最多填满队列空位
+     */
+    @Scheduled(fixedDelayString = "${ebook.extract.scan-interval-ms:60000}")
+    public void scanPending() {
+        int free = executor.getQueue().remainingCapacity() + threads - executor.getActiveCount();
+        if (free <= 0) {
+            return;
+        }
+        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Ebook::getId, Ebook::getUserId, Ebook::getFileKey)
+                .eq(Ebook::getTextStatus, SearchConstants.TEXT_STATUS_PENDING)
+                .isNotNull(Ebook::getFileKey)
+                .ne(Ebook::getFileKey, "")
+                .orderByAsc(Ebook::getId)
+                .last("LIMIT " + (free + inFlight.size()));
+        for (Ebook ebook : ebookMapper.selectList(wrapper)) {
+            if (!inFlight.contains(ebook.getId()) && !submit(ebook)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 正文检索，返回命中页（正文截取前 maxChars 个字符，用于生成摘要）
+     *
+     * @param ebookId 限定电子书，为null时检索用户的全部电子书
+     */
+    public List<EbookPage> search(Long userId, String keyword, Long ebookId, int maxChars, int limit) {
+        String against = FulltextSearchEngine.toBooleanQuery(StringUtils.defaultString(keyword));
+        if (userId == null || against.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return ebookPageMapper.fulltextSearch(userId, against, ebookId, maxChars, limit);
+    }
+
+    /**
+     * 抽取统计：active-执行中, queued-排队中, inFlight-已提交未完成
+     */
+    public Map<String, Integer> getStats() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    /**
+     * @return 队列已满未能提交时返回false
+     */
+    private boolean submit(Ebook ebook) {
+        if (!inFlight.add(ebook.getId())) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    extract(ebook);
+                } finally {
+                    inFlight.remove(ebook.getId());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(ebook.getId());
+            log.info("电子书正文抽取队列已满，稍后由定时扫描补交：ID={}", ebook.getId());
+            return false;
+        }
+    }
+
+    private void extract(Ebook ebook) {
+        String extension = StringUtils.substringAfterLast(ebook.getFileKey(), ".").toLowerCase(Locale.ROOT);
+        PageTextExtractor extractor = extractors.get(extension);
+        if (extractor == null) {
+            updateStatus(ebook.getId(), SearchConstants.TEXT_STATUS_UNSUPPORTED, null);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path file = null;
+        try {
+            file = Files.createTempFile("ebook-", "." + extension);
+            try (InputStream in = fileService.openStream(ebook.getFileKey())) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // 重新抽取时先清掉上一次写入的页
+            ebookPageMapper.deleteByEbookId(ebook.getId());
+            List<EbookPage> batch = new ArrayList<>(batchSize);
+            int[] lastPage = new int[1];
+            extractor.extract(file, (pageNumber, text) -> {
+                EbookPage page = new EbookPage();
+                page.setEbookId(ebook.getId());
+                page.setUserId(ebook.getUserId());
+                page.setPageNumber(pageNumber);
+                page.setContent(StringUtils.truncate(text, MAX_PAGE_CHARS));
+                batch.add(page);
+                lastPage[0] = pageNumber;
+                if (batch.size() >= batchSize) {
+                    ebookPageMapper.batchInsert(batch);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                ebookPageMapper.batchInsert(batch);
+            }
+            updateStatus(ebook.getId(), SearchConstants.TEXT_STATUS_DONE, lastPage[0]);
+            log.info("电子书正文抽取完成：ID={}, 页数={}, 耗时={}ms", ebook.getId(), lastPage[0],
+                    System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            if (executor.isShutdown()) {
+                log.info("服务关闭，电子书正文抽取中止，重启后继续：ID={}", ebook.getId());
+                return;
+            }
+            log.warn("电子书正文抽取失败：ID={}, 文件={}, 错误={}", ebook.getId(), ebook.getFileKey(), e.getMessage());
+            updateStatus(ebook.getId(), SearchConstants.TEXT_STATUS_FAILED, null);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("删除电子书临时文件失败：{}", file);
+                }
+            }
+        }
+    }
+
+    private void updateStatus(Long ebookId, int status, Integer pageCount) {
+        LambdaUpdateWrapper<Ebook> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Ebook::getTextStatus, status)
+                .set(pageCount != null && pageCount > 0, Ebook::getPageCount, pageCount)
+                .eq(Ebook::getId, ebookId);
+        ebookMapper.update(null, wrapper);
+    }
+}
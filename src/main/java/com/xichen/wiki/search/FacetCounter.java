@@ -0,0 +1,111 @@
+package com.xichen.wiki.search;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分面计数器
+ *
+ * 遍历一次候选集即可得到类型、分类、创建年份三个分面的计数，标签分面由标签位图的交集基数给出；
+ * 候选集较大时也可以直接计入数据库分组统计的结果。
+ * 非线程安全，并行检索时每个任务使用各自的计数器，完成后再合并。
+ * 候选集因命中数上限被截断时标记 truncated，此时分面只反映截断后的候选。
+ */
+public class FacetCounter {
+
+    public static final String FACET_TYPE = "type";
+
+    public static final String FACET_CATEGORY = "category";
+
+    public static final String FACET_TAG = "tag";
+
+    public static final String FACET_YEAR = "year";
+
+    private final Map<String, Long> types = new HashMap<>();
+
+    private final Map<Long, Long> categories = new HashMap<>();
+
+    private final Map<Long, Long> tags = new HashMap<>();
+
+    private final Map<Integer, Long> years = new HashMap<>();
+
+    private boolean truncated;
+
+    /**
+     * 计入一条候选结果
+     */
+    public void add(String type, Long categoryId, LocalDateTime createdAt) {
+        add(type, categoryId, createdAt == null ? null : createdAt.getYear(), 1);
+    }
+
+    /**
+     * 计入一组分组统计结果：同一分类、同一创建年份的候选数
+     */
+    public void add(String type, Long categoryId, Integer year, long count) {
+        types.merge(type, count, Long::sum);
+        if (categoryId != null) {
+            categories.merge(categoryId, count, Long::sum);
+        }
+        if (year != null) {
+            years.merge(year, count, Long::sum);
+        }
+    }
+
+    /**
+     * 计入标签分面计数
+     */
+    public void addTagCounts(Map<Long, Long> tagCounts) {
+        tagCounts.forEach((tagId, count) -> tags.merge(tagId, count, Long::sum));
+    }
+
+    /**
+     * 标记候选集已被截断
+     */
+    public void markTruncated() {
+        truncated = true;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 合并另一个计数器的结果
+     */
+    public FacetCounter merge(FacetCounter other) {
+        truncated |= other.truncated;
+        other.types.forEach((key, count) -> types.merge(key, count, Long::sum));
+        other.categories.forEach((key, count) -> categories.merge(key, count, Long::sum));
+        other.tags.forEach((key, count) -> tags.merge(key, count, Long::sum));
+        other.years.forEach((key, count) -> years.merge(key, count, Long::sum));
+        return this;
+    }
+
+    /**
+     * 输出各分面：类型、分类、标签按数量降序，年份按年份降序
+     */
+    public Map<String, Map<Object, Long>> toMap() {
+        Map<String, Map<Object, Long>> facets = new LinkedHashMap<>();
+        facets.put(FACET_TYPE, byCountDesc(types));
+        facets.put(FACET_CATEGORY, byCountDesc(categories));
+        facets.put(FACET_TAG, byCountDesc(tags));
+        Map<Object, Long> yearFacet = new LinkedHashMap<>();
+        years.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByKey().reversed())
+                .forEach(entry -> yearFacet.put(entry.getKey(), entry.getValue()));
+        facets.put(FACET_YEAR, yearFacet);
+        return facets;
+    }
+
+    private static <K> Map<Object, Long> byCountDesc(Map<K, Long> counts) {
+        Map<Object, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(entry -> String.valueOf(entry.getKey())))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,162 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * MySQL全文检索搜索引擎
+ *
+ * 使用 schema.sql 中声明的 FULLTEXT 索引（需按 sql/migration/fulltext_ngram.sql 切换为 ngram 解析器），
+ * 通过 MATCH ... AGAINST 检索并按相关度排序，索引由MySQL自行维护。
+ * 查询模式由 search.fulltext.mode 控制：
+ * - natural: 自然语言模式，任意词命中即可，按相关度排序
+ * - boolean: 布尔模式，关键词中每个空白分隔的词都必须命中
+ *
+ * 每类资源按相关度最多取 max(search.fulltext.max-hits, limit) 条命中；取满时另查一次总数，
+ * 返回的命中总数始终是准确值，不会停在命中上限。
+ * 压缩存储的大文档在全文索引里只有 Base64 文本，只按标题命中（得分仍取 MATCH 的相关度），
+ * 正文检索需使用 search.engine=index。
+ */
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "fulltext")
+public class FulltextSearchEngine implements SearchEngine {
+
+    /**
+     * 布尔模式下具有特殊含义的操作符
+     */
+    private static final String BOOLEAN_OPERATORS = "+-<>()~*\"@";
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Value("${search.fulltext.mode:natural}")
+    private String mode;
+
+    @Value("${search.fulltext.max-hits:1000}")
+    private int maxHits;
+
+    @Override
+    public SearchResult search(Long userId, String keyword, String type, int limit) {
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        boolean booleanMode = "boolean".equalsIgnoreCase(mode);
+        String against = booleanMode ? toBooleanQuery(keyword) : keyword.trim();
+        if (against.isEmpty()) {
+            return SearchResult.empty();
+        }
+
+        // 需要第 limit 条之前的全部命中才能归并出正确的前 limit 条
+        int depth = limit > 0 ? Math.max(maxHits, limit) : maxHits;
+        List<SearchHit> hits = new ArrayList<>();
+        long total = 0;
+        if (!SearchConstants.TYPE_EBOOK.equals(type)) {
+            String titleKeyword = keyword.trim();
+            List<SearchHit> documents = documentMapper.fulltextSearch(userId, against, titleKeyword, booleanMode, null, depth);
+            hits.addAll(documents);
+            total += documents.size() < depth ? documents.size()
+                    : documentMapper.fulltextCount(userId, against, titleKeyword, booleanMode);
+        }
+        if (!SearchConstants.TYPE_DOCUMENT.equals(type)) {
+            List<SearchHit> ebooks = ebookMapper.fulltextSearch(userId, against, booleanMode, null, depth);
+            hits.addAll(ebooks);
+            total += ebooks.size() < depth ? ebooks.size() : ebookMapper.fulltextCount(userId, against, booleanMode);
+        }
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed());
+        return new SearchResult(total, limit > 0 && hits.size() > limit ? hits.subList(0, limit) : hits);
+    }
+
+    /**
+     * 游标条件下推到 SQL：每类资源按（得分, 时间, ID）降序 seek 后各取 limit 条，合并后取前 limit 条。
+     * 不受命中上限限制，导出可以逐批读完全部命中；总数只计本批取到的命中
+     */
+    @Override
+    public SearchResult searchAfter(Long userId, String keyword, String type, SearchHit after, int limit) {
+        if (limit <= 0) {
+            return SearchEngine.super.searchAfter(userId, keyword, type, after, limit);
+        }
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        boolean booleanMode = "boolean".equalsIgnoreCase(mode);
+        String against = booleanMode ? toBooleanQuery(keyword) : keyword.trim();
+        if (against.isEmpty()) {
+            return SearchResult.empty();
+        }
+
+        List<SearchHit> hits = new ArrayList<>();
+        if (!SearchConstants.TYPE_EBOOK.equals(type)) {
+            hits.addAll(documentMapper.fulltextSearch(userId, against, keyword.trim(), booleanMode,
+                    SearchHit.seekPoint(after, SearchConstants.TYPE_DOCUMENT), limit));
+        }
+        if (!SearchConstants.TYPE_DOCUMENT.equals(type)) {
+            hits.addAll(ebookMapper.fulltextSearch(userId, against, booleanMode,
+                    SearchHit.seekPoint(after, SearchConstants.TYPE_EBOOK), limit));
+        }
+        hits.sort(SearchHit.RANKING);
+        return SearchResult.of(hits, limit);
+    }
+
+    /**
+     * 拆分关键词：空白分隔，去除布尔模式操作符
+     */
+    static List<String> searchWords(String keyword) {
+        List<String> words = new ArrayList<>();
+        for (String word : StringUtils.split(keyword)) {
+            String cleaned = StringUtils.replaceChars(word, BOOLEAN_OPERATORS, null);
+            if (!cleaned.isEmpty()) {
+                words.add(cleaned);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 将用户输入转换为布尔模式表达式：去除操作符，每个词作为必须命中的短语
+     */
+    static String toBooleanQuery(String keyword) {
+        StringBuilder query = new StringBuilder();
+        for (String word : searchWords(keyword)) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"").append(word).append('"');
+        }
+        return query.toString();
+    }
+
+    @Override
+    public void indexDocument(Document document) {
+        // 全文索引由MySQL维护
+    }
+
+    @Override
+    public void indexEbook(Ebook ebook) {
+        // 全文索引由MySQL维护
+    }
+
+    @Override
+    public void removeDocument(Long userId, Long documentId) {
+        // 全文索引由MySQL维护
+    }
+
+    @Override
+    public void removeEbook(Long userId, Long ebookId) {
+        // 全文索引由MySQL维护
+    }
+}
@@ -0,0 +1,215 @@
+package com.xichen.wiki.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 不可变索引段文件
+ *
+ * 文件布局（多字节整数为大端，VInt 为7位变长编码）：
+ * <pre>
+ * 头部      magic(int) version(int)
+ * 正排值    docCount(VInt)，每个资源：type(str) id(long) sortTime(long) fieldCount(VInt) [field(str) length(VInt)]
+ * 删除标记  deletedCount(VInt) [key(str)]
+ * 词典      fieldCount(VInt)，每个字段：field(str) termCount(VInt)，词项按字典序：term(str) docFreq(VInt)
+ *           每条倒排：段内文档序号差值(VInt) 位置数(VInt) 位置差值(VInt)...
+ * </pre>
+ * 段一经写出不再修改；同一资源出现在多个段时以最新的段为准，删除标记使更早段中的同名资源失效。
+ * 读取时整个文件以只读方式映射，顺序解码后直接装入倒排索引，不需要重新分析文本。
+ */
+public final class IndexSegment {
+
+    private static final int MAGIC = 0x57534547;
+
+    /**
+     * 索引字段或分析规则变化时递增，旧版本的段文件读取失败后会从数据库重建
+     * 2：电子书作者从正文字段拆出为独立的作者字段
+     */
+    private static final int VERSION = 2;
+
+    private IndexSegment() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 段内容
+     */
+    public static final class Data {
+        final List<InvertedIndex.StoredDoc> docs;
+        final List<String> deletedKeys;
+
+        Data(List<InvertedIndex.StoredDoc> docs, List<String> deletedKeys) {
+            this.docs = docs;
+            this.deletedKeys = deletedKeys;
+        }
+    }
+
+    /**
+     * 写出段文件：先写临时文件并刷盘，再原子重命名，读者不会看到写了一半的段
+     */
+    public static void write(Path file, List<InvertedIndex.StoredDoc> docs, Collection<String> deletedKeys) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            writeVInt(out, docs.size());
+            for (InvertedIndex.StoredDoc doc : docs) {
+                writeString(out, doc.type);
+                out.writeLong(doc.id);
+                out.writeLong(doc.sortTime);
+                writeVInt(out, doc.fieldLengths.size());
+                for (Map.Entry<String, Integer> field : doc.fieldLengths.entrySet()) {
+                    writeString(out, field.getKey());
+                    writeVInt(out, field.getValue());
+                }
+            }
+
+            writeVInt(out, deletedKeys.size());
+            for (String key : deletedKeys) {
+                writeString(out, key);
+            }
+
+            // 按字段、词项排序后写出词典和倒排表，同一词项的倒排按段内文档序号升序
+            Map<String, Map<String, List<int[]>>> dictionary = new TreeMap<>();
+            for (int docIndex = 0; docIndex < docs.size(); docIndex++) {
+                for (Map.Entry<String, Map<String, int[]>> field : docs.get(docIndex).fieldTerms.entrySet()) {
+                    Map<String, List<int[]>> terms = dictionary.computeIfAbsent(field.getKey(), f -> new TreeMap<>());
+                    for (Map.Entry<String, int[]> term : field.getValue().entrySet()) {
+                        List<int[]> postings = terms.computeIfAbsent(term.getKey(), t -> new ArrayList<>());
+                        postings.add(new int[]{docIndex});
+                        postings.add(term.getValue());
+                    }
+                }
+            }
+            writeVInt(out, dictionary.size());
+            for (Map.Entry<String, Map<String, List<int[]>>> field : dictionary.entrySet()) {
+                writeString(out, field.getKey());
+                writeVInt(out, field.getValue().size());
+                for (Map.Entry<String, List<int[]>> term : field.getValue().entrySet()) {
+                    writeString(out, term.getKey());
+                    List<int[]> postings = term.getValue();
+                    writeVInt(out, postings.size() / 2);
+                    int lastDoc = 0;
+                    for (int i = 0; i < postings.size(); i += 2) {
+                        int docIndex = postings.get(i)[0];
+                        int[] positions = postings.get(i + 1);
+                        writeVInt(out, docIndex - lastDoc);
+                        lastDoc = docIndex;
+                        writeVInt(out, positions.length);
+                        int lastPosition = 0;
+                        for (int position : positions) {
+                            writeVInt(out, position - lastPosition);
+                            lastPosition = position;
+                        }
+                    }
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 映射并解码段文件
+     */
+    public static Data read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("不是有效的索引段文件：" + file);
+            }
+
+            int docCount = readVInt(buffer);
+            List<InvertedIndex.StoredDoc> docs = new ArrayList<>(docCount);
+            for (int i = 0; i < docCount; i++) {
+                InvertedIndex.StoredDoc doc = new InvertedIndex.StoredDoc(readString(buffer), buffer.getLong(), buffer.getLong());
+                int fieldCount = readVInt(buffer);
+                for (int f = 0; f < fieldCount; f++) {
+                    doc.fieldLengths.put(readString(buffer), readVInt(buffer));
+                }
+                docs.add(doc);
+            }
+
+            int deletedCount = readVInt(buffer);
+            List<String> deletedKeys = new ArrayList<>(deletedCount);
+            for (int i = 0; i < deletedCount; i++) {
+                deletedKeys.add(readString(buffer));
+            }
+
+            int fieldCount = readVInt(buffer);
+            for (int f = 0; f < fieldCount; f++) {
+                String field = readString(buffer);
+                int termCount = readVInt(buffer);
+                for (int t = 0; t < termCount; t++) {
+                    String term = readString(buffer);
+                    int docFreq = readVInt(buffer);
+                    int docIndex = 0;
+                    for (int p = 0; p < docFreq; p++) {
+                        docIndex += readVInt(buffer);
+                        int[] positions = new int[readVInt(buffer)];
+                        int position = 0;
+                        for (int i = 0; i < positions.length; i++) {
+                            position += readVInt(buffer);
+                            positions[i] = position;
+                        }
+                        docs.get(docIndex).fieldTerms.computeIfAbsent(field, k -> new HashMap<>()).put(term, positions);
+                    }
+                }
+            }
+            return new Data(docs, deletedKeys);
+        }
+    }
+
+    private static void writeVInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readVInt(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
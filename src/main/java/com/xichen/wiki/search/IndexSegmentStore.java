@@ -0,0 +1,303 @@
+package com.xichen.wiki.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 索引段存储
+ *
+ * 每个用户一个目录，目录下是若干不可变段文件（{@link IndexSegment}）和一个提交点文件。
+ * 提交点记录当前有效的段列表和提交时间，通过“写临时文件 + 原子重命名”更新，
+ * 进程在任何时刻崩溃都只会看到上一个完整的提交点。
+ * - 增量刷盘：把上次提交后变更的资源写成一个新段，追加到提交点
+ * - 段合并：段数超过上限时把内存中的完整索引写成一个段，替换全部旧段
+ * - 启动恢复：按提交点依次映射段文件装入索引，调用方再从数据库补上提交时间之后的变更；
+ *   提交点早于 search.index.max-replay-age-ms 时不再恢复（如 hostPath 上很久以前的 Pod 留下的槽位），由调用方全量重建
+ *
+ * 根目录下分若干槽位，每个进程启动时独占一个槽位（文件锁），滚动发布时新旧 Pod 同节点共存也不会写同一目录。
+ * 未配置 search.index.dir 时不启用持久化。
+ */
+@Slf4j
+@Component
+public class IndexSegmentStore {
+
+    private static final String COMMIT_FILE = "commit";
+
+    private static final String SEGMENT_PREFIX = "seg-";
+
+    private static final String SEGMENT_SUFFIX = ".idx";
+
+    @Value("${search.index.dir:}")
+    private String baseDir;
+
+    @Value("${search.index.slots:4}")
+    private int slots;
+
+    @Value("${search.index.max-segments:8}")
+    private int maxSegments;
+
+    /**
+     * 提交点超过该时长（毫秒）不再用于恢复，0表示不限制
+     */
+    @Value("${search.index.max-replay-age-ms:86400000}")
+    private long maxReplayAgeMs;
+
+    private Path slotDir;
+
+    private FileChannel lockChannel;
+
+    private FileLock slotLock;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (StringUtils.isBlank(baseDir)) {
+            return;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            Path dir = Paths.get(baseDir, "slot-" + slot);
+            Files.createDirectories(dir);
+            FileChannel channel = FileChannel.open(dir.resolve("write.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock != null) {
+                slotDir = dir;
+                lockChannel = channel;
+                slotLock = lock;
+                log.info("索引段存储已启用：目录={}", dir);
+                return;
+            }
+            channel.close();
+        }
+        log.warn("索引段存储的槽位均被占用，本进程不持久化索引：根目录={}, 槽位数={}", baseDir, slots);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (slotLock != null) {
+            slotLock.release();
+            lockChannel.close();
+            slotLock = null;
+            slotDir = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return slotDir != null;
+    }
+
+    /**
+     * 从最近的提交点恢复用户索引
+     *
+     * @return 提交时间戳（毫秒），调用方需补上该时间之后的变更；没有可用的提交点或提交点过旧时返回null
+     */
+    public Long open(Long userId, InvertedIndex index) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path dir = userDir(userId);
+        synchronized (index) {
+            try {
+                Commit commit = readCommit(dir);
+                if (commit == null) {
+                    return null;
+                }
+                long start = System.currentTimeMillis();
+                if (maxReplayAgeMs > 0 && start - commit.timestamp > maxReplayAgeMs) {
+                    log.info("索引段提交点过旧，改为从数据库重建：用户ID={}, 提交点距今={}ms", userId, start - commit.timestamp);
+                    return null;
+                }
+                // 从新到旧确定每个资源以哪个段为准，再从旧到新装入
+                List<IndexSegment.Data> segments = new ArrayList<>(commit.segments.size());
+                for (String segment : commit.segments) {
+                    segments.add(IndexSegment.read(dir.resolve(segment)));
+                }
+                Set<String> seen = new HashSet<>();
+                int restored = 0;
+                for (int i = segments.size() - 1; i >= 0; i--) {
+                    IndexSegment.Data data = segments.get(i);
+                    for (InvertedIndex.StoredDoc doc : data.docs) {
+                        if (seen.add(doc.key())) {
+                            index.restore(doc);
+                            restored++;
+                        }
+                    }
+                    seen.addAll(data.deletedKeys);
+                }
+                deleteUnreferenced(dir, commit);
+                log.info("用户搜索索引从段文件恢复：用户ID={}, 段数={}, 资源数={}, 耗时={}ms",
+                        userId, segments.size(), restored, System.currentTimeMillis() - start);
+                return commit.timestamp;
+            } catch (IOException | RuntimeException e) {
+                log.warn("索引段文件损坏或不可读，改为从数据库重建：用户ID={}, 原因={}", userId, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 把上次提交后的变更写成新段并提交，段数超过上限时合并为一个段
+     */
+    public void flush(Long userId, InvertedIndex index) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (index) {
+            Path dir = userDir(userId);
+            InvertedIndex.ChangeSet changes = index.drainChanges();
+            if (changes.isEmpty()) {
+                return;
+            }
+            long timestamp = System.currentTimeMillis();
+            try {
+                Commit commit = readCommit(dir);
+                if (commit == null || commit.segments.size() + 1 > maxSegments) {
+                    writeFull(dir, index, commit == null ? 0 : commit.generation, timestamp);
+                    return;
+                }
+                Files.createDirectories(dir);
+                long generation = commit.generation + 1;
+                String segment = segmentName(generation);
+                IndexSegment.write(dir.resolve(segment), changes.upserts, changes.deletedKeys);
+                commit.segments.add(segment);
+                writeCommit(dir, new Commit(generation, timestamp, commit.segments));
+                log.debug("索引段刷盘完成：用户ID={}, 段={}, 变更数={}", userId, segment, changes.keys().size());
+            } catch (IOException e) {
+                index.markDirty(changes.keys());
+                log.warn("索引段刷盘失败，变更保留到下次：用户ID={}, 原因={}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 写出完整索引作为唯一的段，用于首次从数据库加载之后以及段合并
+     */
+    public void writeFull(Long userId, InvertedIndex index) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (index) {
+            Path dir = userDir(userId);
+            try {
+                Commit commit = readCommit(dir);
+                writeFull(dir, index, commit == null ? 0 : commit.generation, System.currentTimeMillis());
+            } catch (IOException e) {
+                log.warn("写出完整索引段失败：用户ID={}, 原因={}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private void writeFull(Path dir, InvertedIndex index, long lastGeneration, long timestamp) throws IOException {
+        List<InvertedIndex.StoredDoc> docs = index.exportAll();
+        try {
+            Files.createDirectories(dir);
+            long generation = lastGeneration + 1;
+            String segment = segmentName(generation);
+            IndexSegment.write(dir.resolve(segment), docs, List.of());
+            Commit commit = new Commit(generation, timestamp, new ArrayList<>(List.of(segment)));
+            writeCommit(dir, commit);
+            deleteUnreferenced(dir, commit);
+            log.debug("完整索引段写出完成：目录={}, 段={}, 资源数={}", dir, segment, docs.size());
+        } catch (IOException e) {
+            List<String> keys = new ArrayList<>(docs.size());
+            docs.forEach(doc -> keys.add(doc.key()));
+            index.markDirty(keys);
+            throw e;
+        }
+    }
+
+    private Path userDir(Long userId) {
+        return slotDir.resolve("user-" + userId);
+    }
+
+    private static String segmentName(long generation) {
+        return SEGMENT_PREFIX + generation + SEGMENT_SUFFIX;
+    }
+
+    private static Commit readCommit(Path dir) throws IOException {
+        Path file = dir.resolve(COMMIT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : StringUtils.split(properties.getProperty("segments", ""), ',')) {
+            segments.add(segment.trim());
+        }
+        return new Commit(Long.parseLong(properties.getProperty("generation")),
+                Long.parseLong(properties.getProperty("timestamp")), segments);
+    }
+
+    private static void writeCommit(Path dir, Commit commit) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("generation", String.valueOf(commit.generation));
+        properties.setProperty("timestamp", String.valueOf(commit.timestamp));
+        properties.setProperty("segments", String.join(",", commit.segments));
+        Path tmp = dir.resolve(COMMIT_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(COMMIT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 删除提交点之外的段文件（被合并掉的旧段、崩溃遗留的临时文件）
+     */
+    private static void deleteUnreferenced(Path dir, Commit commit) throws IOException {
+        Set<String> live = new HashSet<>(commit.segments);
+        live.add(COMMIT_FILE);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (!live.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 提交点
+     */
+    private static final class Commit {
+        final long generation;
+        final long timestamp;
+        final List<String> segments;
+
+        Commit(long generation, long timestamp, List<String> segments) {
+            this.generation = generation;
+            this.timestamp = timestamp;
+            this.segments = segments;
+        }
+    }
+}
@@ -0,0 +1,942 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.search.analyzer.AnalyzedToken;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import com.xichen.wiki.search.analyzer.CharArrayMap;
+import com.xichen.wiki.search.analyzer.TokenType;
+import com.xichen.wiki.search.analyzer.Tokenizer;
+import com.xichen.wiki.search.query.BooleanQuery;
+import com.xichen.wiki.search.query.FieldFilter;
+import com.xichen.wiki.search.query.PhraseQuery;
+import com.xichen.wiki.search.query.PrefixQuery;
+import com.xichen.wiki.search.query.Query;
+import com.xichen.wiki.search.query.QueryParser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单用户倒排索引
+ *
+ * 结构说明：
+ * - 词典：字段 -> 词项 -> 倒排表
+ * - 倒排表：文档序号 -> 该词项在字段中出现的位置（升序）
+ * - 正排信息：文档序号 -> 资源类型、ID、排序时间、各字段长度以及包含的词项（用于删除时回收倒排）
+ * - 字段统计：字段 -> 总长度，用于BM25的长度归一化
+ *
+ * 文本经 {@link Analyzer} 分析后入库（CJK二元组 + 拉丁单词）。查询按短语语义匹配
+ * （词项相对位置必须与查询一致），与原 LIKE '%kw%' 的子串语义保持接近；
+ * 命中文档按 {@link Bm25Similarity} 在命中字段上的得分之和排序，只用有界小顶堆保留前K条。
+ * 读写通过读写锁隔离，搜索只持有读锁。
+ *
+ * 索引会记录上次导出后变更过的资源，供 {@link IndexSegmentStore} 增量写出段文件；
+ * 从段文件恢复时直接装入倒排表，不再重新分析文本。
+ *
+ * 另用 {@link TermTrie} 维护拉丁词项：开启模糊匹配时，查询中的拉丁单词按
+ * {@link LevenshteinAutomaton} 扩展为词典中编辑距离内的词项，模糊命中排在所有精确命中之后；
+ * 高级搜索的前缀查询（spr*）也从中展开词项。
+ *
+ * 高级搜索的查询语法树（{@link QueryParser}）直接在位置倒排表上求值，布尔子句按代价排序，
+ * 详见 {@link QueryEvaluator}。
+ */
+public class InvertedIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Analyzer analyzer;
+
+    private final Bm25Similarity similarity;
+
+    /**
+     * 字段 -> 词项 -> 倒排表
+     */
+    private final Map<String, Map<String, Map<Integer, int[]>>> fields = new HashMap<>();
+
+    /**
+     * 资源键（type:id） -> 文档序号
+     */
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    /**
+     * 文档序号 -> 正排信息，删除后置为null并回收序号
+     */
+    private final List<IndexedDoc> docs = new ArrayList<>();
+
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    /**
+     * 字段 -> 所有文档该字段的词元总数
+     */
+    private final Map<String, Long> fieldTotalLengths = new HashMap<>();
+
+    /**
+     * 上次导出后新增、修改或删除过的资源键
+     */
+    private final Set<String> dirtyKeys = new LinkedHashSet<>();
+
+    /**
+     * 前缀查询最多展开的词项数
+     */
+    private static final int PREFIX_MAX_EXPANSIONS = 64;
+
+    /**
+     * 拉丁词项字典树，引用数为包含该词项的字段数
+     */
+    private final TermTrie latinTerms = new TermTrie();
+
+    /**
+     * 每个查询词最多扩展的相近词项数，0表示不做模糊匹配
+     */
+    private final int maxExpansions;
+
+    private volatile boolean loaded;
+
+    /**
+     * 最近一次查询的时间，供空闲淘汰判断
+     */
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    public InvertedIndex(Analyzer analyzer, Bm25Similarity similarity) {
+        this(analyzer, similarity, 0);
+    }
+
+    /**
+     * @param maxExpansions 每个查询词最多扩展的相近词项数，0表示不做模糊匹配
+     */
+    public InvertedIndex(Analyzer analyzer, Bm25Similarity similarity, int maxExpansions) {
+        this.analyzer = analyzer;
+        this.similarity = similarity;
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * 是否已经从数据库完成初始加载
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 标记初始加载完成
+     */
+    public void markLoaded() {
+        this.loaded = true;
+    }
+
+    /**
+     * 记录一次查询访问
+     */
+    public void touch() {
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * 已索引的文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或替换一条资源的索引
+     *
+     * @param type 资源类型
+     * @param id 资源ID
+     * @param sortTime 排序时间戳
+     * @param fieldValues 字段名 -> 字段文本
+     */
+    public void upsert(String type, Long id, long sortTime, Map<String, String> fieldValues) {
+        // 文本分析不需要持有锁
+        StoredDoc doc = new StoredDoc(type, id, sortTime);
+        for (Map.Entry<String, String> entry : fieldValues.entrySet()) {
+            // 按切片聚合词项位置，每个文档内的不同词项只分配一次 String
+            CharArrayMap<PositionList> termPositions = new CharArrayMap<>();
+            int[] fieldLength = new int[1];
+            analyzer.analyze(entry.getValue(), (buffer, offset, length, tokenType, position) -> {
+                PositionList positions = termPositions.get(buffer, offset, length);
+                if (positions == null) {
+                    positions = new PositionList();
+                    termPositions.put(buffer, offset, length, positions);
+                }
+                positions.add(position);
+                fieldLength[0]++;
+            });
+            if (termPositions.size() == 0) {
+                continue;
+            }
+            Map<String, int[]> terms = new HashMap<>(termPositions.size() * 2);
+            termPositions.forEach((term, positions) -> terms.put(term, positions.toArray()));
+            doc.fieldLengths.put(entry.getKey(), fieldLength[0]);
+            doc.fieldTerms.put(entry.getKey(), terms);
+        }
+
+        lock.writeLock().lock();
+        try {
+            link(doc);
+            dirtyKeys.add(docKey(type, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 装入从段文件恢复的资源，已存在时替换；不计入待导出的变更
+     */
+    public void restore(StoredDoc doc) {
+        lock.writeLock().lock();
+        try {
+            link(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把资源的倒排表挂入词典，需持有写锁
+     */
+    private void link(StoredDoc stored) {
+        String key = docKey(stored.type, stored.id);
+        Integer ordinal = ordinals.get(key);
+        if (ordinal != null) {
+            unlinkPostings(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? docs.size() : freeOrdinals.pop();
+            ordinals.put(key, ordinal);
+        }
+
+        IndexedDoc doc = new IndexedDoc(stored.type, stored.id, stored.sortTime);
+        for (Map.Entry<String, Map<String, int[]>> field : stored.fieldTerms.entrySet()) {
+            int fieldLength = stored.fieldLengths.getOrDefault(field.getKey(), 0);
+            doc.fieldLengths.put(field.getKey(), fieldLength);
+            fieldTotalLengths.merge(field.getKey(), (long) fieldLength, Long::sum);
+            Map<String, Map<Integer, int[]>> dictionary = fields.computeIfAbsent(field.getKey(), f -> new HashMap<>());
+            List<String> terms = new ArrayList<>(field.getValue().size());
+            for (Map.Entry<String, int[]> term : field.getValue().entrySet()) {
+                Map<Integer, int[]> posting = dictionary.get(term.getKey());
+                if (posting == null) {
+                    posting = new HashMap<>();
+                    dictionary.put(term.getKey(), posting);
+                    if (isLatin(term.getKey())) {
+                        latinTerms.add(term.getKey());
+                    }
+                }
+                posting.put(ordinal, term.getValue());
+                terms.add(term.getKey());
+            }
+            doc.fieldTerms.put(field.getKey(), terms);
+        }
+
+        if (ordinal == docs.size()) {
+            docs.add(doc);
+        } else {
+            docs.set(ordinal, doc);
+        }
+    }
+
+    /**
+     * 删除一条资源的索引
+     */
+    public void remove(String type, Long id) {
+        lock.writeLock().lock();
+        try {
+            removeKey(docKey(type, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除指定类型中不在 ids 内的资源，用于与数据库对账
+     *
+     * @return 删除的资源数
+     */
+    public int retainOnly(String type, Set<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            List<String> stale = new ArrayList<>();
+            for (IndexedDoc doc : docs) {
+                if (doc != null && doc.type.equals(type) && !ids.contains(doc.id)) {
+                    stale.add(docKey(doc.type, doc.id));
+                }
+            }
+            stale.forEach(this::removeKey);
+            return stale.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeKey(String key) {
+        Integer ordinal = ordinals.remove(key);
+        if (ordinal == null) {
+            return;
+        }
+        unlinkPostings(ordinal);
+        docs.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+        dirtyKeys.add(key);
+    }
+
+    /**
+     * 取出上次导出后的变更并清空变更记录
+     */
+    public ChangeSet drainChanges() {
+        lock.writeLock().lock();
+        try {
+            ChangeSet changes = new ChangeSet();
+            for (String key : dirtyKeys) {
+                Integer ordinal = ordinals.get(key);
+                if (ordinal != null) {
+                    changes.upserts.add(export(ordinal));
+                } else {
+                    changes.deletedKeys.add(key);
+                }
+            }
+            dirtyKeys.clear();
+            return changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 导出全部资源并清空变更记录，用于写出合并后的完整段
+     */
+    public List<StoredDoc> exportAll() {
+        lock.writeLock().lock();
+        try {
+            List<StoredDoc> all = new ArrayList<>(ordinals.size());
+            for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+                if (docs.get(ordinal) != null) {
+                    all.add(export(ordinal));
+                }
+            }
+            dirtyKeys.clear();
+            return all;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 导出失败时把变更放回，等待下次导出
+     */
+    public void markDirty(Collection<String> keys) {
+        lock.writeLock().lock();
+        try {
+            dirtyKeys.addAll(keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 导出单个资源，位置数组只读共享，不做拷贝
+     */
+    private StoredDoc export(int ordinal) {
+        IndexedDoc doc = docs.get(ordinal);
+        StoredDoc stored = new StoredDoc(doc.type, doc.id, doc.sortTime);
+        for (Map.Entry<String, List<String>> field : doc.fieldTerms.entrySet()) {
+            Map<String, Map<Integer, int[]>> dictionary = fields.get(field.getKey());
+            Map<String, int[]> terms = new HashMap<>(field.getValue().size() * 2);
+            for (String term : field.getValue()) {
+                terms.put(term, dictionary.get(term).get(ordinal));
+            }
+            stored.fieldTerms.put(field.getKey(), terms);
+            stored.fieldLengths.put(field.getKey(), doc.fieldLengths.getOrDefault(field.getKey(), 0));
+        }
+        return stored;
+    }
+
+    /**
+     * 短语搜索并按BM25得分取前K条
+     *
+     * @param keyword 查询文本
+     * @param type 资源类型过滤，null或all表示不过滤
+     * @param limit 返回的最大命中数，小于等于0表示返回全部
+     * @return 命中总数及按得分降序的前K条命中
+     */
+    public SearchResult search(String keyword, String type, int limit) {
+        return search(keyword, type, limit, null);
+    }
+
+    /**
+     * 游标分页搜索：只保留按 {@link SearchHit#RANKING} 排在 after 之后的命中，堆大小仍只有 limit
+     *
+     * @param after 上一页最后一条命中，为null时从头开始
+     */
+    public SearchResult search(String keyword, String type, int limit, SearchHit after) {
+        List<AnalyzedToken> queryTokens = analyzer.analyzeQuery(keyword);
+        if (queryTokens.isEmpty()) {
+            return SearchResult.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            // 文档序号 -> 命中字段上的BM25得分之和
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Map<String, Map<Integer, int[]>>> field : fields.entrySet()) {
+                scoreField(field.getKey(), field.getValue(), queryTokens, null, scores);
+            }
+            if (maxExpansions > 0) {
+                addFuzzyScores(queryTokens, scores);
+            }
+            return rank(scores, type, limit, after);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按查询语法树搜索（高级搜索），命中按BM25得分之和排序
+     *
+     * @param query {@link QueryParser} 解析出的查询，为null时返回空结果
+     * @param type 资源类型过滤，null或all表示不过滤
+     * @param limit 返回的最大命中数，小于等于0表示返回全部
+     * @param fieldFilter 解析不在倒排索引中的限定字段（tag:），为null时这类子句不匹配任何文档
+     */
+    public SearchResult search(Query query, String type, int limit, FieldFilter fieldFilter) {
+        return search(query, type, limit, fieldFilter, null);
+    }
+
+    /**
+     * 按查询语法树游标分页搜索，游标用法同 {@link #search(String, String, int, SearchHit)}
+     *
+     * @param after 上一页最后一条命中，为null时从头开始
+     */
+    public SearchResult search(Query query, String type, int limit, FieldFilter fieldFilter, SearchHit after) {
+        if (query == null) {
+            return SearchResult.empty();
+        }
+        // 限定字段可能要访问数据库，在加锁前解析
+        QueryEvaluator evaluator = new QueryEvaluator(query, fieldFilter);
+        lock.readLock().lock();
+        try {
+            return rank(evaluator.evaluate(query, null), type, limit, after);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按类型过滤命中并取前K条，需持有读锁
+     */
+    private SearchResult rank(Map<Integer, Double> scores, String type, int limit, SearchHit after) {
+        // 堆内按由差到好排序
+        Comparator<SearchHit> ranking = SearchHit.RANKING.reversed();
+        int capacity = limit > 0 ? limit : Integer.MAX_VALUE;
+        // 小顶堆：堆顶是当前前K条中最差的一条
+        PriorityQueue<SearchHit> heap = new PriorityQueue<>(Math.min(capacity, scores.size()) + 1, ranking);
+        long total = 0;
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            IndexedDoc doc = docs.get(entry.getKey());
+            if (doc == null || !acceptType(doc.type, type)) {
+                continue;
+            }
+            total++;
+            SearchHit hit = new SearchHit(doc.type, doc.id, entry.getValue(), doc.sortTime);
+            if (after != null && SearchHit.RANKING.compare(hit, after) <= 0) {
+                continue;
+            }
+            if (heap.size() < capacity) {
+                heap.offer(hit);
+            } else if (ranking.compare(hit, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(hit);
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(heap);
+        hits.sort(SearchHit.RANKING);
+        return new SearchResult(total, hits);
+    }
+
+    /**
+     * 模糊匹配：查询中的拉丁单词扩展为编辑距离内的词项后再做一遍短语匹配，只给没有精确命中的文档打分。
+     * 模糊得分 s 压缩为 minExact * s / (1 + s)，严格低于所有精确命中的最低分，且保持模糊命中之间的相对顺序
+     */
+    private void addFuzzyScores(List<AnalyzedToken> queryTokens, Map<Integer, Double> scores) {
+        List<Set<String>> expansions = new ArrayList<>(queryTokens.size());
+        boolean expanded = false;
+        for (AnalyzedToken token : queryTokens) {
+            int maxEdits = token.getType() == TokenType.WORD && isAlphabetic(token.getTerm())
+                    ? LevenshteinAutomaton.maxEditsFor(token.getTerm().length()) : 0;
+            if (maxEdits == 0) {
+                expansions.add(null);
+                continue;
+            }
+            Set<String> terms = latinTerms.fuzzyTerms(new LevenshteinAutomaton(token.getTerm(), maxEdits), maxExpansions).keySet();
+            expanded |= terms.size() > (terms.contains(token.getTerm()) ? 1 : 0);
+            expansions.add(terms);
+        }
+        if (!expanded) {
+            return;
+        }
+
+        Map<Integer, Double> fuzzyScores = new HashMap<>();
+        for (Map.Entry<String, Map<String, Map<Integer, int[]>>> field : fields.entrySet()) {
+            scoreField(field.getKey(), field.getValue(), queryTokens, expansions, fuzzyScores);
+        }
+        double minExact = scores.values().stream().mapToDouble(Double::doubleValue).min().orElse(1.0);
+        fuzzyScores.forEach((ordinal, score) -> scores.putIfAbsent(ordinal, minExact * score / (1 + score)));
+    }
+
+    /**
+     * 对单个字段做短语匹配，并将命中文档在该字段上的得分累加到 scores
+     *
+     * @param expansions 每个查询词的扩展词项，为null或对应项为null时只匹配原词项
+     */
+    private void scoreField(String field, Map<String, Map<Integer, int[]>> dictionary, List<AnalyzedToken> queryTokens,
+                            List<Set<String>> expansions, Map<Integer, Double> scores) {
+        List<Map<Integer, int[]>> postings = fieldPostings(dictionary, queryTokens, expansions);
+        if (postings != null) {
+            scorePhrase(field, postings, queryTokens, null, scores);
+        }
+    }
+
+    /**
+     * 取出查询各词元在字段中的倒排表，任一词元不在字段中时返回null
+     */
+    private static List<Map<Integer, int[]>> fieldPostings(Map<String, Map<Integer, int[]>> dictionary,
+                                                           List<AnalyzedToken> queryTokens, List<Set<String>> expansions) {
+        if (dictionary == null || queryTokens.isEmpty()) {
+            return null;
+        }
+        List<Map<Integer, int[]>> postings = new ArrayList<>(queryTokens.size());
+        for (int i = 0; i < queryTokens.size(); i++) {
+            Map<Integer, int[]> posting = expansions == null || expansions.get(i) == null
+                    ? dictionary.get(queryTokens.get(i).getTerm())
+                    : unionPostings(dictionary, expansions.get(i));
+            if (posting == null || posting.isEmpty()) {
+                return null;
+            }
+            postings.add(posting);
+        }
+        return postings;
+    }
+
+    /**
+     * 在倒排表上做短语匹配并打分
+     *
+     * @param candidates 只在这些文档中匹配，为null表示不限；候选集比最短倒排表小时直接遍历候选集
+     */
+    private void scorePhrase(String field, List<Map<Integer, int[]>> postings, List<AnalyzedToken> queryTokens,
+                             Set<Integer> candidates, Map<Integer, Double> scores) {
+        int n = queryTokens.size();
+        int shortest = 0;
+        for (int i = 1; i < n; i++) {
+            if (postings.get(i).size() < postings.get(shortest).size()) {
+                shortest = i;
+            }
+        }
+        Collection<Integer> probe = candidates != null && candidates.size() < postings.get(shortest).size()
+                ? candidates : postings.get(shortest).keySet();
+
+        int docCount = ordinals.size();
+        double avgFieldLength = (double) fieldTotalLengths.getOrDefault(field, 0L) / Math.max(1, docCount);
+        double boost = similarity.boost(field);
+        double[] idf = new double[n];
+        for (int i = 0; i < n; i++) {
+            idf[i] = similarity.idf(postings.get(i).size(), docCount);
+        }
+
+        int base = queryTokens.get(0).getPosition();
+        for (Integer ordinal : probe) {
+            if (probe != candidates && candidates != null && !candidates.contains(ordinal)) {
+                continue;
+            }
+            int[] anchorPositions = postings.get(0).get(ordinal);
+            if (anchorPositions == null || !matchesPhrase(postings, queryTokens, ordinal, anchorPositions, base)) {
+                continue;
+            }
+            int fieldLength = docs.get(ordinal).fieldLengths.getOrDefault(field, 0);
+            double score = 0;
+            for (int i = 0; i < n; i++) {
+                score += similarity.score(postings.get(i).get(ordinal).length, idf[i], fieldLength, avgFieldLength);
+            }
+            scores.merge(ordinal, boost * score, Double::sum);
+        }
+    }
+
+    private boolean matchesPhrase(List<Map<Integer, int[]>> postings, List<AnalyzedToken> queryTokens,
+                                  Integer ordinal, int[] anchorPositions, int base) {
+        for (int start : anchorPositions) {
+            if (phraseAt(postings, queryTokens, ordinal, start - base)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean phraseAt(List<Map<Integer, int[]>> postings, List<AnalyzedToken> queryTokens, Integer ordinal, int offset) {
+        for (int i = 1; i < queryTokens.size(); i++) {
+            int[] positions = postings.get(i).get(ordinal);
+            if (positions == null || Arrays.binarySearch(positions, queryTokens.get(i).getPosition() + offset) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void unlinkPostings(int ordinal) {
+        IndexedDoc old = docs.get(ordinal);
+        if (old == null) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : old.fieldLengths.entrySet()) {
+            fieldTotalLengths.merge(entry.getKey(), (long) -entry.getValue(), Long::sum);
+        }
+        for (Map.Entry<String, List<String>> entry : old.fieldTerms.entrySet()) {
+            Map<String, Map<Integer, int[]>> dictionary = fields.get(entry.getKey());
+            if (dictionary == null) {
+                continue;
+            }
+            for (String term : entry.getValue()) {
+                Map<Integer, int[]> posting = dictionary.get(term);
+                if (posting != null) {
+                    posting.remove(ordinal);
+                    if (posting.isEmpty()) {
+                        dictionary.remove(term);
+                        if (isLatin(term)) {
+                            latinTerms.remove(term);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并多个词项的倒排表，同一文档的位置归并去重
+     */
+    private static Map<Integer, int[]> unionPostings(Map<String, Map<Integer, int[]>> dictionary, Set<String> terms) {
+        Map<Integer, int[]> merged = new HashMap<>();
+        for (String term : terms) {
+            Map<Integer, int[]> posting = dictionary.get(term);
+            if (posting != null) {
+                posting.forEach((ordinal, positions) -> merged.merge(ordinal, positions, InvertedIndex::mergePositions));
+            }
+        }
+        return merged;
+    }
+
+    private static int[] mergePositions(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length || j < b.length) {
+            int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static boolean isLatin(String term) {
+        return !Tokenizer.isCjk(term.charAt(0));
+    }
+
+    private static boolean isAlphabetic(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isLetter(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean acceptType(String docType, String type) {
+        return type == null || SearchConstants.TYPE_ALL.equals(type) || type.equals(docType);
+    }
+
+    static String docKey(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * 查询语法树求值，需持有读锁
+     *
+     * 布尔查询的 MUST 子句按估算代价（倒排表长度）升序求值：最有选择性的子句先给出候选集，
+     * 后续子句只在候选集内校验短语位置，候选集为空时立即结束；SHOULD 与 MUST_NOT 子句同样只在候选集内求值。
+     * 叶子子句的倒排表只准备一次，代价估算和求值共用。
+     */
+    private final class QueryEvaluator {
+
+        /**
+         * tag: 叶子子句 -> 匹配的文档ID
+         */
+        private final Map<Query, DocIdBitmap> filtered = new IdentityHashMap<>();
+
+        private final Map<Query, Leaf> leaves = new IdentityHashMap<>();
+
+        QueryEvaluator(Query query, FieldFilter fieldFilter) {
+            resolveFilters(query, fieldFilter);
+        }
+
+        private void resolveFilters(Query query, FieldFilter fieldFilter) {
+            if (query instanceof BooleanQuery) {
+                ((BooleanQuery) query).getClauses().forEach(clause -> resolveFilters(clause.getQuery(), fieldFilter));
+            } else if (query instanceof PhraseQuery && SearchConstants.FIELD_TAG.equals(((PhraseQuery) query).getField())) {
+                filtered.put(query, fieldFilter == null ? new DocIdBitmap()
+                        : fieldFilter.match(SearchConstants.FIELD_TAG, ((PhraseQuery) query).getText(), false));
+            } else if (query instanceof PrefixQuery && SearchConstants.FIELD_TAG.equals(((PrefixQuery) query).getField())) {
+                filtered.put(query, fieldFilter == null ? new DocIdBitmap()
+                        : fieldFilter.match(SearchConstants.FIELD_TAG, ((PrefixQuery) query).getPrefix(), true));
+            }
+        }
+
+        /**
+         * @param candidates 只在这些文档中求值，为null表示不限
+         * @return 文档序号 -> 得分，可由调用方修改
+         */
+        Map<Integer, Double> evaluate(Query query, Set<Integer> candidates) {
+            if (query instanceof BooleanQuery) {
+                return evaluateBoolean((BooleanQuery) query, candidates);
+            }
+            Leaf leaf = leaf(query);
+            Map<Integer, Double> scores = new HashMap<>();
+            if (leaf.matched != null) {
+                Collection<Integer> probe = candidates != null && candidates.size() < leaf.matched.size()
+                        ? candidates : leaf.matched;
+                for (Integer ordinal : probe) {
+                    if (leaf.matched.contains(ordinal) && (candidates == null || candidates.contains(ordinal))) {
+                        scores.put(ordinal, 0.0);
+                    }
+                }
+                return scores;
+            }
+            for (Map.Entry<String, List<Map<Integer, int[]>>> field : leaf.postings.entrySet()) {
+                scorePhrase(field.getKey(), field.getValue(), leaf.tokens, candidates, scores);
+            }
+            return scores;
+        }
+
+        private Map<Integer, Double> evaluateBoolean(BooleanQuery query, Set<Integer> candidates) {
+            List<Query> musts = new ArrayList<>();
+            List<Query> shoulds = new ArrayList<>();
+            List<Query> mustNots = new ArrayList<>();
+            for (BooleanQuery.Clause clause : query.getClauses()) {
+                switch (clause.getOccur()) {
+                    case MUST:
+                        musts.add(clause.getQuery());
+                        break;
+                    case SHOULD:
+                        shoulds.add(clause.getQuery());
+                        break;
+                    default:
+                        mustNots.add(clause.getQuery());
+                        break;
+                }
+            }
+
+            Map<Integer, Double> result;
+            if (!musts.isEmpty()) {
+                musts.sort(Comparator.comparingLong(this::cost));
+                result = evaluate(musts.get(0), candidates);
+                for (int i = 1; i < musts.size() && !result.isEmpty(); i++) {
+                    Map<Integer, Double> next = evaluate(musts.get(i), result.keySet());
+                    result.keySet().retainAll(next.keySet());
+                    next.forEach((ordinal, score) -> result.merge(ordinal, score, Double::sum));
+                }
+                for (int i = 0; i < shoulds.size() && !result.isEmpty(); i++) {
+                    evaluate(shoulds.get(i), result.keySet()).forEach((ordinal, score) -> result.merge(ordinal, score, Double::sum));
+                }
+            } else if (!shoulds.isEmpty()) {
+                result = new HashMap<>();
+                for (Query should : shoulds) {
+                    evaluate(should, candidates).forEach((ordinal, score) -> result.merge(ordinal, score, Double::sum));
+                }
+            } else {
+                // 只有 NOT 子句：从全部（或候选）文档中排除
+                result = new HashMap<>();
+                for (Integer ordinal : candidates != null ? candidates : ordinals.values()) {
+                    result.put(ordinal, 0.0);
+                }
+            }
+
+            for (int i = 0; i < mustNots.size() && !result.isEmpty(); i++) {
+                result.keySet().removeAll(evaluate(mustNots.get(i), result.keySet()).keySet());
+            }
+            return result;
+        }
+
+        /**
+         * 估算子句最多命中的文档数
+         */
+        private long cost(Query query) {
+            if (!(query instanceof BooleanQuery)) {
+                return leaf(query).cost;
+            }
+            long must = Long.MAX_VALUE;
+            long should = 0;
+            boolean hasShould = false;
+            for (BooleanQuery.Clause clause : ((BooleanQuery) query).getClauses()) {
+                if (clause.getOccur() == BooleanQuery.Occur.MUST) {
+                    must = Math.min(must, cost(clause.getQuery()));
+                } else if (clause.getOccur() == BooleanQuery.Occur.SHOULD) {
+                    should += cost(clause.getQuery());
+                    hasShould = true;
+                }
+            }
+            if (must != Long.MAX_VALUE) {
+                return must;
+            }
+            return hasShould ? should : ordinals.size();
+        }
+
+        private Leaf leaf(Query query) {
+            return leaves.computeIfAbsent(query, this::prepare);
+        }
+
+        private Leaf prepare(Query query) {
+            boolean prefix = query instanceof PrefixQuery;
+            String field = prefix ? ((PrefixQuery) query).getField() : ((PhraseQuery) query).getField();
+            String text = prefix ? ((PrefixQuery) query).getPrefix() : ((PhraseQuery) query).getText();
+            Leaf leaf = new Leaf();
+
+            DocIdBitmap documentIds = filtered.get(query);
+            if (documentIds != null) {
+                leaf.matched = new HashSet<>();
+                documentIds.forEach(id -> {
+                    Integer ordinal = ordinals.get(docKey(SearchConstants.TYPE_DOCUMENT, id));
+                    if (ordinal != null) {
+                        leaf.matched.add(ordinal);
+                    }
+                });
+                leaf.cost = leaf.matched.size();
+                return leaf;
+            }
+
+            leaf.tokens = analyzer.analyzeQuery(text);
+            List<Set<String>> expansions = null;
+            int last = leaf.tokens.size() - 1;
+            if (prefix && last >= 0 && leaf.tokens.get(last).getType() == TokenType.WORD) {
+                // 只展开最后一个拉丁词元，CJK前缀按短语匹配
+                expansions = new ArrayList<>(Collections.nCopies(leaf.tokens.size(), null));
+                expansions.set(last, new LinkedHashSet<>(latinTerms.prefixTerms(leaf.tokens.get(last).getTerm(), PREFIX_MAX_EXPANSIONS)));
+            }
+            Collection<String> fieldNames = field == null ? fields.keySet() : List.of(field);
+            for (String name : fieldNames) {
+                List<Map<Integer, int[]>> postings = fieldPostings(fields.get(name), leaf.tokens, expansions);
+                if (postings != null) {
+                    leaf.postings.put(name, postings);
+                    leaf.cost += postings.stream().mapToInt(Map::size).min().orElse(0);
+                }
+            }
+            return leaf;
+        }
+    }
+
+    /**
+     * 准备好的叶子子句：文本字段上的各词元倒排表，或限定字段解析出的文档集合
+     */
+    private static final class Leaf {
+        List<AnalyzedToken> tokens;
+        final Map<String, List<Map<Integer, int[]>>> postings = new LinkedHashMap<>();
+        Set<Integer> matched;
+        long cost;
+    }
+
+    /**
+     * 可持久化的单个资源索引数据：字段 -> 词项 -> 位置
+     */
+    public static final class StoredDoc {
+        final String type;
+        final Long id;
+        final long sortTime;
+        final Map<String, Map<String, int[]>> fieldTerms = new LinkedHashMap<>();
+        final Map<String, Integer> fieldLengths = new HashMap<>();
+
+        StoredDoc(String type, Long id, long sortTime) {
+            this.type = type;
+            this.id = id;
+            this.sortTime = sortTime;
+        }
+
+        String key() {
+            return docKey(type, id);
+        }
+    }
+
+    /**
+     * 一次导出的增量变更
+     */
+    public static final class ChangeSet {
+        final List<StoredDoc> upserts = new ArrayList<>();
+        final List<String> deletedKeys = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return upserts.isEmpty() && deletedKeys.isEmpty();
+        }
+
+        List<String> keys() {
+            List<String> keys = new ArrayList<>(upserts.size() + deletedKeys.size());
+            upserts.forEach(doc -> keys.add(doc.key()));
+            keys.addAll(deletedKeys);
+            return keys;
+        }
+    }
+
+    /**
+     * 可增长的位置列表
+     */
+    private static final class PositionList {
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+
+    /**
+     * 正排信息
+     */
+    private static final class IndexedDoc {
+        final String type;
+        final Long id;
+        final long sortTime;
+        final Map<String, List<String>> fieldTerms = new HashMap<>();
+        final Map<String, Integer> fieldLengths = new HashMap<>();
+
+        IndexedDoc(String type, Long id, long sortTime) {
+            this.type = type;
+            this.id = id;
+            this.sortTime = sortTime;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.Tag;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.mapper.TagMapper;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import com.xichen.wiki.search.query.QueryParser;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内倒排索引搜索引擎
+ *
+ * 每个用户一份独立的倒排索引，首次搜索时从数据库全量加载该用户的文档和电子书，
+ * 之后由文档/电子书服务的写操作增量维护。搜索耗时只与命中数量相关，与表大小无关。
+ *
+ * 启用 {@link IndexSegmentStore} 时，索引变更定期刷成段文件；进程重启后先从段文件恢复，
+ * 只从数据库补齐提交点之后修改过的资源，并按ID对账清掉已删除的资源，不再全量重建。
+ *
+ * 内存中的用户索引有数量上限：长时间没有搜索的用户索引被淘汰（淘汰前刷盘），
+ * 超过上限时按最近访问时间淘汰最久未用的，被淘汰的用户下次搜索时重新加载。
+ * 淘汰（包括刷盘）都在定时任务中执行：搜索请求发现超出上限时只做标记，不替其他用户承担段文件写入。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "index", matchIfMissing = true)
+public class InvertedIndexSearchEngine implements SearchEngine {
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Autowired
+    private Analyzer analyzer;
+
+    @Autowired
+    private Bm25Similarity similarity;
+
+    @Autowired
+    private IndexSegmentStore segmentStore;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    private TagBitmapIndex tagBitmapIndex;
+
+    /**
+     * 从提交点恢复时向前多补的时间（毫秒），覆盖提交前已写库但变更事件尚未应用的资源
+     */
+    @Value("${search.index.replay-margin-ms:300000}")
+    private long replayMarginMs;
+
+    /**
+     * 拼写容错：每个查询词最多扩展的相近词项数，0表示关闭
+     */
+    @Value("${search.fuzzy.max-expansions:20}")
+    private int fuzzyMaxExpansions;
+
+    /**
+     * 内存中最多保留的用户索引数
+     */
+    @Value("${search.index.max-users:200}")
+    private int maxUsers;
+
+    /**
+     * 用户索引空闲多久（毫秒）后淘汰
+     */
+    @Value("${search.index.idle-ms:1800000}")
+    private long idleMs;
+
+    private final Map<Long, InvertedIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 用户索引数超出上限，等待定时任务淘汰
+     */
+    private final AtomicBoolean overCapacity = new AtomicBoolean();
+
+    private final QueryParser queryParser = new QueryParser();
+
+    @Override
+    public SearchResult search(Long userId, String keyword, String type, int limit) {
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        return indexFor(userId).search(keyword, type, limit);
+    }
+
+    @Override
+    public SearchResult searchAfter(Long userId, String keyword, String type, SearchHit after, int limit) {
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        return indexFor(userId).search(keyword, type, limit, after);
+    }
+
+    @Override
+    public SearchResult searchQuery(Long userId, String query, String type, int limit) {
+        if (userId == null || StringUtils.isBlank(query)) {
+            return SearchResult.empty();
+        }
+        return indexFor(userId).search(queryParser.parse(query), type, limit,
+                (field, value, prefix) -> matchTags(userId, value, prefix));
+    }
+
+    @Override
+    public SearchResult searchQueryAfter(Long userId, String query, String type, SearchHit after, int limit) {
+        if (userId == null || StringUtils.isBlank(query)) {
+            return SearchResult.empty();
+        }
+        return indexFor(userId).search(queryParser.parse(query), type, limit,
+                (field, value, prefix) -> matchTags(userId, value, prefix), after);
+    }
+
+    @Override
+    public List<Long> matchDocumentIds(Long userId, String keyword, int limit) {
+        return search(userId, keyword, SearchConstants.TYPE_DOCUMENT, limit).getHits().stream()
+                .map(SearchHit::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void indexDocument(Document document) {
+        InvertedIndex index = loadedIndex(document.getUserId());
+        if (index != null) {
+            index.upsert(SearchConstants.TYPE_DOCUMENT, document.getId(), toMillis(document.getUpdatedAt()), documentFields(document));
+        }
+    }
+
+    @Override
+    public void indexEbook(Ebook ebook) {
+        InvertedIndex index = loadedIndex(ebook.getUserId());
+        if (index != null) {
+            index.upsert(SearchConstants.TYPE_EBOOK, ebook.getId(), toMillis(ebook.getCreatedAt()), ebookFields(ebook));
+        }
+    }
+
+    @Override
+    public void removeDocument(Long userId, Long documentId) {
+        InvertedIndex index = loadedIndex(userId);
+        if (index != null) {
+            index.remove(SearchConstants.TYPE_DOCUMENT, documentId);
+        }
+    }
+
+    @Override
+    public void removeEbook(Long userId, Long ebookId) {
+        InvertedIndex index = loadedIndex(userId);
+        if (index != null) {
+            index.remove(SearchConstants.TYPE_EBOOK, ebookId);
+        }
+    }
+
+    /**
+     * 丢弃用户索引且不刷盘：内存中的数据已不可信，下次加载时从段文件提交点补齐变更
+     */
+    @Override
+    public void evictUser(Long userId) {
+        if (userId != null && indexes.remove(userId) != null) {
+            log.info("用户搜索索引已丢弃，下次搜索时重新加载：用户ID={}", userId);
+        }
+    }
+
+    /**
+     * 获取用户索引，未加载时从数据库加载
+     */
+    private InvertedIndex indexFor(Long userId) {
+        InvertedIndex index = indexes.get(userId);
+        if (index == null) {
+            index = indexes.computeIfAbsent(userId, id -> new InvertedIndex(analyzer, similarity, fuzzyMaxExpansions));
+            if (indexes.size() > maxUsers) {
+                overCapacity.set(true);
+            }
+        }
+        index.touch();
+        ensureLoaded(userId, index);
+        return index;
+    }
+
+    /**
+     * 获取已存在的用户索引；用户从未搜索过时返回null，由首次搜索时从数据库加载最新数据
+     */
+    private InvertedIndex loadedIndex(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        InvertedIndex index = indexes.get(userId);
+        if (index != null) {
+            ensureLoaded(userId, index);
+        }
+        return index;
+    }
+
+    /**
+     * 定期把已加载索引的变更刷成段文件
+     */
+    @Scheduled(fixedDelayString = "${search.index.flush-interval-ms:30000}")
+    public void flushSegments() {
+        if (!segmentStore.isEnabled()) {
+            return;
+        }
+        indexes.forEach((userId, index) -> {
+            if (index.isLoaded()) {
+                segmentStore.flush(userId, index);
+            }
+        });
+    }
+
+    /**
+     * 搜索请求标记了超出上限时尽快淘汰，不等下一轮空闲淘汰
+     */
+    @Scheduled(fixedDelayString = "${search.index.capacity-check-ms:1000}")
+    public void evictOverCapacity() {
+        if (overCapacity.compareAndSet(true, false)) {
+            evictIdle();
+        }
+    }
+
+    /**
+     * 淘汰空闲的用户索引，仍超过上限时再按最近访问时间淘汰最久未用的
+     */
+    @Scheduled(fixedDelayString = "${search.index.evict-interval-ms:60000}")
+    public synchronized void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMs;
+        List<Map.Entry<Long, InvertedIndex>> candidates = new ArrayList<>(indexes.entrySet());
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()));
+        int remaining = candidates.size();
+        for (Map.Entry<Long, InvertedIndex> entry : candidates) {
+            if (remaining <= maxUsers && entry.getValue().getLastAccessMillis() > idleBefore) {
+                break;
+            }
+            evict(entry.getKey(), entry.getValue());
+            remaining--;
+        }
+    }
+
+    /**
+     * 移出内存；已加载的索引先把未落盘的变更刷成段文件，下次加载只需补齐此后的变更
+     */
+    private void evict(Long userId, InvertedIndex index) {
+        if (!indexes.remove(userId, index)) {
+            return;
+        }
+        if (index.isLoaded()) {
+            segmentStore.flush(userId, index);
+        }
+        log.debug("用户搜索索引已淘汰：用户ID={}, 资源数={}", userId, index.size());
+    }
+
+    /**
+     * 停机前刷盘，下次启动只需补齐停机期间的变更
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushSegments();
+    }
+
+    private void ensureLoaded(Long userId, InvertedIndex index) {
+        if (index.isLoaded()) {
+            return;
+        }
+        synchronized (index) {
+            if (index.isLoaded()) {
+                return;
+            }
+            Long committedAt = segmentStore.open(userId, index);
+            if (committedAt != null) {
+                replaySince(userId, index, committedAt - replayMarginMs);
+                index.markLoaded();
+                return;
+            }
+            long start = System.currentTimeMillis();
+
+            LambdaQueryWrapper<Document> docWrapper = new LambdaQueryWrapper<>();
+            docWrapper.eq(Document::getUserId, userId);
+            List<Document> documents = documentMapper.selectList(docWrapper);
+            for (Document document : documents) {
+                index.upsert(SearchConstants.TYPE_DOCUMENT, document.getId(), toMillis(document.getUpdatedAt()), documentFields(document));
+            }
+
+            LambdaQueryWrapper<Ebook> ebookWrapper = new LambdaQueryWrapper<>();
+            ebookWrapper.eq(Ebook::getUserId, userId);
+            List<Ebook> ebooks = ebookMapper.selectList(ebookWrapper);
+            for (Ebook ebook : ebooks) {
+                index.upsert(SearchConstants.TYPE_EBOOK, ebook.getId(), toMillis(ebook.getCreatedAt()), ebookFields(ebook));
+            }
+
+            index.markLoaded();
+            segmentStore.writeFull(userId, index);
+            log.info("用户搜索索引加载完成：用户ID={}, 文档数={}, 电子书数={}, 耗时={}ms",
+                    userId, documents.size(), ebooks.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 补齐提交点之后的变更：重新索引此后修改过的资源，再按现存ID清掉已删除的资源
+     */
+    private void replaySince(Long userId, InvertedIndex index, long sinceMillis) {
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(sinceMillis), ZoneId.systemDefault());
+
+        LambdaQueryWrapper<Document> docWrapper = new LambdaQueryWrapper<>();
+        docWrapper.eq(Document::getUserId, userId).ge(Document::getUpdatedAt, since);
+        List<Document> documents = documentMapper.selectList(docWrapper);
+        for (Document document : documents) {
+            index.upsert(SearchConstants.TYPE_DOCUMENT, document.getId(), toMillis(document.getUpdatedAt()), documentFields(document));
+        }
+
+        LambdaQueryWrapper<Ebook> ebookWrapper = new LambdaQueryWrapper<>();
+        ebookWrapper.eq(Ebook::getUserId, userId).ge(Ebook::getUpdatedAt, since);
+        List<Ebook> ebooks = ebookMapper.selectList(ebookWrapper);
+        for (Ebook ebook : ebooks) {
+            index.upsert(SearchConstants.TYPE_EBOOK, ebook.getId(), toMillis(ebook.getCreatedAt()), ebookFields(ebook));
+        }
+
+        // 逻辑删除不一定更新 updated_at，删除只能靠ID对账
+        int removed = index.retainOnly(SearchConstants.TYPE_DOCUMENT, liveIds(documentMapper.selectObjs(
+                new LambdaQueryWrapper<Document>().select(Document::getId).eq(Document::getUserId, userId))));
+        removed += index.retainOnly(SearchConstants.TYPE_EBOOK, liveIds(ebookMapper.selectObjs(
+                new LambdaQueryWrapper<Ebook>().select(Ebook::getId).eq(Ebook::getUserId, userId))));
+
+        log.info("用户搜索索引补齐变更：用户ID={}, 起点={}, 重新索引={}, 删除={}, 耗时={}ms",
+                userId, since, documents.size() + ebooks.size(), removed, System.currentTimeMillis() - start);
+    }
+
+    private static Set<Long> liveIds(List<Object> ids) {
+        Set<Long> result = new HashSet<>(ids.size() * 2);
+        for (Object id : ids) {
+            result.add(((Number) id).longValue());
+        }
+        return result;
+    }
+
+    /**
+     * tag: 限定：按名称找到用户的标签，取各标签文档位图的并集
+     */
+    private DocIdBitmap matchTags(Long userId, String name, boolean prefix) {
+        LambdaQueryWrapper<Tag> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Tag::getId).eq(Tag::getUserId, userId);
+        if (prefix) {
+            wrapper.likeRight(Tag::getName, name);
+        } else {
+            wrapper.eq(Tag::getName, name);
+        }
+        Long[] tagIds = tagMapper.selectList(wrapper).stream().map(Tag::getId).toArray(Long[]::new);
+        return tagBitmapIndex.match(userId, tagIds, false);
+    }
+
+    private static Map<String, String> documentFields(Document document) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(SearchConstants.FIELD_TITLE, document.getTitle());
+        fields.put(SearchConstants.FIELD_BODY, document.getContent());
+        return fields;
+    }
+
+    private static Map<String, String> ebookFields(Ebook ebook) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(SearchConstants.FIELD_TITLE, ebook.getTitle());
+        fields.put(SearchConstants.FIELD_AUTHOR, ebook.getAuthor());
+        fields.put(SearchConstants.FIELD_BODY, ebook.getDescription());
+        return fields;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        if (time == null) {
+            return System.currentTimeMillis();
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,86 @@
+package com.xichen.wiki.search;
+
+/**
+ * 有界编辑距离的 Levenshtein 自动机
+ *
+ * 状态是目标词与已读入前缀之间的编辑距离行（超过 maxEdits 的值截断为 maxEdits+1），
+ * 每读入一个字符按动态规划推进一行。行内最小值超过 maxEdits 时状态已死，
+ * 在词典树上遍历时可以整棵子树剪掉，因此只会访问与目标词相近的少量节点。
+ * 实例不可变，可在多线程间共享。
+ */
+public class LevenshteinAutomaton {
+
+    private final char[] target;
+
+    private final int maxEdits;
+
+    public LevenshteinAutomaton(String target, int maxEdits) {
+        this.target = target.toCharArray();
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * 按词长决定允许的编辑次数：1~2个字符不容错，3~5个字符1次，更长2次
+     */
+    public static int maxEditsFor(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    public int getMaxEdits() {
+        return maxEdits;
+    }
+
+    /**
+     * 初始状态（空前缀）
+     */
+    public int[] start() {
+        int[] row = new int[target.length + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = Math.min(i, maxEdits + 1);
+        }
+        return row;
+    }
+
+    /**
+     * 读入一个字符后的状态
+     */
+    public int[] step(int[] row, char c) {
+        int[] next = new int[row.length];
+        next[0] = Math.min(row[0] + 1, maxEdits + 1);
+        for (int i = 1; i < row.length; i++) {
+            int cost = target[i - 1] == c ? 0 : 1;
+            int value = Math.min(Math.min(next[i - 1] + 1, row[i] + 1), row[i - 1] + cost);
+            next[i] = Math.min(value, maxEdits + 1);
+        }
+        return next;
+    }
+
+    /**
+     * 已读入的串与目标词整体的编辑距离，超过上限时返回 maxEdits+1
+     */
+    public int distance(int[] row) {
+        return row[row.length - 1];
+    }
+
+    /**
+     * 已读入的串本身在编辑距离之内
+     */
+    public boolean isMatch(int[] row) {
+        return distance(row) <= maxEdits;
+    }
+
+    /**
+     * 继续读入字符后仍有可能匹配
+     */
+    public boolean canMatch(int[] row) {
+        for (int value : row) {
+            if (value <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
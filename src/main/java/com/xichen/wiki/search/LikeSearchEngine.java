@@ -0,0 +1,162 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.util.ContentCodec;
+import com.xichen.wiki.util.CursorUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 数据库LIKE搜索引擎（兼容模式）
+ *
+ * 保留原有的 LIKE '%kw%' 匹配语义，只查询ID和排序字段，不维护任何索引。
+ * 压缩存储的大文档正文在库中是 Base64 文本，只按标题匹配，正文检索需使用 search.engine=index。
+ */
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "like")
+public class LikeSearchEngine implements SearchEngine {
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Override
+    public SearchResult search(Long userId, String keyword, String type, int limit) {
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        List<SearchHit> hits = new ArrayList<>();
+
+        if (!SearchConstants.TYPE_EBOOK.equals(type)) {
+            LambdaQueryWrapper<Document> wrapper = documentQuery(userId, keyword).orderByDesc(Document::getUpdatedAt);
+            for (Document document : documentMapper.selectList(wrapper)) {
+                hits.add(new SearchHit(SearchConstants.TYPE_DOCUMENT, document.getId(), 0.0, toMillis(document.getUpdatedAt())));
+            }
+        }
+
+        if (!SearchConstants.TYPE_DOCUMENT.equals(type)) {
+            LambdaQueryWrapper<Ebook> wrapper = ebookQuery(userId, keyword).orderByDesc(Ebook::getCreatedAt);
+            for (Ebook ebook : ebookMapper.selectList(wrapper)) {
+                hits.add(new SearchHit(SearchConstants.TYPE_EBOOK, ebook.getId(), 0.0, toMillis(ebook.getCreatedAt())));
+            }
+        }
+
+        // 无相关度可言，两类资源合并后按时间降序
+        hits.sort(Comparator.comparingLong(SearchHit::getSortTime).reversed());
+        return SearchResult.of(hits, limit);
+    }
+
+    /**
+     * 游标条件下推到 SQL：每类资源按（时间, ID）降序 seek 后各取 limit 条，合并后取前 limit 条；
+     * 总数只计本批取到的命中
+     */
+    @Override
+    public SearchResult searchAfter(Long userId, String keyword, String type, SearchHit after, int limit) {
+        if (limit <= 0) {
+            return SearchEngine.super.searchAfter(userId, keyword, type, after, limit);
+        }
+        if (userId == null || StringUtils.isBlank(keyword)) {
+            return SearchResult.empty();
+        }
+        List<SearchHit> hits = new ArrayList<>();
+
+        if (!SearchConstants.TYPE_EBOOK.equals(type)) {
+            LambdaQueryWrapper<Document> wrapper = documentQuery(userId, keyword);
+            SearchHit seek = SearchHit.seekPoint(after, SearchConstants.TYPE_DOCUMENT);
+            if (seek != null) {
+                CursorUtil.seekAfterDesc(wrapper, List.of(Document::getUpdatedAt, Document::getId),
+                        List.of(toDateTime(seek.getSortTime()), seek.getId()));
+            }
+            wrapper.orderByDesc(Document::getUpdatedAt, Document::getId).last("LIMIT " + limit);
+            for (Document document : documentMapper.selectList(wrapper)) {
+                hits.add(new SearchHit(SearchConstants.TYPE_DOCUMENT, document.getId(), 0.0, toMillis(document.getUpdatedAt())));
+            }
+        }
+
+        if (!SearchConstants.TYPE_DOCUMENT.equals(type)) {
+            LambdaQueryWrapper<Ebook> wrapper = ebookQuery(userId, keyword);
+            SearchHit seek = SearchHit.seekPoint(after, SearchConstants.TYPE_EBOOK);
+            if (seek != null) {
+                CursorUtil.seekAfterDesc(wrapper, List.of(Ebook::getCreatedAt, Ebook::getId),
+                        List.of(toDateTime(seek.getSortTime()), seek.getId()));
+            }
+            wrapper.orderByDesc(Ebook::getCreatedAt, Ebook::getId).last("LIMIT " + limit);
+            for (Ebook ebook : ebookMapper.selectList(wrapper)) {
+                hits.add(new SearchHit(SearchConstants.TYPE_EBOOK, ebook.getId(), 0.0, toMillis(ebook.getCreatedAt())));
+            }
+        }
+
+        hits.sort(SearchHit.RANKING);
+        return SearchResult.of(hits, limit);
+    }
+
+    /**
+     * 文档的匹配条件，只查ID和排序字段
+     */
+    private static LambdaQueryWrapper<Document> documentQuery(Long userId, String keyword) {
+        LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Document::getId, Document::getUpdatedAt)
+               .eq(Document::getUserId, userId)
+               .and(w -> w.like(Document::getTitle, keyword)
+                       .or(v -> v.like(Document::getContent, keyword)
+                               .notLikeRight(Document::getContent, ContentCodec.COMPRESSED_PREFIX)));
+        return wrapper;
+    }
+
+    /**
+     * 电子书的匹配条件，只查ID和排序字段
+     */
+    private static LambdaQueryWrapper<Ebook> ebookQuery(Long userId, String keyword) {
+        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Ebook::getId, Ebook::getCreatedAt)
+               .eq(Ebook::getUserId, userId)
+               .and(w -> w.like(Ebook::getTitle, keyword)
+                       .or().like(Ebook::getAuthor, keyword)
+                       .or().like(Ebook::getDescription, keyword));
+        return wrapper;
+    }
+
+    @Override
+    public void indexDocument(Document document) {
+        // 直接查询数据库，无需维护索引
+    }
+
+    @Override
+    public void indexEbook(Ebook ebook) {
+        // 直接查询数据库，无需维护索引
+    }
+
+    @Override
+    public void removeDocument(Long userId, Long documentId) {
+        // 直接查询数据库，无需维护索引
+    }
+
+    @Override
+    public void removeEbook(Long userId, Long ebookId) {
+        // 直接查询数据库，无需维护索引
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0L : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,296 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.mapper.DocumentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文档近似重复索引
+ *
+ * 每个用户按 SimHash 指纹分段建桶（{@link SimHasher#bandKey}），桶内是文档ID位图。
+ * 查找某文档的近似重复只需取其各段所在的桶求并集，再对候选逐一算汉明距离，与用户文档总数无关。
+ * 与标签位图一样首次使用时按用户加载，之后随文档的创建、更新、删除增量维护；
+ * 加载时顺带为还没有指纹的存量文档补算并写回。
+ */
+@Slf4j
+@Component
+public class NearDuplicateIndex {
+
+    /**
+     * 补算存量文档指纹时每批读取的文档数
+     */
+    private static final int BACKFILL_BATCH = 100;
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private SimHasher simHasher;
+
+    private final Map<Long, UserFingerprints> users = new ConcurrentHashMap<>();
+
+    /**
+     * 查找文档的近似重复
+     *
+     * @return 近似重复文档ID -> 汉明距离，按距离升序；文档没有指纹时为空
+     */
+    public Map<Long, Integer> findDuplicates(Long userId, Long documentId) {
+        Map<Long, Integer> duplicates = new LinkedHashMap<>();
+        if (userId == null || documentId == null) {
+            return duplicates;
+        }
+        UserFingerprints fingerprints = users.computeIfAbsent(userId, id -> new UserFingerprints());
+        ensureLoaded(userId, fingerprints);
+        List<long[]> matches = new ArrayList<>();
+        synchronized (fingerprints) {
+            Long fingerprint = fingerprints.byDocument.get(documentId);
+            if (fingerprint == null) {
+                return duplicates;
+            }
+            fingerprints.candidates(fingerprint).forEach(candidate -> {
+                if (candidate != documentId) {
+                    int distance = SimHasher.distance(fingerprint, fingerprints.byDocument.get(candidate));
+                    if (distance <= SimHasher.MAX_DISTANCE) {
+                        matches.add(new long[]{candidate, distance});
+                    }
+                }
+            });
+        }
+        matches.sort(Comparator.<long[]>comparingLong(match -> match[1]).thenComparingLong(match -> match[0]));
+        matches.forEach(match -> duplicates.put(match[0], (int) match[1]));
+        return duplicates;
+    }
+
+    /**
+     * 把用户的全部文档按近似重复聚成组（近似重复关系的连通分量），只返回不少于两篇文档的组
+     *
+     * 只比较同桶的文档对，组按文档数降序，组内按文档ID升序
+     */
+    public List<List<Long>> groups(Long userId) {
+        List<List<Long>> groups = new ArrayList<>();
+        if (userId == null) {
+            return groups;
+        }
+        UserFingerprints fingerprints = users.computeIfAbsent(userId, id -> new UserFingerprints());
+        ensureLoaded(userId, fingerprints);
+        Map<Long, Long> parents = new HashMap<>();
+        synchronized (fingerprints) {
+            for (DocIdBitmap bucket : fingerprints.byBand.values()) {
+                if (bucket.cardinality() < 2) {
+                    continue;
+                }
+                List<Long> members = bucket.toList();
+                for (int i = 0; i < members.size(); i++) {
+                    long a = fingerprints.byDocument.get(members.get(i));
+                    for (int j = i + 1; j < members.size(); j++) {
+                        if (SimHasher.distance(a, fingerprints.byDocument.get(members.get(j))) <= SimHasher.MAX_DISTANCE) {
+                            union(parents, members.get(i), members.get(j));
+                        }
+                    }
+                }
+            }
+        }
+        Map<Long, List<Long>> byRoot = new HashMap<>();
+        for (Long documentId : parents.keySet()) {
+            byRoot.computeIfAbsent(find(parents, documentId), root -> new ArrayList<>()).add(documentId);
+        }
+        for (List<Long> group : byRoot.values()) {
+            group.sort(Comparator.naturalOrder());
+            groups.add(group);
+        }
+        groups.sort(Comparator.<List<Long>>comparingInt(List::size).reversed().thenComparing(group -> group.get(0)));
+        return groups;
+    }
+
+    /**
+     * 写入或更新文档指纹，文档没有指纹时从索引中移除
+     */
+    public void putDocument(Document document) {
+        UserFingerprints fingerprints = loaded(document.getUserId());
+        if (fingerprints == null) {
+            return;
+        }
+        synchronized (fingerprints) {
+            fingerprints.remove(document.getId());
+            Long fingerprint = document.getSimhash();
+            if (fingerprint != null && fingerprint != SimHasher.NONE) {
+                fingerprints.add(document.getId(), fingerprint);
+            }
+        }
+    }
+
+    public void removeDocument(Long userId, Long documentId) {
+        UserFingerprints fingerprints = loaded(userId);
+        if (fingerprints == null) {
+            return;
+        }
+        synchronized (fingerprints) {
+            fingerprints.remove(documentId);
+        }
+    }
+
+    /**
+     * 丢弃用户的指纹，下次使用时按数据库重新加载
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * 获取已加载的用户索引；从未查询过的用户返回null，由首次查询时加载最新数据
+     */
+    private UserFingerprints loaded(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserFingerprints fingerprints = users.get(userId);
+        if (fingerprints != null) {
+            ensureLoaded(userId, fingerprints);
+        }
+        return fingerprints;
+    }
+
+    private void ensureLoaded(Long userId, UserFingerprints fingerprints) {
+        if (fingerprints.loaded) {
+            return;
+        }
+        synchronized (fingerprints) {
+            if (fingerprints.loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int backfilled = backfill(userId);
+            List<Document> documents = documentMapper.selectList(new LambdaQueryWrapper<Document>()
+                    .select(Document::getId, Document::getSimhash)
+                    .eq(Document::getUserId, userId)
+                    .ne(Document::getSimhash, SimHasher.NONE));
+            for (Document document : documents) {
+                fingerprints.add(document.getId(), document.getSimhash());
+            }
+            fingerprints.loaded = true;
+            log.info("近似重复索引加载完成：用户ID={}, 文档数={}, 补算指纹={}, 耗时={}ms",
+                    userId, documents.size(), backfilled, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 为还没有指纹的存量文档补算指纹并写回，按ID分批读取正文
+     *
+     * @return 补算的文档数
+     */
+    private int backfill(Long userId) {
+        int count = 0;
+        long lastId = 0;
+        while (true) {
+            List<Document> batch = documentMapper.selectList(new LambdaQueryWrapper<Document>()
+                    .select(Document::getId, Document::getContent)
+                    .eq(Document::getUserId, userId)
+                    .isNull(Document::getSimhash)
+                    .gt(Document::getId, lastId)
+                    .orderByAsc(Document::getId)
+                    .last("LIMIT " + BACKFILL_BATCH));
+            for (Document document : batch) {
+                // 显式保留 updated_at，补算指纹不应改变文档的更新时间和列表顺序
+                documentMapper.update(null, new LambdaUpdateWrapper<Document>()
+                        .set(Document::getSimhash, simHasher.fingerprint(document.getContent()))
+                        .setSql("updated_at = updated_at")
+                        .eq(Document::getId, document.getId()));
+                lastId = document.getId();
+            }
+            count += batch.size();
+            if (batch.size() < BACKFILL_BATCH) {
+                return count;
+            }
+        }
+    }
+
+    private static void union(Map<Long, Long> parents, Long a, Long b) {
+        Long rootA = find(parents, a);
+        Long rootB = find(parents, b);
+        if (!rootA.equals(rootB)) {
+            parents.put(rootB, rootA);
+        }
+    }
+
+    /**
+     * 查找所在组的根，顺带做路径压缩；首次出现的文档自成一组
+     */
+    private static Long find(Map<Long, Long> parents, Long id) {
+        Long parent = parents.putIfAbsent(id, id);
+        if (parent == null || parent.equals(id)) {
+            return id;
+        }
+        Long root = find(parents, parent);
+        parents.put(id, root);
+        return root;
+    }
+
+    /**
+     * 单个用户的指纹分段索引
+     */
+    private static final class UserFingerprints {
+        /**
+         * 文档ID -> 指纹
+         */
+        final Map<Long, Long> byDocument = new HashMap<>();
+
+        /**
+         * 分段桶键 -> 文档ID位图
+         */
+        final Map<Integer, DocIdBitmap> byBand = new HashMap<>();
+
+        volatile boolean loaded;
+
+        void add(Long documentId, long fingerprint) {
+            byDocument.put(documentId, fingerprint);
+            for (int band = 0; band < SimHasher.BANDS; band++) {
+                byBand.computeIfAbsent(SimHasher.bandKey(fingerprint, band), key -> new DocIdBitmap()).add(documentId);
+            }
+        }
+
+        void remove(Long documentId) {
+            Long fingerprint = byDocument.remove(documentId);
+            if (fingerprint == null) {
+                return;
+            }
+            for (int band = 0; band < SimHasher.BANDS; band++) {
+                int key = SimHasher.bandKey(fingerprint, band);
+                DocIdBitmap bucket = byBand.get(key);
+                if (bucket != null) {
+                    bucket.remove(documentId);
+                    if (bucket.isEmpty()) {
+                        byBand.remove(key);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 与指纹至少有一段相同的文档
+         */
+        DocIdBitmap candidates(long fingerprint) {
+            DocIdBitmap result = new DocIdBitmap();
+            for (int band = 0; band < SimHasher.BANDS; band++) {
+                DocIdBitmap bucket = byBand.get(SimHasher.bandKey(fingerprint, band));
+                if (bucket != null) {
+                    result = result.or(bucket);
+                }
+            }
+            return result;
+        }
+    }
+}
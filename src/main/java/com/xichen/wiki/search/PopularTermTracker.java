@@ -0,0 +1,193 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.exception.BusinessException;
+import com.xichen.wiki.util.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门搜索词统计
+ *
+ * 每个节点在内存中用 {@link SpaceSavingCounter} 统计本周期的高频搜索词（计数器数量固定），
+ * 定时把本周期计数以流水线方式合并到Redis的小时桶和天桶中，每个桶只保留前N个词并自动过期。
+ * 查询时间窗口时按桶加权合并：最旧的桶按其仍落在窗口内的时间比例折算，使窗口随时间平滑滑动。
+ * - hour: 当前小时桶 + 上一个小时桶
+ * - day: 最近25个小时桶
+ * - week: 最近8个天桶
+ * 窗口合并结果在Redis中短暂缓存，所有节点共享。
+ */
+@Slf4j
+@Component
+public class PopularTermTracker {
+
+    private static final String RESOLUTION_HOUR = "hour";
+
+    private static final String RESOLUTION_DAY = "day";
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${search.popular.capacity:1000}")
+    private int capacity;
+
+    @Value("${search.popular.bucket-size:500}")
+    private int bucketSize;
+
+    @Value("${search.popular.window-cache-seconds:60}")
+    private long windowCacheSeconds;
+
+    private SpaceSavingCounter counter;
+
+    @PostConstruct
+    public void init() {
+        counter = new SpaceSavingCounter(capacity);
+    }
+
+    /**
+     * 记录一次搜索
+     */
+    public void record(String keyword) {
+        if (StringUtils.isBlank(keyword)) {
+            return;
+        }
+        counter.offer(keyword.trim(), 1);
+    }
+
+    /**
+     * 获取时间窗口内的热门搜索词
+     *
+     * @param window 时间窗口（hour/day/week）
+     * @param limit 数量
+     * @return 按热度降序的搜索词
+     */
+    public List<String> top(String window, int limit) {
+        return new ArrayList<>(topWithScores(window, limit).keySet());
+    }
+
+    /**
+     * 获取时间窗口内的热门搜索词及热度
+     */
+    public Map<String, Double> topWithScores(String window, int limit) {
+        String windowKey = RedisKeyUtil.getPopularTermsWindowKey(window);
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(windowKey))) {
+            aggregate(window, windowKey);
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(windowKey, 0, limit - 1);
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+                if (tuple.getValue() != null) {
+                    result.put(tuple.getValue().toString(), tuple.getScore());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 定时把本节点本周期的计数合并到Redis
+     */
+    @Scheduled(fixedDelayString = "${search.popular.flush-interval-ms:30000}")
+    public void flush() {
+        Map<String, Long> counts = counter.drain();
+        if (counts.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String hourKey = RedisKeyUtil.getPopularTermsBucketKey(RESOLUTION_HOUR, now / HOUR_MILLIS);
+        String dayKey = RedisKeyUtil.getPopularTermsBucketKey(RESOLUTION_DAY, now / DAY_MILLIS);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                        ops.opsForZSet().incrementScore(hourKey, entry.getKey(), entry.getValue());
+                        ops.opsForZSet().incrementScore(dayKey, entry.getKey(), entry.getValue());
+                    }
+                    // 每个桶只保留前N个词
+                    ops.opsForZSet().removeRange(hourKey, 0, -bucketSize - 1);
+                    ops.opsForZSet().removeRange(dayKey, 0, -bucketSize - 1);
+                    ops.expire(hourKey, 26, TimeUnit.HOURS);
+                    ops.expire(dayKey, 9, TimeUnit.DAYS);
+                    return null;
+                }
+            });
+            log.debug("热门搜索词合并完成：词条数={}", counts.size());
+        } catch (Exception e) {
+            log.warn("热门搜索词合并到Redis失败，本周期计数丢弃: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void aggregate(String window, String windowKey) {
+        long now = System.currentTimeMillis();
+        String resolution;
+        long unitMillis;
+        int bucketCount;
+        switch (window) {
+            case SearchConstants.WINDOW_HOUR:
+                resolution = RESOLUTION_HOUR;
+                unitMillis = HOUR_MILLIS;
+                bucketCount = 2;
+                break;
+            case SearchConstants.WINDOW_DAY:
+                resolution = RESOLUTION_HOUR;
+                unitMillis = HOUR_MILLIS;
+                bucketCount = 25;
+                break;
+            case SearchConstants.WINDOW_WEEK:
+                resolution = RESOLUTION_DAY;
+                unitMillis = DAY_MILLIS;
+                bucketCount = 8;
+                break;
+            default:
+                throw new BusinessException("不支持的时间窗口：" + window);
+        }
+
+        long current = now / unitMillis;
+        // 最旧的桶只有 (1 - 当前桶已过去的比例) 仍在窗口内
+        double oldestWeight = 1 - (double) (now % unitMillis) / unitMillis;
+        List<String> otherKeys = new ArrayList<>(bucketCount - 1);
+        double[] weights = new double[bucketCount];
+        weights[0] = 1;
+        for (int i = 1; i < bucketCount; i++) {
+            otherKeys.add(RedisKeyUtil.getPopularTermsBucketKey(resolution, current - i));
+            weights[i] = i == bucketCount - 1 ? oldestWeight : 1;
+        }
+        String currentKey = RedisKeyUtil.getPopularTermsBucketKey(resolution, current);
+        redisTemplate.opsForZSet().unionAndStore(currentKey, otherKeys, windowKey, Aggregate.SUM, Weights.of(weights));
+        redisTemplate.opsForZSet().removeRange(windowKey, 0, -bucketSize - 1);
+        redisTemplate.expire(windowKey, windowCacheSeconds, TimeUnit.SECONDS);
+    }
+}
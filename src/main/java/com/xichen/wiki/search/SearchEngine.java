@@ -0,0 +1,102 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索引擎抽象
+ *
+ * SearchServiceImpl 只依赖该接口完成关键词匹配，具体实现通过配置项 search.engine 切换：
+ * - index: 进程内倒排索引（默认）
+ * - fulltext: MySQL FULLTEXT 全文索引（ngram解析器）
+ * - like: 数据库 LIKE 查询（兼容模式）
+ */
+public interface SearchEngine {
+
+    /**
+     * 在指定用户的数据范围内搜索
+     *
+     * @param userId 用户ID
+     * @param keyword 搜索关键词
+     * @param type 搜索类型（all/document/ebook）
+     * @param limit 返回的最大命中数，小于等于0表示返回全部
+     * @return 命中总数及按相关度（或时间）降序排列的前 limit 条命中
+     */
+    SearchResult search(Long userId, String keyword, String type, int limit);
+
+    /**
+     * 游标分页搜索：返回按 {@link SearchHit#RANKING} 排在 after 之后的前 limit 条命中
+     *
+     * 默认实现取出全部命中后过滤，实现类可以把游标条件下推到检索过程中
+     *
+     * @param after 上一页最后一条命中，为null时从头开始
+     */
+    default SearchResult searchAfter(Long userId, String keyword, String type, SearchHit after, int limit) {
+        List<SearchHit> hits = new ArrayList<>(search(userId, keyword, type, 0).getHits());
+        hits.sort(SearchHit.RANKING);
+        if (after != null) {
+            hits.removeIf(hit -> SearchHit.RANKING.compare(hit, after) <= 0);
+        }
+        return SearchResult.of(hits, limit);
+    }
+
+    /**
+     * 按高级搜索查询语法搜索：引号短语、AND/OR/NOT、title:/author:/tag: 字段限定、前缀通配
+     *
+     * 默认实现把整个查询串当作普通关键词，由支持语法的实现类覆盖
+     *
+     * @param query 查询串，语法见 {@link com.xichen.wiki.search.query.QueryParser}
+     */
+    default SearchResult searchQuery(Long userId, String query, String type, int limit) {
+        return search(userId, query, type, limit);
+    }
+
+    /**
+     * 按高级搜索查询语法游标分页搜索，游标用法同 {@link #searchAfter}（导出时分批读取全部命中）
+     *
+     * 默认实现把整个查询串当作普通关键词
+     */
+    default SearchResult searchQueryAfter(Long userId, String query, String type, SearchHit after, int limit) {
+        return searchAfter(userId, query, type, after, limit);
+    }
+
+    /**
+     * 按关键词匹配文档，返回按相关度降序的前 limit 个文档ID
+     *
+     * 供列表等直接查询数据库的场景补充匹配压缩存储的正文（库中为 Base64 文本，LIKE 无法匹配）。
+     * 不在进程内持有解码正文的实现返回空列表，此时压缩存储的文档只按标题匹配
+     */
+    default List<Long> matchDocumentIds(Long userId, String keyword, int limit) {
+        return List.of();
+    }
+
+    /**
+     * 新增或更新文档索引
+     */
+    void indexDocument(Document document);
+
+    /**
+     * 新增或更新电子书索引
+     */
+    void indexEbook(Ebook ebook);
+
+    /**
+     * 删除文档索引
+     */
+    void removeDocument(Long userId, Long documentId);
+
+    /**
+     * 删除电子书索引
+     */
+    void removeEbook(Long userId, Long ebookId);
+
+    /**
+     * 丢弃该用户在本实例内存中的索引（如有），下次搜索时重新加载；变更无法增量应用时调用。
+     * 直接查询数据库的实现没有进程内状态，默认什么也不做
+     */
+    default void evictUser(Long userId) {
+    }
+}
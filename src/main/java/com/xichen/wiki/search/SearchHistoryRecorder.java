@@ -0,0 +1,182 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.util.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索历史异步记录器
+ *
+ * 搜索请求只把历史记录放入内存中的有界队列，不等待Redis。后台写线程批量取出记录，
+ * 按用户合并后通过一次流水线写入（每个用户一次 LPUSH + LTRIM + EXPIRE）。
+ * 队列满时直接丢弃新记录并计数，避免Redis变慢时拖垮搜索请求。
+ */
+@Slf4j
+@Component
+public class SearchHistoryRecorder {
+
+    /**
+     * 每个用户保留的历史条数
+     */
+    private static final int MAX_HISTORY_SIZE = 100;
+
+    /**
+     * 历史记录过期天数
+     */
+    private static final long HISTORY_EXPIRE_DAYS = 30;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${search.history.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${search.history.batch-size:500}")
+    private int batchSize;
+
+    private BlockingQueue<PendingHistory> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "search-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        // 写线程退出后把剩余记录写完
+        List<PendingHistory> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 记录一次搜索，不阻塞调用方
+     *
+     * @return 是否已放入队列；队列已满时返回false
+     */
+    public boolean record(Long userId, String keyword, String type) {
+        Map<String, Object> historyItem = new HashMap<>();
+        historyItem.put("keyword", keyword);
+        historyItem.put("type", type);
+        historyItem.put("timestamp", LocalDateTime.now());
+        if (queue.offer(new PendingHistory(userId, historyItem))) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        long total = dropped.incrementAndGet();
+        // 每丢弃1000条打一次日志，避免过载时日志本身成为负担
+        if (total % 1000 == 1) {
+            log.warn("搜索历史队列已满，丢弃记录：累计丢弃={}, 队列容量={}", total, queueCapacity);
+        }
+        return false;
+    }
+
+    /**
+     * 记录器统计：accepted-入队数, dropped-丢弃数, written-已写入Redis数, pending-队列中待写入数
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("accepted", accepted.get());
+        stats.put("dropped", dropped.get());
+        stats.put("written", written.get());
+        stats.put("pending", (long) queue.size());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<PendingHistory> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingHistory first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("搜索历史批量写入失败，丢弃本批记录：条数={}, 原因={}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按用户合并后流水线写入
+     */
+    private void write(List<PendingHistory> batch) {
+        // 用户ID -> 按时间顺序的历史记录
+        Map<Long, List<Object>> byUser = new LinkedHashMap<>();
+        for (PendingHistory pending : batch) {
+            byUser.computeIfAbsent(pending.userId, id -> new ArrayList<>()).add(pending.item);
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Map.Entry<Long, List<Object>> entry : byUser.entrySet()) {
+                    String key = RedisKeyUtil.getSearchHistoryKey(entry.getKey());
+                    // 依次左推，最新的记录位于列表头部
+                    ops.opsForList().leftPushAll(key, entry.getValue());
+                    ops.opsForList().trim(key, 0, MAX_HISTORY_SIZE - 1);
+                    ops.expire(key, HISTORY_EXPIRE_DAYS, TimeUnit.DAYS);
+                }
+                return null;
+            }
+        });
+        written.addAndGet(batch.size());
+        log.debug("搜索历史批量写入完成：条数={}, 用户数={}", batch.size(), byUser.size());
+    }
+
+    private static final class PendingHistory {
+        final Long userId;
+        final Map<String, Object> item;
+
+        PendingHistory(Long userId, Map<String, Object> item) {
+            this.userId = userId;
+            this.item = item;
+        }
+    }
+}
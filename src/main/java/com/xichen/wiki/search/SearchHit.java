@@ -0,0 +1,61 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Comparator;
+
+/**
+ * 搜索命中项
+ *
+ * 搜索引擎只返回命中的资源类型、ID以及排序依据，实体数据由调用方按ID批量加载。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+
+    /**
+     * 命中排序：得分降序，得分相同按时间降序，最后按类型、ID定序，保证顺序唯一（游标分页依赖这一点）
+     */
+    public static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(SearchHit::getSortTime).reversed())
+            .thenComparing(SearchHit::getType, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(SearchHit::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    /**
+     * 资源类型：document / ebook
+     */
+    private String type;
+
+    /**
+     * 资源ID
+     */
+    private Long id;
+
+    /**
+     * 相关度得分
+     */
+    private double score;
+
+    /**
+     * 排序时间戳（毫秒），文档为更新时间，电子书为创建时间
+     */
+    private long sortTime;
+
+    /**
+     * 把游标换算到某一类资源上，供按（得分, 时间, ID）降序做 seek 的数据库查询使用：
+     * 得分和时间相同时文档排在电子书之前，游标与该类资源类型不同时，ID取恒假（文档）或恒真（电子书）的边界值
+     *
+     * @param after 上一页最后一条命中，为null时返回null
+     */
+    public static SearchHit seekPoint(SearchHit after, String type) {
+        if (after == null || type.equals(after.getType())) {
+            return after;
+        }
+        long id = SearchConstants.TYPE_DOCUMENT.equals(type) ? 0L : Long.MAX_VALUE;
+        return new SearchHit(type, id, after.getScore(), after.getSortTime());
+    }
+}
@@ -0,0 +1,253 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.DocumentTag;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.Tag;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
+import com.xichen.wiki.event.EntityChangeListener;
+import com.xichen.wiki.event.EntityType;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.DocumentTagMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.mapper.TagMapper;
+import com.xichen.wiki.util.RedisKeyUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 搜索派生数据的跨实例同步
+ *
+ * 倒排索引、搜索建议、标签位图等都保存在各实例的内存中，本实例的写操作只会经事件分发器更新本实例。
+ * 这里把每批已提交的变更压缩成"实体类型|变更类型|用户ID|实体ID"逐行发布到Redis频道，
+ * 其他实例收到后按ID从数据库重新读取实体，重建事件交给 {@link SearchIndexUpdater} 应用。
+ * 消息只带ID、按最新数据重建，因此与到达顺序无关，重复应用也没有副作用。
+ *
+ * 只修改状态字段的事件不影响搜索，不发布。Redis不可用时错过的变更不会补发，
+ * 由用户索引空闲淘汰后的重新加载兜底。
+ */
+@Slf4j
+@Component
+public class SearchIndexSync implements EntityChangeListener, MessageListener {
+
+    private static final String FIELD_SEPARATOR = "|";
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private SearchIndexUpdater searchIndexUpdater;
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    private DocumentTagMapper documentTagMapper;
+
+    @Value("${search.index.sync.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 本实例标识，收到自己发出的消息时跳过
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisKeyUtil.getSearchIndexSyncChannel()));
+        }
+    }
+
+    /**
+     * 把本实例一批已提交的变更发布给其他实例，第一行为实例标识
+     */
+    @Override
+    public void onChanges(List<EntityChangeEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(nodeId);
+        int lines = 0;
+        for (EntityChangeEvent event : events) {
+            if (event.getChangeType() == ChangeType.STATE_UPDATED) {
+                continue;
+            }
+            message.append(LINE_SEPARATOR)
+                    .append(event.getEntityType()).append(FIELD_SEPARATOR)
+                    .append(event.getChangeType()).append(FIELD_SEPARATOR)
+                    .append(event.getUserId()).append(FIELD_SEPARATOR)
+                    .append(event.getEntityId());
+            lines++;
+        }
+        if (lines == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeyUtil.getSearchIndexSyncChannel(), message.toString());
+        } catch (RuntimeException e) {
+            log.warn("搜索索引同步消息发布失败，其他实例将错过本批变更：事件数={}, 错误={}", lines, e.getMessage());
+        }
+    }
+
+    /**
+     * 其他实例发来的变更：按ID批量读取最新数据，重建事件后应用到本实例
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split(LINE_SEPARATOR);
+        if (lines.length < 2 || nodeId.equals(lines[0])) {
+            return;
+        }
+        List<ChangeLine> changes = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            ChangeLine change = ChangeLine.parse(lines[i]);
+            if (change == null) {
+                log.warn("无效的搜索索引同步消息行：{}", lines[i]);
+            } else {
+                changes.add(change);
+            }
+        }
+        try {
+            searchIndexUpdater.onChanges(rebuild(changes));
+        } catch (RuntimeException e) {
+            log.error("应用其他实例的搜索索引变更失败：变更数={}", changes.size(), e);
+        }
+    }
+
+    /**
+     * 按最新数据重建事件：实体已不存在时重建为删除事件，标签关联变更重新读取文档当前的标签
+     */
+    private List<EntityChangeEvent> rebuild(List<ChangeLine> changes) {
+        Map<Long, Document> documents = load(changes, EntityType.DOCUMENT, documentMapper::selectBatchIds, Document::getId);
+        Map<Long, Ebook> ebooks = load(changes, EntityType.EBOOK, ebookMapper::selectBatchIds, Ebook::getId);
+        Map<Long, Tag> tags = load(changes, EntityType.TAG, tagMapper::selectBatchIds, Tag::getId);
+        Map<Long, List<Long>> documentTags = relinkedTags(changes);
+
+        List<EntityChangeEvent> events = new ArrayList<>(changes.size());
+        for (ChangeLine change : changes) {
+            switch (change.entityType) {
+                case DOCUMENT -> {
+                    if (change.changeType == ChangeType.TAGS_RELINKED) {
+                        events.add(EntityChangeEvent.documentTagsRelinked(change.userId, change.entityId,
+                                documentTags.getOrDefault(change.entityId, Collections.emptyList()).toArray(new Long[0])));
+                    } else {
+                        Document document = documents.get(change.entityId);
+                        events.add(document == null ? EntityChangeEvent.documentDeleted(change.userId, change.entityId)
+                                : EntityChangeEvent.document(ChangeType.UPDATED, document));
+                    }
+                }
+                case EBOOK -> {
+                    Ebook ebook = ebooks.get(change.entityId);
+                    events.add(ebook == null ? EntityChangeEvent.ebookDeleted(change.userId, change.entityId)
+                            : EntityChangeEvent.ebook(ChangeType.UPDATED, ebook));
+                }
+                case TAG -> {
+                    Tag tag = tags.get(change.entityId);
+                    events.add(tag == null ? EntityChangeEvent.tagDeleted(change.userId, change.entityId)
+                            : EntityChangeEvent.tag(ChangeType.UPDATED, tag));
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 批量读取某类实体的最新数据（逻辑删除的不会返回）；删除和标签关联变更不需要实体
+     */
+    private <T> Map<Long, T> load(List<ChangeLine> changes, EntityType entityType,
+                                  Function<Set<Long>, List<T>> loader, Function<T, Long> idOf) {
+        Set<Long> ids = changes.stream()
+                .filter(change -> change.entityType == entityType)
+                .filter(change -> change.changeType != ChangeType.DELETED && change.changeType != ChangeType.TAGS_RELINKED)
+                .map(change -> change.entityId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return loader.apply(ids).stream().collect(Collectors.toMap(idOf, entity -> entity));
+    }
+
+    private Map<Long, List<Long>> relinkedTags(List<ChangeLine> changes) {
+        Set<Long> documentIds = changes.stream()
+                .filter(change -> change.entityType == EntityType.DOCUMENT && change.changeType == ChangeType.TAGS_RELINKED)
+                .map(change -> change.entityId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Long>> result = new HashMap<>();
+        if (documentIds.isEmpty()) {
+            return result;
+        }
+        for (DocumentTag documentTag : documentTagMapper.selectList(new LambdaQueryWrapper<DocumentTag>()
+                .in(DocumentTag::getDocumentId, documentIds))) {
+            result.computeIfAbsent(documentTag.getDocumentId(), id -> new ArrayList<>()).add(documentTag.getTagId());
+        }
+        return result;
+    }
+
+    /**
+     * 同步消息中的一行
+     */
+    private static final class ChangeLine {
+
+        final EntityType entityType;
+
+        final ChangeType changeType;
+
+        final Long userId;
+
+        final Long entityId;
+
+        private ChangeLine(EntityType entityType, ChangeType changeType, Long userId, Long entityId) {
+            this.entityType = entityType;
+            this.changeType = changeType;
+            this.userId = userId;
+            this.entityId = entityId;
+        }
+
+        static ChangeLine parse(String line) {
+            String[] parts = line.split("\\" + FIELD_SEPARATOR);
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                return new ChangeLine(EntityType.valueOf(parts[0]), ChangeType.valueOf(parts[1]),
+                        Long.valueOf(parts[2]), Long.valueOf(parts[3]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.Tag;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
+import com.xichen.wiki.event.EntityChangeListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 搜索派生数据的增量维护
+ *
+ * 订阅实体变更事件，依次更新倒排索引、搜索建议、标签位图、近似重复索引，整批处理完后
+ * 再按用户失效搜索结果缓存（同一用户一批只失效一次），保证失效时索引已是新数据。
+ * 只修改状态字段的事件（{@link ChangeType#STATE_UPDATED}）不影响任何派生数据，直接跳过。
+ * 事件因队列已满被丢弃时，丢弃该用户在本实例的全部派生数据，下次使用时按数据库重新加载。
+ */
+@Component
+@Order(0)
+public class SearchIndexUpdater implements EntityChangeListener {
+
+    @Autowired
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private TagBitmapIndex tagBitmapIndex;
+
+    @Autowired
+    private NearDuplicateIndex nearDuplicateIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Override
+    public void onChanges(List<EntityChangeEvent> events) {
+        Set<Long> changedUsers = new LinkedHashSet<>();
+        for (EntityChangeEvent event : events) {
+            if (event.getChangeType() == ChangeType.STATE_UPDATED) {
+                continue;
+            }
+            switch (event.getEntityType()) {
+                case DOCUMENT -> applyDocument(event);
+                case EBOOK -> applyEbook(event);
+                case TAG -> applyTag(event);
+            }
+            changedUsers.add(event.getUserId());
+        }
+        changedUsers.forEach(searchResultCache::invalidateUser);
+    }
+
+    @Override
+    public void onOverflow(EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.STATE_UPDATED) {
+            return;
+        }
+        Long userId = event.getUserId();
+        searchEngine.evictUser(userId);
+        suggestionIndex.evictUser(userId);
+        tagBitmapIndex.evictUser(userId);
+        nearDuplicateIndex.evictUser(userId);
+        searchResultCache.invalidateUser(userId);
+    }
+
+    private void applyDocument(EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            searchEngine.removeDocument(event.getUserId(), event.getEntityId());
+            suggestionIndex.removeDocument(event.getUserId(), event.getEntityId());
+            tagBitmapIndex.removeDocument(event.getUserId(), event.getEntityId());
+            nearDuplicateIndex.removeDocument(event.getUserId(), event.getEntityId());
+        } else if (event.getChangeType() == ChangeType.TAGS_RELINKED) {
+            tagBitmapIndex.setDocumentTags(event.getUserId(), event.getEntityId(), event.getTagIds());
+        } else {
+            Document document = event.getEntity();
+            searchEngine.indexDocument(document);
+            suggestionIndex.putDocument(document);
+            nearDuplicateIndex.putDocument(document);
+        }
+    }
+
+    private void applyEbook(EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            searchEngine.removeEbook(event.getUserId(), event.getEntityId());
+            suggestionIndex.removeEbook(event.getUserId(), event.getEntityId());
+        } else {
+            Ebook ebook = event.getEntity();
+            searchEngine.indexEbook(ebook);
+            suggestionIndex.putEbook(ebook);
+        }
+    }
+
+    private void applyTag(EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            suggestionIndex.removeTag(event.getUserId(), event.getEntityId());
+            tagBitmapIndex.removeTag(event.getUserId(), event.getEntityId());
+        } else {
+            Tag tag = event.getEntity();
+            suggestionIndex.putTag(tag);
+        }
+    }
+}
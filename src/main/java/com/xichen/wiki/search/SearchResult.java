@@ -0,0 +1,45 @@
+package com.xichen.wiki.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 搜索结果：命中总数 + 排序后的前K条命中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+
+    /**
+     * 命中总数
+     */
+    private long total;
+
+    /**
+     * 按得分降序的命中列表（最多K条）
+     */
+    private List<SearchHit> hits;
+
+    /**
+     * 空结果
+     */
+    public static SearchResult empty() {
+        return new SearchResult(0, Collections.emptyList());
+    }
+
+    /**
+     * 由已排序的全部命中构造结果，只保留前 limit 条
+     *
+     * @param sortedHits 已排序的全部命中
+     * @param limit 最大条数，小于等于0表示全部保留
+     */
+    public static SearchResult of(List<SearchHit> sortedHits, int limit) {
+        List<SearchHit> hits = limit > 0 && sortedHits.size() > limit ? sortedHits.subList(0, limit) : sortedHits;
+        return new SearchResult(sortedHits.size(), hits);
+    }
+}
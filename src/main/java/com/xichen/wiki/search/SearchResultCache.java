@@ -0,0 +1,162 @@
+package com.xichen.wiki.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 搜索结果缓存
+ *
+ * 按用户隔离的进程内LRU缓存，条目带TTL，总条数有上限。
+ * 用户的文档/电子书发生写操作时，精确清除该用户的全部条目，其他用户不受影响；
+ * 同时递增该用户的版本号，避免写操作前开始、写操作后才完成的查询把旧结果写回缓存。
+ */
+@Component
+public class SearchResultCache {
+
+    @Value("${search.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${search.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final Map<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 读取缓存，未命中时加载并写入
+     *
+     * @param userId 用户ID
+     * @param key 查询键（查询类型、归一化关键词、筛选、排序、分页）
+     * @param loader 未命中时的加载逻辑
+     * @param cacheable 判断加载结果是否允许缓存（如部分结果不缓存）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String key, Supplier<T> loader, Predicate<T> cacheable) {
+        if (!enabled || userId == null) {
+            return loader.get();
+        }
+        CacheKey cacheKey = new CacheKey(userId, key);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(cacheKey);
+            if (entry != null && entry.expireAt > now) {
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                entries.remove(cacheKey);
+            }
+        }
+        misses.incrementAndGet();
+
+        long version = version(userId).get();
+        T value = loader.get();
+        if (value == null || !cacheable.test(value)) {
+            return value;
+        }
+        synchronized (entries) {
+            // 加载期间该用户的数据被修改过，结果可能已过期，不写入
+            if (version(userId).get() != version) {
+                return value;
+            }
+            entries.put(cacheKey, new Entry(value, now + ttlSeconds * 1000));
+            Iterator<Map.Entry<CacheKey, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 清除用户的全部缓存条目
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        version(userId).incrementAndGet();
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.userId.equals(userId));
+        }
+    }
+
+    /**
+     * 缓存统计：size-当前条数, hits-命中次数, misses-未命中次数, evictions-容量淘汰次数, hitRatio-命中率
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private AtomicLong version(Long userId) {
+        return versions.computeIfAbsent(userId, id -> new AtomicLong());
+    }
+
+    private static final class CacheKey {
+        final Long userId;
+        final String key;
+
+        CacheKey(Long userId, String key) {
+            this.userId = userId;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return userId.equals(other.userId) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * userId.hashCode() + key.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expireAt;
+
+        Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.search.analyzer.Analyzer;
+import com.xichen.wiki.search.analyzer.TokenType;
+
+/**
+ * SimHash 指纹计算
+ *
+ * 正文经分析器切成特征（拉丁单词、CJK二元组），每个特征散列为 64 位，按位累加 ±1 后取符号得到指纹。
+ * 内容相近的文本指纹的汉明距离也小，近似重复判定为距离不超过 {@link #MAX_DISTANCE}。
+ *
+ * 指纹分为 {@link #BANDS} 段，每段 10~11 位；距离不超过 BANDS-1 的两个指纹至少有一段完全相同（抽屉原理），
+ * 因此只需在同段同值的桶里找候选（LSH 分段），不必与全部文档逐一比较。
+ * 笔记类短文本改动几个词距离就有 4~5，阈值取 5；无关文本的距离集中在 32 附近，误判概率可以忽略。
+ */
+public class SimHasher {
+
+    /**
+     * 指纹分段数
+     */
+    public static final int BANDS = 6;
+
+    /**
+     * 判定为近似重复的最大汉明距离，必须小于分段数才能保证分段查找不漏
+     */
+    public static final int MAX_DISTANCE = BANDS - 1;
+
+    /**
+     * 表示没有指纹（正文过短或为空）
+     */
+    public static final long NONE = 0L;
+
+    /**
+     * 桶键中段号的偏移，段内取值不超过 11 位
+     */
+    private static final int BAND_SHIFT = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Analyzer analyzer;
+
+    private final int minFeatures;
+
+    /**
+     * @param minFeatures 特征数少于该值时不计算指纹，过短的文本指纹不稳定，容易误判
+     */
+    public SimHasher(Analyzer analyzer, int minFeatures) {
+        this.analyzer = analyzer;
+        this.minFeatures = minFeatures;
+    }
+
+    /**
+     * 计算文本指纹
+     *
+     * @return 指纹；文本过短时返回 {@link #NONE}
+     */
+    public long fingerprint(String text) {
+        int[] weights = new int[Long.SIZE];
+        int[] features = new int[1];
+        analyzer.analyze(text, (buffer, offset, length, type, position) -> {
+            // 单字噪声大，二元组已包含其信息
+            if (type == TokenType.UNIGRAM) {
+                return;
+            }
+            long hash = hash(buffer, offset, length);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += (hash >>> bit & 1L) != 0 ? 1 : -1;
+            }
+            features[0]++;
+        });
+        if (features[0] < minFeatures) {
+            return NONE;
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        // 极小概率算出0，与"没有指纹"区分开
+        return fingerprint == NONE ? 1L : fingerprint;
+    }
+
+    /**
+     * 两个指纹的汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * 是否近似重复，任一方没有指纹时不算
+     */
+    public static boolean isNearDuplicate(long a, long b) {
+        return a != NONE && b != NONE && distance(a, b) <= MAX_DISTANCE;
+    }
+
+    /**
+     * 指纹第 band 段的桶键：高位为段号，低位为该段的取值
+     */
+    public static int bandKey(long fingerprint, int band) {
+        int from = band * Long.SIZE / BANDS;
+        int bits = (band + 1) * Long.SIZE / BANDS - from;
+        return band << BAND_SHIFT | (int) (fingerprint >>> from & ((1L << bits) - 1));
+    }
+
+    /**
+     * FNV-1a 后再做一次 64 位混合，使相近的词元也得到差异充分的散列值
+     */
+    private static long hash(char[] buffer, int offset, int length) {
+        long hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= buffer[i];
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
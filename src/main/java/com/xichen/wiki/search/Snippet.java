@@ -0,0 +1,38 @@
+package com.xichen.wiki.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 搜索结果摘要
+ *
+ * 原文中命中词最集中的一段，附带高亮区间，前端按区间自行渲染高亮标记。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Snippet {
+
+    /**
+     * 摘要文本
+     */
+    private String text;
+
+    /**
+     * 高亮区间，每项为 [起始偏移, 结束偏移)，相对于摘要文本，按起始偏移升序且互不重叠
+     */
+    private List<int[]> highlights;
+
+    /**
+     * 摘要之前是否还有原文（前端据此显示省略号）
+     */
+    private boolean truncatedStart;
+
+    /**
+     * 摘要之后是否还有原文
+     */
+    private boolean truncatedEnd;
+}
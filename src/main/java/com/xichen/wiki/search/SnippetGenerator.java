@@ -0,0 +1,159 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.search.analyzer.AnalyzedToken;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import com.xichen.wiki.search.analyzer.CharArrayMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 搜索摘要生成器
+ *
+ * 用分析器对原文做一次分词，直接取命中词元的原文偏移，不再用字符串查找重新扫描原文。
+ * 在固定长度的窗口内按“覆盖的不同查询词数优先、命中次数其次”选出最佳片段。
+ * 实例无状态，可在多线程间共享。
+ */
+public class SnippetGenerator {
+
+    private final Analyzer analyzer;
+
+    private final int fragmentSize;
+
+    /**
+     * @param analyzer 与索引一致的分析器
+     * @param fragmentSize 摘要长度（字符数）
+     */
+    public SnippetGenerator(Analyzer analyzer, int fragmentSize) {
+        if (fragmentSize <= 0) {
+            throw new IllegalArgumentException("fragmentSize must be positive");
+        }
+        this.analyzer = analyzer;
+        this.fragmentSize = fragmentSize;
+    }
+
+    /**
+     * 解析查询词项，同一次搜索的多条结果可复用
+     *
+     * @return 词项 -> 词项序号
+     */
+    public CharArrayMap<Integer> queryTerms(String keyword) {
+        CharArrayMap<Integer> terms = new CharArrayMap<>();
+        for (AnalyzedToken token : analyzer.analyzeQuery(keyword)) {
+            if (terms.get(token.getTerm()) == null) {
+                terms.put(token.getTerm(), terms.size());
+            }
+        }
+        return terms;
+    }
+
+    public Snippet generate(String text, String keyword) {
+        return generate(text, queryTerms(keyword));
+    }
+
+    /**
+     * 生成摘要
+     *
+     * @param text 原文
+     * @param terms 查询词项，见 {@link #queryTerms(String)}
+     * @return 摘要；原文为空时返回null，没有命中时返回原文开头一段
+     */
+    public Snippet generate(String text, CharArrayMap<Integer> terms) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        List<Match> matches = new ArrayList<>();
+        if (terms.size() > 0) {
+            analyzer.analyze(text, (buffer, offset, length, type, position) -> {
+                Integer term = terms.get(buffer, offset, length);
+                if (term != null) {
+                    matches.add(new Match(offset, offset + length, term));
+                }
+            });
+        }
+        if (matches.isEmpty()) {
+            return fragment(text, 0, Math.min(text.length(), fragmentSize), matches);
+        }
+        // CJK单字与二元组交替输出，起始偏移不一定单调
+        matches.sort(Comparator.comparingInt((Match m) -> m.start).thenComparingInt(m -> m.end));
+
+        // 滑动窗口：窗口内所有命中都能放进 fragmentSize 个字符
+        int[] termCounts = new int[terms.size()];
+        int distinct = 0;
+        long bestScore = -1;
+        int bestStart = 0;
+        int bestEnd = 0;
+        int right = 0;
+        for (int left = 0; left < matches.size(); left++) {
+            while (right < matches.size()
+                    && (right == left || matches.get(right).end - matches.get(left).start <= fragmentSize)) {
+                if (termCounts[matches.get(right).term]++ == 0) {
+                    distinct++;
+                }
+                right++;
+            }
+            long score = (long) distinct * (matches.size() + 1) + (right - left);
+            if (score > bestScore) {
+                bestScore = score;
+                bestStart = matches.get(left).start;
+                bestEnd = matches.get(left).end;
+                for (int i = left + 1; i < right; i++) {
+                    bestEnd = Math.max(bestEnd, matches.get(i).end);
+                }
+            }
+            if (--termCounts[matches.get(left).term] == 0) {
+                distinct--;
+            }
+        }
+
+        // 命中区间居中，两侧补足上下文
+        int slack = Math.max(0, fragmentSize - (bestEnd - bestStart));
+        int from = Math.max(0, bestStart - slack / 2);
+        int to = Math.min(text.length(), Math.max(bestEnd, from + fragmentSize));
+        from = Math.max(0, Math.min(from, to - fragmentSize));
+        return fragment(text, from, to, matches);
+    }
+
+    /**
+     * 截取片段并计算片段内的高亮区间，重叠或相邻的命中合并为一个区间
+     */
+    private static Snippet fragment(String text, int from, int to, List<Match> matches) {
+        // 不从代理对中间截断
+        if (from > 0 && Character.isLowSurrogate(text.charAt(from))) {
+            from++;
+        }
+        if (to < text.length() && to > from && Character.isHighSurrogate(text.charAt(to - 1))) {
+            to--;
+        }
+        List<int[]> highlights = new ArrayList<>();
+        int[] last = null;
+        for (Match match : matches) {
+            if (match.start < from || match.end > to) {
+                continue;
+            }
+            if (last != null && match.start - from <= last[1]) {
+                last[1] = Math.max(last[1], match.end - from);
+            } else {
+                last = new int[]{match.start - from, match.end - from};
+                highlights.add(last);
+            }
+        }
+        return new Snippet(text.substring(from, to), highlights, from > 0, to < text.length());
+    }
+
+    /**
+     * 命中的词元
+     */
+    private static final class Match {
+        final int start;
+        final int end;
+        final int term;
+
+        Match(int start, int end, int term) {
+            this.start = start;
+            this.end = end;
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.xichen.wiki.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项计数器
+ *
+ * 最多维护 capacity 个计数器，内存占用与输入的不同词条数量无关：
+ * - 已跟踪的词条直接累加
+ * - 计数器未满时新增
+ * - 计数器已满时替换计数最小的词条，新词条继承其计数
+ *
+ * 任何真实频次超过 总数/capacity 的词条一定会被保留，计数最多高估被替换时继承的误差。
+ */
+public class SpaceSavingCounter {
+
+    private final int capacity;
+
+    private Map<String, Counter> counters;
+
+    private long total;
+
+    public SpaceSavingCounter(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现
+     */
+    public synchronized void offer(String item, long weight) {
+        total += weight;
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(weight));
+            return;
+        }
+        String minItem = null;
+        Counter min = null;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.count) {
+                minItem = entry.getKey();
+                min = entry.getValue();
+            }
+        }
+        counters.remove(minItem);
+        counters.put(item, new Counter(min.count + weight));
+    }
+
+    /**
+     * 当前记录的总次数
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * 按计数降序返回前 k 个词条
+     */
+    public synchronized Map<String, Long> top(int k) {
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().count, a.getValue().count));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(k, entries.size()); i++) {
+            result.put(entries.get(i).getKey(), entries.get(i).getValue().count);
+        }
+        return result;
+    }
+
+    /**
+     * 取出全部计数并清零，用于周期性合并到共享存储
+     */
+    public synchronized Map<String, Long> drain() {
+        Map<String, Long> result = new HashMap<>(counters.size() * 2);
+        counters.forEach((item, counter) -> result.put(item, counter.count));
+        counters = new HashMap<>(capacity * 2);
+        total = 0;
+        return result;
+    }
+
+    private static final class Counter {
+        long count;
+
+        Counter(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.xichen.wiki.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.entity.Tag;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.mapper.TagMapper;
+import com.xichen.wiki.util.RedisKeyUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 搜索建议索引
+ *
+ * 每个用户一棵补全树，词条来自文档标题、电子书标题、标签名和该用户的搜索历史；
+ * 另有一棵全局补全树，词条来自最近一周的热门搜索词。补全树首次使用时从数据库/Redis加载，
+ * 之后随写操作和搜索记录增量更新，补全请求本身不访问数据库。
+ */
+@Slf4j
+@Component
+public class SuggestionIndex {
+
+    /**
+     * 每个前缀缓存的建议条数
+     */
+    private static final int TOP_K = 10;
+
+    /**
+     * 标题、标签词条的权重
+     */
+    private static final long NAME_WEIGHT = 1;
+
+    /**
+     * 每次搜索为历史关键词增加的权重，使用户搜过的词优先于仅出现在标题中的词
+     */
+    private static final long HISTORY_WEIGHT = 2;
+
+    /**
+     * 全局补全树从热门搜索词中加载的条数
+     */
+    private static final int GLOBAL_PRELOAD_SIZE = 1000;
+
+    private static final String SOURCE_TAG = "tag";
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    @Autowired
+    private EbookMapper ebookMapper;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private PopularTermTracker popularTermTracker;
+
+    private final Map<Long, UserSuggestions> users = new ConcurrentHashMap<>();
+
+    private final CompletionTrie global = new CompletionTrie(TOP_K);
+
+    private volatile boolean globalLoaded;
+
+    /**
+     * 用户个人建议：标题、标签和搜索历史
+     */
+    public List<String> suggest(Long userId, String prefix, int limit) {
+        if (userId == null || StringUtils.isBlank(prefix)) {
+            return new ArrayList<>();
+        }
+        UserSuggestions suggestions = users.computeIfAbsent(userId, id -> new UserSuggestions());
+        ensureLoaded(userId, suggestions);
+        return suggestions.trie.suggest(prefix, limit);
+    }
+
+    /**
+     * 用户个人建议的拼写容错版本，只返回精确前缀补全之外的词条
+     */
+    public List<String> suggestFuzzy(Long userId, String prefix, int limit) {
+        if (userId == null || StringUtils.isBlank(prefix)) {
+            return new ArrayList<>();
+        }
+        UserSuggestions suggestions = users.computeIfAbsent(userId, id -> new UserSuggestions());
+        ensureLoaded(userId, suggestions);
+        return suggestions.trie.fuzzySuggest(prefix, limit);
+    }
+
+    /**
+     * 全局热门搜索词建议
+     */
+    public List<String> suggestPopular(String prefix, int limit) {
+        if (StringUtils.isBlank(prefix)) {
+            return new ArrayList<>();
+        }
+        ensureGlobalLoaded();
+        return global.suggest(prefix, limit);
+    }
+
+    /**
+     * 记录一次搜索：计入用户历史和全局热门词
+     */
+    public void recordQuery(Long userId, String keyword) {
+        if (StringUtils.isBlank(keyword)) {
+            return;
+        }
+        if (globalLoaded) {
+            global.add(keyword, 1);
+        }
+        UserSuggestions suggestions = loaded(userId);
+        if (suggestions != null) {
+            synchronized (suggestions) {
+                suggestions.history.merge(keyword.trim(), HISTORY_WEIGHT, Long::sum);
+                suggestions.trie.add(keyword, HISTORY_WEIGHT);
+            }
+        }
+    }
+
+    /**
+     * 清空用户搜索历史带来的权重
+     */
+    public void clearHistory(Long userId) {
+        UserSuggestions suggestions = loaded(userId);
+        if (suggestions != null) {
+            synchronized (suggestions) {
+                suggestions.history.forEach((keyword, weight) -> suggestions.trie.add(keyword, -weight));
+                suggestions.history.clear();
+            }
+        }
+    }
+
+    public void putDocument(Document document) {
+        putName(document.getUserId(), sourceKey(SearchConstants.TYPE_DOCUMENT, document.getId()), document.getTitle());
+    }
+
+    public void removeDocument(Long userId, Long documentId) {
+        putName(userId, sourceKey(SearchConstants.TYPE_DOCUMENT, documentId), null);
+    }
+
+    public void putEbook(Ebook ebook) {
+        putName(ebook.getUserId(), sourceKey(SearchConstants.TYPE_EBOOK, ebook.getId()), ebook.getTitle());
+    }
+
+    public void removeEbook(Long userId, Long ebookId) {
+        putName(userId, sourceKey(SearchConstants.TYPE_EBOOK, ebookId), null);
+    }
+
+    public void putTag(Tag tag) {
+        putName(tag.getUserId(), sourceKey(SOURCE_TAG, tag.getId()), tag.getName());
+    }
+
+    public void removeTag(Long userId, Long tagId) {
+        putName(userId, sourceKey(SOURCE_TAG, tagId), null);
+    }
+
+    /**
+     * 用新名称替换某个来源（文档/电子书/标签）之前贡献的词条，name为null表示删除
+     */
+    private void putName(Long userId, String sourceKey, String name) {
+        UserSuggestions suggestions = loaded(userId);
+        if (suggestions == null) {
+            return;
+        }
+        synchronized (suggestions) {
+            suggestions.replace(sourceKey, name);
+        }
+    }
+
+    /**
+     * 丢弃用户的建议，下次使用时按数据库重新加载
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * 获取已存在的用户建议；用户从未请求过建议时返回null，由首次请求时加载最新数据
+     */
+    private UserSuggestions loaded(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserSuggestions suggestions = users.get(userId);
+        if (suggestions != null) {
+            ensureLoaded(userId, suggestions);
+        }
+        return suggestions;
+    }
+
+    private void ensureLoaded(Long userId, UserSuggestions suggestions) {
+        if (suggestions.loaded) {
+            return;
+        }
+        synchronized (suggestions) {
+            if (suggestions.loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+
+            LambdaQueryWrapper<Document> docWrapper = new LambdaQueryWrapper<>();
+            docWrapper.select(Document::getId, Document::getTitle).eq(Document::getUserId, userId);
+            for (Document document : documentMapper.selectList(docWrapper)) {
+                suggestions.replace(sourceKey(SearchConstants.TYPE_DOCUMENT, document.getId()), document.getTitle());
+            }
+
+            LambdaQueryWrapper<Ebook> ebookWrapper = new LambdaQueryWrapper<>();
+            ebookWrapper.select(Ebook::getId, Ebook::getTitle).eq(Ebook::getUserId, userId);
+            for (Ebook ebook : ebookMapper.selectList(ebookWrapper)) {
+                suggestions.replace(sourceKey(SearchConstants.TYPE_EBOOK, ebook.getId()), ebook.getTitle());
+            }
+
+            LambdaQueryWrapper<Tag> tagWrapper = new LambdaQueryWrapper<>();
+            tagWrapper.select(Tag::getId, Tag::getName).eq(Tag::getUserId, userId);
+            for (Tag tag : tagMapper.selectList(tagWrapper)) {
+                suggestions.replace(sourceKey(SOURCE_TAG, tag.getId()), tag.getName());
+            }
+
+            // 搜索历史是Redis列表，元素为包含keyword的Map
+            try {
+                List<Object> history = redisTemplate.opsForList().range(RedisKeyUtil.getSearchHistoryKey(userId), 0, -1);
+                if (history != null) {
+                    for (Object item : history) {
+                        if (item instanceof Map && ((Map<?, ?>) item).get("keyword") != null) {
+                            String keyword = ((Map<?, ?>) item).get("keyword").toString().trim();
+                            suggestions.history.merge(keyword, HISTORY_WEIGHT, Long::sum);
+                            suggestions.trie.add(keyword, HISTORY_WEIGHT);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("加载用户搜索历史建议失败: {}", e.getMessage());
+            }
+
+            suggestions.loaded = true;
+            log.info("用户搜索建议加载完成：用户ID={}, 词条数={}, 耗时={}ms",
+                    userId, suggestions.trie.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private void ensureGlobalLoaded() {
+        if (globalLoaded) {
+            return;
+        }
+        synchronized (global) {
+            if (globalLoaded) {
+                return;
+            }
+            try {
+                popularTermTracker.topWithScores(SearchConstants.WINDOW_WEEK, GLOBAL_PRELOAD_SIZE)
+                        .forEach((term, score) -> global.add(term, Math.max(1, Math.round(score))));
+            } catch (Exception e) {
+                log.warn("加载热门搜索词建议失败: {}", e.getMessage());
+            }
+            globalLoaded = true;
+        }
+    }
+
+    private static String sourceKey(String source, Long id) {
+        return source + ":" + id;
+    }
+
+    /**
+     * 单个用户的补全树及其词条来源
+     */
+    private static final class UserSuggestions {
+        final CompletionTrie trie = new CompletionTrie(TOP_K);
+
+        /**
+         * 来源（type:id） -> 该来源当前贡献的词条
+         */
+        final Map<String, String> sources = new HashMap<>();
+
+        /**
+         * 历史关键词 -> 累计权重
+         */
+        final Map<String, Long> history = new HashMap<>();
+
+        volatile boolean loaded;
+
+        void replace(String sourceKey, String name) {
+            String old = StringUtils.isBlank(name) ? sources.remove(sourceKey) : sources.put(sourceKey, name);
+            if (old != null) {
+                trie.add(old, -NAME_WEIGHT);
+            }
+            if (StringUtils.isNotBlank(name)) {
+                trie.add(name, NAME_WEIGHT);
+            }
+        }
+    }
+}
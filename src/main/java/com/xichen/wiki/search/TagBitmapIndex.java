@@ -0,0 +1,221 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.entity.DocumentTag;
+import com.xichen.wiki.mapper.DocumentTagMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标签位图索引
+ *
+ * 每个用户每个标签一个文档ID位图（{@link DocIdBitmap}），标签筛选在内存中做位图交集/并集，
+ * 不再把全部用户的 document_tags 记录捞出来拼成 IN 条件。位图首次使用时按用户加载，
+ * 之后随文档的创建、更新、删除增量维护。
+ */
+@Slf4j
+@Component
+public class TagBitmapIndex {
+
+    @Autowired
+    private DocumentTagMapper documentTagMapper;
+
+    private final Map<Long, UserTags> users = new ConcurrentHashMap<>();
+
+    /**
+     * 按标签筛选用户的文档
+     *
+     * @param userId 用户ID
+     * @param tagIds 标签ID
+     * @param matchAll true-包含全部标签（交集），false-包含任一标签（并集）
+     * @return 满足条件的文档ID位图，调用方可自由修改
+     */
+    public DocIdBitmap match(Long userId, Long[] tagIds, boolean matchAll) {
+        if (userId == null || tagIds == null || tagIds.length == 0) {
+            return new DocIdBitmap();
+        }
+        UserTags tags = users.computeIfAbsent(userId, id -> new UserTags());
+        ensureLoaded(userId, tags);
+        synchronized (tags) {
+            List<DocIdBitmap> bitmaps = new ArrayList<>(tagIds.length);
+            for (Long tagId : new LinkedHashSet<>(Arrays.asList(tagIds))) {
+                DocIdBitmap bitmap = tagId == null ? null : tags.byTag.get(tagId);
+                if (bitmap != null) {
+                    bitmaps.add(bitmap);
+                } else if (matchAll) {
+                    return new DocIdBitmap();
+                }
+            }
+            if (bitmaps.isEmpty()) {
+                return new DocIdBitmap();
+            }
+            if (matchAll) {
+                // 从最小的位图开始求交集，中间结果始终不大于最小集合
+                bitmaps.sort(Comparator.comparingLong(DocIdBitmap::cardinality));
+                DocIdBitmap result = bitmaps.get(0).copy();
+                for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                    result = result.and(bitmaps.get(i));
+                }
+                return result;
+            }
+            DocIdBitmap result = bitmaps.get(0).copy();
+            for (int i = 1; i < bitmaps.size(); i++) {
+                result = result.or(bitmaps.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 统计候选文档在各标签上的数量（标签分面），只返回数量大于0的标签
+     */
+    public Map<Long, Long> countTags(Long userId, DocIdBitmap candidates) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (userId == null || candidates.isEmpty()) {
+            return counts;
+        }
+        UserTags tags = users.computeIfAbsent(userId, id -> new UserTags());
+        ensureLoaded(userId, tags);
+        synchronized (tags) {
+            tags.byTag.forEach((tagId, bitmap) -> {
+                long count = bitmap.andCardinality(candidates);
+                if (count > 0) {
+                    counts.put(tagId, count);
+                }
+            });
+        }
+        return counts;
+    }
+
+    /**
+     * 用新的标签集合替换文档原有的标签
+     */
+    public void setDocumentTags(Long userId, Long documentId, Long[] tagIds) {
+        UserTags tags = loaded(userId);
+        if (tags == null) {
+            return;
+        }
+        synchronized (tags) {
+            tags.remove(documentId);
+            if (tagIds != null) {
+                for (Long tagId : tagIds) {
+                    if (tagId != null) {
+                        tags.add(documentId, tagId);
+                    }
+                }
+            }
+        }
+    }
+
+    public void removeDocument(Long userId, Long documentId) {
+        setDocumentTags(userId, documentId, null);
+    }
+
+    public void removeTag(Long userId, Long tagId) {
+        UserTags tags = loaded(userId);
+        if (tags == null) {
+            return;
+        }
+        synchronized (tags) {
+            DocIdBitmap bitmap = tags.byTag.remove(tagId);
+            if (bitmap != null) {
+                bitmap.forEach(documentId -> {
+                    Set<Long> docTags = tags.byDocument.get(documentId);
+                    if (docTags != null) {
+                        docTags.remove(tagId);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 丢弃用户的标签位图，下次使用时按数据库重新加载
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * 获取已加载的用户索引；从未查询过的用户返回null，由首次查询时加载最新数据
+     */
+    private UserTags loaded(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserTags tags = users.get(userId);
+        if (tags != null) {
+            ensureLoaded(userId, tags);
+        }
+        return tags;
+    }
+
+    private void ensureLoaded(Long userId, UserTags tags) {
+        if (tags.loaded) {
+            return;
+        }
+        synchronized (tags) {
+            if (tags.loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            List<DocumentTag> documentTags = documentTagMapper.selectByUserId(userId);
+            for (DocumentTag documentTag : documentTags) {
+                tags.add(documentTag.getDocumentId(), documentTag.getTagId());
+            }
+            tags.loaded = true;
+            log.info("标签位图加载完成：用户ID={}, 标签数={}, 关联数={}, 耗时={}ms",
+                    userId, tags.byTag.size(), documentTags.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 单个用户的标签位图
+     */
+    private static final class UserTags {
+        /**
+         * 标签ID -> 文档ID位图
+         */
+        final Map<Long, DocIdBitmap> byTag = new HashMap<>();
+
+        /**
+         * 文档ID -> 标签ID，用于更新文档标签时找到旧标签
+         */
+        final Map<Long, Set<Long>> byDocument = new HashMap<>();
+
+        volatile boolean loaded;
+
+        void add(Long documentId, Long tagId) {
+            byTag.computeIfAbsent(tagId, id -> new DocIdBitmap()).add(documentId);
+            byDocument.computeIfAbsent(documentId, id -> new LinkedHashSet<>()).add(tagId);
+        }
+
+        void remove(Long documentId) {
+            Set<Long> oldTags = byDocument.remove(documentId);
+            if (oldTags == null) {
+                return;
+            }
+            for (Long tagId : oldTags) {
+                DocIdBitmap bitmap = byTag.get(tagId);
+                if (bitmap != null) {
+                    bitmap.remove(documentId);
+                    if (bitmap.isEmpty()) {
+                        byTag.remove(tagId);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.xichen.wiki.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带引用计数的词项字典树，用于模糊匹配时枚举相近词项、前缀查询时枚举前缀展开的词项
+ *
+ * 同一词项被多个文档/字段引用时只存一份，引用数归零后回收路径上的空节点。
+ * 非线程安全，由持有者加锁。
+ */
+public class TermTrie {
+
+    private final Node root = new Node(null, (char) 0);
+
+    private int size;
+
+    /**
+     * 不同词项的数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public void add(String term) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            Node parent = node;
+            node = parent.children.computeIfAbsent(c, key -> new Node(parent, key));
+        }
+        if (node.refs++ == 0) {
+            size++;
+        }
+    }
+
+    public void remove(String term) {
+        Node node = root;
+        for (int i = 0; i < term.length() && node != null; i++) {
+            node = node.children.get(term.charAt(i));
+        }
+        if (node == null || node.refs == 0) {
+            return;
+        }
+        if (--node.refs == 0) {
+            size--;
+            while (node != root && node.refs == 0 && node.children.isEmpty()) {
+                node.parent.children.remove(node.key);
+                node = node.parent;
+            }
+        }
+    }
+
+    /**
+     * 与自动机目标词在编辑距离内的词项
+     *
+     * @param automaton Levenshtein 自动机
+     * @param maxExpansions 最多返回的词项数
+     * @return 词项 -> 编辑距离，按距离升序，距离相同按字典序
+     */
+    public Map<String, Integer> fuzzyTerms(LevenshteinAutomaton automaton, int maxExpansions) {
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        collect(root, automaton.start(), automaton, new StringBuilder(), matches);
+        matches.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> match : matches) {
+            if (result.size() >= maxExpansions) {
+                break;
+            }
+            result.put(match.getKey(), match.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 以 prefix 开头的词项，按字典序取前 limit 个
+     */
+    public List<String> prefixTerms(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        List<String> result = new ArrayList<>();
+        if (node != null && limit > 0) {
+            collectPrefix(node, new StringBuilder(prefix), limit, result);
+        }
+        return result;
+    }
+
+    private static void collectPrefix(Node node, StringBuilder path, int limit, List<String> result) {
+        if (node.refs > 0) {
+            result.add(path.toString());
+        }
+        List<Character> keys = new ArrayList<>(node.children.keySet());
+        Collections.sort(keys);
+        for (Character key : keys) {
+            if (result.size() >= limit) {
+                return;
+            }
+            path.append(key.charValue());
+            collectPrefix(node.children.get(key), path, limit, result);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    private static void collect(Node node, int[] state, LevenshteinAutomaton automaton, StringBuilder path,
+                                List<Map.Entry<String, Integer>> matches) {
+        if (node.refs > 0 && automaton.isMatch(state)) {
+            matches.add(Map.entry(path.toString(), automaton.distance(state)));
+        }
+        for (Node child : node.children.values()) {
+            int[] next = automaton.step(state, child.key);
+            if (!automaton.canMatch(next)) {
+                continue;
+            }
+            path.append(child.key);
+            collect(child, next, automaton, path, matches);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    private static final class Node {
+        final Node parent;
+        final char key;
+        final Map<Character, Node> children = new HashMap<>(4);
+        int refs;
+
+        Node(Node parent, char key) {
+            this.parent = parent;
+            this.key = key;
+        }
+    }
+}
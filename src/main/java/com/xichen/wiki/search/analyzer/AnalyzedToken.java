@@ -0,0 +1,37 @@
+package com.xichen.wiki.search.analyzer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 物化后的词元，用于查询解析等不在热路径上的场景
+ */
+@Data
+@AllArgsConstructor
+public class AnalyzedToken {
+
+    /**
+     * 词项
+     */
+    private String term;
+
+    /**
+     * 词元类型
+     */
+    private TokenType type;
+
+    /**
+     * 位置
+     */
+    private int position;
+
+    /**
+     * 原文起始偏移
+     */
+    private int startOffset;
+
+    /**
+     * 原文结束偏移（不含）
+     */
+    private int endOffset;
+}
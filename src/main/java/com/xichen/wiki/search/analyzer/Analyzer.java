@@ -0,0 +1,82 @@
+package com.xichen.wiki.search.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文本分析器
+ *
+ * 处理流程：字符过滤（全角转半角、繁转简） -> 分词（拉丁单词 + CJK二元组） -> 词元过滤（小写、停用词）。
+ * 整个流程在同一个 char[] 上原地完成，词元以切片形式回调，索引热路径上不产生逐词元的 String。
+ * 实例无状态，可在多线程间共享。
+ */
+public class Analyzer {
+
+    private final List<CharFilter> charFilters;
+
+    private final Tokenizer tokenizer;
+
+    private final List<TokenFilter> tokenFilters;
+
+    public Analyzer(List<CharFilter> charFilters, Tokenizer tokenizer, List<TokenFilter> tokenFilters) {
+        this.charFilters = List.copyOf(charFilters);
+        this.tokenizer = tokenizer;
+        this.tokenFilters = List.copyOf(tokenFilters);
+    }
+
+    /**
+     * 默认分析器
+     */
+    public static Analyzer standard() {
+        return new Analyzer(
+                List.of(new FullWidthCharFilter(), new TraditionalToSimplifiedCharFilter()),
+                new Tokenizer(),
+                List.of(new LowerCaseFilter(), new StopWordFilter()));
+    }
+
+    /**
+     * 以索引模式分析文本
+     */
+    public void analyze(String text, TokenConsumer consumer) {
+        analyze(text, false, consumer);
+    }
+
+    /**
+     * 分析文本
+     *
+     * @param text 原文
+     * @param query 是否为查询模式
+     * @param consumer 词元回调
+     */
+    public void analyze(String text, boolean query, TokenConsumer consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        char[] buffer = text.toCharArray();
+        for (CharFilter charFilter : charFilters) {
+            charFilter.filter(buffer, 0, buffer.length);
+        }
+        tokenizer.tokenize(buffer, buffer.length, query, (buf, offset, length, type, position) -> {
+            for (TokenFilter tokenFilter : tokenFilters) {
+                if (!tokenFilter.accept(buf, offset, length, type)) {
+                    return;
+                }
+            }
+            consumer.accept(buf, offset, length, type, position);
+        });
+    }
+
+    /**
+     * 以查询模式分析文本并物化为词元列表
+     */
+    public List<AnalyzedToken> analyzeQuery(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<AnalyzedToken> tokens = new ArrayList<>();
+        analyze(text, true, (buffer, offset, length, type, position) ->
+                tokens.add(new AnalyzedToken(new String(buffer, offset, length), type, position, offset, offset + length)));
+        return tokens;
+    }
+}
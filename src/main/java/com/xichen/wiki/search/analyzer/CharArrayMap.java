@@ -0,0 +1,146 @@
+package com.xichen.wiki.search.analyzer;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 支持字符数组切片查找的哈希表
+ *
+ * 键以 String 保存，但查找时可以直接传入 char[] 切片，命中时不产生任何对象分配。
+ * 哈希算法与 String.hashCode 一致，采用线性探测，非线程安全，不支持删除。
+ *
+ * @param <V> 值类型
+ */
+public class CharArrayMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public CharArrayMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CharArrayMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 2) - 1) << 1;
+        keys = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(char[] buffer, int offset, int length) {
+        return keys[slot(buffer, offset, length)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(char[] buffer, int offset, int length) {
+        return (V) values[slot(buffer, offset, length)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        char[] chars = key.toCharArray();
+        return (V) values[slot(chars, 0, chars.length)];
+    }
+
+    public void put(String key, V value) {
+        char[] chars = key.toCharArray();
+        int slot = slot(chars, 0, chars.length);
+        if (keys[slot] == null) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        ensureCapacity();
+    }
+
+    /**
+     * 按切片放入，只有键不存在时才会分配新的 String
+     */
+    public void put(char[] buffer, int offset, int length, V value) {
+        int slot = slot(buffer, offset, length);
+        if (keys[slot] == null) {
+            keys[slot] = new String(buffer, offset, length);
+            size++;
+        }
+        values[slot] = value;
+        ensureCapacity();
+    }
+
+    /**
+     * 遍历所有键值对
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<String, V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private int slot(char[] buffer, int offset, int length) {
+        int mask = keys.length - 1;
+        int slot = hash(buffer, offset, length) & mask;
+        while (keys[slot] != null && !matches(keys[slot], buffer, offset, length)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureCapacity() {
+        if (size * 2 <= keys.length) {
+            return;
+        }
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String key = oldKeys[i];
+            if (key == null) {
+                continue;
+            }
+            int slot = spread(key.hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int hash(char[] buffer, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return spread(h);
+    }
+
+    /**
+     * 与 HashMap 相同的扰动，避免低位冲突
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String key, char[] buffer, int offset, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 字符过滤器
+ *
+ * 在分词之前对字符数组做原地、一对一的替换，不改变文本长度，保证词元偏移与原文一致。
+ */
+public interface CharFilter {
+
+    /**
+     * 原地归一化
+     */
+    void filter(char[] buffer, int offset, int length);
+}
@@ -0,0 +1,27 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 全角转半角过滤器
+ *
+ * 全角ASCII（U+FF01 ~ U+FF5E）转换为对应的半角字符，全角空格（U+3000）转换为普通空格。
+ */
+public class FullWidthCharFilter implements CharFilter {
+
+    private static final char FULL_WIDTH_START = '！';
+    private static final char FULL_WIDTH_END = '～';
+    private static final int FULL_WIDTH_OFFSET = 0xFEE0;
+    private static final char IDEOGRAPHIC_SPACE = '　';
+
+    @Override
+    public void filter(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = buffer[i];
+            if (c >= FULL_WIDTH_START && c <= FULL_WIDTH_END) {
+                buffer[i] = (char) (c - FULL_WIDTH_OFFSET);
+            } else if (c == IDEOGRAPHIC_SPACE) {
+                buffer[i] = ' ';
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 小写过滤器，只处理拉丁单词
+ */
+public class LowerCaseFilter implements TokenFilter {
+
+    @Override
+    public boolean accept(char[] buffer, int offset, int length, TokenType type) {
+        if (type != TokenType.WORD) {
+            return true;
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            buffer[i] = Character.toLowerCase(buffer[i]);
+        }
+        return true;
+    }
+}
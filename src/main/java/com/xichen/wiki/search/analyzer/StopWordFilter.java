@@ -0,0 +1,48 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 停用词过滤器
+ *
+ * 拉丁停用词按整词匹配（需位于小写过滤器之后），中文停用词只过滤单字词元，二元组保留。
+ */
+public class StopWordFilter implements TokenFilter {
+
+    private static final String[] DEFAULT_LATIN_STOP_WORDS = {
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+            "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these",
+            "they", "this", "to", "was", "will", "with"
+    };
+
+    private static final String[] DEFAULT_CJK_STOP_WORDS = {
+            "的", "了", "和", "是", "在", "也", "就", "都", "而", "及", "与", "着", "或", "之", "其"
+    };
+
+    private final CharArrayMap<Boolean> latinStopWords = new CharArrayMap<>();
+
+    private final CharArrayMap<Boolean> cjkStopWords = new CharArrayMap<>();
+
+    public StopWordFilter() {
+        this(DEFAULT_LATIN_STOP_WORDS, DEFAULT_CJK_STOP_WORDS);
+    }
+
+    public StopWordFilter(String[] latinStopWords, String[] cjkStopWords) {
+        for (String word : latinStopWords) {
+            this.latinStopWords.put(word, Boolean.TRUE);
+        }
+        for (String word : cjkStopWords) {
+            this.cjkStopWords.put(word, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public boolean accept(char[] buffer, int offset, int length, TokenType type) {
+        switch (type) {
+            case WORD:
+                return !latinStopWords.containsKey(buffer, offset, length);
+            case UNIGRAM:
+                return !cjkStopWords.containsKey(buffer, offset, length);
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 词元回调
+ *
+ * 词元以字符数组切片的形式传递，buffer 在回调返回后会被复用或修改，
+ * 需要保留词元时由调用方自行拷贝（例如构造 String）。
+ * 字符过滤器只做一对一替换，因此 offset 同时也是词元在原文中的起始位置。
+ */
+@FunctionalInterface
+public interface TokenConsumer {
+
+    /**
+     * 接收一个词元
+     *
+     * @param buffer 归一化后的全文字符数组
+     * @param offset 词元起始下标（即原文偏移）
+     * @param length 词元长度
+     * @param type 词元类型
+     * @param position 词元位置，用于短语匹配
+     */
+    void accept(char[] buffer, int offset, int length, TokenType type, int position);
+}
@@ -0,0 +1,17 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 词元过滤器
+ *
+ * 可以原地修改词元字符（不改变长度），返回false表示丢弃该词元。
+ * 被丢弃的词元仍然占用位置，短语匹配的相对位置不受影响。
+ */
+public interface TokenFilter {
+
+    /**
+     * 过滤词元
+     *
+     * @return 是否保留
+     */
+    boolean accept(char[] buffer, int offset, int length, TokenType type);
+}
@@ -0,0 +1,22 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 词元类型
+ */
+public enum TokenType {
+
+    /**
+     * 拉丁字母/数字单词
+     */
+    WORD,
+
+    /**
+     * CJK单字
+     */
+    UNIGRAM,
+
+    /**
+     * CJK二元组
+     */
+    BIGRAM
+}
@@ -0,0 +1,85 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 中英文混合分词器
+ *
+ * - 拉丁字母/数字连续串作为一个单词（WORD）
+ * - CJK连续串切分为重叠的二元组（BIGRAM），索引模式下额外输出单字（UNIGRAM）以支持单字查询；
+ *   查询模式下长度≥2的CJK串只输出二元组，单字串输出单字
+ * - 单字与以其开头的二元组共享同一位置，空白/标点会让位置额外前进一位，短语不会跨越分隔符匹配
+ *
+ * 分词直接在字符数组上进行，不为词元分配对象。
+ */
+public class Tokenizer {
+
+    /**
+     * 分词
+     *
+     * @param buffer 字符数组
+     * @param length 有效长度
+     * @param query 是否为查询模式
+     * @param consumer 词元回调
+     */
+    public void tokenize(char[] buffer, int length, boolean query, TokenConsumer consumer) {
+        int position = 0;
+        boolean pendingGap = false;
+        boolean emitted = false;
+        int i = 0;
+        while (i < length) {
+            char c = buffer[i];
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(buffer[i])) {
+                    i++;
+                }
+                if (pendingGap && emitted) {
+                    position++;
+                }
+                emitCjkRun(buffer, start, i - start, position, query, consumer);
+                position += i - start;
+                pendingGap = false;
+                emitted = true;
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(buffer[i]) && !isCjk(buffer[i])) {
+                    i++;
+                }
+                if (pendingGap && emitted) {
+                    position++;
+                }
+                consumer.accept(buffer, start, i - start, TokenType.WORD, position++);
+                pendingGap = false;
+                emitted = true;
+            } else {
+                pendingGap = true;
+                i++;
+            }
+        }
+    }
+
+    private void emitCjkRun(char[] buffer, int start, int length, int position, boolean query, TokenConsumer consumer) {
+        if (length == 1) {
+            consumer.accept(buffer, start, 1, TokenType.UNIGRAM, position);
+            return;
+        }
+        for (int k = 0; k < length; k++) {
+            if (!query) {
+                consumer.accept(buffer, start + k, 1, TokenType.UNIGRAM, position + k);
+            }
+            if (k + 1 < length) {
+                consumer.accept(buffer, start + k, 2, TokenType.BIGRAM, position + k);
+            }
+        }
+    }
+
+    /**
+     * 是否为CJK字符（汉字、日文假名、韩文）
+     */
+    public static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,71 @@
+package com.xichen.wiki.search.analyzer;
+
+/**
+ * 繁体转简体过滤器
+ *
+ * 基于常用字的一对一映射表，只覆盖常见繁体字，不做词级别转换。
+ */
+public class TraditionalToSimplifiedCharFilter implements CharFilter {
+
+    private static final char CJK_START = '\u4E00';
+    private static final char CJK_END = '\u9FFF';
+
+    private static final String TRADITIONAL =
+            "萬與專業東絲兩嚴個豐臨為麗舉麼義樂習鄉書買亂爭於雲亞產親億僅從倉儀們價眾優會傘偉" +
+            "傳傷倫體餘側債傾償兒黨蘭關興養內岡冊寫軍農衝決況凍淨涼減幾鳳憑凱擊劃劉則剛創刪別" +
+            "劑劍劇勸辦務動勵勞勢區醫華協單賣衛卻廠廳歷曆壓廁縣參雙發髮變葉號後嚇嗎聽啟員響團" +
+            "園圍國圖圓聖場壞塊堅壇墳墜壘牆壯聲殼處備複復夠頭誇夾奪奮獎婦媽學寧寶實寵審憲寬賓" +
+            "對尋導壽將爾塵盡層屬歲島嶺幣師帳帶幫幹廣莊慶庫應廟廢開張彎徑徵恥悅惡惱愛態慘慣慮" +
+            "憂憐憶懇懶懷懸懼戀戰戲戶掃掛採揚換揮損搖搶擁擇擋擔據擠擬擴擺擾攜攝敗敵數斷時晉晝" +
+            "暈暫曉曬術機殺雜權條來楊極構槍標樓樣樹橋檢檔歡歸殘氣漢湯溝沒準滅潔滿濟濕測遊灣災" +
+            "烏點煉熱燈營爺狀獨獲獻環現電畫當療盤監碼礎確禮禪離種稱穩窮競筆節範築簡糧約紀紅級" +
+            "純紙細終組結給絕統經綠維網線練編緣總績織罰羅聯職聞肅腦膽臉舊艦藝蘇蟲補裝製規視覺" +
+            "觀見計訂認討讓訓記講許論設訪證評試話詳語說誰課調談請諸讀謝識議護讚貝負財責貧貨質" +
+            "購貴費資賞賽贏趙趕跡蹤車軟較載輕輛輸轉這連進運過達違遠適選遺還邊郵鄰釋針鐘錢錯鍵" +
+            "鎮鏡長門問間閱隊陽陰陳際險隨隱難雞靜韓頁項順須預領題顏願類顯風飛飯館馬驗驚鬥魚鳥" +
+            "麥黃齊齒龍龜裡麵髒雖註蓋嘗啓彙匯腳藥裏羣衆鐵銀錄銷鋼陸陣階靈韻頻顧飲驅魯鮮鳴齡寢" +
+            "紹綜緊繼續罷腎膚臟艱莖蔣薦藍蘋蘿蝦襯覽訊詞誌誠誤謀謊譯貓貿賀賴贈趨躍軌輔輪辭遞邏" +
+            "醜鄭鍋閃閉閑闆隻霧頂額颱臺飄餅駐騎骯鬧鬱鹽";
+
+    private static final String SIMPLIFIED =
+            "万与专业东丝两严个丰临为丽举么义乐习乡书买乱争于云亚产亲亿仅从仓仪们价众优会伞伟" +
+            "传伤伦体余侧债倾偿儿党兰关兴养内冈册写军农冲决况冻净凉减几凤凭凯击划刘则刚创删别" +
+            "剂剑剧劝办务动励劳势区医华协单卖卫却厂厅历历压厕县参双发发变叶号后吓吗听启员响团" +
+            "园围国图圆圣场坏块坚坛坟坠垒墙壮声壳处备复复够头夸夹夺奋奖妇妈学宁宝实宠审宪宽宾" +
+            "对寻导寿将尔尘尽层属岁岛岭币师帐带帮干广庄庆库应庙废开张弯径征耻悦恶恼爱态惨惯虑" +
+            "忧怜忆恳懒怀悬惧恋战戏户扫挂采扬换挥损摇抢拥择挡担据挤拟扩摆扰携摄败敌数断时晋昼" +
+            "晕暂晓晒术机杀杂权条来杨极构枪标楼样树桥检档欢归残气汉汤沟没准灭洁满济湿测游湾灾" +
+            "乌点炼热灯营爷状独获献环现电画当疗盘监码础确礼禅离种称稳穷竞笔节范筑简粮约纪红级" +
+            "纯纸细终组结给绝统经绿维网线练编缘总绩织罚罗联职闻肃脑胆脸旧舰艺苏虫补装制规视觉" +
+            "观见计订认讨让训记讲许论设访证评试话详语说谁课调谈请诸读谢识议护赞贝负财责贫货质" +
+            "购贵费资赏赛赢赵赶迹踪车软较载轻辆输转这连进运过达违远适选遗还边邮邻释针钟钱错键" +
+            "镇镜长门问间阅队阳阴陈际险随隐难鸡静韩页项顺须预领题颜愿类显风飞饭馆马验惊斗鱼鸟" +
+            "麦黄齐齿龙龟里面脏虽注盖尝启汇汇脚药里群众铁银录销钢陆阵阶灵韵频顾饮驱鲁鲜鸣龄寝" +
+            "绍综紧继续罢肾肤脏艰茎蒋荐蓝苹萝虾衬览讯词志诚误谋谎译猫贸贺赖赠趋跃轨辅轮辞递逻" +
+            "丑郑锅闪闭闲板只雾顶额台台飘饼驻骑肮闹郁盐";
+
+    /**
+     * 以CJK统一表意文字区间为下标的映射表，0表示无需转换
+     */
+    private static final char[] TABLE = new char[CJK_END - CJK_START + 1];
+
+    static {
+        for (int i = 0; i < TRADITIONAL.length(); i++) {
+            TABLE[TRADITIONAL.charAt(i) - CJK_START] = SIMPLIFIED.charAt(i);
+        }
+    }
+
+    @Override
+    public void filter(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = buffer[i];
+            if (c >= CJK_START && c <= CJK_END) {
+                char mapped = TABLE[c - CJK_START];
+                if (mapped != 0) {
+                    buffer[i] = mapped;
+                }
+            }
+        }
+    }
+}
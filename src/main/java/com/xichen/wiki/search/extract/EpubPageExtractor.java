@@ -0,0 +1,230 @@
+package com.xichen.wiki.search.extract;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * EPUB电子书抽取：按书脊（spine）顺序逐章读取 XHTML，去掉标签后按字符数分页，每章另起一页
+ *
+ * 只有 container.xml 和 OPF 清单用 DOM 解析（体积很小），章节正文边读边去标签，不整章载入内存。
+ * 找不到 OPF 时退化为按压缩包内顺序读取全部 HTML 文件。
+ */
+public class EpubPageExtractor implements PageTextExtractor {
+
+    private static final String CONTAINER = "META-INF/container.xml";
+
+    /**
+     * 内容不计入正文的元素
+     */
+    private static final Set<String> SKIPPED_ELEMENTS = Set.of("head", "script", "style");
+
+    /**
+     * 结束时换行的块级元素
+     */
+    private static final Set<String> BLOCK_ELEMENTS = Set.of("p", "div", "br", "li", "tr", "h1", "h2", "h3", "h4",
+            "h5", "h6", "blockquote", "pre", "section", "article", "title");
+
+    private static final Map<String, Character> ENTITIES = Map.of("amp", '&', "lt", '<', "gt", '>', "quot", '"',
+            "apos", '\'', "nbsp", ' ');
+
+    private final int pageChars;
+
+    /**
+     * @param pageChars 每页字符数
+     */
+    public EpubPageExtractor(int pageChars) {
+        this.pageChars = pageChars;
+    }
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("epub");
+    }
+
+    @Override
+    public void extract(Path file, PageConsumer consumer) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8)) {
+            PageBuffer buffer = new PageBuffer(pageChars, consumer);
+            for (ZipEntry chapter : chapters(zip)) {
+                try (Reader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(chapter), StandardCharsets.UTF_8))) {
+                    appendHtmlText(reader, buffer);
+                }
+                buffer.endPage();
+            }
+        }
+    }
+
+    /**
+     * 按书脊顺序列出章节文件
+     */
+    private static List<ZipEntry> chapters(ZipFile zip) throws IOException {
+        List<ZipEntry> chapters = new ArrayList<>();
+        try {
+            ZipEntry container = zip.getEntry(CONTAINER);
+            if (container != null) {
+                Element rootfile = first(parse(zip, container).getElementsByTagNameNS("*", "rootfile"));
+                ZipEntry opf = rootfile == null ? null : zip.getEntry(rootfile.getAttribute("full-path"));
+                if (opf != null) {
+                    String base = opf.getName().contains("/") ? opf.getName().substring(0, opf.getName().lastIndexOf('/') + 1) : "";
+                    org.w3c.dom.Document opfDocument = parse(zip, opf);
+                    Map<String, String> manifest = new HashMap<>();
+                    NodeList items = opfDocument.getElementsByTagNameNS("*", "item");
+                    for (int i = 0; i < items.getLength(); i++) {
+                        Element item = (Element) items.item(i);
+                        manifest.put(item.getAttribute("id"), item.getAttribute("href"));
+                    }
+                    NodeList refs = opfDocument.getElementsByTagNameNS("*", "itemref");
+                    for (int i = 0; i < refs.getLength(); i++) {
+                        String href = manifest.get(((Element) refs.item(i)).getAttribute("idref"));
+                        ZipEntry entry = href == null ? null : zip.getEntry(base + URLDecoder.decode(href, StandardCharsets.UTF_8));
+                        if (entry != null) {
+                            chapters.add(entry);
+                        }
+                    }
+                }
+            }
+        } catch (SAXException | ParserConfigurationException e) {
+            chapters.clear();
+        }
+        if (chapters.isEmpty()) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                String name = entry.getName().toLowerCase(Locale.ROOT);
+                if (name.endsWith(".xhtml") || name.endsWith(".html") || name.endsWith(".htm")) {
+                    chapters.add(entry);
+                }
+            }
+        }
+        return chapters;
+    }
+
+    private static org.w3c.dom.Document parse(ZipFile zip, ZipEntry entry)
+            throws IOException, SAXException, ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        // 清单来自用户上传的文件，禁止外部实体
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        try (InputStream in = zip.getInputStream(entry)) {
+            return builder.parse(in);
+        }
+    }
+
+    private static Element first(NodeList nodes) {
+        return nodes.getLength() == 0 ? null : (Element) nodes.item(0);
+    }
+
+    /**
+     * 流式去除标签：跳过注释和 head/script/style 的内容，块级元素处换行，解码常见字符实体
+     */
+    static void appendHtmlText(Reader in, PageBuffer buffer) throws IOException {
+        StringBuilder token = new StringBuilder();
+        String skipping = null;
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '<') {
+                token.setLength(0);
+                while ((c = in.read()) >= 0 && c != '>') {
+                    if (token.length() < 64) {
+                        token.append((char) c);
+                    }
+                    if (token.length() == 3 && "!--".contentEquals(token)) {
+                        skipComment(in);
+                        break;
+                    }
+                }
+                String name = tagName(token);
+                boolean closing = token.length() > 0 && token.charAt(0) == '/';
+                if (skipping != null) {
+                    if (closing && skipping.equals(name)) {
+                        skipping = null;
+                    }
+                } else if (!closing && SKIPPED_ELEMENTS.contains(name) && token.charAt(token.length() - 1) != '/') {
+                    skipping = name;
+                } else if (BLOCK_ELEMENTS.contains(name)) {
+                    buffer.append('\n');
+                }
+            } else if (skipping != null) {
+                continue;
+            } else if (c == '&') {
+                token.setLength(0);
+                while ((c = in.read()) >= 0 && c != ';' && token.length() < 10 && !Character.isWhitespace(c)) {
+                    token.append((char) c);
+                }
+                Character decoded = c == ';' ? decodeEntity(token.toString()) : null;
+                if (decoded != null) {
+                    buffer.append(decoded);
+                } else {
+                    buffer.append('&');
+                    for (int i = 0; i < token.length(); i++) {
+                        buffer.append(token.charAt(i));
+                    }
+                    if (c >= 0) {
+                        buffer.append((char) c);
+                    }
+                }
+            } else {
+                buffer.append((char) c);
+            }
+        }
+    }
+
+    private static void skipComment(Reader in) throws IOException {
+        int dashes = 0;
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '>' && dashes >= 2) {
+                return;
+            }
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    private static String tagName(StringBuilder tag) {
+        int start = tag.length() > 0 && tag.charAt(0) == '/' ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(start, end).toLowerCase(Locale.ROOT);
+        // 去掉命名空间前缀，如 xhtml:p
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    private static Character decodeEntity(String entity) {
+        if (entity.startsWith("#")) {
+            try {
+                int code = entity.length() > 1 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')
+                        ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+                return Character.isBmpCodePoint(code) ? (char) code : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ENTITIES.get(entity);
+    }
+}
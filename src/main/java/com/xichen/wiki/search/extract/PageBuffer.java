@@ -0,0 +1,65 @@
+package com.xichen.wiki.search.extract;
+
+/**
+ * 按字符数分页的正文缓冲，用于没有固有页码的格式（TXT、EPUB）
+ *
+ * 连续空白折叠为一个（换行优先保留）；达到页大小后在下一个换行处分页，
+ * 超过页大小的 1.2 倍仍没有换行时强制分页，单页缓冲因此有上限。
+ */
+class PageBuffer {
+
+    private final int pageChars;
+
+    private final int hardLimit;
+
+    private final PageConsumer consumer;
+
+    private final StringBuilder text;
+
+    private int pageNumber;
+
+    PageBuffer(int pageChars, PageConsumer consumer) {
+        this.pageChars = pageChars;
+        this.hardLimit = pageChars + pageChars / 5;
+        this.consumer = consumer;
+        this.text = new StringBuilder(hardLimit + 1);
+    }
+
+    void append(char c) {
+        if (Character.isWhitespace(c) || c == '\u00A0') {
+            int last = text.length() - 1;
+            if (last < 0) {
+                return;
+            }
+            if (Character.isWhitespace(text.charAt(last))) {
+                if (c == '\n') {
+                    text.setCharAt(last, '\n');
+                }
+                return;
+            }
+            c = c == '\n' ? '\n' : ' ';
+        }
+        text.append(c);
+        if (text.length() >= hardLimit || (c == '\n' && text.length() >= pageChars)) {
+            endPage();
+        }
+    }
+
+    /**
+     * 结束当前页（如EPUB章节末尾），缓冲为空白时不产生页
+     */
+    void endPage() {
+        String page = text.toString().trim();
+        text.setLength(0);
+        if (!page.isEmpty()) {
+            consumer.accept(++pageNumber, page);
+        }
+    }
+
+    /**
+     * 已产生的页数
+     */
+    int getPageCount() {
+        return pageNumber;
+    }
+}
@@ -0,0 +1,14 @@
+package com.xichen.wiki.search.extract;
+
+/**
+ * 接收抽取出的单页正文
+ */
+@FunctionalInterface
+public interface PageConsumer {
+
+    /**
+     * @param pageNumber 页码，从1开始
+     * @param text 该页正文
+     */
+    void accept(int pageNumber, String text);
+}
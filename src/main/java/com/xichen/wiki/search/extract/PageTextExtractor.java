@@ -0,0 +1,26 @@
+package com.xichen.wiki.search.extract;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * 电子书正文按页抽取
+ *
+ * 实现类以流式方式读取文件，每抽出一页就交给 {@link PageConsumer}，内存占用只与单页大小有关，与文件大小无关。
+ */
+public interface PageTextExtractor {
+
+    /**
+     * 支持的文件扩展名（小写，不含点）
+     */
+    Set<String> extensions();
+
+    /**
+     * 按页抽取正文，空白页不回调
+     *
+     * @param file 电子书文件
+     * @param consumer 单页正文接收方
+     */
+    void extract(Path file, PageConsumer consumer) throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.xichen.wiki.search.extract;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * PDF电子书抽取：逐页调用 PDFBox 文本抽取，页码与PDF页码一致
+ *
+ * 文档以随机访问方式打开，解析过程中的流缓存只落临时文件，不随文件大小占用堆内存。
+ */
+public class PdfPageExtractor implements PageTextExtractor {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("pdf");
+    }
+
+    @Override
+    public void extract(Path file, PageConsumer consumer) throws IOException {
+        try (PDDocument document = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            int pages = document.getNumberOfPages();
+            for (int page = 1; page <= pages; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = stripper.getText(document).trim();
+                if (!text.isEmpty()) {
+                    consumer.accept(page, text);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.xichen.wiki.search.extract;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * 纯文本电子书抽取：按字符数分页
+ *
+ * 编码按文件开头 8KB 判断：是合法 UTF-8 则按 UTF-8 读取，否则按 GB18030（兼容GBK）读取。
+ */
+public class TxtPageExtractor implements PageTextExtractor {
+
+    private static final int DETECT_BYTES = 8192;
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    private final int pageChars;
+
+    /**
+     * @param pageChars 每页字符数
+     */
+    public TxtPageExtractor(int pageChars) {
+        this.pageChars = pageChars;
+    }
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("txt");
+    }
+
+    @Override
+    public void extract(Path file, PageConsumer consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), DETECT_BYTES)) {
+            Charset charset = detectCharset(in);
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            PageBuffer buffer = new PageBuffer(pageChars, consumer);
+            char[] chunk = new char[4096];
+            try (Reader reader = new InputStreamReader(in, decoder)) {
+                int read;
+                boolean first = true;
+                while ((read = reader.read(chunk)) > 0) {
+                    // 跳过BOM
+                    int start = first && chunk[0] == '\uFEFF' ? 1 : 0;
+                    first = false;
+                    for (int i = start; i < read; i++) {
+                        buffer.append(chunk[i]);
+                    }
+                }
+            }
+            buffer.endPage();
+        }
+    }
+
+    private static Charset detectCharset(InputStream in) throws IOException {
+        in.mark(DETECT_BYTES);
+        byte[] head = in.readNBytes(DETECT_BYTES);
+        in.reset();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // 截断在多字节字符中间不算错误，因此不标记输入结束
+        CoderResult result = decoder.decode(ByteBuffer.wrap(head), CharBuffer.allocate(head.length), false);
+        return result.isError() ? GB18030 : StandardCharsets.UTF_8;
+    }
+}
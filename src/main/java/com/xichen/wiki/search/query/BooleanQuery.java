@@ -0,0 +1,64 @@
+package com.xichen.wiki.search.query;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 布尔组合查询
+ *
+ * 有 MUST 子句时结果为全部 MUST 的交集，SHOULD 子句只参与打分；
+ * 没有 MUST 子句时结果为 SHOULD 的并集；MUST_NOT 子句从结果中排除。
+ */
+@Getter
+public class BooleanQuery implements Query {
+
+    /**
+     * 子句出现要求
+     */
+    public enum Occur {
+        MUST, SHOULD, MUST_NOT
+    }
+
+    private final List<Clause> clauses;
+
+    public BooleanQuery(List<Clause> clauses) {
+        this.clauses = Collections.unmodifiableList(new ArrayList<>(clauses));
+    }
+
+    @Override
+    public String toString() {
+        return clauses.stream().map(Clause::toString).collect(Collectors.joining(" ", "(", ")"));
+    }
+
+    /**
+     * 布尔子句
+     */
+    @Getter
+    public static class Clause {
+
+        private final Occur occur;
+
+        private final Query query;
+
+        public Clause(Occur occur, Query query) {
+            this.occur = occur;
+            this.query = query;
+        }
+
+        @Override
+        public String toString() {
+            switch (occur) {
+                case MUST:
+                    return "+" + query;
+                case MUST_NOT:
+                    return "-" + query;
+                default:
+                    return query.toString();
+            }
+        }
+    }
+}
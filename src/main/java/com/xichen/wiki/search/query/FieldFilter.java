@@ -0,0 +1,20 @@
+package com.xichen.wiki.search.query;
+
+import com.xichen.wiki.search.DocIdBitmap;
+
+/**
+ * 解析不在倒排索引中的限定字段（如 tag:），由搜索引擎按用户数据提供
+ */
+@FunctionalInterface
+public interface FieldFilter {
+
+    /**
+     * 字段取值匹配的文档ID
+     *
+     * @param field 字段名
+     * @param value 查询文本
+     * @param prefix 是否按前缀匹配
+     * @return 匹配的文档ID，不支持该字段或没有匹配时返回空位图
+     */
+    DocIdBitmap match(String field, String value, boolean prefix);
+}
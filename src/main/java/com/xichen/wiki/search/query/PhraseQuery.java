@@ -0,0 +1,27 @@
+package com.xichen.wiki.search.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 短语查询：文本分析后的词元须按相对位置连续出现，单个词也按短语处理（CJK词会拆成相邻的二元组）
+ */
+@Getter
+@AllArgsConstructor
+public class PhraseQuery implements Query {
+
+    /**
+     * 限定的字段，null表示全部文本字段
+     */
+    private final String field;
+
+    /**
+     * 查询文本
+     */
+    private final String text;
+
+    @Override
+    public String toString() {
+        return (field == null ? "" : field + ":") + "\"" + text + "\"";
+    }
+}
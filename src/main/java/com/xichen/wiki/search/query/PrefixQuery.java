@@ -0,0 +1,27 @@
+package com.xichen.wiki.search.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 前缀查询：最后一个词元按前缀展开为词典中的词项，其余词元按短语匹配
+ */
+@Getter
+@AllArgsConstructor
+public class PrefixQuery implements Query {
+
+    /**
+     * 限定的字段，null表示全部文本字段
+     */
+    private final String field;
+
+    /**
+     * 前缀文本（不含末尾的 *）
+     */
+    private final String prefix;
+
+    @Override
+    public String toString() {
+        return (field == null ? "" : field + ":") + prefix + "*";
+    }
+}
@@ -0,0 +1,11 @@
+package com.xichen.wiki.search.query;
+
+/**
+ * 高级搜索查询语法树节点，由 {@link QueryParser} 生成
+ *
+ * - {@link PhraseQuery}：单词或引号内短语
+ * - {@link PrefixQuery}：前缀通配（word*）
+ * - {@link BooleanQuery}：AND/OR/NOT 组合
+ */
+public interface Query {
+}
@@ -0,0 +1,245 @@
+package com.xichen.wiki.search.query;
+
+import com.xichen.wiki.constant.SearchConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 高级搜索查询解析器
+ *
+ * 支持的语法：
+ * - 空格分隔的词默认取交集：spring boot
+ * - 引号短语："spring boot"
+ * - 布尔运算（须大写）：AND、OR、NOT，以及前缀 + / -，括号分组；优先级 NOT &gt; AND &gt; OR
+ * - 字段限定：title:xxx、author:xxx、tag:xxx，可作用于短语和分组，如 title:(spring OR java)
+ * - 前缀通配：spr*
+ *
+ * 解析是宽松的：未闭合的引号和括号自动闭合，多余的右括号和悬空的运算符被忽略，
+ * 不认识的 xxx: 前缀按普通文本处理，因此任何输入都不会报错。
+ * 叶子子句超过 {@link #MAX_CLAUSES} 个时忽略后面的子句。实例无状态，可共享。
+ */
+public class QueryParser {
+
+    /**
+     * 单个查询最多的叶子子句数
+     */
+    public static final int MAX_CLAUSES = 32;
+
+    /**
+     * 字段限定符 -> 字段名
+     */
+    private static final Map<String, String> FIELDS = Map.of(
+            "title", SearchConstants.FIELD_TITLE,
+            "author", SearchConstants.FIELD_AUTHOR,
+            "tag", SearchConstants.FIELD_TAG);
+
+    /**
+     * 解析查询串
+     *
+     * @return 查询语法树，查询串中没有任何有效子句时返回null
+     */
+    public Query parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        Parser parser = new Parser(tokenize(text));
+        List<BooleanQuery.Clause> clauses = new ArrayList<>();
+        while (!parser.atEnd()) {
+            Query query = parser.parseOr(null);
+            if (query != null) {
+                clauses.add(new BooleanQuery.Clause(BooleanQuery.Occur.MUST, query));
+            }
+            // 顶层多余的右括号
+            parser.skip(TokenKind.RPAREN);
+        }
+        return combine(clauses);
+    }
+
+    private static Query combine(List<BooleanQuery.Clause> clauses) {
+        if (clauses.isEmpty()) {
+            return null;
+        }
+        if (clauses.size() == 1 && clauses.get(0).getOccur() != BooleanQuery.Occur.MUST_NOT) {
+            return clauses.get(0).getQuery();
+        }
+        return new BooleanQuery(clauses);
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenKind.LPAREN, null));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenKind.RPAREN, null));
+                i++;
+            } else if ((c == '-' || c == '+') && i + 1 < length && !Character.isWhitespace(text.charAt(i + 1))) {
+                tokens.add(new Token(c == '-' ? TokenKind.MINUS : TokenKind.PLUS, null));
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                end = end < 0 ? length : end;
+                tokens.add(new Token(TokenKind.PHRASE, text.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < length && !isWordBoundary(text.charAt(i))) {
+                    i++;
+                }
+                String word = text.substring(start, i);
+                int colon = word.indexOf(':');
+                String field = colon > 0 ? FIELDS.get(word.substring(0, colon).toLowerCase(Locale.ROOT)) : null;
+                if (field != null) {
+                    // 字段限定符之后的部分重新按词法切分，支持 title:"..." 和 title:(...)
+                    tokens.add(new Token(TokenKind.FIELD, field));
+                    i = start + colon + 1;
+                } else if ("AND".equals(word) || "OR".equals(word) || "NOT".equals(word)) {
+                    tokens.add(new Token(TokenKind.valueOf(word), null));
+                } else if (word.endsWith("*")) {
+                    String prefix = word.replaceAll("\\*+$", "");
+                    if (!prefix.isEmpty()) {
+                        tokens.add(new Token(TokenKind.PREFIX, prefix));
+                    }
+                } else {
+                    tokens.add(new Token(TokenKind.WORD, word));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordBoundary(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == '"';
+    }
+
+    private enum TokenKind {
+        WORD, PHRASE, PREFIX, FIELD, AND, OR, NOT, PLUS, MINUS, LPAREN, RPAREN
+    }
+
+    private static final class Token {
+        final TokenKind kind;
+        final String text;
+
+        Token(TokenKind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 递归下降解析，单次使用
+     */
+    private static final class Parser {
+
+        private final List<Token> tokens;
+
+        private int index;
+
+        private int leaves;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean atEnd() {
+            return index >= tokens.size();
+        }
+
+        TokenKind peek() {
+            return atEnd() ? null : tokens.get(index).kind;
+        }
+
+        boolean skip(TokenKind kind) {
+            if (peek() == kind) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * or := and ('OR' and)*
+         */
+        Query parseOr(String field) {
+            List<BooleanQuery.Clause> clauses = new ArrayList<>();
+            do {
+                Query query = parseAnd(field);
+                if (query != null) {
+                    clauses.add(new BooleanQuery.Clause(BooleanQuery.Occur.SHOULD, query));
+                }
+            } while (skip(TokenKind.OR));
+            if (clauses.size() == 1) {
+                return clauses.get(0).getQuery();
+            }
+            return clauses.isEmpty() ? null : new BooleanQuery(clauses);
+        }
+
+        /**
+         * and := unary (['AND'] unary)*，unary := ('NOT' | '-' | '+')* primary
+         */
+        Query parseAnd(String field) {
+            List<BooleanQuery.Clause> clauses = new ArrayList<>();
+            while (!atEnd() && peek() != TokenKind.OR && peek() != TokenKind.RPAREN) {
+                if (skip(TokenKind.AND)) {
+                    continue;
+                }
+                boolean negate = false;
+                while (peek() == TokenKind.NOT || peek() == TokenKind.MINUS || peek() == TokenKind.PLUS) {
+                    negate ^= tokens.get(index++).kind != TokenKind.PLUS;
+                }
+                Query query = parsePrimary(field);
+                if (query != null) {
+                    clauses.add(new BooleanQuery.Clause(negate ? BooleanQuery.Occur.MUST_NOT : BooleanQuery.Occur.MUST, query));
+                }
+            }
+            return combine(clauses);
+        }
+
+        /**
+         * primary := '(' or ')' | FIELD primary | WORD | PHRASE | PREFIX
+         */
+        Query parsePrimary(String field) {
+            if (atEnd()) {
+                return null;
+            }
+            Token token = tokens.get(index);
+            switch (token.kind) {
+                case LPAREN:
+                    index++;
+                    Query group = parseOr(field);
+                    skip(TokenKind.RPAREN);
+                    return group;
+                case FIELD:
+                    index++;
+                    return parsePrimary(token.text);
+                case WORD:
+                case PHRASE:
+                case PREFIX:
+                    index++;
+                    if (token.text.isBlank() || leaves >= MAX_CLAUSES) {
+                        return null;
+                    }
+                    leaves++;
+                    return token.kind == TokenKind.PREFIX
+                            ? new PrefixQuery(field, token.text)
+                            : new PhraseQuery(field, token.text);
+                case OR:
+                case RPAREN:
+                    // 悬空的运算符：交给上层处理
+                    return null;
+                default:
+                    index++;
+                    return null;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.xichen.wiki.service;
 
+import com.xichen.wiki.common.CursorPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.xichen.wiki.entity.Bookmark;
@@ -55,6 +56,11 @@ public interface BookmarkService extends IService<Bookmark> {
      */
     Page<Bookmark> getUserBookmarks(Long userId, Integer page, Integer size, Long ebookId);
     
+    /**
+     * 游标分页获取用户书签列表（按创建时间倒序，不统计总数）
+     */
+    CursorPage<Bookmark> getUserBookmarksByCursor(Long userId, String cursor, Integer size, Long ebookId);
+    
     /**
      * 批量删除书签（List版本）
      */
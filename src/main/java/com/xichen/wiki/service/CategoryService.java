@@ -37,6 +37,11 @@ public interface CategoryService extends IService<Category> {
      */
     List<Category> getCategoryTree(Long userId, String type);
     
+    /**
+     * 获取分类树的ETag
+     */
+    String getCategoryTreeETag(Long userId, String type);
+    
     /**
      * 获取分类详情
      */
@@ -47,6 +52,11 @@ public interface CategoryService extends IService<Category> {
      */
     List<Category> getPublicCategoryTree(String type);
     
+    /**
+     * 获取公共分类树的ETag
+     */
+    String getPublicCategoryTreeETag(String type);
+    
     /**
      * 获取子分类列表
      */
@@ -1,9 +1,13 @@
 package com.xichen.wiki.service;
 
+import com.xichen.wiki.common.CursorPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.DuplicateDocument;
 import com.xichen.wiki.entity.Document;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,12 +38,17 @@ public interface DocumentService extends IService<Document> {
     /**
      * 获取用户文档列表
      */
-    Page<Document> getUserDocuments(Long userId, Integer page, Integer size, String keyword);
+    Page<DocumentSummary> getUserDocuments(Long userId, Integer page, Integer size, String keyword);
+    
+    /**
+     * 游标分页获取用户文档列表（按更新时间倒序，不统计总数）
+     */
+    CursorPage<DocumentSummary> getUserDocumentsByCursor(Long userId, String cursor, Integer size, String keyword);
     
     /**
      * 搜索文档
      */
-    Page<Document> searchDocuments(String keyword, Long userId, Integer page, Integer size);
+    Page<DocumentSummary> searchDocuments(String keyword, Long userId, Integer page, Integer size);
     
     /**
      * 获取文档统计信息
@@ -51,8 +60,28 @@ public interface DocumentService extends IService<Document> {
      */
     Document getDocumentDetail(Long documentId, Long userId);
     
+    /**
+     * 获取文档详情的ETag（只查版本号等少量列，不读取正文）
+     */
+    String getDocumentETag(Long documentId, Long userId);
+    
     /**
      * 切换文档收藏状态
      */
     boolean toggleFavorite(Long documentId, Long userId);
+    
+    /**
+     * 恢复到历史版本（以历史版本的内容保存为新版本）
+     */
+    Document restoreVersion(Long documentId, Long userId, Integer version);
+    
+    /**
+     * 查找文档的近似重复文档，按相似度从高到低
+     */
+    List<DuplicateDocument> getNearDuplicates(Long documentId, Long userId);
+    
+    /**
+     * 把用户的文档按近似重复分组，只返回不少于两篇文档的组，组内第一篇为参照文档
+     */
+    List<List<DuplicateDocument>> getDuplicateGroups(Long userId);
 }
@@ -0,0 +1,38 @@
+package com.xichen.wiki.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.DocumentVersion;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文档版本服务接口
+ */
+public interface DocumentVersionService extends IService<DocumentVersion> {
+    
+    /**
+     * 记录文档保存后的版本，需在保存文档的同一事务中调用
+     *
+     * @param document 保存后的文档
+     * @param previousTitle 修改前的标题，新建时为null
+     * @param previousContent 修改前的内容，新建时为null
+     */
+    void recordVersion(Document document, String previousTitle, String previousContent);
+    
+    /**
+     * 获取文档的版本列表（不含内容），按版本号倒序
+     */
+    List<DocumentVersion> listVersions(Long documentId, Long userId);
+    
+    /**
+     * 获取指定版本，content 为还原后的完整内容
+     */
+    DocumentVersion getVersion(Long documentId, Long userId, Integer version);
+    
+    /**
+     * 比较两个版本，返回统一格式差异
+     */
+    Map<String, Object> diffVersions(Long documentId, Long userId, Integer fromVersion, Integer toVersion);
+}
@@ -1,5 +1,7 @@
 package com.xichen.wiki.service;
 
+import com.xichen.wiki.common.CursorPage;
+import com.xichen.wiki.dto.EbookSummary;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.xichen.wiki.entity.Ebook;
@@ -35,17 +37,27 @@ public interface EbookService extends IService<Ebook> {
     /**
      * 获取用户电子书列表
      */
-    Page<Ebook> getUserEbooks(Long userId, Integer page, Integer size, String keyword);
+    Page<EbookSummary> getUserEbooks(Long userId, Integer page, Integer size, String keyword);
+    
+    /**
+     * 游标分页获取用户电子书列表（按创建时间倒序，不统计总数）
+     */
+    CursorPage<EbookSummary> getUserEbooksByCursor(Long userId, String cursor, Integer size, String keyword);
     
     /**
      * 获取电子书详情
      */
     Ebook getEbookDetail(Long ebookId, Long userId);
     
+    /**
+     * 获取电子书详情的ETag（不读取描述）
+     */
+    String getEbookETag(Long ebookId, Long userId);
+    
     /**
      * 搜索电子书
      */
-    Page<Ebook> searchEbooks(String keyword, Long userId, Integer page, Integer size);
+    Page<EbookSummary> searchEbooks(String keyword, Long userId, Integer page, Integer size);
     
     /**
      * 获取电子书统计信息
@@ -85,5 +97,5 @@ public interface EbookService extends IService<Ebook> {
     /**
      * 获取收藏的电子书列表
      */
-    Page<Ebook> getFavoriteEbooks(Long userId, Integer page, Integer size);
+    Page<EbookSummary> getFavoriteEbooks(Long userId, Integer page, Integer size);
 }
@@ -2,6 +2,8 @@ package com.xichen.wiki.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -39,6 +41,11 @@ public interface FileService {
      */
     Long getFileSize(String fileKey);
     
+    /**
+     * 打开文件的输入流，由调用方负责关闭
+     */
+    InputStream openStream(String fileKey) throws IOException;
+    
     /**
      * 生成上传URL
      */
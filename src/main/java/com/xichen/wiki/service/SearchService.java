@@ -1,8 +1,8 @@
 package com.xichen.wiki.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.xichen.wiki.entity.Document;
-import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.EbookSummary;
 
 import java.util.Map;
 
@@ -16,12 +16,29 @@ public interface SearchService {
      */
     Map<String, Object> globalSearch(String keyword, String type, Long userId, Integer page, Integer size);
     
+    /**
+     * 游标分页全局搜索（按相关度连续翻页，不统计总数）
+     */
+    Map<String, Object> globalSearchByCursor(String keyword, String type, Long userId, String cursor, Integer size);
+    
     /**
      * 高级搜索
+     *
+     * @param tagMatch 标签匹配方式：any-包含任一标签，all-包含全部标签，默认any
      */
-    Map<String, Object> advancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, 
+    Map<String, Object> advancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, String tagMatch,
                                       String sortBy, String sortOrder, Long userId, Integer page, Integer size);
     
+    /**
+     * 导出高级搜索的全部结果，筛选和排序同高级搜索，不分页
+     *
+     * 结果以 NDJSON 逐行写出，每行一个不含正文的搜索结果项
+     *
+     * @return 导出行数
+     */
+    long exportAdvancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, String tagMatch,
+                              String sortBy, String sortOrder, Long userId, java.io.OutputStream out) throws java.io.IOException;
+    
     /**
      * 搜索建议
      */
@@ -35,17 +52,20 @@ public interface SearchService {
     /**
      * 搜索文档
      */
-    Page<Document> searchDocuments(String keyword, Long userId, Integer page, Integer size);
+    Page<DocumentSummary> searchDocuments(String keyword, Long userId, Integer page, Integer size);
     
     /**
      * 搜索电子书
      */
-    Page<Ebook> searchEbooks(String keyword, Long userId, Integer page, Integer size);
+    Page<EbookSummary> searchEbooks(String keyword, Long userId, Integer page, Integer size);
     
     /**
      * 获取热门搜索词
+     *
+     * @param window 时间窗口：hour-最近一小时, day-最近一天, week-最近一周
+     * @param limit 数量
      */
-    java.util.List<String> getPopularSearchTerms(Integer limit);
+    java.util.List<String> getPopularSearchTerms(String window, Integer limit);
     
     /**
      * 获取用户搜索历史
@@ -56,4 +76,16 @@ public interface SearchService {
      * 清除用户搜索历史
      */
     void clearUserSearchHistory(Long userId);
+    
+    /**
+     * 获取搜索运行统计：结果缓存命中率、搜索历史队列状态
+     */
+    java.util.Map<String, Object> getSearchStatistics();
+    
+    /**
+     * 电子书正文检索，返回命中页及摘要
+     *
+     * @param ebookId 限定电子书，为null时检索全部电子书
+     */
+    java.util.List<com.xichen.wiki.dto.EbookPageHit> searchEbookPages(String keyword, Long ebookId, Long userId, Integer limit);
 }
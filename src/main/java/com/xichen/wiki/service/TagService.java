@@ -1,5 +1,6 @@
 package com.xichen.wiki.service;
 
+import com.xichen.wiki.common.CursorPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.xichen.wiki.entity.Tag;
@@ -27,6 +28,11 @@ public interface TagService extends IService<Tag> {
      */
     Page<Tag> getUserTags(Long userId, Integer page, Integer size, String keyword);
     
+    /**
+     * 游标分页获取用户标签列表（按使用次数、创建时间倒序，不统计总数）
+     */
+    CursorPage<Tag> getUserTagsByCursor(Long userId, String cursor, Integer size, String keyword);
+    
     /**
      * 获取公共标签
      */
@@ -3,11 +3,14 @@ package com.xichen.wiki.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.entity.Bookmark;
 import com.xichen.wiki.exception.BusinessException;
 import com.xichen.wiki.mapper.BookmarkMapper;
 import com.xichen.wiki.service.BookmarkService;
+import com.xichen.wiki.util.CursorUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -84,6 +87,28 @@ public class BookmarkServiceImpl extends ServiceImpl<BookmarkMapper, Bookmark> i
         return page(pageParam, wrapper);
     }
 
+    @Override
+    public CursorPage<Bookmark> getUserBookmarksByCursor(Long userId, String cursor, Integer size, Long ebookId) {
+        LambdaQueryWrapper<Bookmark> wrapper = new LambdaQueryWrapper<>();
+        
+        wrapper.eq(Bookmark::getUserId, userId);
+        
+        if (ebookId != null) {
+            wrapper.eq(Bookmark::getEbookId, ebookId);
+        }
+        
+        // 排序键：(created_at, id)
+        if (StringUtils.isNotBlank(cursor)) {
+            CursorUtil.Keys keys = CursorUtil.decode(cursor, 2);
+            CursorUtil.seekAfterDesc(wrapper, List.of(Bookmark::getCreatedAt, Bookmark::getId),
+                    List.of(keys.getDateTime(0), keys.getLong(1)));
+        }
+        wrapper.orderByDesc(Bookmark::getCreatedAt, Bookmark::getId);
+        wrapper.last("LIMIT " + (size + 1));
+        
+        return CursorPage.of(list(wrapper), size, b -> CursorUtil.encode(b.getCreatedAt(), b.getId()));
+    }
+
     @Override
     public boolean deleteBookmark(Long bookmarkId, Long userId) {
         Bookmark bookmark = getById(bookmarkId);
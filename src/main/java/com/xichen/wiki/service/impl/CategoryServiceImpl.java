@@ -1,12 +1,14 @@
 package com.xichen.wiki.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xichen.wiki.entity.Category;
 import com.xichen.wiki.exception.BusinessException;
 import com.xichen.wiki.mapper.CategoryMapper;
 import com.xichen.wiki.service.CategoryService;
+import com.xichen.wiki.util.ETagUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -97,6 +99,40 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         return buildCategoryTree(categories, null);
     }
 
+    @Override
+    public String getCategoryTreeETag(Long userId, String type) {
+        QueryWrapper<Category> wrapper = treeChecksumQuery();
+        wrapper.eq("user_id", userId)
+                .eq("type", type);
+        return treeETag("c" + userId, wrapper);
+    }
+
+    @Override
+    public String getPublicCategoryTreeETag(String type) {
+        QueryWrapper<Category> wrapper = treeChecksumQuery();
+        wrapper.isNull("user_id")
+                .eq("type", type);
+        return treeETag("c", wrapper);
+    }
+
+    /**
+     * 分类树校验查询：一条聚合语句算出分类数和各行 (ID, 名称, 父分类, 更新时间) 的 CRC32 异或值，
+     * 任一分类增删、改名或移动都会改变结果，不需要取出整棵树
+     */
+    private static QueryWrapper<Category> treeChecksumQuery() {
+        return new QueryWrapper<Category>()
+                .select("COUNT(*) AS total",
+                        "BIT_XOR(CRC32(CONCAT_WS('|', id, name, IFNULL(parent_id, 0), updated_at))) AS checksum");
+    }
+
+    private String treeETag(String prefix, QueryWrapper<Category> wrapper) {
+        Map<String, Object> row = getMap(wrapper);
+        if (row == null) {
+            return ETagUtil.weak(prefix, 0, 0);
+        }
+        return ETagUtil.weak(prefix, row.get("total"), row.get("checksum"));
+    }
+
     @Override
     public boolean deleteCategory(Long categoryId, Long userId) {
         Category category = getById(categoryId);
@@ -1,25 +1,49 @@
 package com.xichen.wiki.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xichen.wiki.cache.DocumentCache;
+import com.xichen.wiki.common.CursorPage;
+import com.xichen.wiki.constant.DocumentConstants;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.DuplicateDocument;
 import com.xichen.wiki.entity.Document;
 import com.xichen.wiki.entity.DocumentTag;
+import com.xichen.wiki.entity.DocumentVersion;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
 import com.xichen.wiki.exception.BusinessException;
 import com.xichen.wiki.mapper.DocumentMapper;
 import com.xichen.wiki.mapper.DocumentTagMapper;
+import com.xichen.wiki.search.NearDuplicateIndex;
+import com.xichen.wiki.search.SearchEngine;
+import com.xichen.wiki.search.SimHasher;
 import com.xichen.wiki.service.DocumentService;
+import com.xichen.wiki.service.DocumentVersionService;
+import com.xichen.wiki.util.ContentCodec;
+import com.xichen.wiki.util.CursorUtil;
+import com.xichen.wiki.util.ETagUtil;
+import com.xichen.wiki.util.ExcerptUtil;
+import com.xichen.wiki.util.PageUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 文档服务实现类
@@ -40,6 +64,27 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
 
     @Autowired
     private DocumentTagMapper documentTagMapper;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SimHasher simHasher;
+    
+    @Autowired
+    private NearDuplicateIndex nearDuplicateIndex;
+    
+    @Autowired
+    private DocumentVersionService documentVersionService;
+    
+    @Autowired
+    private DocumentCache documentCache;
+    
+    @Autowired
+    private SearchEngine searchEngine;
+    
+    @Value("${document.list.max-index-hits:1000}")
+    private int maxIndexHits;
 
     /**
      * 创建文档
@@ -47,9 +92,10 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
      * 业务逻辑：
      * 1. 创建文档基础信息（标题、内容、用户ID、分类ID等）
      * 2. 设置文档初始状态（版本号1，非收藏状态）
-     * 3. 计算文档字数统计
+     * 3. 计算文档字数统计和SimHash指纹
      * 4. 保存文档到数据库
      * 5. 如果提供了标签ID数组，则建立文档-标签关联关系
+     * 6. 记录版本1（完整快照）
      * 
      * @param userId 用户ID
      * @param title 文档标题
@@ -70,6 +116,8 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         document.setIsFavorite(false);  // 初始状态为非收藏
         document.setVersion(1);          // 初始版本号
         document.setWordCount(content != null ? content.length() : 0);  // 计算字数
+        document.setExcerpt(ExcerptUtil.of(content, DocumentConstants.EXCERPT_LENGTH));  // 列表摘要
+        document.setSimhash(simHasher.fingerprint(content));  // 近似重复检测指纹
         
         // 保存文档到数据库
         save(document);
@@ -79,6 +127,13 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             saveDocumentTags(document.getId(), tagIds);
         }
         
+        // 记录初始版本
+        documentVersionService.recordVersion(document, null, null);
+        
+        // 事务提交后由订阅方更新搜索索引等派生数据
+        eventPublisher.publishEvent(EntityChangeEvent.document(ChangeType.CREATED, document));
+        eventPublisher.publishEvent(EntityChangeEvent.documentTagsRelinked(userId, document.getId(), tagIds));
+        
         log.info("文档创建成功：用户ID={}, 标题={}, 字数={}", userId, title, document.getWordCount());
         return document;
     }
@@ -90,8 +145,9 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
      * 1. 验证文档是否存在
      * 2. 验证用户是否有权限操作该文档
      * 3. 更新文档内容（标题、内容、分类等）
-     * 4. 版本号自增，重新计算字数
+     * 4. 版本号自增，重新计算字数、列表摘要和SimHash指纹
      * 5. 更新标签关联关系（先删除旧关联，再建立新关联）
+     * 6. 记录新版本（相对上一版本的增量或完整快照）
      * 
      * @param documentId 文档ID
      * @param userId 用户ID
@@ -100,13 +156,13 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
      * @param categoryId 新分类ID
      * @param tagIds 新标签ID数组
      * @return 更新后的文档对象
-     * @throws BusinessException 当文档不存在或无权限时抛出
+     * @throws BusinessException 当文档不存在、无权限或已被并发修改时抛出
      */
     @Override
     @Transactional
     public Document updateDocument(Long documentId, Long userId, String title, String content, Long categoryId, Long[] tagIds) {
         // 1. 验证文档是否存在
-        Document document = getById(documentId);
+        Document document = getCachedById(documentId);
         if (document == null) {
             throw new BusinessException("文档不存在");
         }
@@ -116,15 +172,28 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             throw new BusinessException("无权限操作此文档");
         }
         
-        // 3. 更新文档内容
+        // 3. 更新文档内容，保留修改前的标题和内容用于记录版本增量
+        String previousTitle = document.getTitle();
+        String previousContent = document.getContent();
+        Integer previousVersion = document.getVersion();
         document.setTitle(title);
         document.setContent(content);
         document.setCategoryId(categoryId);
         document.setVersion(document.getVersion() + 1);  // 版本号自增
         document.setWordCount(content != null ? content.length() : 0);  // 重新计算字数
+        document.setExcerpt(ExcerptUtil.of(content, DocumentConstants.EXCERPT_LENGTH));  // 重新生成摘要
+        document.setSimhash(simHasher.fingerprint(content));  // 重新计算指纹
+        // 显式写入修改时间：实体更新会把读取时的 updated_at 原样写回，搜索索引恢复时按它补齐变更
+        document.setUpdatedAt(LocalDateTime.now());
         
-        // 4. 保存文档更新
-        updateById(document);
+        // 4. 保存文档更新：以读取时的版本号为条件，读到的是过期缓存或被并发修改时不覆盖新数据
+        boolean updated = update(document, new LambdaUpdateWrapper<Document>()
+                .eq(Document::getId, documentId)
+                .eq(Document::getVersion, previousVersion));
+        if (!updated) {
+            documentCache.invalidate(documentId);
+            throw new BusinessException("文档已被修改，请刷新后重试");
+        }
         
         // 5. 更新标签关联关系
         // 先删除所有旧的标签关联
@@ -134,31 +203,78 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             saveDocumentTags(documentId, tagIds);
         }
         
+        // 6. 记录新版本
+        documentVersionService.recordVersion(document, previousTitle, previousContent);
+        
+        // 事务提交后由订阅方更新搜索索引等派生数据
+        eventPublisher.publishEvent(EntityChangeEvent.document(ChangeType.UPDATED, document));
+        eventPublisher.publishEvent(EntityChangeEvent.documentTagsRelinked(userId, documentId, tagIds));
+        
         log.info("文档更新成功：用户ID={}, 文档ID={}, 标题={}, 版本={}", userId, documentId, title, document.getVersion());
         return document;
     }
 
     @Override
-    public Page<Document> getUserDocuments(Long userId, Integer page, Integer size, String keyword) {
+    public Page<DocumentSummary> getUserDocuments(Long userId, Integer page, Integer size, String keyword) {
         Page<Document> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
+        LambdaQueryWrapper<Document> wrapper = userDocumentsWrapper(userId, keyword);
         
-        wrapper.eq(Document::getUserId, userId);
+        wrapper.orderByDesc(Document::getUpdatedAt);
         
-        if (StringUtils.isNotBlank(keyword)) {
-            wrapper.and(w -> w.like(Document::getTitle, keyword)
-                    .or()
-                    .like(Document::getContent, keyword));
+        return PageUtil.map(page(pageParam, wrapper), DocumentSummary::of);
+    }
+
+    @Override
+    public CursorPage<DocumentSummary> getUserDocumentsByCursor(Long userId, String cursor, Integer size, String keyword) {
+        LambdaQueryWrapper<Document> wrapper = userDocumentsWrapper(userId, keyword);
+        
+        // 排序键：(updated_at, id)，id保证同一时间的多条记录也有确定的先后
+        if (StringUtils.isNotBlank(cursor)) {
+            CursorUtil.Keys keys = CursorUtil.decode(cursor, 2);
+            CursorUtil.seekAfterDesc(wrapper, List.of(Document::getUpdatedAt, Document::getId),
+                    List.of(keys.getDateTime(0), keys.getLong(1)));
         }
+        wrapper.orderByDesc(Document::getUpdatedAt, Document::getId);
+        wrapper.last("LIMIT " + (size + 1));
         
-        wrapper.orderByDesc(Document::getUpdatedAt);
+        return CursorPage.of(list(wrapper), size, d -> CursorUtil.encode(d.getUpdatedAt(), d.getId()))
+                .map(DocumentSummary::of);
+    }
+    
+    /**
+     * 用户文档列表的公共查询条件，只查列表字段
+     */
+    private LambdaQueryWrapper<Document> userDocumentsWrapper(Long userId, String keyword) {
+        LambdaQueryWrapper<Document> wrapper = summaryQuery();
+        
+        wrapper.eq(Document::getUserId, userId);
         
-        return page(pageParam, wrapper);
+        if (StringUtils.isNotBlank(keyword)) {
+            applyKeyword(wrapper, userId, keyword);
+        }
+        return wrapper;
+    }
+
+    /**
+     * 关键词条件：标题或未压缩正文 LIKE 匹配；压缩存储的正文在库中是 Base64 文本，
+     * 改由搜索引擎在内存中的解码正文里匹配，命中的ID再并入条件
+     */
+    private void applyKeyword(LambdaQueryWrapper<Document> wrapper, Long userId, String keyword) {
+        List<Long> bodyHits = searchEngine.matchDocumentIds(userId, keyword, maxIndexHits);
+        wrapper.and(w -> {
+            w.like(Document::getTitle, keyword)
+             .or(v -> v.like(Document::getContent, keyword)
+                     .notLikeRight(Document::getContent, ContentCodec.COMPRESSED_PREFIX));
+            if (!bodyHits.isEmpty()) {
+                w.or(v -> v.in(Document::getId, bodyHits)
+                        .likeRight(Document::getContent, ContentCodec.COMPRESSED_PREFIX));
+            }
+        });
     }
 
     @Override
     public Document getDocumentById(Long documentId, Long userId) {
-        Document document = getById(documentId);
+        Document document = getCachedById(documentId);
         if (document == null) {
             throw new BusinessException("文档不存在");
         }
@@ -171,26 +287,39 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
     }
 
     @Override
-    public Page<Document> searchDocuments(String keyword, Long userId, Integer page, Integer size) {
+    public Page<DocumentSummary> searchDocuments(String keyword, Long userId, Integer page, Integer size) {
         Page<Document> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
+        LambdaQueryWrapper<Document> wrapper = summaryQuery();
         
         wrapper.eq(Document::getUserId, userId);
         
         if (StringUtils.isNotBlank(keyword)) {
-            wrapper.and(w -> w.like(Document::getTitle, keyword)
-                    .or()
-                    .like(Document::getContent, keyword));
+            applyKeyword(wrapper, userId, keyword);
         }
         
         wrapper.orderByDesc(Document::getUpdatedAt);
         
-        return page(pageParam, wrapper);
+        return PageUtil.map(page(pageParam, wrapper), DocumentSummary::of);
+    }
+    
+    /**
+     * 按ID读取文档，经过两级缓存；返回的是副本，可直接修改后保存
+     */
+    private Document getCachedById(Long documentId) {
+        return documentCache.get(documentId, this::getById);
+    }
+    
+    /**
+     * 列表查询：不查正文，摘要和字数已在保存时预先算好
+     */
+    private static LambdaQueryWrapper<Document> summaryQuery() {
+        return new LambdaQueryWrapper<Document>()
+                .select(Document.class, field -> !"content".equals(field.getColumn()));
     }
 
     @Override
     public Document getDocumentDetail(Long documentId, Long userId) {
-        Document document = getById(documentId);
+        Document document = getCachedById(documentId);
         if (document == null) {
             throw new BusinessException("文档不存在");
         }
@@ -202,6 +331,26 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         return document;
     }
 
+    /**
+     * 详情ETag由版本号和收藏状态组成：内容变更都经过 updateDocument 递增版本号，
+     * 收藏切换不改版本号，需要单独计入；updated_at 在 updateById 时会写回旧值，不能作为依据
+     */
+    @Override
+    public String getDocumentETag(Long documentId, Long userId) {
+        Document document = getOne(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getUserId, Document::getVersion, Document::getIsFavorite)
+                .eq(Document::getId, documentId));
+        if (document == null) {
+            throw new BusinessException("文档不存在");
+        }
+        
+        if (!document.getUserId().equals(userId)) {
+            throw new BusinessException("无权限查看此文档");
+        }
+        
+        return ETagUtil.document(documentId, document.getVersion(), document.getIsFavorite());
+    }
+
     @Override
     @Transactional
     public boolean deleteDocument(Long documentId, Long userId) {
@@ -218,13 +367,15 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         documentTagMapper.deleteByDocumentId(documentId);
         
         removeById(documentId);
+        eventPublisher.publishEvent(EntityChangeEvent.documentDeleted(userId, documentId));
         log.info("文档删除成功：{}", document.getTitle());
         return true;
     }
 
     @Override
+    @Transactional
     public boolean toggleFavorite(Long documentId, Long userId) {
-        Document document = getById(documentId);
+        Document document = getCachedById(documentId);
         if (document == null) {
             throw new BusinessException("文档不存在");
         }
@@ -233,15 +384,122 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             throw new BusinessException("无权限操作此文档");
         }
         
-        document.setIsFavorite(!document.getIsFavorite());
-        updateById(document);
+        // 在SQL中取反：缓存中的收藏状态可能已过期，不能以它为准；再读回本事务内的最新值
+        update(new LambdaUpdateWrapper<Document>()
+                .setSql("is_favorite = 1 - IFNULL(is_favorite, 0)")
+                .eq(Document::getId, documentId));
+        Document current = getOne(new LambdaQueryWrapper<Document>()
+                .select(Document::getIsFavorite)
+                .eq(Document::getId, documentId));
+        if (current == null) {
+            throw new BusinessException("文档不存在");
+        }
+        document.setIsFavorite(Boolean.TRUE.equals(current.getIsFavorite()));
+        eventPublisher.publishEvent(EntityChangeEvent.document(ChangeType.STATE_UPDATED, document));
         log.info("文档收藏状态切换成功：{}", document.getTitle());
         return document.getIsFavorite();
     }
+
+    /**
+     * 恢复到历史版本
+     * 
+     * 以历史版本的标题和内容保存为一个新版本，分类和标签保持不变，恢复操作本身也可以再撤销
+     * 
+     * @param documentId 文档ID
+     * @param userId 用户ID
+     * @param version 要恢复的版本号
+     * @return 恢复后的文档
+     */
+    @Override
+    @Transactional
+    public Document restoreVersion(Long documentId, Long userId, Integer version) {
+        DocumentVersion target = documentVersionService.getVersion(documentId, userId, version);
+        Document document = getById(documentId);
+        Long[] tagIds = documentTagMapper.selectList(new LambdaQueryWrapper<DocumentTag>()
+                        .eq(DocumentTag::getDocumentId, documentId))
+                .stream()
+                .map(DocumentTag::getTagId)
+                .toArray(Long[]::new);
+        
+        Document restored = updateDocument(documentId, userId, target.getTitle(), target.getContent(),
+                document.getCategoryId(), tagIds);
+        log.info("文档版本恢复成功：用户ID={}, 文档ID={}, 恢复自版本={}, 新版本={}", userId, documentId, version,
+                restored.getVersion());
+        return restored;
+    }
+
+    @Override
+    public List<DuplicateDocument> getNearDuplicates(Long documentId, Long userId) {
+        Document document = getOne(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getUserId)
+                .eq(Document::getId, documentId));
+        if (document == null) {
+            throw new BusinessException("文档不存在");
+        }
+        
+        if (!document.getUserId().equals(userId)) {
+            throw new BusinessException("无权限查看此文档");
+        }
+        
+        Map<Long, Integer> duplicates = nearDuplicateIndex.findDuplicates(userId, documentId);
+        Map<Long, Document> documents = listDuplicateSummaries(duplicates.keySet());
+        List<DuplicateDocument> result = new ArrayList<>(duplicates.size());
+        duplicates.forEach((id, distance) -> {
+            Document duplicate = documents.get(id);
+            if (duplicate != null) {
+                result.add(toDuplicate(duplicate, distance));
+            }
+        });
+        return result;
+    }
+    
+    @Override
+    public List<List<DuplicateDocument>> getDuplicateGroups(Long userId) {
+        List<List<Long>> groups = nearDuplicateIndex.groups(userId);
+        Map<Long, Document> documents = listDuplicateSummaries(
+                groups.stream().flatMap(List::stream).collect(Collectors.toList()));
+        List<List<DuplicateDocument>> result = new ArrayList<>(groups.size());
+        for (List<Long> group : groups) {
+            Document reference = documents.get(group.get(0));
+            List<DuplicateDocument> members = new ArrayList<>(group.size());
+            for (Long id : group) {
+                Document member = documents.get(id);
+                if (member != null) {
+                    int distance = reference == null || reference.getSimhash() == null || member.getSimhash() == null
+                            ? 0 : SimHasher.distance(reference.getSimhash(), member.getSimhash());
+                    members.add(toDuplicate(member, distance));
+                }
+            }
+            if (members.size() > 1) {
+                result.add(members);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 批量读取近似重复结果展示所需的列，不读取正文
+     */
+    private Map<Long, Document> listDuplicateSummaries(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return list(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getTitle, Document::getWordCount, Document::getUpdatedAt,
+                        Document::getSimhash)
+                .in(Document::getId, ids))
+                .stream()
+                .collect(Collectors.toMap(Document::getId, Function.identity()));
+    }
+    
+    private static DuplicateDocument toDuplicate(Document document, int distance) {
+        return new DuplicateDocument(document.getId(), document.getTitle(), document.getWordCount(),
+                document.getUpdatedAt(), distance);
+    }
     
     @Override
     public Map<String, Object> getDocumentStatistics(Long documentId, Long userId) {
-        Document document = getById(documentId);
+        Document document = getCachedById(documentId);
         if (document == null) {
             throw new BusinessException("文档不存在");
         }
@@ -0,0 +1,178 @@
+package com.xichen.wiki.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xichen.wiki.constant.DocumentConstants;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.entity.DocumentVersion;
+import com.xichen.wiki.exception.BusinessException;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.DocumentVersionMapper;
+import com.xichen.wiki.service.DocumentVersionService;
+import com.xichen.wiki.util.LineDiff;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文档版本服务实现类
+ *
+ * 版本存储策略：
+ * - 新版本默认存为相对上一版本的按行增量，大小与改动量成正比
+ * - 距上一个快照的增量个数达到上限，或增量超过内容的一半时，改存完整快照
+ * - 还原版本时从最近的快照开始依次应用增量，链长有上限，读取代价有界
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+@Slf4j
+@Service
+public class DocumentVersionServiceImpl extends ServiceImpl<DocumentVersionMapper, DocumentVersion> implements DocumentVersionService {
+
+    /**
+     * 差异展示的上下文行数
+     */
+    private static final int DIFF_CONTEXT_LINES = 3;
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    /**
+     * 两个完整快照之间最多的增量个数
+     */
+    @Value("${document.version.max-chain:20}")
+    private int maxChain;
+
+    @Override
+    public void recordVersion(Document document, String previousTitle, String previousContent) {
+        int version = document.getVersion();
+        String content = StringUtils.defaultString(document.getContent());
+        DocumentVersion previous = null;
+        if (version > 1) {
+            previous = getOne(new LambdaQueryWrapper<DocumentVersion>()
+                    .select(DocumentVersion::getId, DocumentVersion::getVersion, DocumentVersion::getChainLength)
+                    .eq(DocumentVersion::getDocumentId, document.getId())
+                    .eq(DocumentVersion::getVersion, version - 1));
+            if (previous == null) {
+                // 启用版本历史之前的文档没有记录，先把修改前的内容存为快照
+                previous = snapshot(document.getId(), version - 1, previousTitle, StringUtils.defaultString(previousContent));
+                save(previous);
+            }
+        }
+
+        DocumentVersion record = null;
+        if (previous != null && previous.getChainLength() < maxChain) {
+            String delta = LineDiff.delta(StringUtils.defaultString(previousContent), content);
+            if (delta.length() <= content.length() / 2) {
+                record = new DocumentVersion();
+                record.setDocumentId(document.getId());
+                record.setVersion(version);
+                record.setTitle(document.getTitle());
+                record.setContent(delta);
+                record.setStorageType(DocumentConstants.VERSION_STORAGE_DELTA);
+                record.setChainLength(previous.getChainLength() + 1);
+                record.setContentLength(content.length());
+            }
+        }
+        if (record == null) {
+            record = snapshot(document.getId(), version, document.getTitle(), content);
+        }
+        save(record);
+
+        log.debug("文档版本已记录：文档ID={}, 版本={}, 存储方式={}, 存储大小={}, 内容长度={}", document.getId(), version,
+                record.getStorageType(), record.getContent().length(), content.length());
+    }
+
+    @Override
+    public List<DocumentVersion> listVersions(Long documentId, Long userId) {
+        checkOwner(documentId, userId);
+        return list(new LambdaQueryWrapper<DocumentVersion>()
+                .select(DocumentVersion.class, field -> !"content".equals(field.getColumn()))
+                .eq(DocumentVersion::getDocumentId, documentId)
+                .orderByDesc(DocumentVersion::getVersion));
+    }
+
+    @Override
+    public DocumentVersion getVersion(Long documentId, Long userId, Integer version) {
+        checkOwner(documentId, userId);
+        DocumentVersion target = getOne(new LambdaQueryWrapper<DocumentVersion>()
+                .eq(DocumentVersion::getDocumentId, documentId)
+                .eq(DocumentVersion::getVersion, version));
+        if (target == null) {
+            throw new BusinessException("版本不存在");
+        }
+        if (target.getStorageType() == DocumentConstants.VERSION_STORAGE_SNAPSHOT) {
+            return target;
+        }
+
+        // 从最近的快照开始依次应用增量
+        List<DocumentVersion> chain = list(new LambdaQueryWrapper<DocumentVersion>()
+                .select(DocumentVersion::getVersion, DocumentVersion::getContent, DocumentVersion::getStorageType)
+                .eq(DocumentVersion::getDocumentId, documentId)
+                .between(DocumentVersion::getVersion, version - target.getChainLength(), version - 1)
+                .orderByAsc(DocumentVersion::getVersion));
+        if (chain.size() != target.getChainLength()
+                || chain.get(0).getStorageType() != DocumentConstants.VERSION_STORAGE_SNAPSHOT) {
+            log.error("文档版本链不完整：文档ID={}, 版本={}, 链长={}, 实际={}", documentId, version,
+                    target.getChainLength(), chain.size());
+            throw new BusinessException("版本数据不完整，无法还原");
+        }
+        chain.add(target);
+        String content = chain.get(0).getContent();
+        try {
+            for (int i = 1; i < chain.size(); i++) {
+                content = LineDiff.apply(content, chain.get(i).getContent());
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("文档版本还原失败：文档ID={}, 版本={}, 错误={}", documentId, version, e.getMessage());
+            throw new BusinessException("版本数据损坏，无法还原");
+        }
+        target.setContent(content);
+        return target;
+    }
+
+    @Override
+    public Map<String, Object> diffVersions(Long documentId, Long userId, Integer fromVersion, Integer toVersion) {
+        DocumentVersion from = getVersion(documentId, userId, fromVersion);
+        DocumentVersion to = getVersion(documentId, userId, toVersion);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("documentId", documentId);
+        result.put("fromVersion", fromVersion);
+        result.put("toVersion", toVersion);
+        result.put("fromTitle", from.getTitle());
+        result.put("toTitle", to.getTitle());
+        result.put("diff", LineDiff.unified(from.getContent(), to.getContent(), DIFF_CONTEXT_LINES));
+        return result;
+    }
+
+    private static DocumentVersion snapshot(Long documentId, int version, String title, String content) {
+        DocumentVersion snapshot = new DocumentVersion();
+        snapshot.setDocumentId(documentId);
+        snapshot.setVersion(version);
+        snapshot.setTitle(title);
+        snapshot.setContent(content);
+        snapshot.setStorageType(DocumentConstants.VERSION_STORAGE_SNAPSHOT);
+        snapshot.setChainLength(0);
+        snapshot.setContentLength(content.length());
+        return snapshot;
+    }
+
+    private void checkOwner(Long documentId, Long userId) {
+        Document document = documentMapper.selectOne(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getUserId)
+                .eq(Document::getId, documentId));
+        if (document == null) {
+            throw new BusinessException("文档不存在");
+        }
+        if (!document.getUserId().equals(userId)) {
+            throw new BusinessException("无权限查看此文档");
+        }
+    }
+}
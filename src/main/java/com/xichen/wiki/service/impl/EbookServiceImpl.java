@@ -3,15 +3,25 @@ package com.xichen.wiki.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xichen.wiki.common.CursorPage;
+import com.xichen.wiki.constant.DocumentConstants;
+import com.xichen.wiki.dto.EbookSummary;
 import com.xichen.wiki.entity.Ebook;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
 import com.xichen.wiki.exception.BusinessException;
 import com.xichen.wiki.mapper.EbookMapper;
 import com.xichen.wiki.service.EbookService;
 import com.xichen.wiki.service.FileService;
+import com.xichen.wiki.util.CursorUtil;
+import com.xichen.wiki.util.ETagUtil;
+import com.xichen.wiki.util.ExcerptUtil;
+import com.xichen.wiki.util.PageUtil;
 import com.xichen.wiki.util.RedisKeyUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,6 +47,9 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
     
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     // Redis键常量已移至RedisKeyUtil统一管理
 
@@ -45,6 +58,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         Ebook ebook = new Ebook();
         ebook.setTitle(title);
         ebook.setDescription(description);
+        ebook.setExcerpt(ExcerptUtil.of(description, DocumentConstants.EXCERPT_LENGTH));
         ebook.setCoverKey(coverUrl);
         ebook.setUserId(userId);
         ebook.setIsFavorite(false);
@@ -55,6 +69,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         ebook.setUpdatedAt(LocalDateTime.now());
         
         save(ebook);
+        eventPublisher.publishEvent(EntityChangeEvent.ebook(ChangeType.CREATED, ebook));
         log.info("电子书创建成功：用户ID={}, 标题={}", userId, title);
         return ebook;
     }
@@ -74,18 +89,47 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
 
         ebook.setTitle(title);
         ebook.setDescription(description);
+        ebook.setExcerpt(ExcerptUtil.of(description, DocumentConstants.EXCERPT_LENGTH));
         ebook.setCoverKey(coverUrl);
         ebook.setUpdatedAt(LocalDateTime.now());
 
         updateById(ebook);
+        eventPublisher.publishEvent(EntityChangeEvent.ebook(ChangeType.UPDATED, ebook));
         log.info("电子书更新成功：ID={}, 标题={}", ebookId, title);
         return ebook;
     }
 
     @Override
-    public Page<Ebook> getUserEbooks(Long userId, Integer page, Integer size, String keyword) {
+    public Page<EbookSummary> getUserEbooks(Long userId, Integer page, Integer size, String keyword) {
         Page<Ebook> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+        LambdaQueryWrapper<Ebook> wrapper = userEbooksWrapper(userId, keyword);
+        
+        wrapper.orderByDesc(Ebook::getCreatedAt);
+        return PageUtil.map(page(pageParam, wrapper), EbookSummary::of);
+    }
+
+    @Override
+    public CursorPage<EbookSummary> getUserEbooksByCursor(Long userId, String cursor, Integer size, String keyword) {
+        LambdaQueryWrapper<Ebook> wrapper = userEbooksWrapper(userId, keyword);
+        
+        // 排序键：(created_at, id)
+        if (StringUtils.isNotBlank(cursor)) {
+            CursorUtil.Keys keys = CursorUtil.decode(cursor, 2);
+            CursorUtil.seekAfterDesc(wrapper, List.of(Ebook::getCreatedAt, Ebook::getId),
+                    List.of(keys.getDateTime(0), keys.getLong(1)));
+        }
+        wrapper.orderByDesc(Ebook::getCreatedAt, Ebook::getId);
+        wrapper.last("LIMIT " + (size + 1));
+        
+        return CursorPage.of(list(wrapper), size, e -> CursorUtil.encode(e.getCreatedAt(), e.getId()))
+                .map(EbookSummary::of);
+    }
+    
+    /**
+     * 用户电子书列表的公共查询条件，只查列表字段
+     */
+    private LambdaQueryWrapper<Ebook> userEbooksWrapper(Long userId, String keyword) {
+        LambdaQueryWrapper<Ebook> wrapper = summaryQuery();
         wrapper.eq(Ebook::getUserId, userId);
         
         // 移除categoryId过滤，因为接口中没有这个参数
@@ -95,9 +139,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
                     .or().like(Ebook::getAuthor, keyword)
                     .or().like(Ebook::getDescription, keyword));
         }
-        
-        wrapper.orderByDesc(Ebook::getCreatedAt);
-        return page(pageParam, wrapper);
+        return wrapper;
     }
 
     @Override
@@ -118,6 +160,30 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         return ebook;
     }
 
+    /**
+     * 详情ETag由除描述外可变列的校验和组成：阅读进度、收藏切换用 updateById 写回旧的 updated_at，
+     * 解析状态由后台任务更新，只看 updated_at 会漏掉这些变化
+     */
+    @Override
+    public String getEbookETag(Long ebookId, Long userId) {
+        Ebook ebook = getOne(new LambdaQueryWrapper<Ebook>()
+                .select(Ebook.class, field -> !"description".equals(field.getColumn()))
+                .eq(Ebook::getId, ebookId));
+        if (ebook == null) {
+            throw new BusinessException("电子书不存在");
+        }
+
+        if (!ebook.getUserId().equals(userId) && !ebook.getIsPublic()) {
+            throw new BusinessException("无权限访问此电子书");
+        }
+
+        return ETagUtil.weak("e" + ebookId, ETagUtil.checksum(ebook.getUpdatedAt(), ebook.getTitle(),
+                ebook.getAuthor(), ebook.getFileKey(), ebook.getFileUrl(), ebook.getFileSize(), ebook.getCoverKey(),
+                ebook.getPageCount(), ebook.getExcerpt(), ebook.getCategoryId(), ebook.getCategory(),
+                ebook.getIsPublic(), ebook.getIsFavorite(), ebook.getDownloadCount(), ebook.getViewCount(),
+                ebook.getLastReadDate(), ebook.getLastReadPage(), ebook.getTextStatus()));
+    }
+
     @Override
     @Transactional
     public boolean deleteEbook(Long ebookId, Long userId) {
@@ -139,6 +205,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
 
         // 删除电子书记录
         removeById(ebookId);
+        eventPublisher.publishEvent(EntityChangeEvent.ebookDeleted(userId, ebookId));
         
         // 清理相关缓存
         redisTemplate.delete(RedisKeyUtil.getEbookFavoriteKey(userId));
@@ -162,6 +229,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         ebook.setLastReadPage(currentPage);
         ebook.setLastReadDate(LocalDateTime.now());
         updateById(ebook);
+        eventPublisher.publishEvent(EntityChangeEvent.ebook(ChangeType.STATE_UPDATED, ebook));
         
         // 更新Redis缓存
         String key = RedisKeyUtil.getEbookReadingProgressKey(userId, ebookId);
@@ -176,9 +244,9 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
 
 
     @Override
-    public Page<Ebook> searchEbooks(String keyword, Long userId, Integer page, Integer size) {
+    public Page<EbookSummary> searchEbooks(String keyword, Long userId, Integer page, Integer size) {
         Page<Ebook> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+        LambdaQueryWrapper<Ebook> wrapper = summaryQuery();
         
         // 搜索条件：标题、作者、描述
         wrapper.and(w -> w.like(Ebook::getTitle, keyword)
@@ -189,7 +257,15 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         wrapper.eq(Ebook::getUserId, userId);
         wrapper.orderByDesc(Ebook::getCreatedAt);
         
-        return page(pageParam, wrapper);
+        return PageUtil.map(page(pageParam, wrapper), EbookSummary::of);
+    }
+    
+    /**
+     * 列表查询：不查完整描述，摘要已在保存时预先算好
+     */
+    private static LambdaQueryWrapper<Ebook> summaryQuery() {
+        return new LambdaQueryWrapper<Ebook>()
+                .select(Ebook.class, field -> !"description".equals(field.getColumn()));
     }
 
     public void incrementViewCount(Long ebookId) {
@@ -232,6 +308,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         
         ebook.setIsFavorite(!ebook.getIsFavorite());
         updateById(ebook);
+        eventPublisher.publishEvent(EntityChangeEvent.ebook(ChangeType.STATE_UPDATED, ebook));
         log.info("电子书收藏状态切换成功：{}", ebook.getTitle());
         return ebook.getIsFavorite();
     }
@@ -283,6 +360,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         Ebook ebook = new Ebook();
         ebook.setTitle(title);
         ebook.setDescription(description);
+        ebook.setExcerpt(ExcerptUtil.of(description, DocumentConstants.EXCERPT_LENGTH));
         ebook.setAuthor(author);
         ebook.setCategory(category);
         ebook.setCategoryId(categoryId);
@@ -299,6 +377,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
         ebook.setUpdatedAt(LocalDateTime.now());
         
         save(ebook);
+        eventPublisher.publishEvent(EntityChangeEvent.ebook(ChangeType.CREATED, ebook));
         log.info("电子书上传成功：ID={}, 用户ID={}, 标题={}", ebook.getId(), userId, title);
         return ebook;
     }
@@ -346,7 +425,7 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
     }
     
     @Override
-    public Page<Ebook> getFavoriteEbooks(Long userId, Integer page, Integer size) {
+    public Page<EbookSummary> getFavoriteEbooks(Long userId, Integer page, Integer size) {
         String key = RedisKeyUtil.getEbookFavoriteKey(userId);
         Set<Object> favoriteIds = redisTemplate.opsForSet().members(key);
         
@@ -358,10 +437,10 @@ public class EbookServiceImpl extends ServiceImpl<EbookMapper, Ebook> implements
                 .map(id -> Long.valueOf(id.toString()))
                 .collect(Collectors.toList());
         
-        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+        LambdaQueryWrapper<Ebook> wrapper = summaryQuery();
         wrapper.in(Ebook::getId, ebookIds)
                 .orderByDesc(Ebook::getUpdatedAt);
         
-        return page(new Page<>(page, size), wrapper);
+        return PageUtil.map(page(new Page<>(page, size), wrapper), EbookSummary::of);
     }
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -193,6 +196,20 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    public InputStream openStream(String fileKey) throws IOException {
+        if ("qiniu".equals(storageType)) {
+            initQiniu();
+            // 私有空间需要带签名的下载地址，公开空间会忽略签名参数
+            String url = auth.privateDownloadUrl(getQiniuUrl(fileKey), 3600);
+            URLConnection connection = URI.create(url).toURL().openConnection();
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(60000);
+            return connection.getInputStream();
+        }
+        return Files.newInputStream(Paths.get(uploadPath, fileKey));
+    }
+
     @Override
     public Map<String, Object> generateUploadUrl(String fileName, String fileType, String folder, Long userId) {
         String extension = getFileExtension(fileName);
@@ -1,25 +1,62 @@
 package com.xichen.wiki.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.xichen.wiki.common.CursorPage;
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.dto.DocumentSummary;
+import com.xichen.wiki.dto.EbookPageHit;
+import com.xichen.wiki.dto.EbookSummary;
+import com.xichen.wiki.dto.SearchResultItem;
 import com.xichen.wiki.entity.Document;
-import com.xichen.wiki.entity.DocumentTag;
 import com.xichen.wiki.entity.Ebook;
-import com.xichen.wiki.mapper.DocumentTagMapper;
+import com.xichen.wiki.entity.EbookPage;
+import com.xichen.wiki.mapper.DocumentMapper;
+import com.xichen.wiki.mapper.EbookMapper;
+import com.xichen.wiki.search.DocIdBitmap;
+import com.xichen.wiki.search.EbookPageIndex;
+import com.xichen.wiki.search.FacetCounter;
+import com.xichen.wiki.search.PopularTermTracker;
+import com.xichen.wiki.search.SearchEngine;
+import com.xichen.wiki.search.SearchHit;
+import com.xichen.wiki.search.SearchHistoryRecorder;
+import com.xichen.wiki.search.SearchResult;
+import com.xichen.wiki.search.SearchResultCache;
+import com.xichen.wiki.search.SimHasher;
+import com.xichen.wiki.search.Snippet;
+import com.xichen.wiki.search.SnippetGenerator;
+import com.xichen.wiki.search.SuggestionIndex;
+import com.xichen.wiki.search.TagBitmapIndex;
+import com.xichen.wiki.search.analyzer.CharArrayMap;
 import com.xichen.wiki.service.DocumentService;
 import com.xichen.wiki.service.EbookService;
 import com.xichen.wiki.service.SearchService;
+import com.xichen.wiki.util.CursorUtil;
 import com.xichen.wiki.util.RedisKeyUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -36,20 +73,107 @@ public class SearchServiceImpl implements SearchService {
     private EbookService ebookService;
     
     @Autowired
-    private DocumentTagMapper documentTagMapper;
+    private RedisTemplate<String, Object> redisTemplate;
     
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private SearchEngine searchEngine;
+    
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+    
+    @Autowired
+    private PopularTermTracker popularTermTracker;
+    
+    @Autowired
+    private SearchHistoryRecorder searchHistoryRecorder;
+    
+    @Autowired
+    private SearchResultCache searchResultCache;
+    
+    @Autowired
+    private TagBitmapIndex tagBitmapIndex;
+    
+    @Autowired
+    private SnippetGenerator snippetGenerator;
+    
+    @Autowired
+    private EbookPageIndex ebookPageIndex;
+    
+    @Autowired
+    private DocumentMapper documentMapper;
+    
+    @Autowired
+    private EbookMapper ebookMapper;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ThreadPoolTaskExecutor searchExecutor;
+    
+    /**
+     * 并行搜索的单次请求截止时间（毫秒）
+     */
+    @Value("${search.parallel.timeout-ms:3000}")
+    private long parallelTimeoutMs;
+    
+    /**
+     * 生成摘要时最多读取的正文长度
+     */
+    @Value("${search.snippet.max-source-chars:20000}")
+    private int snippetSourceChars;
+    
+    /**
+     * 是否折叠同一页内的近似重复文档
+     */
+    @Value("${search.dedup.collapse:true}")
+    private boolean collapseDuplicates;
+    
+    /**
+     * 高级搜索中关键词命中最多取前多少条参与筛选、排序和分页
+     */
+    @Value("${search.advanced.max-hits:1000}")
+    private int advancedMaxHits;
 
     // Redis键常量已移至RedisKeyUtil统一管理
+    
+    /**
+     * 按相关度排序
+     */
+    private static final String SORT_BY_RELEVANCE = "relevance";
+    
+    /**
+     * 导出时每写出多少行刷新一次输出流
+     */
+    private static final int EXPORT_FLUSH_ROWS = 200;
+    
+    /**
+     * 导出时每批查询的行数
+     */
+    private static final int EXPORT_BATCH_SIZE = 500;
+    
+    /**
+     * 搜索建议的最大条数
+     */
+    private static final int MAX_SUGGESTIONS = 10;
+    
+    /**
+     * 搜索建议中为热门搜索词预留的名额
+     */
+    private static final int POPULAR_SUGGESTION_SLOTS = 3;
+    
+    /**
+     * 标签筛选结果不超过该数量时直接以 IN 条件传给数据库，否则改用ID范围 + 关联子查询
+     */
+    private static final int TAG_FILTER_IN_LIMIT = 1000;
 
     @Override
     public Map<String, Object> globalSearch(String keyword, String type, Long userId, Integer page, Integer size) {
         Map<String, Object> result = new HashMap<>();
         
         if (StringUtils.isBlank(keyword)) {
-            result.put("documents", new Page<Document>(page, size));
-            result.put("ebooks", new Page<Ebook>(page, size));
+            result.put("results", new Page<SearchResultItem>(page, size));
             result.put("total", 0);
             return result;
         }
@@ -57,88 +181,401 @@ public class SearchServiceImpl implements SearchService {
         // 记录搜索历史
         recordSearchHistory(userId, keyword, type);
         
-        Page<Document> documents = new Page<>(page, size);
-        Page<Ebook> ebooks = new Page<>(page, size);
-        
-        if ("all".equals(type) || "document".equals(type)) {
-            documents = searchDocuments(keyword, userId, page, size);
-        }
+        // 相同查询短时间内重复请求（翻页往返、前端重新聚焦）直接命中缓存，部分结果不缓存
+        String cacheKey = cacheKey("global", keyword, type, page, size);
+        result = new HashMap<>(searchResultCache.get(userId, cacheKey,
+                () -> executeGlobalSearch(keyword, type, userId, page, size), SearchServiceImpl::isComplete));
+        result.put("keyword", keyword);
+        return result;
+    }
+    
+    /**
+     * 执行全局搜索
+     */
+    private Map<String, Object> executeGlobalSearch(String keyword, String type, Long userId, Integer page, Integer size) {
+        Map<String, Object> result = new HashMap<>();
         
-        if ("all".equals(type) || "ebook".equals(type)) {
-            ebooks = searchEbooks(keyword, userId, page, size);
-        }
+        // 文档与电子书在同一个相关度排序中合并，只取到当前页末尾为止的前K条
+        int limit = topK(page, size);
+        SearchResult searchResult = searchByType(type, limit, result,
+                searchType -> searchEngine.search(userId, keyword, searchType, limit));
+        Page<SearchResultItem> results = new Page<>(page, size, searchResult.getTotal());
+        results.setRecords(loadItems(pageSlice(searchResult.getHits(), page, size), keyword));
         
-        result.put("documents", documents);
-        result.put("ebooks", ebooks);
-        result.put("total", documents.getTotal() + ebooks.getTotal());
+        result.put("results", results);
+        result.put("total", searchResult.getTotal());
         result.put("keyword", keyword);
         result.put("type", type);
         
         return result;
     }
 
-    public Page<Document> searchDocuments(String keyword, Long userId, Integer page, Integer size) {
-        Page<Document> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
+    @Override
+    public Map<String, Object> globalSearchByCursor(String keyword, String type, Long userId, String cursor, Integer size) {
+        Map<String, Object> result = new HashMap<>();
+        
+        if (StringUtils.isBlank(keyword)) {
+            result.put("results", CursorPage.of(new ArrayList<SearchResultItem>(), size, item -> null));
+            return result;
+        }
         
-        wrapper.eq(Document::getUserId, userId)
-               .and(w -> w.like(Document::getTitle, keyword)
-                       .or().like(Document::getContent, keyword))
-               .orderByDesc(Document::getUpdatedAt);
+        // 只有第一页算一次搜索，继续翻页不重复记录历史
+        if (StringUtils.isBlank(cursor)) {
+            recordSearchHistory(userId, keyword, type);
+        }
+        SearchHit after = StringUtils.isBlank(cursor) ? null : decodeHitCursor(cursor);
         
-        return documentService.page(pageParam, wrapper);
+        String cacheKey = cacheKey("global-cursor", keyword, type, cursor, size);
+        result = new HashMap<>(searchResultCache.get(userId, cacheKey,
+                () -> executeGlobalSearchByCursor(keyword, type, userId, after, size), SearchServiceImpl::isComplete));
+        result.put("keyword", keyword);
+        return result;
     }
-
-    public Page<Ebook> searchEbooks(String keyword, Long userId, Integer page, Integer size) {
-        Page<Ebook> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
+    
+    /**
+     * 执行游标分页全局搜索：每次只取游标之后的 size+1 条命中，与翻页深度无关
+     */
+    private Map<String, Object> executeGlobalSearchByCursor(String keyword, String type, Long userId,
+                                                            SearchHit after, Integer size) {
+        Map<String, Object> result = new HashMap<>();
         
-        wrapper.eq(Ebook::getUserId, userId)
-               .and(w -> w.like(Ebook::getTitle, keyword)
-                       .or().like(Ebook::getAuthor, keyword)
-                       .or().like(Ebook::getDescription, keyword))
-               .orderByDesc(Ebook::getCreatedAt);
+        int limit = size + 1;
+        SearchResult searchResult = searchByType(type, limit, result,
+                searchType -> searchEngine.searchAfter(userId, keyword, searchType, after, limit));
+        CursorPage<SearchHit> hitPage = CursorPage.of(searchResult.getHits(), size, SearchServiceImpl::encodeHitCursor);
         
-        return ebookService.page(pageParam, wrapper);
+        CursorPage<SearchResultItem> results = new CursorPage<>();
+        results.setRecords(loadItems(hitPage.getRecords(), keyword));
+        results.setNextCursor(hitPage.getNextCursor());
+        results.setHasMore(hitPage.getHasMore());
+        results.setSize(size);
+        
+        result.put("results", results);
+        result.put("keyword", keyword);
+        result.put("type", type);
+        
+        return result;
+    }
+    
+    /**
+     * 按类型检索；type=all 时两类资源并行检索后按得分归并，任一侧超时则只返回另一侧结果
+     *
+     * @param result 写入 partial 标记
+     * @param search 单一类型的检索逻辑
+     */
+    private SearchResult searchByType(String type, int limit, Map<String, Object> result,
+                                      Function<String, SearchResult> search) {
+        if (!SearchConstants.TYPE_ALL.equals(type)) {
+            result.put("partial", false);
+            return search.apply(type);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelTimeoutMs);
+        Future<SearchResult> documentFuture = searchExecutor.submit(() -> search.apply(SearchConstants.TYPE_DOCUMENT));
+        Future<SearchResult> ebookFuture = searchExecutor.submit(() -> search.apply(SearchConstants.TYPE_EBOOK));
+        SearchResult documentResult = awaitUntil(documentFuture, deadline, SearchConstants.TYPE_DOCUMENT);
+        SearchResult ebookResult = awaitUntil(ebookFuture, deadline, SearchConstants.TYPE_EBOOK);
+        result.put("partial", documentResult == null || ebookResult == null);
+        return mergeResults(documentResult, ebookResult, limit);
+    }
+    
+    /**
+     * 搜索游标：最后一条命中的得分、时间、类型和ID
+     */
+    private static String encodeHitCursor(SearchHit hit) {
+        return CursorUtil.encode(hit.getScore(), hit.getSortTime(), hit.getType(), hit.getId());
+    }
+    
+    private static SearchHit decodeHitCursor(String cursor) {
+        CursorUtil.Keys keys = CursorUtil.decode(cursor, 4);
+        return new SearchHit(keys.getString(2), keys.getLong(3), keys.getDouble(0), keys.getLong(1));
     }
 
+    public Page<DocumentSummary> searchDocuments(String keyword, Long userId, Integer page, Integer size) {
+        SearchResult searchResult = searchEngine.search(userId, keyword, SearchConstants.TYPE_DOCUMENT, topK(page, size));
+        Page<DocumentSummary> result = new Page<>(page, size, searchResult.getTotal());
+        result.setRecords(loadDocuments(hitIds(pageSlice(searchResult.getHits(), page, size))));
+        return result;
+    }
 
-    public List<String> getPopularSearchTerms(Integer limit) {
-        Set<Object> popularTerms = redisTemplate.opsForZSet()
-                .reverseRange(RedisKeyUtil.getPopularSearchTermsKey(), 0, limit - 1);
-
-        if (popularTerms == null) {
+    public Page<EbookSummary> searchEbooks(String keyword, Long userId, Integer page, Integer size) {
+        SearchResult searchResult = searchEngine.search(userId, keyword, SearchConstants.TYPE_EBOOK, topK(page, size));
+        Page<EbookSummary> result = new Page<>(page, size, searchResult.getTotal());
+        result.setRecords(loadEbooks(hitIds(pageSlice(searchResult.getHits(), page, size))));
+        return result;
+    }
+    
+    /**
+     * 按ID加载文档列表项（不含正文），保持传入顺序
+     */
+    private List<DocumentSummary> loadDocuments(List<Long> ids) {
+        if (ids.isEmpty()) {
             return new ArrayList<>();
         }
-
-        return popularTerms.stream()
-                .map(Object::toString)
+        Map<Long, Document> documents = documentService.list(new LambdaQueryWrapper<Document>()
+                        .select(Document.class, field -> !"content".equals(field.getColumn()))
+                        .in(Document::getId, ids)).stream()
+                .collect(Collectors.toMap(Document::getId, d -> d));
+        return ids.stream().map(documents::get).filter(Objects::nonNull).map(DocumentSummary::of).collect(Collectors.toList());
+    }
+    
+    /**
+     * 按ID加载电子书列表项（不含完整描述），保持传入顺序
+     */
+    private List<EbookSummary> loadEbooks(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Ebook> ebooks = ebookService.list(new LambdaQueryWrapper<Ebook>()
+                        .select(Ebook.class, field -> !"description".equals(field.getColumn()))
+                        .in(Ebook::getId, ids)).stream()
+                .collect(Collectors.toMap(Ebook::getId, e -> e));
+        return ids.stream().map(ebooks::get).filter(Objects::nonNull).map(EbookSummary::of).collect(Collectors.toList());
+    }
+    
+    /**
+     * 搜索结果缓存键：查询类型 + 归一化关键词 + 其余参数
+     */
+    private static String cacheKey(String kind, String keyword, Object... params) {
+        StringBuilder key = new StringBuilder(kind).append('|')
+                .append(StringUtils.normalizeSpace(StringUtils.defaultString(keyword)).toLowerCase(Locale.ROOT));
+        for (Object param : params) {
+            key.append('|').append(param);
+        }
+        return key.toString();
+    }
+    
+    /**
+     * 只有完整结果才允许缓存
+     */
+    private static boolean isComplete(Map<String, Object> result) {
+        return !Boolean.TRUE.equals(result.get("partial"));
+    }
+    
+    /**
+     * 在截止时间前等待并行任务结果，超时则取消任务并返回null
+     */
+    private <T> T awaitUntil(Future<T> future, long deadlineNanos, String side) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("并行搜索超时，返回部分结果：类型={}, 截止时间={}ms", side, parallelTimeoutMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * 归并两侧的前K条命中，超时缺失的一侧按空结果处理
+     */
+    private SearchResult mergeResults(SearchResult first, SearchResult second, int limit) {
+        List<SearchHit> hits = new ArrayList<>();
+        long total = 0;
+        for (SearchResult side : Arrays.asList(first, second)) {
+            if (side != null) {
+                hits.addAll(side.getHits());
+                total += side.getTotal();
+            }
+        }
+        hits.sort(SearchHit.RANKING);
+        return new SearchResult(total, hits.size() > limit ? hits.subList(0, limit) : hits);
+    }
+    
+    /**
+     * 按命中顺序批量加载文档和电子书，每种资源只查询一次；文档正文替换为命中摘要。
+     * 开启折叠时，与本页排名更高的文档近似重复的文档不单独成项，只记入那一项的 duplicateIds
+     */
+    private List<SearchResultItem> loadItems(List<SearchHit> hits, String keyword) {
+        List<Long> documentIds = new ArrayList<>();
+        List<Long> ebookIds = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            if (SearchConstants.TYPE_DOCUMENT.equals(hit.getType())) {
+                documentIds.add(hit.getId());
+            } else {
+                ebookIds.add(hit.getId());
+            }
+        }
+        Map<Long, Document> documents = documentIds.isEmpty() ? Collections.emptyMap()
+                : documentService.list(snippetSourceQuery(documentIds)).stream().collect(Collectors.toMap(Document::getId, d -> d));
+        Map<Long, Ebook> ebooks = ebookIds.isEmpty() ? Collections.emptyMap()
+                : ebookService.listByIds(ebookIds).stream().collect(Collectors.toMap(Ebook::getId, e -> e));
+        
+        CharArrayMap<Integer> terms = snippetGenerator.queryTerms(keyword);
+        List<SearchResultItem> items = new ArrayList<>(hits.size());
+        List<SearchResultItem> documentItems = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            if (SearchConstants.TYPE_DOCUMENT.equals(hit.getType())) {
+                Document document = documents.get(hit.getId());
+                if (document != null) {
+                    SearchResultItem original = collapseDuplicates ? findNearDuplicate(documentItems, document) : null;
+                    if (original != null) {
+                        if (original.getDuplicateIds() == null) {
+                            original.setDuplicateIds(new ArrayList<>());
+                        }
+                        original.getDuplicateIds().add(document.getId());
+                        continue;
+                    }
+                    Snippet snippet = snippetGenerator.generate(StringUtils.left(document.getContent(), snippetSourceChars), terms);
+                    document.setContent(null);
+                    SearchResultItem item = new SearchResultItem(hit.getType(), hit.getId(), hit.getScore(), snippet, document, null, null);
+                    items.add(item);
+                    documentItems.add(item);
+                }
+            } else {
+                Ebook ebook = ebooks.get(hit.getId());
+                if (ebook != null) {
+                    Snippet snippet = snippetGenerator.generate(ebook.getDescription(), terms);
+                    ebook.setDescription(null);
+                    items.add(new SearchResultItem(hit.getType(), hit.getId(), hit.getScore(), snippet, null, ebook, null));
+                }
+            }
+        }
+        return items;
+    }
+    
+    /**
+     * 在已输出的文档项中查找与该文档近似重复的一项（一页最多几十项，逐一比较指纹即可）
+     */
+    private SearchResultItem findNearDuplicate(List<SearchResultItem> documentItems, Document document) {
+        if (document.getSimhash() == null) {
+            return null;
+        }
+        for (SearchResultItem item : documentItems) {
+            Long simhash = item.getDocument().getSimhash();
+            if (simhash != null && SimHasher.isNearDuplicate(simhash, document.getSimhash())) {
+                return item;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 搜索结果的文档查询：不取正文全文，只截取开头一段用于生成摘要。
+     * 压缩存储的正文（以 U+0001 开头）截断后无法解压，整列读取后再在内存中截取，其体积本身已远小于原文
+     */
+    private QueryWrapper<Document> snippetSourceQuery(List<Long> ids) {
+        String columns = TableInfoHelper.getTableInfo(Document.class)
+                .chooseSelect(field -> !"content".equals(field.getColumn()));
+        return new QueryWrapper<Document>()
+                .select(columns, "IF(LEFT(content, 1) = CHAR(1), content, LEFT(content, " + snippetSourceChars + ")) AS content")
+                .in("id", ids);
+    }
+    
+    /**
+     * 截取当前页的条目（命中或ID）
+     */
+    private static <T> List<T> pageSlice(List<T> items, Integer page, Integer size) {
+        int from = (int) Math.min((long) (page - 1) * size, items.size());
+        int to = (int) Math.min((long) from + size, items.size());
+        return items.subList(from, to);
+    }
+    
+    /**
+     * 取到当前页末尾所需的命中条数
+     */
+    private int topK(Integer page, Integer size) {
+        return (int) Math.min((long) page * size, Integer.MAX_VALUE);
+    }
+    
+    private List<Long> hitIds(List<SearchHit> hits) {
+        return hits.stream()
+                .map(SearchHit::getId)
                 .collect(Collectors.toList());
     }
+    
+    /**
+     * 导出时读取下一批命中：按相关度顺序排在 after 之后的 {@link #EXPORT_BATCH_SIZE} 条，关键词按高级搜索查询语法解析
+     *
+     * @param after 上一批的最后一条命中，第一批为null
+     */
+    private List<SearchHit> nextHits(String keyword, Long userId, String type, SearchHit after) {
+        return searchEngine.searchQueryAfter(userId, keyword, type, after, EXPORT_BATCH_SIZE).getHits();
+    }
+    
+    /**
+     * 按排序键导出时命中顺序无用，只需判断是否命中：分批读取全部命中收进位图，不在内存中保留命中列表
+     *
+     * @param tagged 标签筛选结果，为null表示不按标签筛选
+     */
+    private DocIdBitmap matchedBitmap(String keyword, Long userId, String type, DocIdBitmap tagged) {
+        DocIdBitmap matched = new DocIdBitmap();
+        SearchHit after = null;
+        List<SearchHit> hits;
+        do {
+            hits = nextHits(keyword, userId, type, after);
+            for (SearchHit hit : hits) {
+                if (tagged == null || tagged.contains(hit.getId())) {
+                    matched.add(hit.getId());
+                }
+            }
+            after = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+        } while (hits.size() == EXPORT_BATCH_SIZE);
+        return matched;
+    }
+    
+    /**
+     * 高级搜索的关键词命中：按相关度取前 {@link #advancedMaxHits} 条，有标签筛选时先与标签位图求交再截取，
+     * 数据库只需在这批有上限的ID内筛选。命中被截断时在分面计数器上标记
+     *
+     * @param tagged 标签筛选结果，为null表示不按标签筛选
+     */
+    private List<Long> keywordHits(String keyword, Long userId, String type, DocIdBitmap tagged, FacetCounter facets) {
+        SearchResult searchResult = searchEngine.searchQuery(userId, keyword, type, tagged == null ? advancedMaxHits : 0);
+        List<Long> ids = new ArrayList<>(Math.min(searchResult.getHits().size(), advancedMaxHits));
+        boolean truncated = searchResult.getTotal() > searchResult.getHits().size();
+        for (SearchHit hit : searchResult.getHits()) {
+            if (tagged != null && !tagged.contains(hit.getId())) {
+                continue;
+            }
+            if (ids.size() == advancedMaxHits) {
+                truncated = true;
+                break;
+            }
+            ids.add(hit.getId());
+        }
+        if (truncated) {
+            facets.markTruncated();
+        }
+        return ids;
+    }
+    
+    /**
+     * 按命中顺序重排候选（候选已按上限截取，数量有限）
+     */
+    private static <T> void sortByHitRank(List<T> candidates, List<Long> hitIds, Function<T, Long> idOf) {
+        Map<Long, Integer> rank = new HashMap<>(hitIds.size() * 2);
+        for (int i = 0; i < hitIds.size(); i++) {
+            rank.put(hitIds.get(i), i);
+        }
+        candidates.sort(Comparator.comparing(candidate -> rank.getOrDefault(idOf.apply(candidate), Integer.MAX_VALUE)));
+    }
+
+
+    public List<String> getPopularSearchTerms(String window, Integer limit) {
+        return popularTermTracker.top(StringUtils.defaultIfBlank(window, SearchConstants.WINDOW_DAY), limit);
+    }
 
     public void recordSearchHistory(Long userId, String keyword, String type) {
         if (StringUtils.isBlank(keyword)) {
             return;
         }
         
-        String key = RedisKeyUtil.getSearchHistoryKey(userId);
-        
-        // 记录搜索历史
-        Map<String, Object> historyItem = new HashMap<>();
-        historyItem.put("keyword", keyword);
-        historyItem.put("type", type);
-        historyItem.put("timestamp", LocalDateTime.now());
-        
-        redisTemplate.opsForList().leftPush(key, historyItem);
-        redisTemplate.opsForList().trim(key, 0, 99); // 只保留最近100条
-        redisTemplate.expire(key, 30, TimeUnit.DAYS);
+        // 记录搜索历史：放入内存队列，由后台线程批量写入Redis，不阻塞搜索请求
+        searchHistoryRecorder.record(userId, keyword, type);
         
-        // 更新热门搜索词
-        String popularKey = RedisKeyUtil.getPopularSearchTermsKey();
-        redisTemplate.opsForZSet().incrementScore(popularKey, keyword, 1);
-        redisTemplate.expire(popularKey, 30, TimeUnit.DAYS);
+        // 更新热门搜索词：先在本地计数，定时合并到Redis
+        popularTermTracker.record(keyword);
         
-        log.info("搜索历史记录成功：用户ID={}, 关键词={}, 类型={}", userId, keyword, type);
+        // 增量更新搜索建议
+        suggestionIndex.recordQuery(userId, keyword);
     }
 
     public List<Map<String, Object>> getUserSearchHistory(Long userId, Integer limit) {
@@ -161,100 +598,549 @@ public class SearchServiceImpl implements SearchService {
     public void clearUserSearchHistory(Long userId) {
         String key = RedisKeyUtil.getSearchHistoryKey(userId);
         redisTemplate.delete(key);
+        suggestionIndex.clearHistory(userId);
         log.info("用户搜索历史已清空：用户ID={}", userId);
     }
 
     @Override
-    public Map<String, Object> advancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, 
-                                              String sortBy, String sortOrder, Long userId, Integer page, Integer size) {
-        Map<String, Object> result = new HashMap<>();
+    public Map<String, Object> getSearchStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("resultCache", searchResultCache.getStats());
+        statistics.put("historyQueue", searchHistoryRecorder.getStats());
+        statistics.put("ebookExtract", ebookPageIndex.getStats());
+        return statistics;
+    }
+
+    @Override
+    public List<EbookPageHit> searchEbookPages(String keyword, Long ebookId, Long userId, Integer limit) {
+        if (StringUtils.isBlank(keyword)) {
+            return new ArrayList<>();
+        }
+        List<EbookPage> pages = ebookPageIndex.search(userId, keyword.trim(), ebookId, snippetSourceChars, limit);
+        if (pages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> ebookIds = pages.stream().map(EbookPage::getEbookId).collect(Collectors.toSet());
+        Map<Long, String> titles = ebookService.list(new LambdaQueryWrapper<Ebook>()
+                        .select(Ebook::getId, Ebook::getTitle)
+                        .in(Ebook::getId, ebookIds))
+                .stream().collect(Collectors.toMap(Ebook::getId, Ebook::getTitle));
         
+        CharArrayMap<Integer> terms = snippetGenerator.queryTerms(keyword);
+        List<EbookPageHit> hits = new ArrayList<>(pages.size());
+        for (EbookPage page : pages) {
+            Snippet snippet = snippetGenerator.generate(page.getContent(), terms);
+            hits.add(new EbookPageHit(page.getEbookId(), titles.get(page.getEbookId()), page.getPageNumber(),
+                    page.getScore(), snippet));
+        }
+        return hits;
+    }
+
+    @Override
+    public Map<String, Object> advancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, String tagMatch,
+                                              String sortBy, String sortOrder, Long userId, Integer page, Integer size) {
         // 记录搜索历史
         recordSearchHistory(userId, keyword, type);
         
+        boolean matchAllTags = SearchConstants.TAG_MATCH_ALL.equalsIgnoreCase(tagMatch);
+        Long[] sortedTagIds = tagIds == null ? null
+                : Arrays.stream(tagIds).filter(Objects::nonNull).distinct().sorted().toArray(Long[]::new);
+        String cacheKey = cacheKey("advanced", keyword, type, categoryId, Arrays.toString(sortedTagIds), matchAllTags,
+                sortBy, sortOrder, page, size);
+        Map<String, Object> result = new HashMap<>(searchResultCache.get(userId, cacheKey,
+                () -> executeAdvancedSearch(keyword, type, categoryId, sortedTagIds, matchAllTags,
+                        sortBy, sortOrder, userId, page, size),
+                SearchServiceImpl::isComplete));
+        result.put("keyword", keyword);
+        
+        log.info("高级搜索完成：用户ID={}, 关键词={}, 类型={}, 分类ID={}, 标签IDs={}, 匹配全部标签={}", 
+                userId, keyword, type, categoryId, Arrays.toString(tagIds), matchAllTags);
+        
+        return result;
+    }
+    
+    @Override
+    public long exportAdvancedSearch(String keyword, String type, Long categoryId, Long[] tagIds, String tagMatch,
+                                     String sortBy, String sortOrder, Long userId, OutputStream out) throws IOException {
+        boolean matchAllTags = SearchConstants.TAG_MATCH_ALL.equalsIgnoreCase(tagMatch);
+        ObjectWriter writer = objectMapper.writerFor(SearchResultItem.class);
+        long rows = 0;
+        
+        // 类型为空时先导出文档再导出电子书；每批一次独立的短查询，写出后再取下一批，
+        // 不在内存中累积结果，也不在客户端读取期间一直占用数据库连接
+        if (!SearchConstants.TYPE_EBOOK.equals(type)) {
+            rows = exportDocuments(keyword, categoryId, tagIds, matchAllTags, sortBy, sortOrder, userId, out, writer, rows);
+        }
+        if (!SearchConstants.TYPE_DOCUMENT.equals(type)) {
+            rows = exportEbooks(keyword, categoryId, sortBy, sortOrder, userId, out, writer, rows);
+        }
+        out.flush();
+        
+        log.info("高级搜索导出完成：用户ID={}, 关键词={}, 类型={}, 行数={}", userId, keyword, type, rows);
+        return rows;
+    }
+    
+    /**
+     * 导出文档：有关键词且按相关度排序时，从搜索引擎游标分页每次取 {@link #EXPORT_BATCH_SIZE} 条命中，
+     * 按这批ID查询并写出后再取下一批；否则按排序键分批读取，有关键词时只写出命中的行
+     *
+     * @return 累计写出的行数
+     */
+    private long exportDocuments(String keyword, Long categoryId, Long[] tagIds, boolean matchAllTags, String sortBy,
+                                 String sortOrder, Long userId, OutputStream out, ObjectWriter writer, long rows)
+            throws IOException {
+        DocIdBitmap tagged = matchTags(userId, tagIds, matchAllTags);
+        if (tagged != null && tagged.isEmpty()) {
+            return rows;
+        }
+        DocIdBitmap matched = null;
+        if (StringUtils.isNotBlank(keyword)) {
+            if (SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+                SearchHit after = null;
+                List<SearchHit> hits;
+                do {
+                    hits = nextHits(keyword, userId, SearchConstants.TYPE_DOCUMENT, after);
+                    List<Long> batchIds = new ArrayList<>(hits.size());
+                    for (SearchHit hit : hits) {
+                        if (tagged == null || tagged.contains(hit.getId())) {
+                            batchIds.add(hit.getId());
+                        }
+                    }
+                    if (!batchIds.isEmpty()) {
+                        List<Document> documents = documentService.list(
+                                advancedDocumentFilter(batchIds, null, categoryId, null, false, userId)
+                                        .select(Document.class, field -> !"content".equals(field.getColumn())));
+                        sortByHitRank(documents, batchIds, Document::getId);
+                        for (Document document : documents) {
+                            rows = writeExportLine(out, writer, rows, exportItem(document));
+                        }
+                    }
+                    after = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+                } while (hits.size() == EXPORT_BATCH_SIZE);
+                return rows;
+            }
+            // 标签筛选已在命中上做过，数据库只按分类筛选
+            matched = matchedBitmap(keyword, userId, SearchConstants.TYPE_DOCUMENT, tagged);
+            tagged = null;
+        }
+        
+        SFunction<Document, ?> sortColumn = documentSortColumn(sortBy);
+        Document last = null;
+        List<Document> batch;
+        do {
+            LambdaQueryWrapper<Document> wrapper = advancedDocumentQuery(null, tagged, categoryId, tagIds, matchAllTags,
+                    sortBy, sortOrder, userId);
+            wrapper.select(Document.class, field -> !"content".equals(field.getColumn()));
+            batch = nextBatch(documentService, wrapper, sortColumn, Document::getId, isAscending(sortOrder), last);
+            for (Document document : batch) {
+                if (matched == null || matched.contains(document.getId())) {
+                    rows = writeExportLine(out, writer, rows, exportItem(document));
+                }
+            }
+            last = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+        } while (batch.size() == EXPORT_BATCH_SIZE);
+        return rows;
+    }
+    
+    /**
+     * 导出电子书，分批方式同文档
+     *
+     * @return 累计写出的行数
+     */
+    private long exportEbooks(String keyword, Long categoryId, String sortBy, String sortOrder, Long userId,
+                              OutputStream out, ObjectWriter writer, long rows) throws IOException {
+        DocIdBitmap matched = null;
+        if (StringUtils.isNotBlank(keyword)) {
+            if (SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+                SearchHit after = null;
+                List<SearchHit> hits;
+                do {
+                    hits = nextHits(keyword, userId, SearchConstants.TYPE_EBOOK, after);
+                    if (!hits.isEmpty()) {
+                        List<Long> batchIds = hitIds(hits);
+                        List<Ebook> ebooks = ebookService.list(advancedEbookFilter(batchIds, categoryId, userId)
+                                .select(Ebook.class, field -> !"description".equals(field.getColumn())));
+                        sortByHitRank(ebooks, batchIds, Ebook::getId);
+                        for (Ebook ebook : ebooks) {
+                            rows = writeExportLine(out, writer, rows, exportItem(ebook));
+                        }
+                        after = hits.get(hits.size() - 1);
+                    }
+                } while (hits.size() == EXPORT_BATCH_SIZE);
+                return rows;
+            }
+            matched = matchedBitmap(keyword, userId, SearchConstants.TYPE_EBOOK, null);
+        }
+        
+        SFunction<Ebook, ?> sortColumn = ebookSortColumn(sortBy);
+        Ebook last = null;
+        List<Ebook> batch;
+        do {
+            LambdaQueryWrapper<Ebook> wrapper = advancedEbookQuery(null, categoryId, sortBy, sortOrder, userId);
+            wrapper.select(Ebook.class, field -> !"description".equals(field.getColumn()));
+            batch = nextBatch(ebookService, wrapper, sortColumn, Ebook::getId, isAscending(sortOrder), last);
+            for (Ebook ebook : batch) {
+                if (matched == null || matched.contains(ebook.getId())) {
+                    rows = writeExportLine(out, writer, rows, exportItem(ebook));
+                }
+            }
+            last = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+        } while (batch.size() == EXPORT_BATCH_SIZE);
+        return rows;
+    }
+    
+    /**
+     * 读取下一批：在已按（排序列, ID）排序的条件上追加 seek 条件跳过已读的行，代替 OFFSET
+     *
+     * @param last 上一批的最后一行，第一批为null
+     */
+    private static <T> List<T> nextBatch(IService<T> service, LambdaQueryWrapper<T> wrapper, SFunction<T, ?> sortColumn,
+                                         SFunction<T, Long> idColumn, boolean ascending, T last) {
+        if (last != null) {
+            List<SFunction<T, ?>> columns = Arrays.asList(sortColumn, idColumn);
+            List<Object> values = Arrays.asList(sortColumn.apply(last), idColumn.apply(last));
+            if (ascending) {
+                CursorUtil.seekAfterAsc(wrapper, columns, values);
+            } else {
+                CursorUtil.seekAfterDesc(wrapper, columns, values);
+            }
+        }
+        wrapper.last("LIMIT " + EXPORT_BATCH_SIZE);
+        return service.list(wrapper);
+    }
+    
+    private static SearchResultItem exportItem(Document document) {
+        return new SearchResultItem(SearchConstants.TYPE_DOCUMENT, document.getId(), null, null, document, null, null);
+    }
+    
+    private static SearchResultItem exportItem(Ebook ebook) {
+        return new SearchResultItem(SearchConstants.TYPE_EBOOK, ebook.getId(), null, null, null, ebook, null);
+    }
+    
+    /**
+     * 写出一行 NDJSON，每 {@link #EXPORT_FLUSH_ROWS} 行刷新一次，客户端可以边收边处理
+     *
+     * @return 已写出的行数
+     */
+    private long writeExportLine(OutputStream out, ObjectWriter writer, long rows, SearchResultItem item) throws IOException {
+        out.write(writer.writeValueAsBytes(item));
+        out.write('\n');
+        if (++rows % EXPORT_FLUSH_ROWS == 0) {
+            out.flush();
+        }
+        return rows;
+    }
+    
+    /**
+     * 执行高级搜索
+     */
+    private Map<String, Object> executeAdvancedSearch(String keyword, String type, Long categoryId, Long[] tagIds,
+                                                      boolean matchAllTags, String sortBy, String sortOrder,
+                                                      Long userId, Integer page, Integer size) {
+        Map<String, Object> result = new HashMap<>();
+        // 分面计数与命中在同一趟候选遍历中得到，随结果一起返回
+        FacetCounter facets = new FacetCounter();
+        
         // 根据类型进行高级搜索
         if ("document".equals(type)) {
-            Page<Document> documents = advancedSearchDocuments(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size);
+            Page<DocumentSummary> documents = advancedSearchDocuments(keyword, categoryId, tagIds, matchAllTags,
+                    sortBy, sortOrder, userId, page, size, facets);
             result.put("documents", documents);
             result.put("total", documents.getTotal());
         } else if ("ebook".equals(type)) {
-            Page<Ebook> ebooks = advancedSearchEbooks(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size);
+            Page<EbookSummary> ebooks = advancedSearchEbooks(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size,
+                    facets);
             result.put("ebooks", ebooks);
             result.put("total", ebooks.getTotal());
         } else {
-            // 全局高级搜索
-            Page<Document> documents = advancedSearchDocuments(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size);
-            Page<Ebook> ebooks = advancedSearchEbooks(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size);
+            // 全局高级搜索：文档与电子书各自的查询并行执行，各用一个分面计数器，完成后合并
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelTimeoutMs);
+            FacetCounter documentFacets = new FacetCounter();
+            FacetCounter ebookFacets = new FacetCounter();
+            Future<Page<DocumentSummary>> documentFuture = searchExecutor.submit(
+                    () -> advancedSearchDocuments(keyword, categoryId, tagIds, matchAllTags,
+                            sortBy, sortOrder, userId, page, size, documentFacets));
+            Future<Page<EbookSummary>> ebookFuture = searchExecutor.submit(
+                    () -> advancedSearchEbooks(keyword, categoryId, tagIds, sortBy, sortOrder, userId, page, size,
+                            ebookFacets));
+            Page<DocumentSummary> documents = awaitUntil(documentFuture, deadline, SearchConstants.TYPE_DOCUMENT);
+            Page<EbookSummary> ebooks = awaitUntil(ebookFuture, deadline, SearchConstants.TYPE_EBOOK);
+            boolean partial = documents == null || ebooks == null;
+            if (documents == null) {
+                documents = new Page<>(page, size);
+            } else {
+                facets.merge(documentFacets);
+            }
+            if (ebooks == null) {
+                ebooks = new Page<>(page, size);
+            } else {
+                facets.merge(ebookFacets);
+            }
             
             result.put("documents", documents);
             result.put("ebooks", ebooks);
             result.put("total", documents.getTotal() + ebooks.getTotal());
+            result.put("partial", partial);
         }
+        result.put("facets", facets.toMap());
+        result.put("truncated", facets.isTruncated());
         
         result.put("keyword", keyword);
         result.put("type", type);
         result.put("categoryId", categoryId);
         result.put("tagIds", tagIds);
+        result.put("tagMatch", matchAllTags ? SearchConstants.TAG_MATCH_ALL : SearchConstants.TAG_MATCH_ANY);
         result.put("sortBy", sortBy);
         result.put("sortOrder", sortOrder);
         
-        log.info("高级搜索完成：用户ID={}, 关键词={}, 类型={}, 分类ID={}, 标签IDs={}", 
-                userId, keyword, type, categoryId, Arrays.toString(tagIds));
-        
         return result;
     }
     
     /**
      * 高级文档搜索
+     *
+     * 有关键词时候选限定为前 {@link #advancedMaxHits} 条命中：一次投影查询取出这批候选（ID、分类、创建时间），
+     * 同一趟遍历中统计分面并切出当前页（按相关度排序时先在内存中按命中顺序重排），再按ID加载当前页的列表项。
+     * 没有关键词时候选可能是用户的全部文档，交给数据库排序分页，分面用分组统计
+     */
+    private Page<DocumentSummary> advancedSearchDocuments(String keyword, Long categoryId, Long[] tagIds, boolean matchAllTags,
+                                                         String sortBy, String sortOrder, Long userId, Integer page, Integer size,
+                                                         FacetCounter facets) {
+        Page<DocumentSummary> pageParam = new Page<>(page, size);
+        DocIdBitmap tagged = matchTags(userId, tagIds, matchAllTags);
+        List<Long> documentIds = null;
+        if (StringUtils.isNotBlank(keyword)) {
+            documentIds = keywordHits(keyword, userId, SearchConstants.TYPE_DOCUMENT, tagged, facets);
+        }
+        LambdaQueryWrapper<Document> wrapper = advancedDocumentQuery(documentIds, tagged, categoryId, tagIds, matchAllTags,
+                sortBy, sortOrder, userId);
+        if (wrapper == null) {
+            return pageParam;
+        }
+        if (documentIds == null) {
+            return pageDocuments(wrapper, advancedDocumentFilter(null, tagged, categoryId, tagIds, matchAllTags, userId),
+                    page, size, facets);
+        }
+        
+        wrapper.select(Document::getId, Document::getCategoryId, Document::getCreatedAt);
+        List<Document> candidates = documentService.list(wrapper);
+        if (SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+            sortByHitRank(candidates, documentIds, Document::getId);
+        }
+        List<Long> orderedIds = new ArrayList<>(candidates.size());
+        DocIdBitmap candidateIds = new DocIdBitmap();
+        for (Document candidate : candidates) {
+            facets.add(SearchConstants.TYPE_DOCUMENT, candidate.getCategoryId(), candidate.getCreatedAt());
+            orderedIds.add(candidate.getId());
+            candidateIds.add(candidate.getId());
+        }
+        facets.addTagCounts(tagBitmapIndex.countTags(userId, candidateIds));
+        
+        Page<DocumentSummary> result = new Page<>(page, size, orderedIds.size());
+        result.setRecords(loadDocuments(pageSlice(orderedIds, page, size)));
+        return result;
+    }
+    
+    /**
+     * 由数据库分页（LIMIT）取当前页文档，总数和分面来自按分类/年份、按标签的两次分组统计，不再单独 COUNT
+     *
+     * @param wrapper 带排序的查询条件
+     * @param filter 同样的筛选条件，不带排序
+     */
+    private Page<DocumentSummary> pageDocuments(LambdaQueryWrapper<Document> wrapper, LambdaQueryWrapper<Document> filter,
+                                                Integer page, Integer size, FacetCounter facets) {
+        filter.eq(Document::getDeleted, 0);
+        long total = addFacetRows(facets, SearchConstants.TYPE_DOCUMENT, documentMapper.countFacets(filter));
+        Map<Long, Long> tagCounts = new HashMap<>();
+        for (Map<String, Object> row : documentMapper.countTagFacets(filter)) {
+            tagCounts.put(toLong(row.get("tagId")), toLong(row.get("total")));
+        }
+        facets.addTagCounts(tagCounts);
+        
+        Page<DocumentSummary> result = new Page<>(page, size, total);
+        if (total > (long) (page - 1) * size) {
+            wrapper.select(Document.class, field -> !"content".equals(field.getColumn()));
+            result.setRecords(documentService.page(new Page<>(page, size, false), wrapper).getRecords().stream()
+                    .map(DocumentSummary::of).collect(Collectors.toList()));
+        }
+        return result;
+    }
+    
+    /**
+     * 计入分类/年份分组统计结果
+     *
+     * @return 各组合计，即候选总数
+     */
+    private static long addFacetRows(FacetCounter facets, String type, List<Map<String, Object>> rows) {
+        long total = 0;
+        for (Map<String, Object> row : rows) {
+            long count = toLong(row.get("total"));
+            Long year = toLong(row.get("createdYear"));
+            facets.add(type, toLong(row.get("categoryId")), year == null ? null : year.intValue(), count);
+            total += count;
+        }
+        return total;
+    }
+    
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+    
+    /**
+     * 标签筛选：在该用户的标签位图上求交集/并集
+     *
+     * @return 满足条件的文档ID位图；未指定标签时返回null
+     */
+    private DocIdBitmap matchTags(Long userId, Long[] tagIds, boolean matchAllTags) {
+        if (tagIds == null || tagIds.length == 0) {
+            return null;
+        }
+        return tagBitmapIndex.match(userId, tagIds, matchAllTags);
+    }
+    
+    /**
+     * 高级文档搜索的筛选与排序条件，高级搜索和导出共用；按相关度排序时不加排序条件，由调用方按命中顺序排列
+     *
+     * @param documentIds 关键词命中的文档ID（已按标签筛选），无关键词时为null
+     * @param tagged 标签筛选结果，未指定标签时为null
+     * @return 查询条件；确定没有结果时返回null
+     */
+    private LambdaQueryWrapper<Document> advancedDocumentQuery(List<Long> documentIds, DocIdBitmap tagged, Long categoryId,
+                                                               Long[] tagIds, boolean matchAllTags, String sortBy,
+                                                               String sortOrder, Long userId) {
+        LambdaQueryWrapper<Document> wrapper = advancedDocumentFilter(documentIds, tagged, categoryId, tagIds,
+                matchAllTags, userId);
+        if (wrapper != null && (!SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy) || documentIds == null)) {
+            applyDocumentSorting(wrapper, sortBy, sortOrder);
+        }
+        return wrapper;
+    }
+    
+    /**
+     * 高级文档搜索的筛选条件（不含排序），参数同 {@link #advancedDocumentQuery}
      */
-    private Page<Document> advancedSearchDocuments(String keyword, Long categoryId, Long[] tagIds, 
-                                                  String sortBy, String sortOrder, Long userId, Integer page, Integer size) {
-        Page<Document> pageParam = new Page<>(page, size);
+    private LambdaQueryWrapper<Document> advancedDocumentFilter(List<Long> documentIds, DocIdBitmap tagged, Long categoryId,
+                                                                Long[] tagIds, boolean matchAllTags, Long userId) {
+        if ((tagged != null && tagged.isEmpty()) || (documentIds != null && documentIds.isEmpty())) {
+            return null;
+        }
         LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
         
         // 基础条件：用户ID
         wrapper.eq(Document::getUserId, userId);
         
-        // 关键词搜索
-        if (StringUtils.isNotBlank(keyword)) {
-            wrapper.and(w -> w.like(Document::getTitle, keyword)
-                    .or().like(Document::getContent, keyword));
+        // 关键词搜索：由搜索引擎给出命中ID，数据库只负责过滤、排序和分页
+        if (documentIds != null) {
+            wrapper.in(Document::getId, documentIds);
+        } else if (tagged != null) {
+            applyTagFilter(wrapper, tagged, tagIds, matchAllTags);
         }
         
         // 分类筛选
         if (categoryId != null) {
             wrapper.eq(Document::getCategoryId, categoryId);
         }
+        return wrapper;
+    }
+    
+    /**
+     * 把标签位图的筛选结果传给数据库：结果较少时用 IN，较多时用ID范围缩小扫描区间，
+     * 再以 document_tags 关联子查询精确过滤，避免拼出超长的 IN 列表
+     */
+    private void applyTagFilter(LambdaQueryWrapper<Document> wrapper, DocIdBitmap tagged, Long[] tagIds,
+                                boolean matchAllTags) {
+        if (tagged.cardinality() <= TAG_FILTER_IN_LIMIT) {
+            wrapper.in(Document::getId, tagged.toList());
+            return;
+        }
+        wrapper.between(Document::getId, tagged.first(), tagged.last());
+        String tagIdList = Arrays.stream(tagIds).map(String::valueOf).collect(Collectors.joining(","));
+        String subQuery = "SELECT document_id FROM document_tags WHERE tag_id IN (" + tagIdList + ")";
+        if (matchAllTags) {
+            subQuery += " GROUP BY document_id HAVING COUNT(DISTINCT tag_id) = " + tagIds.length;
+        }
+        wrapper.inSql(Document::getId, subQuery);
+    }
+    
+    /**
+     * 高级电子书搜索，分面统计与分页方式同文档（电子书没有标签分面）
+     */
+    private Page<EbookSummary> advancedSearchEbooks(String keyword, Long categoryId, Long[] tagIds, String sortBy, String sortOrder, 
+                                                    Long userId, Integer page, Integer size, FacetCounter facets) {
+        Page<EbookSummary> pageParam = new Page<>(page, size);
+        List<Long> ebookIds = StringUtils.isBlank(keyword) ? null
+                : keywordHits(keyword, userId, SearchConstants.TYPE_EBOOK, null, facets);
+        LambdaQueryWrapper<Ebook> wrapper = advancedEbookQuery(ebookIds, categoryId, sortBy, sortOrder, userId);
+        if (wrapper == null) {
+            return pageParam;
+        }
+        if (ebookIds == null) {
+            return pageEbooks(wrapper, advancedEbookFilter(null, categoryId, userId), page, size, facets);
+        }
         
-        // 标签筛选（需要关联查询）
-        if (tagIds != null && tagIds.length > 0) {
-            // 这里需要根据document_tags表进行关联查询
-            // 暂时简化处理，实际应该使用JOIN查询
-            wrapper.in(Document::getId, getDocumentIdsByTags(tagIds));
+        wrapper.select(Ebook::getId, Ebook::getCategoryId, Ebook::getCreatedAt);
+        List<Ebook> candidates = ebookService.list(wrapper);
+        if (SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+            sortByHitRank(candidates, ebookIds, Ebook::getId);
+        }
+        List<Long> orderedIds = new ArrayList<>(candidates.size());
+        for (Ebook candidate : candidates) {
+            facets.add(SearchConstants.TYPE_EBOOK, candidate.getCategoryId(), candidate.getCreatedAt());
+            orderedIds.add(candidate.getId());
         }
         
-        // 排序
-        applyDocumentSorting(wrapper, sortBy, sortOrder);
+        Page<EbookSummary> result = new Page<>(page, size, orderedIds.size());
+        result.setRecords(loadEbooks(pageSlice(orderedIds, page, size)));
+        return result;
+    }
+    
+    /**
+     * 由数据库分页取当前页电子书，总数和分面来自分组统计，做法同 {@link #pageDocuments}
+     */
+    private Page<EbookSummary> pageEbooks(LambdaQueryWrapper<Ebook> wrapper, LambdaQueryWrapper<Ebook> filter,
+                                          Integer page, Integer size, FacetCounter facets) {
+        filter.eq(Ebook::getDeleted, 0);
+        long total = addFacetRows(facets, SearchConstants.TYPE_EBOOK, ebookMapper.countFacets(filter));
         
-        return documentService.page(pageParam, wrapper);
+        Page<EbookSummary> result = new Page<>(page, size, total);
+        if (total > (long) (page - 1) * size) {
+            wrapper.select(Ebook.class, field -> !"description".equals(field.getColumn()));
+            result.setRecords(ebookService.page(new Page<>(page, size, false), wrapper).getRecords().stream()
+                    .map(EbookSummary::of).collect(Collectors.toList()));
+        }
+        return result;
     }
     
     /**
-     * 高级电子书搜索
+     * 高级电子书搜索的筛选与排序条件，高级搜索和导出共用；按相关度排序时不加排序条件，由调用方按命中顺序排列
+     *
+     * @param ebookIds 关键词命中的电子书ID，无关键词时为null
+     * @return 查询条件；确定没有结果时返回null
      */
-    private Page<Ebook> advancedSearchEbooks(String keyword, Long categoryId, Long[] tagIds, String sortBy, String sortOrder, 
-                                             Long userId, Integer page, Integer size) {
-        Page<Ebook> pageParam = new Page<>(page, size);
+    private LambdaQueryWrapper<Ebook> advancedEbookQuery(List<Long> ebookIds, Long categoryId, String sortBy, String sortOrder,
+                                                         Long userId) {
+        LambdaQueryWrapper<Ebook> wrapper = advancedEbookFilter(ebookIds, categoryId, userId);
+        if (wrapper != null && (!SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy) || ebookIds == null)) {
+            applyEbookSorting(wrapper, sortBy, sortOrder);
+        }
+        return wrapper;
+    }
+    
+    /**
+     * 高级电子书搜索的筛选条件（不含排序），参数同 {@link #advancedEbookQuery}
+     */
+    private LambdaQueryWrapper<Ebook> advancedEbookFilter(List<Long> ebookIds, Long categoryId, Long userId) {
+        if (ebookIds != null && ebookIds.isEmpty()) {
+            return null;
+        }
         LambdaQueryWrapper<Ebook> wrapper = new LambdaQueryWrapper<>();
         
         // 基础条件：用户ID
         wrapper.eq(Ebook::getUserId, userId);
         
-        // 关键词搜索
-        if (StringUtils.isNotBlank(keyword)) {
-            wrapper.and(w -> w.like(Ebook::getTitle, keyword)
-                    .or().like(Ebook::getAuthor, keyword)
-                    .or().like(Ebook::getDescription, keyword));
+        // 关键词搜索：由搜索引擎给出命中ID，数据库只负责过滤、排序和分页
+        if (ebookIds != null) {
+            wrapper.in(Ebook::getId, ebookIds);
         }
         
         // 分类筛选
@@ -264,109 +1150,60 @@ public class SearchServiceImpl implements SearchService {
         
         // 标签筛选（电子书暂时不支持标签，但保留接口一致性）
         // 如果将来需要支持电子书标签，可以在这里添加相关逻辑
-        
-        // 排序
-        applyEbookSorting(wrapper, sortBy, sortOrder);
-        
-        return ebookService.page(pageParam, wrapper);
+        return wrapper;
     }
     
     /**
-     * 应用文档排序规则
+     * 应用文档排序规则，最后按ID兜底，排序键相同的行在分页时顺序稳定
      */
     private void applyDocumentSorting(LambdaQueryWrapper<Document> wrapper, String sortBy, String sortOrder) {
-        if (StringUtils.isBlank(sortBy)) {
-            sortBy = "created_at";
-        }
-        if (StringUtils.isBlank(sortOrder)) {
-            sortOrder = "desc";
-        }
-        
-        boolean isAsc = "asc".equalsIgnoreCase(sortOrder);
-        
-        switch (sortBy.toLowerCase(Locale.ROOT)) {
+        boolean isAsc = isAscending(sortOrder);
+        wrapper.orderBy(true, isAsc, documentSortColumn(sortBy)).orderBy(true, isAsc, Document::getId);
+    }
+    
+    /**
+     * 应用电子书排序规则，同文档
+     */
+    private void applyEbookSorting(LambdaQueryWrapper<Ebook> wrapper, String sortBy, String sortOrder) {
+        boolean isAsc = isAscending(sortOrder);
+        wrapper.orderBy(true, isAsc, ebookSortColumn(sortBy)).orderBy(true, isAsc, Ebook::getId);
+    }
+    
+    /**
+     * 文档排序列：title、updated_at，其余（含默认）按 created_at
+     */
+    private static SFunction<Document, ?> documentSortColumn(String sortBy) {
+        switch (StringUtils.defaultIfBlank(sortBy, "created_at").toLowerCase(Locale.ROOT)) {
             case "title":
-                if (isAsc) {
-                    wrapper.orderByAsc(Document::getTitle);
-                } else {
-                    wrapper.orderByDesc(Document::getTitle);
-                }
-                break;
+                return Document::getTitle;
             case "updated_at":
-                if (isAsc) {
-                    wrapper.orderByAsc(Document::getUpdatedAt);
-                } else {
-                    wrapper.orderByDesc(Document::getUpdatedAt);
-                }
-                break;
+                return Document::getUpdatedAt;
             case "created_at":
             default:
-                if (isAsc) {
-                    wrapper.orderByAsc(Document::getCreatedAt);
-                } else {
-                    wrapper.orderByDesc(Document::getCreatedAt);
-                }
-                break;
+                return Document::getCreatedAt;
         }
     }
     
     /**
-     * 应用电子书排序规则
+     * 电子书排序列，同文档
      */
-    private void applyEbookSorting(LambdaQueryWrapper<Ebook> wrapper, String sortBy, String sortOrder) {
-        if (StringUtils.isBlank(sortBy)) {
-            sortBy = "created_at";
-        }
-        if (StringUtils.isBlank(sortOrder)) {
-            sortOrder = "desc";
-        }
-        
-        boolean isAsc = "asc".equalsIgnoreCase(sortOrder);
-        
-        switch (sortBy.toLowerCase(Locale.ROOT)) {
+    private static SFunction<Ebook, ?> ebookSortColumn(String sortBy) {
+        switch (StringUtils.defaultIfBlank(sortBy, "created_at").toLowerCase(Locale.ROOT)) {
             case "title":
-                if (isAsc) {
-                    wrapper.orderByAsc(Ebook::getTitle);
-                } else {
-                    wrapper.orderByDesc(Ebook::getTitle);
-                }
-                break;
+                return Ebook::getTitle;
             case "updated_at":
-                if (isAsc) {
-                    wrapper.orderByAsc(Ebook::getUpdatedAt);
-                } else {
-                    wrapper.orderByDesc(Ebook::getUpdatedAt);
-                }
-                break;
+                return Ebook::getUpdatedAt;
             case "created_at":
             default:
-                if (isAsc) {
-                    wrapper.orderByAsc(Ebook::getCreatedAt);
-                } else {
-                    wrapper.orderByDesc(Ebook::getCreatedAt);
-                }
-                break;
+                return Ebook::getCreatedAt;
         }
     }
     
     /**
-     * 根据标签获取文档ID列表
+     * 排序方向，默认降序
      */
-    private List<Long> getDocumentIdsByTags(Long[] tagIds) {
-        if (tagIds == null || tagIds.length == 0) {
-            return new ArrayList<>();
-        }
-        
-        // 查询document_tags表获取关联的文档ID
-        LambdaQueryWrapper<DocumentTag> wrapper = new LambdaQueryWrapper<>();
-        wrapper.in(DocumentTag::getTagId, Arrays.asList(tagIds));
-        wrapper.select(DocumentTag::getDocumentId);
-        
-        List<DocumentTag> documentTags = documentTagMapper.selectList(wrapper);
-        return documentTags.stream()
-                .map(DocumentTag::getDocumentId)
-                .distinct()
-                .collect(Collectors.toList());
+    private static boolean isAscending(String sortOrder) {
+        return "asc".equalsIgnoreCase(sortOrder);
     }
     
     @Override
@@ -375,107 +1212,26 @@ public class SearchServiceImpl implements SearchService {
             return new String[0];
         }
         
+        // 补全树按前缀直接给出按权重排序的候选，不访问数据库
         Set<String> suggestions = new LinkedHashSet<>();
         
-        // 1. 获取用户历史搜索建议（优先级最高）
-        List<String> userHistorySuggestions = getUserHistorySuggestions(keyword, userId);
-        suggestions.addAll(userHistorySuggestions);
-        
-        // 2. 获取热门搜索建议
-        List<String> popularSuggestions = getPopularSearchSuggestions(keyword);
-        suggestions.addAll(popularSuggestions);
-        
-        // 3. 从数据库获取内容匹配建议
-        List<String> contentSuggestions = getContentBasedSuggestions(keyword, userId);
-        suggestions.addAll(contentSuggestions);
+        // 1. 用户个人建议：搜索历史、文档/电子书标题、标签（优先级最高）
+        List<String> userSuggestions = suggestionIndex.suggest(userId, keyword, MAX_SUGGESTIONS);
+        suggestions.addAll(userSuggestions.subList(0, Math.min(userSuggestions.size(), MAX_SUGGESTIONS - POPULAR_SUGGESTION_SLOTS)));
         
-        // 限制建议数量，避免过多
-        List<String> result = suggestions.stream()
-                .filter(StringUtils::isNotBlank)
-                .distinct()
-                .limit(10)
-                .collect(Collectors.toList());
+        // 2. 热门搜索建议，预留固定名额
+        suggestions.addAll(suggestionIndex.suggestPopular(keyword, POPULAR_SUGGESTION_SLOTS));
         
-        return result.toArray(new String[0]);
-    }
-    
-    /**
-     * 获取用户历史搜索建议
-     */
-    private List<String> getUserHistorySuggestions(String keyword, Long userId) {
-        try {
-            String historyKey = RedisKeyUtil.getSearchHistoryKey(userId);
-            Set<Object> historyObj = redisTemplate.opsForZSet().reverseRange(historyKey, 0, 9);
-            
-            if (historyObj != null) {
-                return historyObj.stream()
-                        .map(Object::toString)
-                        .filter(historyKeyword -> historyKeyword.toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT)))
-                        .limit(3)
-                        .collect(Collectors.toList());
-            }
-        } catch (Exception e) {
-            log.warn("获取用户历史搜索建议失败: {}", e.getMessage());
-        }
-        return new ArrayList<>();
-    }
-    
-    /**
-     * 获取热门搜索建议
-     */
-    private List<String> getPopularSearchSuggestions(String keyword) {
-        try {
-            String popularKey = RedisKeyUtil.getPopularSearchTermsKey();
-            Set<Object> popularObj = redisTemplate.opsForZSet().reverseRange(popularKey, 0, 19);
-            
-            if (popularObj != null) {
-                return popularObj.stream()
-                        .map(Object::toString)
-                        .filter(popularKeyword -> popularKeyword.toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT)))
-                        .limit(3)
-                        .collect(Collectors.toList());
-            }
-        } catch (Exception e) {
-            log.warn("获取热门搜索建议失败: {}", e.getMessage());
-        }
-        return new ArrayList<>();
-    }
-    
-    /**
-     * 获取基于内容的搜索建议
-     */
-    private List<String> getContentBasedSuggestions(String keyword, Long userId) {
-        Set<String> suggestions = new HashSet<>();
+        // 3. 名额未用满时继续用个人建议补齐
+        suggestions.addAll(userSuggestions);
         
-        try {
-            // 从用户文档标题中获取建议
-            LambdaQueryWrapper<Document> docWrapper = new LambdaQueryWrapper<>();
-            docWrapper.eq(Document::getUserId, userId)
-                    .like(Document::getTitle, keyword)
-                    .orderByDesc(Document::getCreatedAt)
-                    .last("LIMIT 3");
-            
-            List<Document> documents = documentService.list(docWrapper);
-            for (Document doc : documents) {
-                suggestions.add(doc.getTitle());
-            }
-            
-            // 从用户电子书标题中获取建议
-            LambdaQueryWrapper<Ebook> ebookWrapper = new LambdaQueryWrapper<>();
-            ebookWrapper.eq(Ebook::getUserId, userId)
-                    .like(Ebook::getTitle, keyword)
-                    .orderByDesc(Ebook::getCreatedAt)
-                    .last("LIMIT 3");
-            
-            List<Ebook> ebooks = ebookService.list(ebookWrapper);
-            for (Ebook ebook : ebooks) {
-                suggestions.add(ebook.getTitle());
-            }
-            
-        } catch (Exception e) {
-            log.warn("获取内容搜索建议失败: {}", e.getMessage());
+        // 4. 仍不足时按拼写容错补充相近的个人建议（如把 sprnig 补全为 Spring）
+        if (suggestions.size() < MAX_SUGGESTIONS) {
+            suggestions.addAll(suggestionIndex.suggestFuzzy(userId, keyword, MAX_SUGGESTIONS));
         }
         
-        return new ArrayList<>(suggestions);
+        return suggestions.stream()
+                .limit(MAX_SUGGESTIONS)
+                .toArray(String[]::new);
     }
-}
\ No newline at end of file
+}
@@ -3,14 +3,19 @@ package com.xichen.wiki.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xichen.wiki.common.CursorPage;
 import com.xichen.wiki.entity.Tag;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
 import com.xichen.wiki.exception.BusinessException;
 import com.xichen.wiki.mapper.TagMapper;
 import com.xichen.wiki.service.TagService;
+import com.xichen.wiki.util.CursorUtil;
 import com.xichen.wiki.util.RedisKeyUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
@@ -30,6 +35,9 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Redis键常量已移至RedisKeyUtil统一管理
 
     @Override
@@ -52,6 +60,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
         tag.setUpdatedAt(LocalDateTime.now());
         
         save(tag);
+        eventPublisher.publishEvent(EntityChangeEvent.tag(ChangeType.CREATED, tag));
         log.info("标签创建成功：用户ID={}, 标签名={}", userId, name);
         return tag;
     }
@@ -84,6 +93,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
         tag.setUpdatedAt(LocalDateTime.now());
         
         updateById(tag);
+        eventPublisher.publishEvent(EntityChangeEvent.tag(ChangeType.UPDATED, tag));
         log.info("标签更新成功：ID={}, 标签名={}", tagId, name);
         return tag;
     }
@@ -91,6 +101,33 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     @Override
     public Page<Tag> getUserTags(Long userId, Integer page, Integer size, String keyword) {
         Page<Tag> pageParam = new Page<>(page, size);
+        LambdaQueryWrapper<Tag> wrapper = userTagsWrapper(userId, keyword);
+        
+        wrapper.orderByDesc(Tag::getUsageCount, Tag::getCreatedAt);
+        return page(pageParam, wrapper);
+    }
+
+    @Override
+    public CursorPage<Tag> getUserTagsByCursor(Long userId, String cursor, Integer size, String keyword) {
+        LambdaQueryWrapper<Tag> wrapper = userTagsWrapper(userId, keyword);
+        
+        // 排序键：(usage_count, created_at, id)
+        if (StringUtils.isNotBlank(cursor)) {
+            CursorUtil.Keys keys = CursorUtil.decode(cursor, 3);
+            CursorUtil.seekAfterDesc(wrapper, List.of(Tag::getUsageCount, Tag::getCreatedAt, Tag::getId),
+                    List.of(keys.getLong(0), keys.getDateTime(1), keys.getLong(2)));
+        }
+        wrapper.orderByDesc(Tag::getUsageCount, Tag::getCreatedAt, Tag::getId);
+        wrapper.last("LIMIT " + (size + 1));
+        
+        return CursorPage.of(list(wrapper), size,
+                t -> CursorUtil.encode(t.getUsageCount(), t.getCreatedAt(), t.getId()));
+    }
+    
+    /**
+     * 用户标签列表的公共查询条件
+     */
+    private LambdaQueryWrapper<Tag> userTagsWrapper(Long userId, String keyword) {
         LambdaQueryWrapper<Tag> wrapper = new LambdaQueryWrapper<>();
         
         wrapper.eq(Tag::getUserId, userId);
@@ -99,9 +136,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
             wrapper.and(w -> w.like(Tag::getName, keyword)
                     .or().like(Tag::getDescription, keyword));
         }
-        
-        wrapper.orderByDesc(Tag::getUsageCount, Tag::getCreatedAt);
-        return page(pageParam, wrapper);
+        return wrapper;
     }
 
     @Override
@@ -148,6 +183,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
         }
         
         removeById(tagId);
+        eventPublisher.publishEvent(EntityChangeEvent.tagDeleted(userId, tagId));
         
         // 清理相关缓存
         redisTemplate.delete(RedisKeyUtil.getTagUsageCountKey(tagId));
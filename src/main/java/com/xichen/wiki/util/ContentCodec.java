@@ -0,0 +1,133 @@
+package com.xichen.wiki.util;
+
+import com.xichen.wiki.constant.DocumentConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 文本内容存储编解码工具类
+ *
+ * 存储格式：
+ * - 原文：不带头部，与未启用压缩时写入的历史数据完全一致
+ * - 编码后：头部字符 U+0001 + 编码方式字符 + 数据
+ *   - {@code Z}：Deflate 压缩后的 Base64
+ *   - {@code R}：原文本身以头部字符开头时，为避免与编码数据混淆而加的转义，数据即原文
+ *
+ * 列类型仍为文本，Base64 约增加三分之一体积，但 Markdown 长文压缩率通常在 5 倍以上，仍明显小于原文。
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class ContentCodec {
+
+    /**
+     * 编码数据的头部字符，正常文本不会以控制字符开头
+     */
+    static final char HEADER = '\u0001';
+
+    static final char CODEC_DEFLATE = 'Z';
+
+    static final char CODEC_RAW = 'R';
+
+    /**
+     * 压缩存储数据的前缀，SQL中用 LIKE 前缀匹配区分压缩行
+     */
+    public static final String COMPRESSED_PREFIX = "" + HEADER + CODEC_DEFLATE;
+
+    private ContentCodec() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 编码待写入的内容：长度达到阈值且压缩后更小时压缩，否则保持原文
+     */
+    public static String encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        boolean hasHeader = !content.isEmpty() && content.charAt(0) == HEADER;
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= DocumentConstants.CONTENT_COMPRESS_MIN_BYTES) {
+            int level = raw.length >= DocumentConstants.CONTENT_COMPRESS_HIGH_LEVEL_BYTES
+                    ? Deflater.DEFAULT_COMPRESSION : Deflater.BEST_SPEED;
+            String compressed = Base64.getEncoder().encodeToString(deflate(raw, level));
+            if (compressed.length() + 2 < raw.length) {
+                return new StringBuilder(compressed.length() + 2)
+                        .append(HEADER).append(CODEC_DEFLATE).append(compressed).toString();
+            }
+        }
+        return hasHeader ? "" + HEADER + CODEC_RAW + content : content;
+    }
+
+    /**
+     * 解码读取到的内容，未编码的历史数据原样返回
+     *
+     * @throws IllegalArgumentException 编码数据损坏时抛出
+     */
+    public static String decode(String stored) {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != HEADER) {
+            return stored;
+        }
+        if (stored.length() < 2) {
+            throw new IllegalArgumentException("内容编码头部不完整");
+        }
+        char codec = stored.charAt(1);
+        if (codec == CODEC_RAW) {
+            return stored.substring(2);
+        }
+        if (codec == CODEC_DEFLATE) {
+            byte[] compressed = Base64.getDecoder().decode(stored.substring(2));
+            return new String(inflate(compressed), StandardCharsets.UTF_8);
+        }
+        throw new IllegalArgumentException("未知的内容编码方式：" + codec);
+    }
+
+    /**
+     * 是否为压缩存储的数据
+     */
+    public static boolean isCompressed(String stored) {
+        return stored != null && stored.length() >= 2 && stored.charAt(0) == HEADER && stored.charAt(1) == CODEC_DEFLATE;
+    }
+
+    private static byte[] deflate(byte[] input, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("压缩数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
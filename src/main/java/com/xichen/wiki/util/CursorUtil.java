@@ -0,0 +1,126 @@
+package com.xichen.wiki.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.xichen.wiki.exception.BusinessException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页工具类
+ *
+ * 游标是排序键各列取值（最后一列为ID）拼接后的 Base64 URL 编码，对客户端不透明。
+ * 查询下一页时用 seek 条件跳到游标之后，代替 OFFSET，翻到多深都只扫描一页数据。
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 把排序键编码为游标
+     */
+    public static String encode(Object... values) {
+        String raw = StringUtils.join(values, SEPARATOR);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor 游标
+     * @param parts 排序键列数
+     * @throws BusinessException 游标格式不正确时抛出
+     */
+    public static Keys decode(String cursor, int parts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = StringUtils.splitPreserveAllTokens(raw, SEPARATOR);
+            if (values == null || values.length != parts) {
+                throw new BusinessException("无效的分页游标");
+            }
+            return new Keys(values);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 追加 seek 条件：按 columns 降序排列时位于游标之后的行
+     *
+     * 生成 (c1 &lt; v1 OR (c1 = v1 AND (c2 &lt; v2 OR ...)))，最后一列应为唯一的ID
+     */
+    public static <T> void seekAfterDesc(LambdaQueryWrapper<T> wrapper, List<SFunction<T, ?>> columns, List<?> values) {
+        wrapper.and(w -> seek(w, columns, values, 0, false));
+    }
+
+    /**
+     * 追加 seek 条件：按 columns 升序排列时位于游标之后的行，形式同 {@link #seekAfterDesc}
+     */
+    public static <T> void seekAfterAsc(LambdaQueryWrapper<T> wrapper, List<SFunction<T, ?>> columns, List<?> values) {
+        wrapper.and(w -> seek(w, columns, values, 0, true));
+    }
+
+    private static <T> void seek(LambdaQueryWrapper<T> wrapper, List<SFunction<T, ?>> columns, List<?> values, int i,
+                                 boolean ascending) {
+        if (ascending) {
+            wrapper.gt(columns.get(i), values.get(i));
+        } else {
+            wrapper.lt(columns.get(i), values.get(i));
+        }
+        if (i + 1 < columns.size()) {
+            wrapper.or(w -> w.eq(columns.get(i), values.get(i)).and(n -> seek(n, columns, values, i + 1, ascending)));
+        }
+    }
+
+    /**
+     * 游标中解析出的排序键
+     */
+    public static final class Keys {
+
+        private final String[] values;
+
+        private Keys(String[] values) {
+            this.values = values;
+        }
+
+        public String getString(int index) {
+            return values[index];
+        }
+
+        public long getLong(int index) {
+            try {
+                return Long.parseLong(values[index]);
+            } catch (NumberFormatException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+
+        public double getDouble(int index) {
+            try {
+                return Double.parseDouble(values[index]);
+            } catch (NumberFormatException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+
+        public LocalDateTime getDateTime(int index) {
+            try {
+                return LocalDateTime.parse(values[index]);
+            } catch (DateTimeParseException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.xichen.wiki.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * ETag 工具类
+ *
+ * 详情类接口的 ETag 由版本号、更新时间等少量列生成，判断资源是否变化时不需要读取正文。
+ * 生成的都是弱 ETag：它表示"内容语义相同"，不保证响应字节完全一致。
+ * If-None-Match 的比较（列表、通配符、弱比较）交给 {@link ServletWebRequest#checkNotModified(String)} 处理。
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class ETagUtil {
+
+    private static final String SEPARATOR = "-";
+
+    /**
+     * 允许客户端缓存响应，但每次使用前都要带 If-None-Match 重新验证；
+     * 不设置时 Spring Security 默认写入 no-store，浏览器不会保存响应，也就不会发起条件请求
+     */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private ETagUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 生成弱 ETag：W/"前缀-取值1-取值2..."，取值为null时记为空
+     */
+    public static String weak(String prefix, Object... parts) {
+        return "W/\"" + prefix + SEPARATOR + StringUtils.join(parts, SEPARATOR) + "\"";
+    }
+
+    /**
+     * 文档详情的 ETag：版本号加收藏状态
+     */
+    public static String document(Long documentId, Integer version, Boolean favorite) {
+        return weak("d" + documentId, version, Boolean.TRUE.equals(favorite) ? 1 : 0);
+    }
+
+    /**
+     * 处理条件请求：ETag 与请求头 If-None-Match 匹配时把响应设为304并返回true，调用方直接返回null；
+     * 不匹配时在响应上写入 ETag，调用方照常返回数据
+     *
+     * @param eTag 资源当前的 ETag，为null时（如资源不存在）不做处理
+     */
+    public static boolean checkNotModified(ServletWebRequest request, String eTag) {
+        if (eTag == null) {
+            return false;
+        }
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(eTag);
+    }
+
+    /**
+     * 多个取值的 CRC32 校验和（十六进制），把较多的列压缩为 ETag 中的一段
+     */
+    public static String checksum(Object... values) {
+        CRC32 crc = new CRC32();
+        crc.update(StringUtils.join(values, '|').getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
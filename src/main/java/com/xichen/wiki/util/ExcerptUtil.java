@@ -0,0 +1,71 @@
+package com.xichen.wiki.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * 列表摘要工具类
+ *
+ * 保存文档、电子书时从正文或描述中截取开头一段纯文本存入 excerpt 列，列表接口只查该列，不再读取整段正文。
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class ExcerptUtil {
+
+    /**
+     * 代码块围栏、图片
+     */
+    private static final Pattern BLOCK_NOISE = Pattern.compile("```[^\\n]*|!\\[[^\\]]*]\\([^)]*\\)");
+
+    /**
+     * 链接只保留文字部分
+     */
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]*)]\\([^)]*\\)");
+
+    /**
+     * 行首的标题、引用、列表标记
+     */
+    private static final Pattern LINE_MARKER = Pattern.compile("(?m)^\\s*(#{1,6}|>+|[-*+]|\\d+\\.)\\s+");
+
+    /**
+     * 行内强调、代码标记
+     */
+    private static final Pattern INLINE_MARKER = Pattern.compile("[*_`~]+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ExcerptUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 生成摘要：去掉常见 Markdown 标记、合并空白后截取前 maxChars 个字符，被截断时以省略号结尾
+     *
+     * @return 摘要，文本为空时返回null
+     */
+    public static String of(String text, int maxChars) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        // 只处理开头一段，长文档不必整篇做正则替换
+        int window = maxChars * 8;
+        boolean clipped = text.length() > window;
+        if (clipped && Character.isHighSurrogate(text.charAt(window - 1))) {
+            window--;
+        }
+        String head = clipped ? text.substring(0, window) : text;
+        head = BLOCK_NOISE.matcher(head).replaceAll(" ");
+        head = LINK.matcher(head).replaceAll("$1");
+        head = LINE_MARKER.matcher(head).replaceAll("");
+        head = INLINE_MARKER.matcher(head).replaceAll("");
+        head = WHITESPACE.matcher(head).replaceAll(" ").trim();
+        if (head.isEmpty()) {
+            return null;
+        }
+        int count = head.codePointCount(0, head.length());
+        if (count > maxChars || (clipped && count == maxChars)) {
+            return head.substring(0, head.offsetByCodePoints(0, maxChars - 1)) + "…";
+        }
+        return clipped ? head + "…" : head;
+    }
+}
@@ -0,0 +1,305 @@
+package com.xichen.wiki.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按行差异工具类
+ *
+ * 差异用 Myers O(ND) 算法计算，先去掉公共前后缀，只对中间不同的部分求编辑脚本。
+ * 在此基础上提供两种输出：
+ * - 增量（delta）：由基准文本还原目标文本的紧凑指令，只记录新增的行和对基准行的引用，大小与改动量成正比
+ * - 统一格式差异（unified diff）：供前端展示
+ *
+ * 增量格式，指令依次排列：
+ * - {@code C<起始行>,<行数>\n}：复制基准文本的若干行
+ * - {@code I<字符数>\n<原文>}：插入一段原文（包含换行符）
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class LineDiff {
+
+    /**
+     * 编辑距离上限，超过时不再求最短脚本，直接整体替换中间部分，避免完全不同的两段长文本耗时过长
+     */
+    private static final int MAX_EDIT_DISTANCE = 2000;
+
+    private LineDiff() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 一处改动：基准的 [baseStart, baseEnd) 行替换为目标的 [targetStart, targetEnd) 行
+     */
+    public record Edit(int baseStart, int baseEnd, int targetStart, int targetEnd) {
+    }
+
+    /**
+     * 拆分为行，每行保留行尾换行符，拼接后与原文完全一致
+     */
+    public static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return lines;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /**
+     * 计算编辑脚本，按位置升序
+     */
+    public static List<Edit> diff(List<String> base, List<String> target) {
+        // 行映射为整数，比较时不再逐字符比较字符串
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = toIds(base, ids);
+        int[] b = toIds(target, ids);
+
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+        int[] midA = Arrays.copyOfRange(a, prefix, a.length - suffix);
+        int[] midB = Arrays.copyOfRange(b, prefix, b.length - suffix);
+
+        List<Edit> edits = new ArrayList<>();
+        if (midA.length == 0 && midB.length == 0) {
+            return edits;
+        }
+        List<Edit> middle = myers(midA, midB);
+        if (middle == null) {
+            edits.add(new Edit(prefix, prefix + midA.length, prefix, prefix + midB.length));
+            return edits;
+        }
+        for (Edit edit : middle) {
+            edits.add(new Edit(edit.baseStart + prefix, edit.baseEnd + prefix,
+                    edit.targetStart + prefix, edit.targetEnd + prefix));
+        }
+        return edits;
+    }
+
+    /**
+     * 计算由基准文本还原目标文本的增量
+     */
+    public static String delta(String base, String target) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+        StringBuilder delta = new StringBuilder();
+        int position = 0;
+        for (Edit edit : diff(baseLines, targetLines)) {
+            appendCopy(delta, position, edit.baseStart);
+            if (edit.targetEnd > edit.targetStart) {
+                String inserted = String.join("", targetLines.subList(edit.targetStart, edit.targetEnd));
+                delta.append('I').append(inserted.length()).append('\n').append(inserted);
+            }
+            position = edit.baseEnd;
+        }
+        appendCopy(delta, position, baseLines.size());
+        return delta.toString();
+    }
+
+    /**
+     * 在基准文本上应用增量
+     *
+     * @throws IllegalArgumentException 增量格式不正确或与基准文本不匹配时抛出
+     */
+    public static String apply(String base, String delta) {
+        List<String> baseLines = splitLines(base);
+        StringBuilder result = new StringBuilder(base == null ? 0 : base.length());
+        int i = 0;
+        while (i < delta.length()) {
+            char op = delta.charAt(i);
+            int lineEnd = delta.indexOf('\n', i);
+            if (lineEnd < 0) {
+                throw new IllegalArgumentException("增量格式错误：位置 " + i);
+            }
+            String header = delta.substring(i + 1, lineEnd);
+            i = lineEnd + 1;
+            try {
+                if (op == 'C') {
+                    int comma = header.indexOf(',');
+                    int start = Integer.parseInt(header.substring(0, comma));
+                    int count = Integer.parseInt(header.substring(comma + 1));
+                    if (start < 0 || count < 0 || start + count > baseLines.size()) {
+                        throw new IllegalArgumentException("增量与基准文本不匹配：复制 " + header);
+                    }
+                    for (int line = start; line < start + count; line++) {
+                        result.append(baseLines.get(line));
+                    }
+                } else if (op == 'I') {
+                    int length = Integer.parseInt(header);
+                    if (length < 0 || i + length > delta.length()) {
+                        throw new IllegalArgumentException("增量格式错误：插入长度 " + header);
+                    }
+                    result.append(delta, i, i + length);
+                    i += length;
+                } else {
+                    throw new IllegalArgumentException("增量格式错误：未知指令 " + op);
+                }
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("增量格式错误：" + header, e);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 生成统一格式差异
+     *
+     * @param context 每处改动前后保留的上下文行数
+     * @return 差异文本，两段文本相同时为空字符串
+     */
+    public static String unified(String base, String target, int context) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+        List<Edit> edits = diff(baseLines, targetLines);
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < edits.size()) {
+            // 间隔不超过两倍上下文的改动合并为一个块
+            int j = i;
+            while (j + 1 < edits.size() && edits.get(j + 1).baseStart - edits.get(j).baseEnd <= 2 * context) {
+                j++;
+            }
+            Edit first = edits.get(i);
+            Edit last = edits.get(j);
+            int baseFrom = Math.max(0, first.baseStart - context);
+            int targetFrom = first.targetStart - (first.baseStart - baseFrom);
+            int baseTo = Math.min(baseLines.size(), last.baseEnd + context);
+            int targetTo = last.targetEnd + (baseTo - last.baseEnd);
+            out.append("@@ -").append(range(baseFrom, baseTo)).append(" +").append(range(targetFrom, targetTo))
+                    .append(" @@\n");
+            int position = baseFrom;
+            for (int k = i; k <= j; k++) {
+                Edit edit = edits.get(k);
+                appendLines(out, ' ', baseLines, position, edit.baseStart);
+                appendLines(out, '-', baseLines, edit.baseStart, edit.baseEnd);
+                appendLines(out, '+', targetLines, edit.targetStart, edit.targetEnd);
+                position = edit.baseEnd;
+            }
+            appendLines(out, ' ', baseLines, position, baseTo);
+            i = j + 1;
+        }
+        return out.toString();
+    }
+
+    private static int[] toIds(List<String> lines, Map<String, Integer> ids) {
+        int[] result = new int[lines.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.computeIfAbsent(lines.get(i), line -> ids.size());
+        }
+        return result;
+    }
+
+    /**
+     * Myers 最短编辑脚本；编辑距离超过上限时返回null
+     *
+     * 每轮只保存对角线 [-d, d] 范围内的最远位置用于回溯，内存为 O(D²)
+     */
+    private static List<Edit> myers(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Edit> backtrack(List<int[]> trace, int n, int m) {
+        // 从终点倒推，逐行记录删除/插入，再合并为连续的改动块
+        List<int[]> steps = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int prevK = k == -d || (k != d && at(v, d, k - 1) < at(v, d, k + 1)) ? k + 1 : k - 1;
+            int prevX = at(v, d, prevK);
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+            }
+            // 下移为插入 b[prevY]，右移为删除 a[prevX]
+            steps.add(x == prevX ? new int[]{prevX, prevY, 0, 1} : new int[]{prevX, prevY, 1, 0});
+            x = prevX;
+            y = prevY;
+        }
+        List<Edit> edits = new ArrayList<>();
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            int[] step = steps.get(i);
+            Edit last = edits.isEmpty() ? null : edits.get(edits.size() - 1);
+            if (last != null && last.baseEnd == step[0] && last.targetEnd == step[1]) {
+                edits.set(edits.size() - 1, new Edit(last.baseStart, last.baseEnd + step[2],
+                        last.targetStart, last.targetEnd + step[3]));
+            } else {
+                edits.add(new Edit(step[0], step[0] + step[2], step[1], step[1] + step[3]));
+            }
+        }
+        return edits;
+    }
+
+    /**
+     * 读取第 d 轮开始时保存的对角线 k 上的最远位置
+     */
+    private static int at(int[] v, int d, int k) {
+        return v[k + d];
+    }
+
+    private static void appendCopy(StringBuilder delta, int from, int to) {
+        if (to > from) {
+            delta.append('C').append(from).append(',').append(to - from).append('\n');
+        }
+    }
+
+    private static void appendLines(StringBuilder out, char prefix, List<String> lines, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String line = lines.get(i);
+            out.append(prefix).append(line);
+            if (!line.endsWith("\n")) {
+                out.append("\n\\ No newline at end of file\n");
+            }
+        }
+    }
+
+    private static String range(int from, int to) {
+        int count = to - from;
+        // 统一格式中空范围的起始行号为前一行
+        return (count == 0 ? from : from + 1) + "," + count;
+    }
+}
@@ -0,0 +1,31 @@
+package com.xichen.wiki.util;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 分页结果工具类
+ *
+ * @author xichen
+ * @since 2024-09-25
+ */
+public final class PageUtil {
+
+    private PageUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 转换分页数据，页码、每页大小和总数保持不变
+     */
+    public static <T, R> Page<R> map(IPage<T> page, Function<T, R> mapper) {
+        Page<R> result = new Page<>(page.getCurrent(), page.getSize(), page.getTotal());
+        List<R> records = page.getRecords().stream().map(mapper).collect(Collectors.toList());
+        result.setRecords(records);
+        return result;
+    }
+}
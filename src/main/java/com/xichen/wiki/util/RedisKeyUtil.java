@@ -81,6 +81,42 @@ public final class RedisKeyUtil {
         return "ebook:view_count:" + ebookId;
     }
     
+    // ==================== 文档相关Redis键 ====================
+    
+    /**
+     * 生成文档缓存Redis键
+     * @param documentId 文档ID
+     * @return Redis键
+     */
+    public static String getDocumentCacheKey(Long documentId) {
+        return "document:cache:" + documentId;
+    }
+    
+    /**
+     * 生成文档缓存失效代数的Redis键
+     * @param documentId 文档ID
+     * @return Redis键
+     */
+    public static String getDocumentCacheGenerationKey(Long documentId) {
+        return "document:cache:gen:" + documentId;
+    }
+    
+    /**
+     * 文档缓存失效通知的发布订阅频道
+     * @return 频道名
+     */
+    public static String getDocumentCacheInvalidateChannel() {
+        return "document:cache:invalidate";
+    }
+    
+    /**
+     * 搜索派生数据跨实例同步的发布订阅频道
+     * @return 频道名
+     */
+    public static String getSearchIndexSyncChannel() {
+        return "search:index:sync";
+    }
+    
     // ==================== 搜索相关Redis键 ====================
     
     /**
@@ -93,11 +129,22 @@ public final class RedisKeyUtil {
     }
     
     /**
-     * 生成热门搜索词Redis键
+     * 生成热门搜索词分桶Redis键
+     * @param resolution 分桶粒度（hour/day）
+     * @param bucket 桶序号（自1970年起的小时数/天数）
+     * @return Redis键
+     */
+    public static String getPopularTermsBucketKey(String resolution, long bucket) {
+        return "search:popular:" + resolution + ":" + bucket;
+    }
+    
+    /**
+     * 生成热门搜索词窗口聚合结果Redis键
+     * @param window 时间窗口（hour/day/week）
      * @return Redis键
      */
-    public static String getPopularSearchTermsKey() {
-        return "search:popular_terms";
+    public static String getPopularTermsWindowKey(String window) {
+        return "search:popular:window:" + window;
     }
     
     // ==================== 标签相关Redis键 ====================
@@ -0,0 +1,9 @@
+-- ============================================
+-- 文档近似重复检测
+-- documents.simhash 保存正文的 64 位 SimHash 指纹，新建、修改文档时计算。
+-- 存量文档为 NULL，首次查询某用户的近似重复文档时按批补算。
+-- ============================================
+
+USE wiki;
+
+ALTER TABLE documents ADD COLUMN simhash BIGINT COMMENT '正文SimHash指纹，用于近似重复检测：NULL-未计算，0-正文过短不参与' AFTER word_count;
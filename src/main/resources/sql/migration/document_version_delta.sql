@@ -0,0 +1,15 @@
+-- ============================================
+-- 文档版本历史
+-- 每次保存文档写一条版本记录：多数为相对上一版本的按行增量，链长或增量大小超过阈值时存一次完整快照，
+-- 还原任一版本最多应用有限个增量。存量文档没有历史，下一次修改时先把修改前的内容存为快照。
+-- ============================================
+
+USE wiki;
+
+ALTER TABLE document_versions ADD COLUMN title VARCHAR(255) COMMENT '该版本的标题' AFTER document_id;
+ALTER TABLE document_versions MODIFY COLUMN content TEXT NOT NULL COMMENT '完整快照为文档内容，增量为相对上一版本的按行增量';
+ALTER TABLE document_versions ADD COLUMN storage_type TINYINT NOT NULL DEFAULT 0 COMMENT '存储方式：0-完整快照，1-增量' AFTER content;
+ALTER TABLE document_versions ADD COLUMN chain_length INT NOT NULL DEFAULT 0 COMMENT '距最近一个完整快照的增量个数' AFTER storage_type;
+ALTER TABLE document_versions ADD COLUMN content_length INT NOT NULL DEFAULT 0 COMMENT '还原后的内容长度' AFTER chain_length;
+ALTER TABLE document_versions ADD UNIQUE KEY uk_document_version (document_id, version);
+ALTER TABLE document_versions DROP INDEX idx_document_id;
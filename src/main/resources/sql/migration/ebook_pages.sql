@@ -0,0 +1,23 @@
+-- ============================================
+-- 电子书正文按页检索
+-- 上传后异步抽取 PDF/EPUB/TXT 正文，按页写入 ebook_pages，命中可定位到页码。
+-- ebooks.text_status 记录抽取状态，存量电子书默认为待抽取，应用启动后由后台任务逐步补齐。
+-- ============================================
+
+USE wiki;
+
+ALTER TABLE ebooks ADD COLUMN text_status TINYINT NOT NULL DEFAULT 0 COMMENT '正文抽取状态：0-待抽取，1-已抽取，2-抽取失败，3-格式不支持' AFTER last_read_page;
+ALTER TABLE ebooks ADD INDEX idx_text_status (text_status, id);
+
+CREATE TABLE IF NOT EXISTS ebook_pages (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ebook_id BIGINT NOT NULL COMMENT '电子书ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    page_number INT NOT NULL COMMENT '页码',
+    content MEDIUMTEXT NOT NULL COMMENT '该页正文',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    FOREIGN KEY (ebook_id) REFERENCES ebooks(id) ON DELETE CASCADE,
+    UNIQUE KEY uk_ebook_page (ebook_id, page_number),
+    INDEX idx_user_id (user_id),
+    FULLTEXT idx_page_content (content) WITH PARSER ngram
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='电子书正文页表';
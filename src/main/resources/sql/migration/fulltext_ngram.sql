@@ -0,0 +1,16 @@
+-- ============================================
+-- 全文索引切换为 ngram 解析器
+-- 默认的全文解析器按空白分词，对中文无效；ngram 解析器按 ngram_token_size（默认2）切分，
+-- 与应用内搜索使用的二元组分词一致。
+-- 配合 search.engine=fulltext 使用。
+-- ============================================
+
+USE wiki;
+
+-- 文档表全文索引
+ALTER TABLE documents DROP INDEX idx_content;
+ALTER TABLE documents ADD FULLTEXT INDEX idx_content (title, content) WITH PARSER ngram;
+
+-- 电子书表全文索引
+ALTER TABLE ebooks DROP INDEX idx_ebook_content;
+ALTER TABLE ebooks ADD FULLTEXT INDEX idx_ebook_content (title, author, description) WITH PARSER ngram;
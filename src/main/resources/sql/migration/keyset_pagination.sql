@@ -0,0 +1,16 @@
+-- ============================================
+-- 游标分页索引
+-- 游标分页按 (排序时间, id) 倒序 seek，联合索引 (user_id, 排序时间, id) 使每一页都只是一次索引范围扫描，
+-- 与翻页深度无关。配合各列表的 /scroll 接口使用。
+-- ============================================
+
+USE wiki;
+
+-- 文档列表：按更新时间倒序
+ALTER TABLE documents ADD INDEX idx_user_updated (user_id, updated_at, id);
+
+-- 电子书列表：按创建时间倒序
+ALTER TABLE ebooks ADD INDEX idx_user_created (user_id, created_at, id);
+
+-- 书签列表：按创建时间倒序
+ALTER TABLE bookmarks ADD INDEX idx_user_created (user_id, created_at, id);
@@ -0,0 +1,21 @@
+-- ============================================
+-- 列表摘要
+-- 文档、电子书列表接口不再查询 content / description 全文，只返回保存时生成的 excerpt。
+-- 存量数据按原文开头一段回填（只合并空白，不去除 Markdown 标记，不改变 updated_at）；
+-- 正文已压缩存储的文档（以 CHAR(1) 开头）无法在 SQL 中解压，摘要为空，下次保存时生成。
+-- ============================================
+
+USE wiki;
+
+ALTER TABLE documents ADD COLUMN excerpt VARCHAR(255) COMMENT '列表摘要：正文开头一段纯文本，保存时生成' AFTER word_count;
+ALTER TABLE ebooks ADD COLUMN excerpt VARCHAR(255) COMMENT '列表摘要：描述开头一段纯文本，保存时生成' AFTER description;
+
+UPDATE documents
+SET excerpt = LEFT(TRIM(REGEXP_REPLACE(LEFT(content, 960), '[[:space:]]+', ' ')), 120),
+    updated_at = updated_at
+WHERE excerpt IS NULL AND content IS NOT NULL AND content <> '' AND LEFT(content, 1) <> CHAR(1);
+
+UPDATE ebooks
+SET excerpt = LEFT(TRIM(REGEXP_REPLACE(LEFT(description, 960), '[[:space:]]+', ' ')), 120),
+    updated_at = updated_at
+WHERE excerpt IS NULL AND description IS NOT NULL AND description <> '';
@@ -108,6 +108,8 @@ CREATE TABLE IF NOT EXISTS documents (
     is_favorite BOOLEAN DEFAULT FALSE COMMENT '是否收藏',
     version INT NOT NULL DEFAULT 1 COMMENT '版本号',
     word_count INT DEFAULT 0 COMMENT '字数统计',
+    excerpt VARCHAR(255) COMMENT '列表摘要：正文开头一段纯文本，保存时生成',
+    simhash BIGINT COMMENT '正文SimHash指纹，用于近似重复检测：NULL-未计算，0-正文过短不参与',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     deleted TINYINT NOT NULL DEFAULT 0 COMMENT '逻辑删除标志：0-未删除，1-已删除',
@@ -118,18 +120,23 @@ CREATE TABLE IF NOT EXISTS documents (
     INDEX idx_title (title),
     INDEX idx_created_at (created_at),
     INDEX idx_updated_at (updated_at),
-    FULLTEXT idx_content (title, content)
+    INDEX idx_user_updated (user_id, updated_at, id),
+    FULLTEXT idx_content (title, content) WITH PARSER ngram
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档表';
 
--- 文档版本表
+-- 文档版本表（定期完整快照 + 相邻版本间的按行增量）
 CREATE TABLE IF NOT EXISTS document_versions (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     document_id BIGINT NOT NULL COMMENT '文档ID',
-    content TEXT NOT NULL COMMENT '文档内容',
+    title VARCHAR(255) COMMENT '该版本的标题',
+    content TEXT NOT NULL COMMENT '完整快照为文档内容，增量为相对上一版本的按行增量',
+    storage_type TINYINT NOT NULL DEFAULT 0 COMMENT '存储方式：0-完整快照，1-增量',
+    chain_length INT NOT NULL DEFAULT 0 COMMENT '距最近一个完整快照的增量个数',
+    content_length INT NOT NULL DEFAULT 0 COMMENT '还原后的内容长度',
     version INT NOT NULL COMMENT '版本号',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE,
-    INDEX idx_document_id (document_id),
+    UNIQUE KEY uk_document_version (document_id, version),
     INDEX idx_version (version)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档版本表';
 
@@ -157,6 +164,7 @@ CREATE TABLE IF NOT EXISTS ebooks (
     cover_key VARCHAR(255) COMMENT '封面图片存储键',
     page_count INT DEFAULT 0 COMMENT '页数',
     description TEXT COMMENT '描述',
+    excerpt VARCHAR(255) COMMENT '列表摘要：描述开头一段纯文本，保存时生成',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     category_id BIGINT COMMENT '分类ID',
     is_favorite BOOLEAN DEFAULT FALSE COMMENT '是否收藏',
@@ -165,6 +173,7 @@ CREATE TABLE IF NOT EXISTS ebooks (
     upload_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '上传日期',
     last_read_date TIMESTAMP COMMENT '最后阅读日期',
     last_read_page INT DEFAULT 0 COMMENT '最后阅读页数',
+    text_status TINYINT NOT NULL DEFAULT 0 COMMENT '正文抽取状态：0-待抽取，1-已抽取，2-抽取失败，3-格式不支持',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     deleted TINYINT NOT NULL DEFAULT 0 COMMENT '逻辑删除标志：0-未删除，1-已删除',
@@ -176,9 +185,25 @@ CREATE TABLE IF NOT EXISTS ebooks (
     INDEX idx_author (author),
     INDEX idx_upload_date (upload_date),
     INDEX idx_file_key (file_key),
-    FULLTEXT idx_ebook_content (title, author, description)
+    INDEX idx_user_created (user_id, created_at, id),
+    INDEX idx_text_status (text_status, id),
+    FULLTEXT idx_ebook_content (title, author, description) WITH PARSER ngram
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='电子书表';
 
+-- 电子书正文页表
+CREATE TABLE IF NOT EXISTS ebook_pages (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ebook_id BIGINT NOT NULL COMMENT '电子书ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    page_number INT NOT NULL COMMENT '页码',
+    content MEDIUMTEXT NOT NULL COMMENT '该页正文',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    FOREIGN KEY (ebook_id) REFERENCES ebooks(id) ON DELETE CASCADE,
+    UNIQUE KEY uk_ebook_page (ebook_id, page_number),
+    INDEX idx_user_id (user_id),
+    FULLTEXT idx_page_content (content) WITH PARSER ngram
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='电子书正文页表';
+
 -- 电子书标签关联表
 CREATE TABLE IF NOT EXISTS ebook_tags (
     ebook_id BIGINT NOT NULL COMMENT '电子书ID',
@@ -204,7 +229,8 @@ CREATE TABLE IF NOT EXISTS bookmarks (
     UNIQUE KEY uk_ebook_page_user (ebook_id, page_number, user_id),
     INDEX idx_ebook_id (ebook_id),
     INDEX idx_user_id (user_id),
-    INDEX idx_page_number (page_number)
+    INDEX idx_page_number (page_number),
+    INDEX idx_user_created (user_id, created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='书签表';
 
 -- ============================================
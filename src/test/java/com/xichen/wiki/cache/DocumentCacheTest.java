@@ -0,0 +1,224 @@
+package com.xichen.wiki.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.xichen.wiki.entity.Document;
+import com.xichen.wiki.event.ChangeType;
+import com.xichen.wiki.event.EntityChangeEvent;
+import com.xichen.wiki.util.RedisKeyUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文档两级缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentCacheTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private DocumentCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        cache = new DocumentCache();
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "localMaxSize", 2);
+        ReflectionTestUtils.setField(cache, "localTtlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "redisTtlSeconds", 600L);
+    }
+
+    @Test
+    void testLocalHitReturnsCopy() {
+        Document first = cache.get(1L, this::load);
+        first.setTitle("调用方修改");
+
+        Document second = cache.get(1L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals("文档1", second.getTitle());
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of(RedisKeyUtil.getDocumentCacheKey(1L), RedisKeyUtil.getDocumentCacheGenerationKey(1L))),
+                eq("0"), anyString(), eq("600"));
+    }
+
+    @Test
+    void testRedisHitSkipsDatabase() throws Exception {
+        ObjectMapper objectMapper = (ObjectMapper) ReflectionTestUtils.getField(cache, "objectMapper");
+        when(valueOperations.get(RedisKeyUtil.getDocumentCacheKey(2L)))
+                .thenReturn(objectMapper.writeValueAsString(document(2L)));
+
+        Document document = cache.get(2L, this::load);
+
+        assertEquals("文档2", document.getTitle());
+        assertEquals(0, loads.get());
+        assertEquals(1L, cache.getStats().get("redisHits"));
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Document>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.get(3L, id -> {
+                started.countDown();
+                await(release);
+                return load(id);
+            })));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                futures.add(executor.submit(() -> cache.get(3L, this::load)));
+            }
+            // 等待其余线程进入等待状态后再放行回源
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Document> future : futures) {
+                assertEquals("文档3", future.get(5, TimeUnit.SECONDS).getTitle());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidationEvictsAndNotifies() {
+        cache.get(4L, this::load);
+
+        cache.onEntityChange(EntityChangeEvent.documentDeleted(1L, 4L));
+        cache.get(4L, this::load);
+
+        assertEquals(2, loads.get());
+        verify(stringRedisTemplate).delete(RedisKeyUtil.getDocumentCacheKey(4L));
+        verify(stringRedisTemplate).convertAndSend(eq(RedisKeyUtil.getDocumentCacheInvalidateChannel()), endsWith(":4"));
+    }
+
+    @Test
+    void testTagRelinkDoesNotInvalidate() {
+        cache.get(5L, this::load);
+
+        cache.onEntityChange(EntityChangeEvent.documentTagsRelinked(1L, 5L, new Long[]{1L}));
+        cache.get(5L, this::load);
+
+        assertEquals(1, loads.get());
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void testRemoteNotificationEvictsLocalOnly() {
+        cache.get(6L, this::load);
+        cache.onEntityChange(EntityChangeEvent.document(ChangeType.UPDATED, document(6L)));
+        cache.get(6L, this::load);
+        assertEquals(2, loads.get());
+
+        // 其他实例的通知：只删除本地条目
+        cache.onMessage(new DefaultMessage(new byte[0], "other-node:6".getBytes(StandardCharsets.UTF_8)), null);
+        cache.get(6L, this::load);
+
+        assertEquals(3, loads.get());
+        verify(stringRedisTemplate, times(1)).delete(anyString());
+    }
+
+    @Test
+    void testMissingDocumentNotCached() {
+        assertNull(cache.get(7L, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get(7L, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(2, loads.get());
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testWriteBackComparesRemoteGeneration() {
+        when(valueOperations.get(RedisKeyUtil.getDocumentCacheGenerationKey(8L))).thenReturn("3");
+
+        cache.get(8L, this::load);
+        cache.invalidate(8L);
+
+        // 写回时带上回源前读到的代数，由Redis比较；失效时先推进代数再删除条目
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of(RedisKeyUtil.getDocumentCacheKey(8L), RedisKeyUtil.getDocumentCacheGenerationKey(8L))),
+                eq("3"), anyString(), eq("600"));
+        InOrder inOrder = inOrder(valueOperations, stringRedisTemplate);
+        inOrder.verify(valueOperations).increment(RedisKeyUtil.getDocumentCacheGenerationKey(8L));
+        inOrder.verify(stringRedisTemplate).delete(RedisKeyUtil.getDocumentCacheKey(8L));
+    }
+
+    @Test
+    void testRedisUnavailableSkipsWriteBack() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals("文档9", cache.get(9L, this::load).getTitle());
+
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    private Document load(Long id) {
+        loads.incrementAndGet();
+        return document(id);
+    }
+
+    private static Document document(Long id) {
+        Document document = new Document();
+        document.setId(id);
+        document.setTitle("文档" + id);
+        document.setContent("正文" + id);
+        document.setUserId(1L);
+        document.setVersion(1);
+        document.setUpdatedAt(LocalDateTime.of(2024, 9, 25, 12, 0));
+        return document;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
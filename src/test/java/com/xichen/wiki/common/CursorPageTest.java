@@ -0,0 +1,38 @@
+package com.xichen.wiki.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页结果测试类
+ */
+class CursorPageTest {
+
+    @Test
+    void testExtraRowMeansMore() {
+        CursorPage<Integer> page = CursorPage.of(List.of(5, 4, 3), 2, String::valueOf);
+        assertEquals(List.of(5, 4), page.getRecords());
+        assertTrue(page.getHasMore());
+        assertEquals("4", page.getNextCursor());
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        CursorPage<Integer> page = CursorPage.of(List.of(2, 1), 2, String::valueOf);
+        assertEquals(List.of(2, 1), page.getRecords());
+        assertFalse(page.getHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testMapKeepsCursor() {
+        CursorPage<String> page = CursorPage.of(List.of(5, 4, 3), 2, String::valueOf).map(i -> "#" + i);
+        assertEquals(List.of("#5", "#4"), page.getRecords());
+        assertTrue(page.getHasMore());
+        assertEquals("4", page.getNextCursor());
+        assertEquals(2, page.getSize());
+    }
+}
@@ -0,0 +1,127 @@
+package com.xichen.wiki.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 实体变更事件分发器测试类
+ */
+class EntityChangeDispatcherTest {
+
+    private static final int DOCUMENTS = 8;
+
+    private static final int EVENTS_PER_DOCUMENT = 50;
+
+    private final CountDownLatch received = new CountDownLatch(DOCUMENTS * EVENTS_PER_DOCUMENT);
+
+    /**
+     * 文档ID -> 按投递顺序收到的发布轮次（删除事件记为最后一轮）
+     */
+    private final Map<Long, List<Long>> byDocument = new ConcurrentHashMap<>();
+
+    private EntityChangeDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        EntityChangeListener recorder = events -> {
+            for (EntityChangeEvent event : events) {
+                long round = event.getChangeType() == ChangeType.DELETED ? EVENTS_PER_DOCUMENT - 1 : event.getTagIds()[0];
+                byDocument.computeIfAbsent(event.getEntityId(), id -> new ArrayList<>()).add(round);
+                received.countDown();
+            }
+        };
+        EntityChangeListener failing = events -> {
+            throw new IllegalStateException("订阅方异常");
+        };
+        dispatcher = new EntityChangeDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "listeners", List.of(failing, recorder));
+        ReflectionTestUtils.setField(dispatcher, "threads", 3);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 16);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 5);
+        ReflectionTestUtils.setField(dispatcher, "offerTimeoutMs", 5000L);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void testEventsOfSameEntityKeepPublishOrder() throws InterruptedException {
+        List<Long> rounds = new ArrayList<>();
+        for (long round = 0; round < EVENTS_PER_DOCUMENT; round++) {
+            rounds.add(round);
+            for (long id = 1; id <= DOCUMENTS; id++) {
+                dispatcher.onCommitted(round == EVENTS_PER_DOCUMENT - 1
+                        ? EntityChangeEvent.documentDeleted(100L, id)
+                        : EntityChangeEvent.documentTagsRelinked(100L, id, new Long[]{round}));
+            }
+        }
+
+        // 队列容量远小于事件数，发布方会被阻塞等待消费，但不丢事件；订阅方异常也不影响其他订阅方
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        assertEquals(DOCUMENTS, byDocument.size());
+        for (List<Long> delivered : byDocument.values()) {
+            assertEquals(rounds, delivered);
+        }
+        assertEquals(Long.valueOf(DOCUMENTS * EVENTS_PER_DOCUMENT), dispatcher.getStats().get("published"));
+    }
+
+    @Test
+    void testOverflowDropsEventAndNotifiesListeners() throws InterruptedException {
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<EntityChangeEvent> overflowed = new CopyOnWriteArrayList<>();
+        EntityChangeListener slow = new EntityChangeListener() {
+            @Override
+            public void onChanges(List<EntityChangeEvent> events) {
+                consuming.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onOverflow(EntityChangeEvent event) {
+                overflowed.add(event);
+            }
+        };
+        EntityChangeDispatcher small = new EntityChangeDispatcher();
+        ReflectionTestUtils.setField(small, "listeners", List.of(slow));
+        ReflectionTestUtils.setField(small, "threads", 1);
+        ReflectionTestUtils.setField(small, "queueCapacity", 1);
+        ReflectionTestUtils.setField(small, "batchSize", 1);
+        ReflectionTestUtils.setField(small, "offerTimeoutMs", 50L);
+        small.start();
+        try {
+            // 第一个事件被投递线程取走后卡住，第二个占满队列，第三个等待超时后被丢弃
+            small.onCommitted(EntityChangeEvent.documentDeleted(100L, 1L));
+            assertTrue(consuming.await(5, TimeUnit.SECONDS));
+            small.onCommitted(EntityChangeEvent.documentDeleted(100L, 2L));
+            small.onCommitted(EntityChangeEvent.documentDeleted(100L, 3L));
+
+            assertEquals(1, overflowed.size());
+            assertEquals(Long.valueOf(3), overflowed.get(0).getEntityId());
+            assertEquals(Long.valueOf(2), small.getStats().get("published"));
+            assertEquals(Long.valueOf(1), small.getStats().get("dropped"));
+        } finally {
+            release.countDown();
+            small.stop();
+        }
+    }
+}
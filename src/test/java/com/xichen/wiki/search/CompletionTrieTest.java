@@ -0,0 +1,59 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 前缀补全树测试类
+ */
+class CompletionTrieTest {
+
+    private CompletionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new CompletionTrie(3);
+        trie.add("Spring Boot", 1);
+        trie.add("spring cloud", 5);
+        trie.add("Spark", 2);
+        trie.add("spring", 3);
+        trie.add("Java", 1);
+    }
+
+    @Test
+    void testPrefixTopKByWeight() {
+        assertEquals(List.of("spring cloud", "spring", "Spark"), trie.suggest("sp", 10));
+        // 前缀大小写不敏感，首尾空白忽略
+        assertEquals(List.of("spring cloud", "spring", "Spring Boot"), trie.suggest("SPRING ", 10));
+        assertEquals(List.of("spring cloud"), trie.suggest("sp", 1));
+        assertTrue(trie.suggest("python", 10).isEmpty());
+    }
+
+    @Test
+    void testIncrementalWeightChanges() {
+        trie.add("spring cloud", -5);
+        assertEquals(List.of("spring", "Spark", "Spring Boot"), trie.suggest("sp", 10));
+
+        trie.add("Spring Boot", 10);
+        assertEquals(List.of("Spring Boot", "spring"), trie.suggest("s", 2));
+
+        trie.add("java", -1);
+        assertTrue(trie.suggest("j", 10).isEmpty());
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    void testFuzzySuggest() {
+        assertTrue(trie.suggest("sprnig", 10).isEmpty());
+        assertEquals(List.of("spring cloud", "spring", "Spring Boot"), trie.fuzzySuggest("sprnig", 10));
+        assertEquals(List.of("Java"), trie.fuzzySuggest("jaca", 10));
+        // 精确前缀已给出的词条不重复返回
+        assertTrue(trie.fuzzySuggest("sprin", 10).isEmpty());
+        // 短前缀不容错
+        assertTrue(trie.fuzzySuggest("jv", 10).isEmpty());
+    }
+}
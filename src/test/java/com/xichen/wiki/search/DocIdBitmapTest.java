@@ -0,0 +1,98 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 压缩ID位图测试类
+ */
+class DocIdBitmapTest {
+
+    @Test
+    void testAddRemoveAndContains() {
+        DocIdBitmap bitmap = new DocIdBitmap();
+        bitmap.add(3);
+        bitmap.add(70000);
+        bitmap.add(3);
+
+        assertEquals(2, bitmap.cardinality());
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(4));
+        assertEquals(3, bitmap.first());
+        assertEquals(70000, bitmap.last());
+
+        bitmap.remove(70000);
+        bitmap.remove(70000);
+        assertEquals(List.of(3L), bitmap.toList());
+
+        bitmap.remove(3);
+        assertTrue(bitmap.isEmpty());
+        assertEquals(-1, bitmap.first());
+    }
+
+    @Test
+    void testDenseContainerConvertsBackWhenShrinking() {
+        DocIdBitmap bitmap = new DocIdBitmap();
+        for (long id = 0; id < 10000; id++) {
+            bitmap.add(id);
+        }
+        assertEquals(10000, bitmap.cardinality());
+        assertEquals(9999, bitmap.last());
+
+        for (long id = 0; id < 10000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertEquals(5000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9999));
+        assertFalse(bitmap.contains(9998));
+
+        for (long id = 1; id < 10000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void testAndOrMatchSetSemantics() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // 稀疏与稠密混合，覆盖数组容器与位图容器的各种组合
+            int range = round % 2 == 0 ? 200000 : 9000;
+            int count = random.nextInt(12000);
+            TreeSet<Long> left = new TreeSet<>();
+            TreeSet<Long> right = new TreeSet<>();
+            DocIdBitmap a = new DocIdBitmap();
+            DocIdBitmap b = new DocIdBitmap();
+            for (int i = 0; i < count; i++) {
+                long x = random.nextInt(range);
+                long y = random.nextInt(range);
+                left.add(x);
+                a.add(x);
+                right.add(y);
+                b.add(y);
+            }
+
+            TreeSet<Long> union = new TreeSet<>(left);
+            union.addAll(right);
+            TreeSet<Long> intersection = new TreeSet<>(left);
+            intersection.retainAll(right);
+
+            assertEquals(new ArrayList<>(union), a.or(b).toList());
+            assertEquals(new ArrayList<>(intersection), a.and(b).toList());
+            assertEquals(intersection.size(), b.and(a).cardinality());
+            assertEquals(intersection.size(), a.andCardinality(b));
+            // 运算不修改原位图
+            assertEquals(new ArrayList<>(left), a.toList());
+            assertEquals(new ArrayList<>(right), b.toList());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分面计数器测试类
+ */
+class FacetCounterTest {
+
+    @Test
+    void testCountsInOnePass() {
+        FacetCounter counter = new FacetCounter();
+        counter.add("document", 1L, LocalDateTime.of(2023, 5, 1, 0, 0));
+        counter.add("document", 2L, LocalDateTime.of(2024, 1, 1, 0, 0));
+        counter.add("document", 2L, LocalDateTime.of(2024, 3, 1, 0, 0));
+        counter.add("ebook", null, null);
+        counter.addTagCounts(Map.of(10L, 2L, 11L, 3L));
+
+        Map<String, Map<Object, Long>> facets = counter.toMap();
+        assertEquals(Map.of("document", 3L, "ebook", 1L), facets.get(FacetCounter.FACET_TYPE));
+        // 按数量降序
+        assertEquals(List.of(2L, 1L), new ArrayList<>(facets.get(FacetCounter.FACET_CATEGORY).keySet()));
+        assertEquals(List.of(11L, 10L), new ArrayList<>(facets.get(FacetCounter.FACET_TAG).keySet()));
+        // 年份按年份降序
+        assertEquals(List.of(2024, 2023), new ArrayList<>(facets.get(FacetCounter.FACET_YEAR).keySet()));
+        assertEquals(Long.valueOf(2), facets.get(FacetCounter.FACET_YEAR).get(2024));
+    }
+
+    @Test
+    void testMerge() {
+        FacetCounter documents = new FacetCounter();
+        documents.add("document", 1L, LocalDateTime.of(2024, 1, 1, 0, 0));
+        documents.addTagCounts(Map.of(10L, 1L));
+        FacetCounter ebooks = new FacetCounter();
+        ebooks.add("ebook", 1L, LocalDateTime.of(2024, 6, 1, 0, 0));
+
+        Map<String, Map<Object, Long>> facets = new FacetCounter().merge(documents).merge(ebooks).toMap();
+        assertEquals(Long.valueOf(2), facets.get(FacetCounter.FACET_CATEGORY).get(1L));
+        assertEquals(Long.valueOf(2), facets.get(FacetCounter.FACET_YEAR).get(2024));
+        assertEquals(Long.valueOf(1), facets.get(FacetCounter.FACET_TAG).get(10L));
+    }
+
+    @Test
+    void testGroupedCounts() {
+        FacetCounter counter = new FacetCounter();
+        counter.add("document", 1L, 2024, 5);
+        counter.add("document", 2L, 2024, 2);
+        counter.add("document", 1L, null, 1);
+        counter.add("document", 1L, LocalDateTime.of(2023, 1, 1, 0, 0));
+
+        Map<String, Map<Object, Long>> facets = counter.toMap();
+        assertEquals(Long.valueOf(9), facets.get(FacetCounter.FACET_TYPE).get("document"));
+        assertEquals(Long.valueOf(7), facets.get(FacetCounter.FACET_CATEGORY).get(1L));
+        assertEquals(Long.valueOf(7), facets.get(FacetCounter.FACET_YEAR).get(2024));
+        assertEquals(Long.valueOf(1), facets.get(FacetCounter.FACET_YEAR).get(2023));
+    }
+
+    @Test
+    void testMergeKeepsTruncated() {
+        FacetCounter documents = new FacetCounter();
+        documents.markTruncated();
+
+        assertFalse(new FacetCounter().isTruncated());
+        assertTrue(new FacetCounter().merge(new FacetCounter()).merge(documents).isTruncated());
+    }
+}
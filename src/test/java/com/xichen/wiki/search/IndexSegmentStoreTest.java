@@ -0,0 +1,137 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 索引段存储测试类
+ */
+class IndexSegmentStoreTest {
+
+    private static final Long USER_ID = 7L;
+
+    private Path baseDir;
+
+    private IndexSegmentStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("segments");
+        store = new IndexSegmentStore();
+        ReflectionTestUtils.setField(store, "baseDir", baseDir.toString());
+        ReflectionTestUtils.setField(store, "slots", 2);
+        ReflectionTestUtils.setField(store, "maxSegments", 3);
+        store.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.stop();
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testReopenRestoresIndexFromBaseAndDeltaSegments() {
+        InvertedIndex index = newIndex();
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 100L, fields("Spring Boot 入门", "中国的故事"));
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 2L, 200L, fields("Redis 缓存", "spring data"));
+        index.upsert(SearchConstants.TYPE_EBOOK, 3L, 50L, fields("三体", "刘慈欣"));
+        store.writeFull(USER_ID, index);
+
+        // 增量段：修改一条、删除一条、新增一条
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 2L, 300L, fields("Redis 集群", "运维笔记"));
+        index.remove(SearchConstants.TYPE_EBOOK, 3L);
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 4L, 400L, fields("Spring Cloud", "微服务"));
+        store.flush(USER_ID, index);
+
+        InvertedIndex reopened = newIndex();
+        assertNotNull(store.open(USER_ID, reopened));
+        assertEquals(3, reopened.size());
+        for (String keyword : List.of("spring", "redis 集群", "中国", "三体", "spring data")) {
+            assertEquals(hits(index.search(keyword, SearchConstants.TYPE_ALL, 0)),
+                    hits(reopened.search(keyword, SearchConstants.TYPE_ALL, 0)), keyword);
+        }
+    }
+
+    @Test
+    void testSegmentsMergeWhenOverLimit() throws IOException {
+        InvertedIndex index = newIndex();
+        store.writeFull(USER_ID, index);
+        for (long id = 1; id <= 5; id++) {
+            index.upsert(SearchConstants.TYPE_DOCUMENT, id, id, fields("标题" + id, "正文"));
+            store.flush(USER_ID, index);
+        }
+
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            long segments = files.filter(path -> path.getFileName().toString().endsWith(".idx")).count();
+            assertTrue(segments <= 3);
+        }
+        InvertedIndex reopened = newIndex();
+        store.open(USER_ID, reopened);
+        assertEquals(5, reopened.size());
+        assertEquals(List.of(3L), reopened.search("标题3", SearchConstants.TYPE_ALL, 0)
+                .getHits().stream().map(SearchHit::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testStaleCommitIsNotRestored() throws InterruptedException {
+        InvertedIndex index = newIndex();
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 1L, fields("Spring", ""));
+        store.writeFull(USER_ID, index);
+        ReflectionTestUtils.setField(store, "maxReplayAgeMs", 1L);
+        Thread.sleep(20);
+
+        InvertedIndex reopened = newIndex();
+        assertNull(store.open(USER_ID, reopened));
+        assertEquals(0, reopened.size());
+    }
+
+    @Test
+    void testSecondStoreTakesAnotherSlot() throws IOException {
+        IndexSegmentStore other = new IndexSegmentStore();
+        ReflectionTestUtils.setField(other, "baseDir", baseDir.toString());
+        ReflectionTestUtils.setField(other, "slots", 2);
+        ReflectionTestUtils.setField(other, "maxSegments", 3);
+        other.start();
+        try {
+            InvertedIndex index = newIndex();
+            index.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 1L, fields("Spring", ""));
+            store.writeFull(USER_ID, index);
+            assertTrue(other.isEnabled());
+            assertNull(other.open(USER_ID, newIndex()));
+        } finally {
+            other.stop();
+        }
+    }
+
+    private static InvertedIndex newIndex() {
+        return new InvertedIndex(Analyzer.standard(),
+                new Bm25Similarity(1.2, 0.75, Map.of(SearchConstants.FIELD_TITLE, 3.0)));
+    }
+
+    private static Map<String, String> fields(String title, String body) {
+        return Map.of(SearchConstants.FIELD_TITLE, title, SearchConstants.FIELD_BODY, body);
+    }
+
+    private static List<String> hits(SearchResult result) {
+        return result.getHits().stream()
+                .map(hit -> hit.getType() + ":" + hit.getId() + ":" + hit.getScore())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,199 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.constant.SearchConstants;
+import com.xichen.wiki.search.analyzer.Analyzer;
+import com.xichen.wiki.search.query.FieldFilter;
+import com.xichen.wiki.search.query.Query;
+import com.xichen.wiki.search.query.QueryParser;
+import com.xichen.wiki.util.ContentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 倒排索引测试类
+ */
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(Analyzer.standard(),
+                new Bm25Similarity(1.2, 0.75, Map.of(SearchConstants.FIELD_TITLE, 3.0)));
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 100L,
+                Map.of(SearchConstants.FIELD_TITLE, "Spring Boot 入门", SearchConstants.FIELD_BODY, "这是一个中国的故事"));
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 2L, 200L,
+                Map.of(SearchConstants.FIELD_TITLE, "中 国", SearchConstants.FIELD_BODY, "spring"));
+        index.upsert(SearchConstants.TYPE_EBOOK, 3L, 50L,
+                Map.of(SearchConstants.FIELD_TITLE, "三体", SearchConstants.FIELD_BODY, "刘慈欣\n科幻小说"));
+    }
+
+    @Test
+    void testPhraseMatchDoesNotCrossSeparators() {
+        // "中 国" 中间有空格，不应命中短语 "中国"
+        assertEquals(List.of(1L), ids(index.search("中国", SearchConstants.TYPE_ALL, 0)));
+        // 作者与描述之间的换行同样阻断短语
+        assertTrue(index.search("欣科", SearchConstants.TYPE_ALL, 0).getHits().isEmpty());
+    }
+
+    @Test
+    void testTypeFilterAndTitleBoost() {
+        // 标题命中的权重高于正文命中，即使正文命中的文档更新
+        assertEquals(List.of(1L, 2L), ids(index.search("SPRING", SearchConstants.TYPE_DOCUMENT, 0)));
+        assertTrue(index.search("spring", SearchConstants.TYPE_EBOOK, 0).getHits().isEmpty());
+        assertEquals(List.of(3L), ids(index.search("科幻", SearchConstants.TYPE_ALL, 0)));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 300L,
+                Map.of(SearchConstants.FIELD_TITLE, "新标题", SearchConstants.FIELD_BODY, "全新内容"));
+        assertTrue(index.search("spring boot", SearchConstants.TYPE_ALL, 0).getHits().isEmpty());
+        assertEquals(List.of(1L), ids(index.search("全新", SearchConstants.TYPE_ALL, 0)));
+
+        index.remove(SearchConstants.TYPE_DOCUMENT, 1L);
+        assertTrue(index.search("全新", SearchConstants.TYPE_ALL, 0).getHits().isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testTopKKeepsTotal() {
+        SearchResult result = index.search("spring", SearchConstants.TYPE_ALL, 1);
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(1L), ids(result));
+        assertTrue(result.getHits().get(0).getScore() > 0);
+    }
+
+    @Test
+    void testFindsTermOnlyInCompressedDocumentBody() {
+        // 大文档正文压缩存储，库中的值无法 LIKE 匹配，正文检索由索引中的解码文本完成
+        String content = "## 背景\n".repeat(2000) + "向量数据库选型\n" + "## 结论\n".repeat(2000);
+        String stored = ContentCodec.encode(content);
+        assertTrue(ContentCodec.isCompressed(stored));
+        assertFalse(stored.contains("向量数据库"));
+
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 5L, 500L,
+                Map.of(SearchConstants.FIELD_TITLE, "架构笔记", SearchConstants.FIELD_BODY, ContentCodec.decode(stored)));
+        assertEquals(List.of(5L), ids(index.search("向量数据库", SearchConstants.TYPE_DOCUMENT, 0)));
+    }
+
+    @Test
+    void testSameScoreFallsBackToSortTime() {
+        index.upsert(SearchConstants.TYPE_DOCUMENT, 4L, 400L,
+                Map.of(SearchConstants.FIELD_TITLE, "三体", SearchConstants.FIELD_BODY, "刘慈欣\n科幻小说"));
+        assertEquals(List.of(4L, 3L), ids(index.search("三体", SearchConstants.TYPE_ALL, 0)));
+    }
+
+    @Test
+    void testSearchAfterWalksSameOrderAsFullSearch() {
+        for (long id = 10; id < 20; id++) {
+            // 部分文档得分和时间完全相同，依赖类型和ID定序
+            index.upsert(SearchConstants.TYPE_DOCUMENT, id, id % 3,
+                    Map.of(SearchConstants.FIELD_TITLE, "Spring 笔记", SearchConstants.FIELD_BODY, "内容"));
+        }
+        List<Long> expected = ids(index.search("spring", SearchConstants.TYPE_ALL, 0));
+
+        List<Long> walked = new ArrayList<>();
+        SearchHit after = null;
+        while (true) {
+            SearchResult page = index.search("spring", SearchConstants.TYPE_ALL, 3, after);
+            if (page.getHits().isEmpty()) {
+                break;
+            }
+            walked.addAll(ids(page));
+            after = page.getHits().get(page.getHits().size() - 1);
+        }
+        assertEquals(expected, walked);
+        assertEquals(12, walked.size());
+    }
+
+    @Test
+    void testFuzzyMatchRanksBelowExactHits() {
+        InvertedIndex fuzzy = new InvertedIndex(Analyzer.standard(),
+                new Bm25Similarity(1.2, 0.75, Map.of(SearchConstants.FIELD_TITLE, 3.0)), 20);
+        fuzzy.upsert(SearchConstants.TYPE_DOCUMENT, 1L, 100L,
+                Map.of(SearchConstants.FIELD_TITLE, "Spring Boot 入门", SearchConstants.FIELD_BODY, "内容"));
+        fuzzy.upsert(SearchConstants.TYPE_DOCUMENT, 2L, 200L,
+                Map.of(SearchConstants.FIELD_TITLE, "笔记", SearchConstants.FIELD_BODY, "spring"));
+        fuzzy.upsert(SearchConstants.TYPE_DOCUMENT, 4L, 50L,
+                Map.of(SearchConstants.FIELD_TITLE, "错别字", SearchConstants.FIELD_BODY, "sprnig"));
+
+        // 未开启模糊匹配的索引只做精确匹配
+        assertTrue(index.search("sprnig", SearchConstants.TYPE_ALL, 0).getHits().isEmpty());
+        // 精确命中排在前面，即使模糊命中的文档是标题匹配
+        assertEquals(List.of(4L, 1L, 2L), ids(fuzzy.search("sprnig", SearchConstants.TYPE_ALL, 0)));
+        assertEquals(List.of(1L), ids(fuzzy.search("sprnig boot", SearchConstants.TYPE_ALL, 0)));
+        // 短词不容错
+        assertTrue(fuzzy.search("sp", SearchConstants.TYPE_ALL, 0).getHits().isEmpty());
+
+        fuzzy.remove(SearchConstants.TYPE_DOCUMENT, 1L);
+        fuzzy.remove(SearchConstants.TYPE_DOCUMENT, 2L);
+        assertEquals(List.of(4L), ids(fuzzy.search("spring", SearchConstants.TYPE_ALL, 0)));
+    }
+
+    @Test
+    void testQuerySyntax() {
+        index.upsert(SearchConstants.TYPE_EBOOK, 5L, 500L, Map.of(SearchConstants.FIELD_TITLE, "Spring 实战",
+                SearchConstants.FIELD_AUTHOR, "Craig Walls", SearchConstants.FIELD_BODY, "介绍 spring boot"));
+        QueryParser parser = new QueryParser();
+        FieldFilter tags = (field, value, prefix) -> {
+            DocIdBitmap documentIds = new DocIdBitmap();
+            if ("java".equals(value)) {
+                documentIds.add(2L);
+            }
+            return documentIds;
+        };
+
+        assertEquals(Set.of(1L, 5L), idSet(index.search(parser.parse("boot spring"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(Set.of(1L, 5L), idSet(index.search(parser.parse("title:spring"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(List.of(2L), ids(index.search(parser.parse("spring -boot"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(List.of(5L), ids(index.search(parser.parse("author:craig"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(List.of(3L), ids(index.search(parser.parse("NOT spring"), SearchConstants.TYPE_ALL, 0, tags)));
+        // 前缀展开后与CJK短语求交集，"中 国" 不构成短语
+        assertEquals(List.of(1L), ids(index.search(parser.parse("spr* AND 中国"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(Set.of(2L, 3L), idSet(index.search(parser.parse("tag:java OR title:三体"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertEquals(List.of(2L), ids(index.search(parser.parse("tag:java spring"), SearchConstants.TYPE_ALL, 0, tags)));
+        assertTrue(index.search(parser.parse("tag:java"), SearchConstants.TYPE_ALL, 0, null).getHits().isEmpty());
+        assertEquals(List.of(5L), ids(index.search(parser.parse("spring boot"), SearchConstants.TYPE_EBOOK, 0, tags)));
+    }
+
+    @Test
+    void testQuerySearchAfterWalksSameOrderAsFullSearch() {
+        for (long id = 10; id < 20; id++) {
+            index.upsert(id % 2 == 0 ? SearchConstants.TYPE_DOCUMENT : SearchConstants.TYPE_EBOOK, id, id % 3,
+                    Map.of(SearchConstants.FIELD_TITLE, "Spring 笔记", SearchConstants.FIELD_BODY, "内容"));
+        }
+        Query query = new QueryParser().parse("spring OR 三体");
+        List<Long> expected = ids(index.search(query, SearchConstants.TYPE_ALL, 0, null));
+
+        List<Long> walked = new ArrayList<>();
+        SearchHit after = null;
+        while (true) {
+            SearchResult page = index.search(query, SearchConstants.TYPE_ALL, 4, null, after);
+            if (page.getHits().isEmpty()) {
+                break;
+            }
+            walked.addAll(ids(page));
+            after = page.getHits().get(page.getHits().size() - 1);
+        }
+        assertEquals(expected, walked);
+        assertEquals(13, walked.size());
+    }
+
+    private static Set<Long> idSet(SearchResult result) {
+        return new HashSet<>(ids(result));
+    }
+
+    private static List<Long> ids(SearchResult result) {
+        return result.getHits().stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
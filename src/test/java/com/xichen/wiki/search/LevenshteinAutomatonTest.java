@@ -0,0 +1,64 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Levenshtein自动机测试类
+ */
+class LevenshteinAutomatonTest {
+
+    @Test
+    void testDistance() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("spring", 2);
+        assertEquals(0, distance(automaton, "spring"));
+        assertEquals(1, distance(automaton, "sprint"));
+        assertEquals(2, distance(automaton, "sprnig"));
+        assertEquals(3, distance(automaton, "summer"));
+        assertFalse(automaton.canMatch(run(automaton, "xyz")));
+        assertTrue(automaton.canMatch(run(automaton, "spr")));
+    }
+
+    @Test
+    void testMaxEditsByLength() {
+        assertEquals(0, LevenshteinAutomaton.maxEditsFor(2));
+        assertEquals(1, LevenshteinAutomaton.maxEditsFor(5));
+        assertEquals(2, LevenshteinAutomaton.maxEditsFor(6));
+    }
+
+    @Test
+    void testTermTrieFuzzyTerms() {
+        TermTrie trie = new TermTrie();
+        for (String term : List.of("spring", "sprint", "string", "summer", "spring")) {
+            trie.add(term);
+        }
+        assertEquals(4, trie.size());
+        assertEquals(Map.of("spring", 0, "sprint", 1, "string", 1),
+                trie.fuzzyTerms(new LevenshteinAutomaton("spring", 1), 10));
+        assertEquals(List.of("spring", "sprint"),
+                List.copyOf(trie.fuzzyTerms(new LevenshteinAutomaton("spring", 1), 2).keySet()));
+
+        // 引用计数归零后才真正删除
+        trie.remove("spring");
+        assertEquals(4, trie.size());
+        trie.remove("spring");
+        trie.remove("string");
+        assertEquals(Map.of("sprint", 1), trie.fuzzyTerms(new LevenshteinAutomaton("spring", 1), 10));
+    }
+
+    private static int distance(LevenshteinAutomaton automaton, String text) {
+        return automaton.distance(run(automaton, text));
+    }
+
+    private static int[] run(LevenshteinAutomaton automaton, String text) {
+        int[] state = automaton.start();
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.step(state, text.charAt(i));
+        }
+        return state;
+    }
+}
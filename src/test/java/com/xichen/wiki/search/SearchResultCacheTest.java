@@ -0,0 +1,65 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索结果缓存测试类
+ */
+class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+    }
+
+    @Test
+    void testHitAndUserInvalidation() {
+        assertEquals("a", load(1L, "a"));
+        assertEquals("a", load(1L, "a"));
+        assertEquals("b", load(2L, "b"));
+        assertEquals(2, loads.get());
+
+        // 只清除用户1的条目
+        cache.invalidateUser(1L);
+        load(1L, "a");
+        load(2L, "b");
+        assertEquals(3, loads.get());
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(3L, stats.get("misses"));
+    }
+
+    @Test
+    void testSizeBoundAndUncacheableResults() {
+        load(1L, "a");
+        load(1L, "b");
+        load(1L, "c");
+        assertEquals(1L, cache.getStats().get("evictions"));
+
+        cache.get(1L, "partial", () -> "p", value -> false);
+        cache.get(1L, "partial", () -> "p", value -> false);
+        assertEquals(2, cache.getStats().get("size"));
+    }
+
+    private String load(Long userId, String key) {
+        return cache.get(userId, key, () -> {
+            loads.incrementAndGet();
+            return key;
+        }, value -> true);
+    }
+}
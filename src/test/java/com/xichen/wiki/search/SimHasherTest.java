@@ -0,0 +1,65 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.search.analyzer.Analyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimHash指纹测试类
+ */
+class SimHasherTest {
+
+    private static final String NOTE = "Spring Boot 自动配置通过条件注解决定是否创建 Bean，"
+            + "常见的条件包括类路径上存在某个类、容器中缺少某个 Bean 以及配置属性的取值。"
+            + "理解这些条件的求值顺序，有助于排查为什么某个自动配置没有生效。\n"
+            + "启动时可以加上 --debug 参数输出条件评估报告，报告会列出每个自动配置类匹配或未匹配的原因。"
+            + "如果需要关闭某个自动配置，可以在启动类注解上使用 exclude 属性。";
+
+    private final SimHasher hasher = new SimHasher(Analyzer.standard(), 20);
+
+    @Test
+    void testNearDuplicatesHaveSmallDistance() {
+        long original = hasher.fingerprint(NOTE);
+        long pasted = hasher.fingerprint(NOTE + " ");
+        long edited = hasher.fingerprint(NOTE.replace("排查", "定位"));
+        long other = hasher.fingerprint("Redis 的有序集合由跳表和哈希表共同实现，跳表负责按分值范围查询，"
+                + "哈希表负责按成员查找分值，两者配合使常见操作都能在对数时间内完成。");
+
+        assertNotEquals(SimHasher.NONE, original);
+        assertEquals(original, pasted);
+        assertTrue(SimHasher.distance(original, edited) <= SimHasher.MAX_DISTANCE,
+                "distance=" + SimHasher.distance(original, edited));
+        assertTrue(SimHasher.isNearDuplicate(original, edited));
+        assertFalse(SimHasher.isNearDuplicate(original, other));
+    }
+
+    @Test
+    void testShortTextHasNoFingerprint() {
+        assertEquals(SimHasher.NONE, hasher.fingerprint("短笔记"));
+        assertEquals(SimHasher.NONE, hasher.fingerprint(null));
+        assertFalse(SimHasher.isNearDuplicate(SimHasher.NONE, SimHasher.NONE));
+    }
+
+    @Test
+    void testBandsGuaranteeSharedBucketWithinMaxDistance() {
+        long fingerprint = 0x0123456789ABCDEFL;
+        // 翻转 MAX_DISTANCE 位，分布在不同段上，仍有一段未被改动
+        long flipped = fingerprint ^ (1L << 3) ^ (1L << 15) ^ (1L << 25) ^ (1L << 40) ^ (1L << 50);
+        Set<Integer> keys = new HashSet<>();
+        for (int band = 0; band < SimHasher.BANDS; band++) {
+            keys.add(SimHasher.bandKey(fingerprint, band));
+        }
+        assertEquals(SimHasher.BANDS, keys.size());
+        int shared = 0;
+        for (int band = 0; band < SimHasher.BANDS; band++) {
+            if (keys.contains(SimHasher.bandKey(flipped, band))) {
+                shared++;
+            }
+        }
+        assertEquals(1, shared);
+    }
+}
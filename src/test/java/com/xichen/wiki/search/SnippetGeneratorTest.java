@@ -0,0 +1,54 @@
+package com.xichen.wiki.search;
+
+import com.xichen.wiki.search.analyzer.Analyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索摘要生成器测试类
+ */
+class SnippetGeneratorTest {
+
+    private final SnippetGenerator generator = new SnippetGenerator(Analyzer.standard(), 20);
+
+    @Test
+    void testPicksWindowCoveringMostTerms() {
+        String text = "Spring 开头出现一次。" + "无关内容".repeat(10) + "这里同时讲 Spring 和 Redis 缓存";
+        Snippet snippet = generator.generate(text, "spring redis");
+
+        assertTrue(snippet.getText().contains("Spring 和 Redis"));
+        assertTrue(snippet.isTruncatedStart());
+        assertEquals(List.of("Spring", "Redis"), highlighted(snippet));
+    }
+
+    @Test
+    void testOverlappingBigramsMergeIntoOneHighlight() {
+        Snippet snippet = generator.generate("我们都是中国人", "中国人");
+
+        assertEquals("我们都是中国人", snippet.getText());
+        assertEquals(List.of("中国人"), highlighted(snippet));
+        assertFalse(snippet.isTruncatedStart());
+        assertFalse(snippet.isTruncatedEnd());
+    }
+
+    @Test
+    void testFallsBackToLeadingFragmentWithoutMatch() {
+        String text = "没有任何命中的一段很长很长很长很长很长的正文内容";
+        Snippet snippet = generator.generate(text, "spring");
+
+        assertEquals(text.substring(0, 20), snippet.getText());
+        assertTrue(snippet.getHighlights().isEmpty());
+        assertTrue(snippet.isTruncatedEnd());
+        assertNull(generator.generate("", "spring"));
+    }
+
+    private static List<String> highlighted(Snippet snippet) {
+        return snippet.getHighlights().stream()
+                .map(range -> snippet.getText().substring(range[0], range[1]))
+                .collect(Collectors.toList());
+    }
+}
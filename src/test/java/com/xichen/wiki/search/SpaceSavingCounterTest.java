@@ -0,0 +1,42 @@
+package com.xichen.wiki.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Space-Saving 计数器测试类
+ */
+class SpaceSavingCounterTest {
+
+    @Test
+    void testHeavyHittersSurviveWithBoundedCounters() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(10);
+        for (int i = 0; i < 10000; i++) {
+            counter.offer("java", 1);
+            if (i % 2 == 0) {
+                counter.offer("spring", 1);
+            }
+            // 大量只出现一次的长尾词
+            counter.offer("tail-" + i, 1);
+        }
+
+        Map<String, Long> top = counter.top(2);
+        assertEquals(List.of("java", "spring"), List.copyOf(top.keySet()));
+        assertTrue(top.get("java") >= 10000);
+        assertEquals(25000, counter.total());
+        assertEquals(10, counter.drain().size());
+    }
+
+    @Test
+    void testDrainResets() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(4);
+        counter.offer("java", 3);
+        assertEquals(Map.of("java", 3L), counter.drain());
+        assertTrue(counter.drain().isEmpty());
+        assertEquals(0, counter.total());
+    }
+}
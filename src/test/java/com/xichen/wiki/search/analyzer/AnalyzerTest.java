@@ -0,0 +1,60 @@
+package com.xichen.wiki.search.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文本分析器测试类
+ */
+class AnalyzerTest {
+
+    private final Analyzer analyzer = Analyzer.standard();
+
+    @Test
+    void testQueryModeEmitsBigramsOnly() {
+        List<AnalyzedToken> tokens = analyzer.analyzeQuery("中国人");
+
+        assertEquals(List.of("中国", "国人"), terms(tokens));
+        assertEquals(0, tokens.get(0).getPosition());
+        assertEquals(1, tokens.get(1).getPosition());
+        assertEquals(TokenType.BIGRAM, tokens.get(0).getType());
+    }
+
+    @Test
+    void testIndexModeEmitsUnigramsAndBigrams() {
+        List<String> tokens = new ArrayList<>();
+        analyzer.analyze("中国人", (buffer, offset, length, type, position) ->
+                tokens.add(new String(buffer, offset, length) + "@" + position));
+
+        assertEquals(List.of("中@0", "中国@0", "国@1", "国人@1", "人@2"), tokens);
+    }
+
+    @Test
+    void testNormalizationAndFilters() {
+        // 全角转半角 + 小写 + 停用词
+        assertEquals(List.of("spring", "boot"), terms(analyzer.analyzeQuery("ＳＰＲＩＮＧ the Boot")));
+        // 繁体转简体
+        assertEquals(List.of("国际"), terms(analyzer.analyzeQuery("國際")));
+        // 中文单字停用词
+        assertTrue(analyzer.analyzeQuery("的").isEmpty());
+    }
+
+    @Test
+    void testSeparatorAddsPositionGap() {
+        List<AnalyzedToken> tokens = analyzer.analyzeQuery("spring boot");
+
+        assertEquals(0, tokens.get(0).getPosition());
+        assertEquals(2, tokens.get(1).getPosition());
+        assertEquals(7, tokens.get(1).getStartOffset());
+        assertEquals(11, tokens.get(1).getEndOffset());
+    }
+
+    private static List<String> terms(List<AnalyzedToken> tokens) {
+        return tokens.stream().map(AnalyzedToken::getTerm).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package com.xichen.wiki.search.extract;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EPUB正文抽取测试类
+ */
+class EpubPageExtractorTest {
+
+    private static final String CONTAINER = "<?xml version=\"1.0\"?>"
+            + "<container xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\" version=\"1.0\">"
+            + "<rootfiles><rootfile full-path=\"OEBPS/content.opf\" media-type=\"application/oebps-package+xml\"/></rootfiles>"
+            + "</container>";
+
+    private static final String OPF = "<?xml version=\"1.0\"?>"
+            + "<package xmlns=\"http://www.idpf.org/2007/opf\" version=\"3.0\">"
+            + "<manifest>"
+            + "<item id=\"c1\" href=\"text/ch1.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "<item id=\"c2\" href=\"text/ch2.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "</manifest>"
+            + "<spine><itemref idref=\"c2\"/><itemref idref=\"c1\"/></spine>"
+            + "</package>";
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("extract");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testChaptersInSpineOrder() throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("META-INF/container.xml", CONTAINER);
+        entries.put("OEBPS/content.opf", OPF);
+        entries.put("OEBPS/text/ch1.xhtml", html("第二章", "<p>黑暗森林</p>"));
+        entries.put("OEBPS/text/ch2.xhtml", html("第一章", "<p>地球往事</p>"));
+
+        List<String> pages = extract(zip(entries));
+
+        // 每章结束即分页，顺序以书脊为准
+        assertEquals(List.of("第一章\n地球往事", "第二章\n黑暗森林"), pages);
+    }
+
+    @Test
+    void testFallbackToHtmlEntries() throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.html", html("甲", ""));
+        entries.put("style.css", "p { color: red }");
+        entries.put("b.htm", html("乙", ""));
+
+        assertEquals(List.of("甲", "乙"), extract(zip(entries)));
+    }
+
+    @Test
+    void testHtmlTextExtraction() throws Exception {
+        List<String> pages = new ArrayList<>();
+        PageBuffer buffer = new PageBuffer(1000, (pageNumber, text) -> pages.add(text));
+        String html = "<html><head><title>标题</title><style>p{}</style></head><body>"
+                + "<!-- 注释 <p>不输出</p> --><script>var a = '<p>';</script>"
+                + "<p>Tom &amp; Jerry&nbsp;&#20013;&#x6587;</p><div>下一段<br/>换行</div>"
+                + "<p>&unknown; &lt;tag&gt;</p></body></html>";
+
+        EpubPageExtractor.appendHtmlText(new StringReader(html), buffer);
+        buffer.endPage();
+
+        assertEquals(List.of("Tom & Jerry 中文\n下一段\n换行\n&unknown; <tag>"), pages);
+    }
+
+    private static String html(String heading, String body) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><html xmlns=\"http://www.w3.org/1999/xhtml\">"
+                + "<head><title>忽略</title></head><body><h1>" + heading + "</h1>" + body + "</body></html>";
+    }
+
+    private Path zip(Map<String, String> entries) throws Exception {
+        Path file = dir.resolve("book.epub");
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> extract(Path file) throws Exception {
+        List<String> pages = new ArrayList<>();
+        new EpubPageExtractor(1000).extract(file, (pageNumber, text) -> pages.add(text));
+        return pages;
+    }
+}
@@ -0,0 +1,91 @@
+package com.xichen.wiki.search.extract;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 纯文本正文抽取测试类
+ */
+class TxtPageExtractorTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("extract");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testPagesSplitAtLineBreaks() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            text.append("第").append(i).append("段    内容内容内容\n\n");
+        }
+        List<String> pages = extract(new TxtPageExtractor(30), write("book.txt", text.toString(), StandardCharsets.UTF_8));
+
+        assertTrue(pages.size() > 1);
+        for (String page : pages) {
+            // 达到页大小后在换行处分页，不超过硬上限
+            assertTrue(page.length() <= 36, page);
+            assertFalse(page.contains("  "));
+            assertFalse(page.contains("\n\n"));
+        }
+        assertTrue(pages.get(0).startsWith("第0段 内容内容内容"));
+        assertTrue(String.join("\n", pages).contains("第9段"));
+    }
+
+    @Test
+    void testLongLineIsForcedToBreak() throws Exception {
+        List<String> pages = extract(new TxtPageExtractor(100), write("book.txt", "字".repeat(1000), StandardCharsets.UTF_8));
+
+        assertEquals(9, pages.size());
+        assertEquals(120, pages.get(0).length());
+        assertEquals(1000, String.join("", pages).length());
+    }
+
+    @Test
+    void testCharsetDetection() throws Exception {
+        String text = "三体\n地球往事";
+        assertEquals(List.of("三体\n地球往事"),
+                extract(new TxtPageExtractor(100), write("gbk.txt", text, Charset.forName("GBK"))));
+        assertEquals(List.of("三体\n地球往事"),
+                extract(new TxtPageExtractor(100), write("bom.txt", "\uFEFF" + text, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testBlankFileHasNoPages() throws Exception {
+        assertTrue(extract(new TxtPageExtractor(100), write("blank.txt", " \n\t\n", StandardCharsets.UTF_8)).isEmpty());
+    }
+
+    private Path write(String name, String text, Charset charset) throws Exception {
+        return Files.write(dir.resolve(name), text.getBytes(charset));
+    }
+
+    private static List<String> extract(PageTextExtractor extractor, Path file) throws Exception {
+        List<String> pages = new ArrayList<>();
+        extractor.extract(file, (pageNumber, text) -> {
+            assertEquals(pages.size() + 1, pageNumber);
+            pages.add(text);
+        });
+        return pages;
+    }
+}
@@ -0,0 +1,58 @@
+package com.xichen.wiki.search.query;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询解析器测试类
+ */
+class QueryParserTest {
+
+    private final QueryParser parser = new QueryParser();
+
+    @Test
+    void testTermsPhrasesAndOperators() {
+        assertEquals("(+\"spring\" +\"boot\")", parse("spring boot"));
+        assertEquals("\"spring boot\"", parse("\"spring boot\""));
+        assertEquals("(+\"java\" -\"spring\")", parse("java -spring"));
+        assertEquals("(+\"java\" -\"spring\")", parse("java AND NOT spring"));
+        assertEquals("(-\"java\")", parse("NOT java"));
+        // AND 优先于 OR
+        assertEquals("(\"a\" (+\"b\" +\"c\"))", parse("a OR b AND c"));
+        // 小写 and/or 是普通词
+        assertEquals("(+\"a\" +\"or\" +\"b\")", parse("a or b"));
+    }
+
+    @Test
+    void testFieldsAndPrefix() {
+        assertEquals("(title:\"spring\" author:\"刘慈欣\")", parse("title:spring OR author:刘慈欣"));
+        assertEquals("(+(title:\"spring\" title:\"java\") +spr*)", parse("TITLE:(spring OR java) spr*"));
+        assertEquals("tag:\"spring boot\"", parse("tag:\"spring boot\""));
+        // 不认识的限定符按普通文本处理
+        assertEquals("\"http://example.com\"", parse("http://example.com"));
+    }
+
+    @Test
+    void testLenientParsing() {
+        assertEquals("\"spring boot\"", parse("\"spring boot"));
+        assertEquals("(+\"spring\" +\"boot\")", parse("spring) OR (boot"));
+        assertEquals("\"spring\"", parse("spring AND"));
+        assertNull(parser.parse("AND OR NOT ( ) *"));
+        assertNull(parser.parse("  "));
+    }
+
+    @Test
+    void testClauseLimit() {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < QueryParser.MAX_CLAUSES + 10; i++) {
+            query.append("w").append(i).append(' ');
+        }
+        BooleanQuery parsed = (BooleanQuery) parser.parse(query.toString());
+        assertEquals(QueryParser.MAX_CLAUSES, parsed.getClauses().size());
+    }
+
+    private String parse(String text) {
+        return String.valueOf(parser.parse(text));
+    }
+}
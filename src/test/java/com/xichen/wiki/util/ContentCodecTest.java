@@ -0,0 +1,70 @@
+package com.xichen.wiki.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文本内容存储编解码测试类
+ */
+class ContentCodecTest {
+
+    @Test
+    void testShortContentStoredAsIs() {
+        String content = "# 标题\n\n一段很短的笔记";
+        assertSame(content, ContentCodec.encode(content));
+        assertEquals(content, ContentCodec.decode(content));
+        assertNull(ContentCodec.encode(null));
+        assertNull(ContentCodec.decode(null));
+        assertEquals("", ContentCodec.decode(ContentCodec.encode("")));
+    }
+
+    @Test
+    void testLargeContentCompressed() {
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            markdown.append("## 第").append(i).append("节\n\n这是一段重复度较高的 Markdown 正文，用于验证压缩效果。\n\n");
+        }
+        String content = markdown.toString();
+
+        String stored = ContentCodec.encode(content);
+
+        assertTrue(ContentCodec.isCompressed(stored));
+        assertTrue(stored.length() * 5 < content.getBytes(StandardCharsets.UTF_8).length,
+                "stored length=" + stored.length());
+        assertEquals(content, ContentCodec.decode(stored));
+    }
+
+    @Test
+    void testIncompressibleContentStoredAsIs() {
+        Random random = new Random(7);
+        StringBuilder noise = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        String content = noise.toString();
+
+        assertSame(content, ContentCodec.encode(content));
+    }
+
+    @Test
+    void testLegacyContentStartingWithHeaderIsEscaped() {
+        String content = ContentCodec.HEADER + "Z不是压缩数据";
+
+        String stored = ContentCodec.encode(content);
+
+        assertNotEquals(content, stored);
+        assertFalse(ContentCodec.isCompressed(stored));
+        assertEquals(content, ContentCodec.decode(stored));
+    }
+
+    @Test
+    void testCorruptedDataRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ContentCodec.decode(ContentCodec.HEADER + "Zbm90LWRlZmxhdGU="));
+        assertThrows(IllegalArgumentException.class, () -> ContentCodec.decode(ContentCodec.HEADER + "X"));
+        assertThrows(IllegalArgumentException.class, () -> ContentCodec.decode(String.valueOf(ContentCodec.HEADER)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.xichen.wiki.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETag工具测试类
+ */
+class ETagUtilTest {
+
+    @Test
+    void testWeakFormat() {
+        assertEquals("W/\"d12-3-1\"", ETagUtil.weak("d12", 3, 1));
+        assertEquals("W/\"c-0-\"", ETagUtil.weak("c", 0, null));
+    }
+
+    @Test
+    void testDocumentTagTracksVersionAndFavorite() {
+        assertEquals("W/\"d7-3-0\"", ETagUtil.document(7L, 3, null));
+        assertNotEquals(ETagUtil.document(7L, 3, false), ETagUtil.document(7L, 4, false));
+        assertNotEquals(ETagUtil.document(7L, 3, false), ETagUtil.document(7L, 3, true));
+    }
+
+    @Test
+    void testChecksumStable() {
+        LocalDateTime time = LocalDateTime.of(2024, 9, 25, 12, 0);
+
+        assertEquals(ETagUtil.checksum(time, 5, true), ETagUtil.checksum(time, 5, true));
+        assertNotEquals(ETagUtil.checksum(time, 5, true), ETagUtil.checksum(time, 6, true));
+        assertNotEquals(ETagUtil.checksum(time, 5, true), ETagUtil.checksum(time, 5, false));
+    }
+
+    @Test
+    void testChecksumSeparatesValues() {
+        assertNotEquals(ETagUtil.checksum("1", "23"), ETagUtil.checksum("12", "3"));
+    }
+}
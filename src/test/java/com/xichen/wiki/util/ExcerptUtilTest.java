@@ -0,0 +1,45 @@
+package com.xichen.wiki.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列表摘要工具测试类
+ */
+class ExcerptUtilTest {
+
+    @Test
+    void testMarkdownMarkersStripped() {
+        String markdown = "# 标题\n\n> 引用内容\n\n- 列表项 **加粗** 和 `代码`\n\n[链接文字](https://example.com) ![图](a.png)";
+
+        assertEquals("标题 引用内容 列表项 加粗 和 代码 链接文字", ExcerptUtil.of(markdown, 120));
+    }
+
+    @Test
+    void testLongTextTruncated() {
+        String text = "中".repeat(200);
+
+        String excerpt = ExcerptUtil.of(text, 120);
+
+        assertEquals(120, excerpt.codePointCount(0, excerpt.length()));
+        assertTrue(excerpt.endsWith("…"));
+    }
+
+    @Test
+    void testShortTextKeptWhole() {
+        assertEquals("一段 短文本", ExcerptUtil.of("一段\n\n短文本", 120));
+        assertNull(ExcerptUtil.of(null, 120));
+        assertNull(ExcerptUtil.of("  \n ", 120));
+        assertNull(ExcerptUtil.of("```\n```", 120));
+    }
+
+    @Test
+    void testSurrogatePairsNotSplit() {
+        String text = "😀".repeat(200);
+
+        String excerpt = ExcerptUtil.of(text, 10);
+
+        assertEquals("😀".repeat(9) + "…", excerpt);
+    }
+}
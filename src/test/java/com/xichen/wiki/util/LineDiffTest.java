@@ -0,0 +1,96 @@
+package com.xichen.wiki.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按行差异工具测试类
+ */
+class LineDiffTest {
+
+    @Test
+    void testSplitLinesKeepsTerminators() {
+        assertEquals(List.of("a\n", "b\n", "c"), LineDiff.splitLines("a\nb\nc"));
+        assertEquals(List.of("a\n", "\n"), LineDiff.splitLines("a\n\n"));
+        assertTrue(LineDiff.splitLines("").isEmpty());
+        assertTrue(LineDiff.splitLines(null).isEmpty());
+    }
+
+    @Test
+    void testDeltaOnlyStoresChangedLines() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            base.append("第").append(i).append("行：这是一段比较长的文档内容，用来验证增量大小只和改动有关。\n");
+        }
+        String target = base.toString().replace("第250行", "第250行（已修改）") + "新增的最后一行";
+
+        String delta = LineDiff.delta(base.toString(), target);
+
+        assertTrue(delta.length() < 200, "delta length=" + delta.length());
+        assertEquals(target, LineDiff.apply(base.toString(), delta));
+    }
+
+    @Test
+    void testDeltaRoundTripOnRandomEdits() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < random.nextInt(30); i++) {
+                lines.add("line" + random.nextInt(10) + "\n");
+            }
+            String base = String.join("", lines);
+            for (int i = 0; i < random.nextInt(6); i++) {
+                int position = lines.isEmpty() ? 0 : random.nextInt(lines.size());
+                switch (random.nextInt(3)) {
+                    case 0 -> lines.add(position, "new" + random.nextInt(100) + "\n");
+                    case 1 -> {
+                        if (!lines.isEmpty()) {
+                            lines.remove(position);
+                        }
+                    }
+                    default -> {
+                        if (!lines.isEmpty()) {
+                            lines.set(position, "changed" + random.nextInt(100) + "\n");
+                        }
+                    }
+                }
+            }
+            String target = String.join("", lines) + (random.nextBoolean() ? "tail" : "");
+
+            assertEquals(target, LineDiff.apply(base, LineDiff.delta(base, target)));
+            assertEquals(base, LineDiff.apply(target, LineDiff.delta(target, base)));
+        }
+    }
+
+    @Test
+    void testDiffIsMinimal() {
+        List<LineDiff.Edit> edits = LineDiff.diff(List.of("a", "b", "c", "d"), List.of("a", "x", "c", "d", "e"));
+
+        assertEquals(List.of(new LineDiff.Edit(1, 2, 1, 2), new LineDiff.Edit(4, 4, 4, 5)), edits);
+        assertTrue(LineDiff.diff(List.of("a"), List.of("a")).isEmpty());
+    }
+
+    @Test
+    void testApplyRejectsMismatchedDelta() {
+        assertThrows(IllegalArgumentException.class, () -> LineDiff.apply("a\n", "C0,5\n"));
+        assertThrows(IllegalArgumentException.class, () -> LineDiff.apply("a\n", "I10\nabc"));
+        assertThrows(IllegalArgumentException.class, () -> LineDiff.apply("a\n", "X\n"));
+    }
+
+    @Test
+    void testUnifiedDiff() {
+        String base = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n";
+        String target = "1\n2\n3\n4\nfive\n6\n7\n8\n9\n10\n11\n";
+
+        assertEquals("@@ -2,9 +2,10 @@\n 2\n 3\n 4\n-5\n+five\n 6\n 7\n 8\n 9\n 10\n+11\n",
+                LineDiff.unified(base, target, 3));
+        assertEquals("@@ -4,3 +4,3 @@\n 4\n-5\n+five\n 6\n@@ -10,1 +10,2 @@\n 10\n+11\n",
+                LineDiff.unified(base, target, 1));
+        assertEquals("", LineDiff.unified(base, base, 3));
+    }
+}